@@ -0,0 +1,100 @@
+package com.safebirth.api;
+
+import com.safebirth.api.dto.CaseRollupDto;
+import com.safebirth.api.dto.ZoneHourHeatmapDto;
+import com.safebirth.domain.analytics.RollupGranularity;
+import com.safebirth.domain.helprequest.RequestType;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REST API controller for historical dashboard analytics.
+ * All queries are served from pre-aggregated hourly/daily rollups of closed cases.
+ */
+@RestController
+@RequestMapping("/api/dashboard/analytics")
+@Tag(name = "Analytics", description = "Historical case analytics from rollup tables")
+public class AnalyticsController {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsController.class);
+
+    private final AnalyticsService analyticsService;
+
+    public AnalyticsController(AnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    /**
+     * Get closed case rollups for a date range.
+     *
+     * @param from        first day (inclusive)
+     * @param to          last day (inclusive)
+     * @param granularity HOUR or DAY buckets (default DAY)
+     * @param zone        optional zone filter
+     * @param requestType optional request type filter
+     * @return rollup rows
+     */
+    @GetMapping("/rollups")
+    @Operation(summary = "Get case rollups",
+               description = "Returns closed case counts and average response times per bucket, "
+                       + "keyed by zone, request type, outcome and risk level")
+    public ResponseEntity<List<CaseRollupDto>> getRollups(
+            @Parameter(description = "First day (yyyy-MM-dd)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day, inclusive (yyyy-MM-dd)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Bucket size")
+            @RequestParam(defaultValue = "DAY") RollupGranularity granularity,
+            @Parameter(description = "Filter by zone (e.g., 'ZONE-A')")
+            @RequestParam(required = false) String zone,
+            @Parameter(description = "Filter by request type")
+            @RequestParam(required = false) RequestType requestType
+    ) {
+        log.debug("GET /api/dashboard/analytics/rollups - from={}, to={}, granularity={}, zone={}, requestType={}",
+                from, to, granularity, zone, requestType);
+
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        return ResponseEntity.ok(analyticsService.getRollups(granularity, from, to, zone, requestType));
+    }
+
+    /**
+     * Get a zone x hour-of-day heatmap of closed cases.
+     *
+     * @param from        first day (inclusive)
+     * @param to          last day (inclusive)
+     * @param requestType optional request type filter
+     * @return the heatmap
+     */
+    @GetMapping("/heatmap")
+    @Operation(summary = "Get zone x hour heatmap",
+               description = "Returns closed case counts per zone for each hour of the day over the date range")
+    public ResponseEntity<ZoneHourHeatmapDto> getHeatmap(
+            @Parameter(description = "First day (yyyy-MM-dd)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day, inclusive (yyyy-MM-dd)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Filter by request type")
+            @RequestParam(required = false) RequestType requestType
+    ) {
+        log.debug("GET /api/dashboard/analytics/heatmap - from={}, to={}, requestType={}", from, to, requestType);
+
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        return ResponseEntity.ok(analyticsService.getZoneHourHeatmap(from, to, requestType));
+    }
+}
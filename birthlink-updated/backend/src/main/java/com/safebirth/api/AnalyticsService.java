@@ -0,0 +1,85 @@
+package com.safebirth.api;
+
+import com.safebirth.api.dto.CaseRollupDto;
+import com.safebirth.api.dto.ZoneHourHeatmapDto;
+import com.safebirth.domain.analytics.CaseRollup;
+import com.safebirth.domain.analytics.CaseRollupRepository;
+import com.safebirth.domain.analytics.RollupGranularity;
+import com.safebirth.domain.helprequest.RequestType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Service for historical analytics queries.
+ * Answers date-range questions from the case rollup tables, never from help_requests.
+ */
+@Service
+@Transactional(readOnly = true)
+public class AnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsService.class);
+
+    private static final String UNKNOWN_ZONE = "UNKNOWN";
+
+    private final CaseRollupRepository caseRollupRepository;
+
+    public AnalyticsService(CaseRollupRepository caseRollupRepository) {
+        this.caseRollupRepository = caseRollupRepository;
+    }
+
+    /**
+     * Get rollup buckets for a date range.
+     *
+     * @param granularity hourly or daily buckets
+     * @param from        first day (inclusive)
+     * @param to          last day (inclusive)
+     * @param zone        optional zone filter
+     * @param requestType optional request type filter
+     * @return rollup rows ordered by bucket and zone
+     */
+    public List<CaseRollupDto> getRollups(RollupGranularity granularity, LocalDate from, LocalDate to,
+                                          String zone, RequestType requestType) {
+        log.debug("Loading {} rollups {}..{} zone={} type={}", granularity, from, to, zone, requestType);
+
+        return caseRollupRepository.findInRange(granularity, from.atStartOfDay(), to.plusDays(1).atStartOfDay(),
+                        zone != null ? zone.toUpperCase() : null, requestType)
+                .stream()
+                .map(CaseRollupDto::fromEntity)
+                .toList();
+    }
+
+    /**
+     * Build a zone x hour-of-day heatmap of closed cases for a date range.
+     *
+     * @param from        first day (inclusive)
+     * @param to          last day (inclusive)
+     * @param requestType optional request type filter
+     * @return the heatmap, one row per zone
+     */
+    public ZoneHourHeatmapDto getZoneHourHeatmap(LocalDate from, LocalDate to, RequestType requestType) {
+        List<CaseRollup> hourly = caseRollupRepository.findInRange(RollupGranularity.HOUR,
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay(), null, requestType);
+
+        Map<String, long[]> counts = new TreeMap<>();
+        for (CaseRollup rollup : hourly) {
+            String zone = rollup.getZone() != null ? rollup.getZone() : UNKNOWN_ZONE;
+            counts.computeIfAbsent(zone, z -> new long[24])[rollup.getBucketStart().getHour()] += rollup.getCaseCount();
+        }
+
+        List<ZoneHourHeatmapDto.ZoneRow> rows = new ArrayList<>();
+        counts.forEach((zone, hours) -> rows.add(new ZoneHourHeatmapDto.ZoneRow(
+                zone,
+                Arrays.stream(hours).boxed().toList(),
+                Arrays.stream(hours).sum())));
+        return new ZoneHourHeatmapDto(from, to, requestType, rows);
+    }
+}
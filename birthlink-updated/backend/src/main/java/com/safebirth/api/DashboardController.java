@@ -2,10 +2,14 @@ package com.safebirth.api;
 
 import com.safebirth.api.dto.CaseDto;
 import com.safebirth.api.dto.DashboardStatsDto;
+import com.safebirth.api.dto.SlaStatsDto;
 import com.safebirth.api.dto.VolunteerDto;
 import com.safebirth.api.dto.ZoneStatsDto;
+import com.safebirth.domain.DataVersion;
 import com.safebirth.domain.helprequest.HelpRequestService;
 import com.safebirth.domain.helprequest.RequestStatus;
+import com.safebirth.domain.helprequest.RequestType;
+import com.safebirth.domain.mother.RiskLevel;
 import com.safebirth.domain.volunteer.AvailabilityStatus;
 import com.safebirth.exception.ResourceNotFoundException;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,14 +17,23 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * REST API controller for NGO dashboard operations.
  * Provides endpoints for monitoring and managing maternal care coordination.
+ *
+ * Read endpoints carry an ETag derived from the global data version, so polling clients
+ * sending If-None-Match get a 304 without the aggregates being recomputed.
  */
 @RestController
 @RequestMapping("/api/dashboard")
@@ -31,10 +44,18 @@ public class DashboardController {
 
     private final DashboardService dashboardService;
     private final HelpRequestService helpRequestService;
+    private final DashboardStreamService dashboardStreamService;
+    private final SlaMetricsService slaMetricsService;
+    private final DataVersion dataVersion;
 
-    public DashboardController(DashboardService dashboardService, HelpRequestService helpRequestService) {
+    public DashboardController(DashboardService dashboardService, HelpRequestService helpRequestService,
+                               DashboardStreamService dashboardStreamService, SlaMetricsService slaMetricsService,
+                               DataVersion dataVersion) {
         this.dashboardService = dashboardService;
         this.helpRequestService = helpRequestService;
+        this.dashboardStreamService = dashboardStreamService;
+        this.slaMetricsService = slaMetricsService;
+        this.dataVersion = dataVersion;
     }
 
     /**
@@ -45,9 +66,9 @@ public class DashboardController {
     @GetMapping("/stats")
     @Operation(summary = "Get dashboard statistics",
                description = "Returns comprehensive statistics including totals, distributions by zone/status/skill, and upcoming due dates")
-    public ResponseEntity<DashboardStatsDto> getStats() {
+    public ResponseEntity<DashboardStatsDto> getStats(WebRequest request) {
         log.debug("GET /api/dashboard/stats");
-        return ResponseEntity.ok(dashboardService.getStats());
+        return conditional(request, dashboardService::getStats);
     }
 
     /**
@@ -70,13 +91,13 @@ public class DashboardController {
             @Parameter(description = "Page number (0-based)")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size")
-            @RequestParam(defaultValue = "20") int size
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest request
     ) {
         log.debug("GET /api/dashboard/cases - zone={}, status={}, page={}, size={}",
                 zone, status, page, size);
 
-        List<CaseDto> cases = dashboardService.getCases(zone, status, page, size);
-        return ResponseEntity.ok(cases);
+        return conditional(request, () -> dashboardService.getCases(zone, status, page, size));
     }
 
     /**
@@ -90,14 +111,14 @@ public class DashboardController {
                description = "Returns detailed information about a specific case")
     public ResponseEntity<CaseDto> getCase(
             @Parameter(description = "Case ID (e.g., HR-0001)")
-            @PathVariable String caseId
+            @PathVariable String caseId,
+            WebRequest request
     ) {
         log.debug("GET /api/dashboard/cases/{}", caseId);
 
-        return helpRequestService.findByCaseId(caseId)
+        return conditional(request, () -> helpRequestService.findByCaseId(caseId)
                 .map(CaseDto::fromEntity)
-                .map(ResponseEntity::ok)
-                .orElseThrow(() -> new ResourceNotFoundException("Case", caseId));
+                .orElseThrow(() -> new ResourceNotFoundException("Case", caseId)));
     }
 
     /**
@@ -114,12 +135,12 @@ public class DashboardController {
             @Parameter(description = "Filter by zone coverage")
             @RequestParam(required = false) String zone,
             @Parameter(description = "Filter by availability status")
-            @RequestParam(required = false) AvailabilityStatus availability
+            @RequestParam(required = false) AvailabilityStatus availability,
+            WebRequest request
     ) {
         log.debug("GET /api/dashboard/volunteers - zone={}, availability={}", zone, availability);
 
-        List<VolunteerDto> volunteers = dashboardService.getVolunteers(zone, availability);
-        return ResponseEntity.ok(volunteers);
+        return conditional(request, () -> dashboardService.getVolunteers(zone, availability));
     }
 
     /**
@@ -130,8 +151,76 @@ public class DashboardController {
     @GetMapping("/zones")
     @Operation(summary = "Get zone statistics",
                description = "Returns aggregated statistics for each zone")
-    public ResponseEntity<List<ZoneStatsDto>> getZoneStats() {
+    public ResponseEntity<List<ZoneStatsDto>> getZoneStats(WebRequest request) {
         log.debug("GET /api/dashboard/zones");
-        return ResponseEntity.ok(dashboardService.getZoneStats());
+        return conditional(request, dashboardService::getZoneStats);
+    }
+
+    /**
+     * Get response-time SLA percentiles.
+     *
+     * @param zone        optional zone filter
+     * @param requestType optional request type filter
+     * @param riskLevel   optional risk level filter
+     * @param groupBy     optional dimension to split results by
+     * @return SLA rows, one per group or a single total row
+     */
+    @GetMapping("/sla")
+    @Operation(summary = "Get response-time SLA metrics",
+               description = "Returns p50/p90/p99 time-to-first-alert, time-to-accept and time-to-close in seconds, "
+                       + "optionally filtered and grouped by zone, request type or risk level")
+    public ResponseEntity<List<SlaStatsDto>> getSlaStats(
+            @Parameter(description = "Filter by zone (e.g., 'ZONE-A')")
+            @RequestParam(required = false) String zone,
+            @Parameter(description = "Filter by request type")
+            @RequestParam(required = false) RequestType requestType,
+            @Parameter(description = "Filter by risk level")
+            @RequestParam(required = false) RiskLevel riskLevel,
+            @Parameter(description = "Split results by ZONE, REQUEST_TYPE or RISK_LEVEL")
+            @RequestParam(required = false) SlaMetricsService.GroupBy groupBy
+    ) {
+        log.debug("GET /api/dashboard/sla - zone={}, requestType={}, riskLevel={}, groupBy={}",
+                zone, requestType, riskLevel, groupBy);
+
+        return ResponseEntity.ok(slaMetricsService.getStats(zone, requestType, riskLevel, groupBy));
+    }
+
+    /**
+     * Subscribe to live dashboard updates via Server-Sent Events.
+     * Browsers send Last-Event-ID automatically on reconnect; other clients may pass lastEventId.
+     *
+     * @param lastEventIdHeader the Last-Event-ID header sent by EventSource on reconnect
+     * @param lastEventId       explicit resume point for clients that cannot set headers
+     * @return the event stream
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream dashboard updates",
+               description = "Pushes case created/accepted/completed, volunteer availability and counter deltas. "
+                       + "Reconnecting clients receive only the events they missed, or a 'resync' event if the gap is too large")
+    public SseEmitter streamUpdates(
+            @Parameter(hidden = true)
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventIdHeader,
+            @Parameter(description = "Resume after this event id")
+            @RequestParam(required = false) Long lastEventId
+    ) {
+        Long resumeFrom = lastEventIdHeader != null ? lastEventIdHeader : lastEventId;
+        log.debug("GET /api/dashboard/stream - resumeFrom={}", resumeFrom);
+        return dashboardStreamService.subscribe(resumeFrom);
+    }
+
+    /**
+     * Answer a read with 304 Not Modified when the client's If-None-Match matches the current
+     * data version; otherwise compute the body and tag it. The body supplier is only invoked
+     * when the data actually changed.
+     */
+    private <T> ResponseEntity<T> conditional(WebRequest request, Supplier<T> body) {
+        String etag = dataVersion.etag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(body.get());
     }
 }
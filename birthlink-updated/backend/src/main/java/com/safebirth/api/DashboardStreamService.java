@@ -0,0 +1,249 @@
+package com.safebirth.api;
+
+import com.safebirth.api.dto.DashboardCountersDto;
+import com.safebirth.api.dto.DashboardEventDto;
+import com.safebirth.config.DashboardStreamConfig;
+import com.safebirth.domain.helprequest.HelpRequestEvent;
+import com.safebirth.domain.helprequest.HelpRequestRepository;
+import com.safebirth.domain.helprequest.RequestStatus;
+import com.safebirth.domain.volunteer.AvailabilityStatus;
+import com.safebirth.domain.volunteer.VolunteerAvailabilityEvent;
+import com.safebirth.domain.volunteer.VolunteerRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes compact dashboard deltas to coordinators over Server-Sent Events.
+ *
+ * Every event gets a monotonically increasing id and is kept in a bounded replay buffer,
+ * so a client reconnecting with Last-Event-ID receives only what it missed. If the resume
+ * point has already been evicted (or the server restarted) the client gets a single
+ * "resync" event and should re-fetch /stats and /cases.
+ *
+ * Events are only emitted after the surrounding transaction commits, so coordinators
+ * never see a case that was rolled back. Writing to the emitters happens on a dedicated
+ * thread, so a slow coordinator connection never holds up the committing request.
+ */
+@Service
+public class DashboardStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardStreamService.class);
+
+    private final HelpRequestRepository helpRequestRepository;
+    private final VolunteerRepository volunteerRepository;
+    private final DashboardStreamConfig config;
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    // Guards lastEventId and replayBuffer; fan-out tasks are queued under it so ids reach clients in order
+    private final Object lock = new Object();
+    private final Deque<DashboardEventDto> replayBuffer = new ArrayDeque<>();
+    private long lastEventId = 0;
+
+    // Single thread: sends run in the order they were queued
+    private final ExecutorService fanOutExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "dashboard-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DashboardStreamService(HelpRequestRepository helpRequestRepository,
+                                  VolunteerRepository volunteerRepository,
+                                  DashboardStreamConfig config) {
+        this.helpRequestRepository = helpRequestRepository;
+        this.volunteerRepository = volunteerRepository;
+        this.config = config;
+    }
+
+    /**
+     * Open a new stream for a coordinator.
+     *
+     * @param resumeFrom the last event id the client saw, or null for a fresh connection
+     * @return the emitter bound to the HTTP response
+     */
+    public SseEmitter subscribe(Long resumeFrom) {
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(config.getEmitterTimeoutMinutes()));
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+
+        // Fresh clients get a counters snapshot as their baseline, stamped with the id read
+        // before counting; anything committed while counting is replayed after it
+        long since;
+        DashboardCountersDto snapshot = null;
+        if (resumeFrom == null) {
+            synchronized (lock) {
+                since = lastEventId;
+            }
+            snapshot = computeCounters();
+        } else {
+            since = resumeFrom;
+        }
+
+        synchronized (lock) {
+            List<DashboardEventDto> initial = new ArrayList<>();
+            if (snapshot != null) {
+                initial.add(DashboardEventDto.counters(since, snapshot));
+            }
+            initial.addAll(eventsSince(since));
+            // Queued behind any pending fan-out, so the emitter joins exactly after the last event it was given
+            fanOutExecutor.execute(() -> {
+                for (DashboardEventDto event : initial) {
+                    if (!send(emitter, event)) {
+                        return;
+                    }
+                }
+                emitters.add(emitter);
+                log.info("Dashboard stream subscribed: resumeFrom={}, subscribers={}", resumeFrom, emitters.size());
+            });
+        }
+        return emitter;
+    }
+
+    /**
+     * Publish a help request lifecycle change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHelpRequestEvent(HelpRequestEvent event) {
+        DashboardCountersDto counters = computeCounters();
+        synchronized (lock) {
+            broadcast(DashboardEventDto.fromCaseEvent(++lastEventId, event));
+            broadcast(DashboardEventDto.counters(++lastEventId, counters));
+        }
+    }
+
+    /**
+     * Publish a volunteer availability change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVolunteerAvailabilityEvent(VolunteerAvailabilityEvent event) {
+        DashboardCountersDto counters = computeCounters();
+        synchronized (lock) {
+            broadcast(DashboardEventDto.fromAvailabilityEvent(++lastEventId, event));
+            broadcast(DashboardEventDto.counters(++lastEventId, counters));
+        }
+    }
+
+    /**
+     * Send an SSE comment periodically so proxies and load balancers keep idle streams open.
+     */
+    @Scheduled(fixedRateString = "${dashboard.stream.heartbeat-seconds:20}", timeUnit = TimeUnit.SECONDS)
+    public void sendHeartbeat() {
+        if (emitters.isEmpty()) {
+            return;
+        }
+        fanOutExecutor.execute(() -> {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (Exception e) {
+                    drop(emitter);
+                }
+            }
+        });
+    }
+
+    /**
+     * Get the number of connected stream subscribers.
+     *
+     * @return subscriber count
+     */
+    public int getSubscriberCount() {
+        return emitters.size();
+    }
+
+    /**
+     * Get the events a client resuming from the given id has missed.
+     * Returns a single resync event when the gap can no longer be replayed.
+     *
+     * @param resumeFrom the last event id the client saw
+     * @return events to replay, in order
+     */
+    List<DashboardEventDto> eventsSince(long resumeFrom) {
+        synchronized (lock) {
+            if (resumeFrom > lastEventId) {
+                // Client is ahead of us - the server restarted and ids were reset
+                return List.of(DashboardEventDto.resync(lastEventId));
+            }
+            if (!replayBuffer.isEmpty() && resumeFrom < replayBuffer.peekFirst().id() - 1) {
+                return List.of(DashboardEventDto.resync(lastEventId));
+            }
+            List<DashboardEventDto> missed = new ArrayList<>();
+            for (DashboardEventDto event : replayBuffer) {
+                if (event.id() > resumeFrom) {
+                    missed.add(event);
+                }
+            }
+            return missed;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fanOutExecutor.shutdown();
+    }
+
+    /**
+     * Record the event for replay and queue its delivery. Must be called while holding the lock.
+     */
+    private void broadcast(DashboardEventDto event) {
+        replayBuffer.addLast(event);
+        while (replayBuffer.size() > config.getReplayBufferSize()) {
+            replayBuffer.removeFirst();
+        }
+        fanOutExecutor.execute(() -> {
+            for (SseEmitter emitter : emitters) {
+                send(emitter, event);
+            }
+            log.debug("Dashboard stream event {} {} sent to {} subscriber(s)", event.id(), event.type(), emitters.size());
+        });
+    }
+
+    private boolean send(SseEmitter emitter, DashboardEventDto event) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(event.id()))
+                    .name(event.type())
+                    .data(event));
+            return true;
+        } catch (Exception e) {
+            log.debug("Dropping dashboard stream subscriber: {}", e.getMessage());
+            drop(emitter);
+            return false;
+        }
+    }
+
+    private void drop(SseEmitter emitter) {
+        emitters.remove(emitter);
+        try {
+            emitter.complete();
+        } catch (Exception ignored) {
+            // Already completed by the container
+        }
+    }
+
+    private DashboardCountersDto computeCounters() {
+        long pending = helpRequestRepository.countByStatus(RequestStatus.PENDING);
+        long active = helpRequestRepository.countByStatus(RequestStatus.ACCEPTED)
+                + helpRequestRepository.countByStatus(RequestStatus.IN_PROGRESS);
+        return new DashboardCountersDto(
+                pending,
+                helpRequestRepository.countPendingEmergencies(),
+                active,
+                volunteerRepository.countByStatus(AvailabilityStatus.AVAILABLE));
+    }
+}
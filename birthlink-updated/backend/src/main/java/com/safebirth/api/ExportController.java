@@ -0,0 +1,120 @@
+package com.safebirth.api;
+
+import com.safebirth.domain.helprequest.RequestStatus;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * REST API controller for bulk data export.
+ * Responses are streamed row by row, so exports of any size use constant memory.
+ */
+@RestController
+@RequestMapping("/api/dashboard/export")
+@Tag(name = "Export", description = "Streaming CSV/NDJSON export for the health cluster")
+public class ExportController {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportController.class);
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    /**
+     * Export cases.
+     *
+     * @param format   csv or ndjson
+     * @param zone     optional zone filter
+     * @param status   optional status filter
+     * @param response the HTTP response to stream into
+     */
+    @GetMapping("/cases")
+    @Operation(summary = "Export cases", description = "Streams all cases as CSV or NDJSON with masked phone numbers")
+    public void exportCases(
+            @Parameter(description = "Output format: csv or ndjson")
+            @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "Filter by zone (e.g., 'ZONE-A')")
+            @RequestParam(required = false) String zone,
+            @Parameter(description = "Filter by request status")
+            @RequestParam(required = false) RequestStatus status,
+            HttpServletResponse response
+    ) throws IOException {
+        log.debug("GET /api/dashboard/export/cases - format={}, zone={}, status={}", format, zone, status);
+
+        ExportFormat exportFormat = ExportFormat.from(format);
+        try (Writer writer = openStream(response, exportFormat, "cases")) {
+            exportService.exportCases(exportFormat, zone, status, writer);
+        }
+    }
+
+    /**
+     * Export mother registrations.
+     *
+     * @param format   csv or ndjson
+     * @param zone     optional zone filter
+     * @param response the HTTP response to stream into
+     */
+    @GetMapping("/mothers")
+    @Operation(summary = "Export mothers", description = "Streams all mother registrations as CSV or NDJSON with masked phone numbers")
+    public void exportMothers(
+            @Parameter(description = "Output format: csv or ndjson")
+            @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "Filter by zone (e.g., 'ZONE-A')")
+            @RequestParam(required = false) String zone,
+            HttpServletResponse response
+    ) throws IOException {
+        log.debug("GET /api/dashboard/export/mothers - format={}, zone={}", format, zone);
+
+        ExportFormat exportFormat = ExportFormat.from(format);
+        try (Writer writer = openStream(response, exportFormat, "mothers")) {
+            exportService.exportMothers(exportFormat, zone, writer);
+        }
+    }
+
+    /**
+     * Export volunteer registrations.
+     *
+     * @param format   csv or ndjson
+     * @param response the HTTP response to stream into
+     */
+    @GetMapping("/volunteers")
+    @Operation(summary = "Export volunteers", description = "Streams all volunteers as CSV or NDJSON with masked phone numbers")
+    public void exportVolunteers(
+            @Parameter(description = "Output format: csv or ndjson")
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response
+    ) throws IOException {
+        log.debug("GET /api/dashboard/export/volunteers - format={}", format);
+
+        ExportFormat exportFormat = ExportFormat.from(format);
+        try (Writer writer = openStream(response, exportFormat, "volunteers")) {
+            exportService.exportVolunteers(exportFormat, writer);
+        }
+    }
+
+    private Writer openStream(HttpServletResponse response, ExportFormat format, String name) throws IOException {
+        String filename = name + "-" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + "." + format.getExtension();
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        return new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,193 @@
+package com.safebirth.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safebirth.api.dto.CaseDto;
+import com.safebirth.api.dto.MotherDto;
+import com.safebirth.api.dto.VolunteerDto;
+import com.safebirth.domain.helprequest.HelpRequest;
+import com.safebirth.domain.helprequest.HelpRequestRepository;
+import com.safebirth.domain.helprequest.RequestStatus;
+import com.safebirth.domain.mother.Mother;
+import com.safebirth.domain.mother.MotherRepository;
+import com.safebirth.domain.volunteer.Volunteer;
+import com.safebirth.domain.volunteer.VolunteerRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.RecordComponent;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Streams cases, mothers and volunteers to CSV or NDJSON.
+ *
+ * Rows are read through a JPA Stream with a fetch-size hint, written as they arrive and
+ * detached from the persistence context in batches, so heap use stays flat regardless of
+ * the number of rows. Phone numbers are masked exactly as in the dashboard DTOs.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportService.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    // Characters that make spreadsheet tools treat a cell as a formula
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    // Signed numbers and (masked) phone numbers: no letters, so nothing a formula could call or reference
+    private static final Pattern PLAIN_NUMBER = Pattern.compile("[+-]?[0-9][0-9*.]*");
+
+    private final HelpRequestRepository helpRequestRepository;
+    private final MotherRepository motherRepository;
+    private final VolunteerRepository volunteerRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public ExportService(HelpRequestRepository helpRequestRepository, MotherRepository motherRepository,
+                         VolunteerRepository volunteerRepository, EntityManager entityManager,
+                         ObjectMapper objectMapper) {
+        this.helpRequestRepository = helpRequestRepository;
+        this.motherRepository = motherRepository;
+        this.volunteerRepository = volunteerRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Export cases.
+     *
+     * @param format output format
+     * @param zone   optional zone filter
+     * @param status optional status filter
+     * @param writer destination
+     * @return number of rows written
+     */
+    public long exportCases(ExportFormat format, String zone, RequestStatus status, Writer writer) {
+        try (Stream<HelpRequest> rows = helpRequestRepository.streamForExport(
+                zone != null ? zone.toUpperCase() : null, status)) {
+            return write(format, CaseDto.class, rows, CaseDto::fromEntity, writer);
+        }
+    }
+
+    /**
+     * Export mother registrations.
+     *
+     * @param format output format
+     * @param zone   optional zone filter
+     * @param writer destination
+     * @return number of rows written
+     */
+    public long exportMothers(ExportFormat format, String zone, Writer writer) {
+        try (Stream<Mother> rows = motherRepository.streamForExport(zone != null ? zone.toUpperCase() : null)) {
+            return write(format, MotherDto.class, rows, MotherDto::fromEntity, writer);
+        }
+    }
+
+    /**
+     * Export volunteer registrations.
+     *
+     * @param format output format
+     * @param writer destination
+     * @return number of rows written
+     */
+    public long exportVolunteers(ExportFormat format, Writer writer) {
+        try (Stream<Volunteer> rows = volunteerRepository.streamForExport()) {
+            return write(format, VolunteerDto.class, rows, VolunteerDto::fromEntity, writer);
+        }
+    }
+
+    private <E, D extends Record> long write(ExportFormat format, Class<D> type, Stream<E> rows,
+                                             Function<E, D> mapper, Writer writer) {
+        RecordComponent[] columns = type.getRecordComponents();
+        long count = 0;
+        try {
+            if (format == ExportFormat.CSV) {
+                writer.write(csvHeader(columns));
+            }
+            Iterator<E> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                D dto = mapper.apply(iterator.next());
+                writer.write(format == ExportFormat.CSV ? csvRow(columns, dto) : ndjsonRow(dto));
+                if (++count % BATCH_SIZE == 0) {
+                    // Release written entities so the persistence context does not grow with the export
+                    entityManager.clear();
+                    writer.flush();
+                }
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Export of " + type.getSimpleName() + " aborted after " + count + " rows", e);
+        }
+        log.info("📤 Exported {} {} rows as {}", count, type.getSimpleName(), format);
+        return count;
+    }
+
+    private String ndjsonRow(Record dto) throws IOException {
+        return objectMapper.writeValueAsString(dto) + "\n";
+    }
+
+    private String csvHeader(RecordComponent[] columns) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(columns[i].getName());
+        }
+        return line.append("\r\n").toString();
+    }
+
+    private String csvRow(RecordComponent[] columns, Record dto) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(csvValue(readComponent(columns[i], dto)));
+        }
+        return line.append("\r\n").toString();
+    }
+
+    private Object readComponent(RecordComponent component, Record dto) {
+        try {
+            return component.getAccessor().invoke(dto);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot read " + component.getName(), e);
+        }
+    }
+
+    /**
+     * Format a value as an RFC 4180 CSV field. Values starting with '=', '+', '-', '@', tab or
+     * carriage return are prefixed with a quote so spreadsheet tools do not evaluate SMS-supplied
+     * text as a formula. Plain numbers are left alone so phone numbers such as "+96279111****"
+     * stay readable; without letters they cannot call a function or reference another sheet.
+     */
+    private String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof Collection<?> collection
+                ? collection.stream().map(String::valueOf).sorted().collect(Collectors.joining(";"))
+                : value.toString();
+        if (!text.isEmpty() && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0
+                && !PLAIN_NUMBER.matcher(text).matches()) {
+            text = "'" + text;
+        }
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
@@ -0,0 +1,243 @@
+package com.safebirth.api;
+
+import com.safebirth.api.dto.LatencyStatsDto;
+import com.safebirth.api.dto.SlaStatsDto;
+import com.safebirth.domain.helprequest.HelpRequestEvent;
+import com.safebirth.domain.helprequest.HelpRequestRepository;
+import com.safebirth.domain.helprequest.RequestStatus;
+import com.safebirth.domain.helprequest.RequestType;
+import com.safebirth.domain.helprequest.SlaHistoryRow;
+import com.safebirth.domain.mother.RiskLevel;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Tracks response-time SLA histograms per zone, request type and risk level.
+ *
+ * Histograms are updated incrementally from help request lifecycle events and
+ * rebuilt from the database on startup, so queries never scan the requests table.
+ * Each histogram has a fixed memory footprint (2 significant digits, up to 90 days).
+ *
+ * The startup load streams a projection of the requests and counts only intervals that ended
+ * before it started. Events that arrive until it finishes are held back, and afterwards only
+ * those ending at or after that watermark are recorded, so no interval is counted twice.
+ */
+@Service
+public class SlaMetricsService {
+
+    private static final Logger log = LoggerFactory.getLogger(SlaMetricsService.class);
+
+    private static final long HIGHEST_TRACKABLE_SECONDS = TimeUnit.DAYS.toSeconds(90);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    /**
+     * Measured intervals, all relative to the request's creation time.
+     */
+    public enum Metric {
+        TIME_TO_FIRST_ALERT,
+        TIME_TO_ACCEPT,
+        TIME_TO_CLOSE
+    }
+
+    /**
+     * Dimension used to split SLA results into rows.
+     */
+    public enum GroupBy {
+        ZONE,
+        REQUEST_TYPE,
+        RISK_LEVEL
+    }
+
+    private record SliceKey(String zone, RequestType requestType, RiskLevel riskLevel) {
+    }
+
+    private final HelpRequestRepository helpRequestRepository;
+
+    private final Map<SliceKey, Map<Metric, Histogram>> histograms = new ConcurrentHashMap<>();
+
+    // Events received before the history load finished; null once it has
+    private List<HelpRequestEvent> heldEvents = new ArrayList<>();
+
+    public SlaMetricsService(HelpRequestRepository helpRequestRepository) {
+        this.helpRequestRepository = helpRequestRepository;
+    }
+
+    /**
+     * Rebuild the histograms from existing requests after startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadHistory() {
+        LocalDateTime watermark = LocalDateTime.now();
+        long loaded = 0;
+        boolean complete = false;
+        try (Stream<SlaHistoryRow> rows = helpRequestRepository.streamSlaHistory()) {
+            for (SlaHistoryRow row : (Iterable<SlaHistoryRow>) rows::iterator) {
+                SliceKey key = new SliceKey(row.zone(), row.requestType(), row.riskLevel());
+                recordBefore(watermark, key, Metric.TIME_TO_FIRST_ALERT, row.createdAt(), row.firstAlertAt());
+                recordBefore(watermark, key, Metric.TIME_TO_ACCEPT, row.createdAt(), row.acceptedAt());
+                if (row.status() == RequestStatus.COMPLETED) {
+                    recordBefore(watermark, key, Metric.TIME_TO_CLOSE, row.createdAt(), row.closedAt());
+                }
+                loaded++;
+            }
+            complete = true;
+            log.info("📊 SLA histograms loaded from {} help requests", loaded);
+        } finally {
+            releaseHeldEvents(watermark, complete);
+        }
+    }
+
+    /**
+     * Record the events held back during the load: those the load already counted are skipped,
+     * unless it failed part way.
+     */
+    private void releaseHeldEvents(LocalDateTime watermark, boolean loadComplete) {
+        List<HelpRequestEvent> held;
+        synchronized (this) {
+            held = heldEvents != null ? heldEvents : List.of();
+            heldEvents = null;
+        }
+        held.stream()
+                .filter(event -> !loadComplete || !ended(event).isBefore(watermark))
+                .forEach(this::apply);
+    }
+
+    /**
+     * Record the interval completed by a lifecycle transition.
+     * Cancelled requests are not counted towards time-to-close.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHelpRequestEvent(HelpRequestEvent event) {
+        synchronized (this) {
+            if (heldEvents != null) {
+                heldEvents.add(event);
+                return;
+            }
+        }
+        apply(event);
+    }
+
+    private LocalDateTime ended(HelpRequestEvent event) {
+        LocalDateTime ended = switch (event.type()) {
+            case ALERTED -> event.firstAlertAt();
+            case ACCEPTED -> event.acceptedAt();
+            case COMPLETED -> event.closedAt();
+            default -> null;
+        };
+        return ended != null ? ended : LocalDateTime.MAX;
+    }
+
+    private void apply(HelpRequestEvent event) {
+        SliceKey key = new SliceKey(event.zone(), event.requestType(), event.riskLevel());
+        switch (event.type()) {
+            case ALERTED -> record(key, Metric.TIME_TO_FIRST_ALERT, event.createdAt(), event.firstAlertAt());
+            case ACCEPTED -> record(key, Metric.TIME_TO_ACCEPT, event.createdAt(), event.acceptedAt());
+            case COMPLETED -> record(key, Metric.TIME_TO_CLOSE, event.createdAt(), event.closedAt());
+            default -> {
+                // CREATED, STARTED and CANCELLED do not complete a measured interval
+            }
+        }
+    }
+
+    /**
+     * Get SLA percentiles for the requests matching the filters.
+     *
+     * @param zone        optional zone filter
+     * @param requestType optional request type filter
+     * @param riskLevel   optional risk level filter
+     * @param groupBy     optional dimension to split the results by; null for a single total row
+     * @return one row per group, or a single row when not grouped
+     */
+    public List<SlaStatsDto> getStats(String zone, RequestType requestType, RiskLevel riskLevel, GroupBy groupBy) {
+        Map<SliceKey, List<Map<Metric, Histogram>>> groups = new LinkedHashMap<>();
+        if (groupBy == null) {
+            groups.put(new SliceKey(zone, requestType, riskLevel), new ArrayList<>());
+        }
+
+        histograms.entrySet().stream()
+                .filter(e -> zone == null || zone.equalsIgnoreCase(e.getKey().zone()))
+                .filter(e -> requestType == null || requestType == e.getKey().requestType())
+                .filter(e -> riskLevel == null || riskLevel == e.getKey().riskLevel())
+                .sorted(Map.Entry.comparingByKey(Comparator.comparing(SliceKey::toString)))
+                .forEach(e -> groups.computeIfAbsent(groupKey(e.getKey(), zone, requestType, riskLevel, groupBy),
+                        k -> new ArrayList<>()).add(e.getValue()));
+
+        List<SlaStatsDto> result = new ArrayList<>();
+        groups.forEach((key, slices) -> result.add(new SlaStatsDto(
+                key.zone(),
+                key.requestType(),
+                key.riskLevel(),
+                summarize(slices, Metric.TIME_TO_FIRST_ALERT),
+                summarize(slices, Metric.TIME_TO_ACCEPT),
+                summarize(slices, Metric.TIME_TO_CLOSE))));
+        return result;
+    }
+
+    private SliceKey groupKey(SliceKey slice, String zone, RequestType requestType, RiskLevel riskLevel,
+                              GroupBy groupBy) {
+        if (groupBy == null) {
+            return new SliceKey(zone, requestType, riskLevel);
+        }
+        return switch (groupBy) {
+            case ZONE -> new SliceKey(slice.zone(), requestType, riskLevel);
+            case REQUEST_TYPE -> new SliceKey(zone, slice.requestType(), riskLevel);
+            case RISK_LEVEL -> new SliceKey(zone, requestType, slice.riskLevel());
+        };
+    }
+
+    private void recordBefore(LocalDateTime watermark, SliceKey key, Metric metric,
+                              LocalDateTime from, LocalDateTime to) {
+        if (to != null && to.isBefore(watermark)) {
+            record(key, metric, from, to);
+        }
+    }
+
+    private void record(SliceKey key, Metric metric, LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            return;
+        }
+        long seconds = Math.max(0, Duration.between(from, to).toSeconds());
+        Histogram histogram = histograms
+                .computeIfAbsent(key, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(metric, m -> new ConcurrentHistogram(HIGHEST_TRACKABLE_SECONDS, SIGNIFICANT_DIGITS));
+        histogram.recordValue(Math.min(seconds, HIGHEST_TRACKABLE_SECONDS));
+    }
+
+    private LatencyStatsDto summarize(List<Map<Metric, Histogram>> slices, Metric metric) {
+        Histogram combined = new Histogram(HIGHEST_TRACKABLE_SECONDS, SIGNIFICANT_DIGITS);
+        slices.stream()
+                .map(slice -> slice.get(metric))
+                .filter(Objects::nonNull)
+                .forEach(combined::add);
+
+        if (combined.getTotalCount() == 0) {
+            return LatencyStatsDto.empty();
+        }
+        return new LatencyStatsDto(
+                combined.getTotalCount(),
+                combined.getValueAtPercentile(50.0),
+                combined.getValueAtPercentile(90.0),
+                combined.getValueAtPercentile(99.0),
+                combined.getMaxValue());
+    }
+}
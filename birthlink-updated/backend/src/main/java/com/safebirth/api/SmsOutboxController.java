@@ -0,0 +1,161 @@
+package com.safebirth.api;
+
+import com.safebirth.api.dto.OutboundSmsDto;
+import com.safebirth.api.dto.OutboxClassStatsDto;
+import com.safebirth.sms.gateway.RoutingSmsGateway;
+import com.safebirth.sms.gateway.SmsMessageOptimizer;
+import com.safebirth.sms.gateway.websocket.PendingRequestTracker;
+import com.safebirth.sms.gateway.websocket.SmsGatewayWebSocketHandler;
+import com.safebirth.sms.outbox.OutboundSmsStatus;
+import com.safebirth.sms.outbox.SmsDeliveryTracker;
+import com.safebirth.sms.outbox.SmsOutboxService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST API controller for monitoring the outbound SMS outbox.
+ */
+@RestController
+@RequestMapping("/api/dashboard/outbox")
+@Tag(name = "SMS Outbox", description = "Outbound SMS queue monitoring and dead-letter handling")
+public class SmsOutboxController {
+
+    private static final Logger log = LoggerFactory.getLogger(SmsOutboxController.class);
+
+    private final SmsOutboxService smsOutboxService;
+    private final SmsGatewayWebSocketHandler smsGatewayHandler;
+    private final SmsDeliveryTracker deliveryTracker;
+    private final RoutingSmsGateway routingGateway;
+
+    public SmsOutboxController(SmsOutboxService smsOutboxService, SmsGatewayWebSocketHandler smsGatewayHandler,
+                               SmsDeliveryTracker deliveryTracker, RoutingSmsGateway routingGateway) {
+        this.smsOutboxService = smsOutboxService;
+        this.smsGatewayHandler = smsGatewayHandler;
+        this.deliveryTracker = deliveryTracker;
+        this.routingGateway = routingGateway;
+    }
+
+    /**
+     * Get outbox message counts by status.
+     *
+     * @return counts for PENDING, SENDING, SENT, DELIVERED, UNDELIVERED and DEAD
+     */
+    @GetMapping("/stats")
+    @Operation(summary = "Outbox statistics", description = "Number of outbound SMS in each delivery state")
+    public ResponseEntity<Map<OutboundSmsStatus, Long>> getStats() {
+        log.debug("GET /api/dashboard/outbox/stats");
+        return ResponseEntity.ok(smsOutboxService.getStatusCounts());
+    }
+
+    /**
+     * Get queue depth and wait time per priority class.
+     *
+     * @return one entry per class, highest priority first
+     */
+    @GetMapping("/priorities")
+    @Operation(summary = "Priority class statistics",
+            description = "Pending count, oldest pending age and queue-wait percentiles per priority class")
+    public ResponseEntity<List<OutboxClassStatsDto>> getClassStats() {
+        log.debug("GET /api/dashboard/outbox/priorities");
+        return ResponseEntity.ok(smsOutboxService.getClassStats());
+    }
+
+    /**
+     * Get segment counts of outbound messages before and after optimisation.
+     *
+     * @return optimiser statistics since startup
+     */
+    @GetMapping("/segments")
+    @Operation(summary = "Segment statistics",
+            description = "SMS segments as written and as sent after emoji removal and template selection")
+    public ResponseEntity<SmsMessageOptimizer.Stats> getSegmentStats() {
+        log.debug("GET /api/dashboard/outbox/segments");
+        return ResponseEntity.ok(smsOutboxService.getSegmentStats());
+    }
+
+    /**
+     * Get command counts and confirmation latency of the Android gateway phones.
+     *
+     * @return gateway statistics since startup
+     */
+    @GetMapping("/gateway")
+    @Operation(summary = "Android gateway statistics",
+            description = "In-flight, confirmed, failed and timed-out WebSocket commands and confirmation latency")
+    public ResponseEntity<PendingRequestTracker.Stats> getGatewayStats() {
+        log.debug("GET /api/dashboard/outbox/gateway");
+        return ResponseEntity.ok(smsGatewayHandler.getDeliveryStats());
+    }
+
+    /**
+     * Get the health, score and routing counts of each SMS route.
+     *
+     * @return routing statistics since startup
+     */
+    @GetMapping("/routing")
+    @Operation(summary = "Routing statistics",
+            description = "Availability, success rate, latency, score and routed/failed-over counts per SMS route")
+    public ResponseEntity<RoutingSmsGateway.Stats> getRoutingStats() {
+        log.debug("GET /api/dashboard/outbox/routing");
+        return ResponseEntity.ok(routingGateway.getStats());
+    }
+
+    /**
+     * Get delivery report counts and time to deliver per priority class.
+     *
+     * @return delivery statistics since startup
+     */
+    @GetMapping("/delivery")
+    @Operation(summary = "Delivery statistics",
+            description = "Delivered, undelivered and re-sent messages and send-to-delivery percentiles per priority class")
+    public ResponseEntity<SmsDeliveryTracker.Stats> getDeliveryStats() {
+        log.debug("GET /api/dashboard/outbox/delivery");
+        return ResponseEntity.ok(deliveryTracker.getStats());
+    }
+
+    /**
+     * List dead-lettered messages.
+     *
+     * @param limit maximum number of messages
+     * @return dead messages, newest first
+     */
+    @GetMapping("/dead")
+    @Operation(summary = "Dead letters", description = "Outbound SMS that could not be delivered after all retries")
+    public ResponseEntity<List<OutboundSmsDto>> getDeadLetters(
+            @Parameter(description = "Maximum number of messages (1-500)")
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        log.debug("GET /api/dashboard/outbox/dead - limit={}", limit);
+        if (limit < 1 || limit > 500) {
+            throw new IllegalArgumentException("limit must be between 1 and 500");
+        }
+        return ResponseEntity.ok(smsOutboxService.getDeadLetters(limit).stream()
+                .map(OutboundSmsDto::fromEntity)
+                .toList());
+    }
+
+    /**
+     * Retry a dead-lettered message.
+     *
+     * @param id the outbox message id
+     * @return the requeued message
+     */
+    @PostMapping("/{id}/retry")
+    @Operation(summary = "Retry dead letter", description = "Put a dead-lettered SMS back in the queue")
+    public ResponseEntity<OutboundSmsDto> retry(@PathVariable Long id) {
+        log.info("POST /api/dashboard/outbox/{}/retry", id);
+        return ResponseEntity.ok(OutboundSmsDto.fromEntity(smsOutboxService.requeue(id)));
+    }
+}
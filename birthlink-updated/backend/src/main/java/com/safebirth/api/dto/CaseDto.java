@@ -58,7 +58,13 @@ public record CaseDto(
         return new CaseDtoBuilder();
     }
 
-    private static String maskPhone(String phone) {
+    /**
+     * Mask the last four digits of a phone number for display and export.
+     *
+     * @param phone the phone number
+     * @return the masked number
+     */
+    public static String maskPhone(String phone) {
         if (phone == null || phone.length() < 4) return "***";
         return phone.substring(0, phone.length() - 4) + "****";
     }
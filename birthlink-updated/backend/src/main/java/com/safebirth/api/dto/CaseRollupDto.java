@@ -0,0 +1,44 @@
+package com.safebirth.api.dto;
+
+import com.safebirth.domain.analytics.CaseRollup;
+import com.safebirth.domain.helprequest.RequestStatus;
+import com.safebirth.domain.helprequest.RequestType;
+import com.safebirth.domain.mother.RiskLevel;
+
+import java.time.LocalDateTime;
+
+/**
+ * One historical rollup bucket for analytics queries.
+ * Averages are in seconds and null when no case in the bucket reached that stage.
+ */
+public record CaseRollupDto(
+        LocalDateTime bucketStart,
+        String zone,
+        RequestType requestType,
+        RequestStatus outcome,
+        RiskLevel riskLevel,
+        long caseCount,
+        long acceptedCount,
+        Long avgSecondsToAccept,
+        Long avgSecondsToClose
+) {
+    /**
+     * Create a DTO from a CaseRollup entity.
+     *
+     * @param rollup the rollup
+     * @return the DTO
+     */
+    public static CaseRollupDto fromEntity(CaseRollup rollup) {
+        return new CaseRollupDto(
+                rollup.getBucketStart(),
+                rollup.getZone(),
+                rollup.getRequestType(),
+                rollup.getOutcome(),
+                rollup.getRiskLevel(),
+                rollup.getCaseCount(),
+                rollup.getAcceptedCount(),
+                rollup.getAcceptedCount() > 0 ? rollup.getTotalSecondsToAccept() / rollup.getAcceptedCount() : null,
+                rollup.getCaseCount() > 0 ? rollup.getTotalSecondsToClose() / rollup.getCaseCount() : null
+        );
+    }
+}
@@ -0,0 +1,13 @@
+package com.safebirth.api.dto;
+
+/**
+ * Headline counters pushed over the dashboard stream after every change.
+ * A cheap subset of DashboardStatsDto computed with count queries only.
+ */
+public record DashboardCountersDto(
+        long pendingRequests,
+        long pendingEmergencies,
+        long activeRequests,
+        long availableVolunteers
+) {
+}
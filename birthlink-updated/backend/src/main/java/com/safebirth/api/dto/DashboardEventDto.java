@@ -0,0 +1,96 @@
+package com.safebirth.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.safebirth.domain.helprequest.HelpRequestEvent;
+import com.safebirth.domain.helprequest.RequestStatus;
+import com.safebirth.domain.helprequest.RequestType;
+import com.safebirth.domain.mother.RiskLevel;
+import com.safebirth.domain.volunteer.AvailabilityStatus;
+import com.safebirth.domain.volunteer.VolunteerAvailabilityEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * Compact delta event pushed to coordinators over /api/dashboard/stream.
+ * Only the fields relevant to the event type are populated; nulls are omitted from the JSON.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DashboardEventDto(
+        long id,
+        String type,
+        LocalDateTime timestamp,
+        String caseId,
+        String zone,
+        RequestType requestType,
+        RequestStatus status,
+        RiskLevel riskLevel,
+        String volunteerId,
+        AvailabilityStatus availability,
+        DashboardCountersDto counters
+) {
+    public static final String CASE_CREATED = "case.created";
+    public static final String CASE_ALERTED = "case.alerted";
+    public static final String CASE_ACCEPTED = "case.accepted";
+    public static final String CASE_STARTED = "case.started";
+    public static final String CASE_COMPLETED = "case.completed";
+    public static final String CASE_CANCELLED = "case.cancelled";
+    public static final String VOLUNTEER_AVAILABILITY = "volunteer.availability";
+    public static final String COUNTERS = "counters";
+    public static final String RESYNC = "resync";
+
+    /**
+     * Create a case event from a help request lifecycle event.
+     *
+     * @param id    the stream sequence id
+     * @param event the domain event
+     * @return the DTO
+     */
+    public static DashboardEventDto fromCaseEvent(long id, HelpRequestEvent event) {
+        String type = switch (event.type()) {
+            case CREATED -> CASE_CREATED;
+            case ALERTED -> CASE_ALERTED;
+            case ACCEPTED -> CASE_ACCEPTED;
+            case STARTED -> CASE_STARTED;
+            case COMPLETED -> CASE_COMPLETED;
+            case CANCELLED -> CASE_CANCELLED;
+        };
+        return new DashboardEventDto(id, type, LocalDateTime.now(), event.caseId(), event.zone(),
+                event.requestType(), event.status(), event.riskLevel(), null, null, null);
+    }
+
+    /**
+     * Create a volunteer availability event.
+     *
+     * @param id    the stream sequence id
+     * @param event the domain event
+     * @return the DTO
+     */
+    public static DashboardEventDto fromAvailabilityEvent(long id, VolunteerAvailabilityEvent event) {
+        return new DashboardEventDto(id, VOLUNTEER_AVAILABILITY, event.occurredAt(), null, null,
+                null, null, null, event.formattedId(), event.current(), null);
+    }
+
+    /**
+     * Create a counters update event.
+     *
+     * @param id       the stream sequence id
+     * @param counters the current counters
+     * @return the DTO
+     */
+    public static DashboardEventDto counters(long id, DashboardCountersDto counters) {
+        return new DashboardEventDto(id, COUNTERS, LocalDateTime.now(), null, null,
+                null, null, null, null, null, counters);
+    }
+
+    /**
+     * Create a resync marker telling the client its resume point is gone
+     * and it should re-fetch /stats and /cases before applying further deltas.
+     *
+     * @param id the stream sequence id
+     * @return the DTO
+     */
+    public static DashboardEventDto resync(long id) {
+        return new DashboardEventDto(id, RESYNC, LocalDateTime.now(), null, null,
+                null, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,22 @@
+package com.safebirth.api.dto;
+
+/**
+ * Latency percentiles for one SLA metric, in seconds.
+ * Percentiles are null when no samples have been recorded yet.
+ */
+public record LatencyStatsDto(
+        long count,
+        Long p50Seconds,
+        Long p90Seconds,
+        Long p99Seconds,
+        Long maxSeconds
+) {
+    /**
+     * Create an empty result for a metric with no samples.
+     *
+     * @return the empty DTO
+     */
+    public static LatencyStatsDto empty() {
+        return new LatencyStatsDto(0, null, null, null, null);
+    }
+}
@@ -0,0 +1,49 @@
+package com.safebirth.api.dto;
+
+import com.safebirth.domain.mother.Language;
+import com.safebirth.domain.mother.Mother;
+import com.safebirth.domain.mother.RiskLevel;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Mother registration DTO for exports. Phone numbers are masked.
+ */
+public record MotherDto(
+        Long id,
+        String formattedId,
+        String phoneNumber,
+        String name,
+        Integer age,
+        String camp,
+        String zone,
+        LocalDate dueDate,
+        RiskLevel riskLevel,
+        Language preferredLanguage,
+        LocalDateTime registeredAt,
+        LocalDateTime lastContactAt
+) {
+    /**
+     * Create a MotherDto from a Mother entity.
+     *
+     * @param mother the mother
+     * @return the DTO
+     */
+    public static MotherDto fromEntity(Mother mother) {
+        return new MotherDto(
+                mother.getId(),
+                mother.getFormattedId(),
+                CaseDto.maskPhone(mother.getPhoneNumber()),
+                mother.getName(),
+                mother.getAge(),
+                mother.getCamp(),
+                mother.getZone(),
+                mother.getDueDate(),
+                mother.getRiskLevel(),
+                mother.getPreferredLanguage(),
+                mother.getRegisteredAt(),
+                mother.getLastContactAt()
+        );
+    }
+}
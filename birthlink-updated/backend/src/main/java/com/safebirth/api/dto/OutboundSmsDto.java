@@ -0,0 +1,46 @@
+package com.safebirth.api.dto;
+
+import com.safebirth.sms.outbox.OutboundSms;
+import com.safebirth.sms.outbox.OutboundSmsStatus;
+import com.safebirth.sms.outbox.SmsPriority;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox message DTO for the operations API. Phone numbers are masked.
+ */
+public record OutboundSmsDto(
+        Long id,
+        String to,
+        String body,
+        int segments,
+        OutboundSmsStatus status,
+        SmsPriority priority,
+        int attempts,
+        LocalDateTime createdAt,
+        LocalDateTime lastAttemptAt,
+        LocalDateTime nextAttemptAt,
+        String lastError
+) {
+    /**
+     * Create an OutboundSmsDto from an outbox entity.
+     *
+     * @param message the outbox message
+     * @return the DTO
+     */
+    public static OutboundSmsDto fromEntity(OutboundSms message) {
+        return new OutboundSmsDto(
+                message.getId(),
+                CaseDto.maskPhone(message.getToPhone()),
+                message.getBody(),
+                message.getSegments(),
+                message.getStatus(),
+                message.getPriority(),
+                message.getAttempts(),
+                message.getCreatedAt(),
+                message.getLastAttemptAt(),
+                message.getNextAttemptAt(),
+                message.getLastError()
+        );
+    }
+}
@@ -0,0 +1,17 @@
+package com.safebirth.api.dto;
+
+import com.safebirth.sms.outbox.SmsPriority;
+
+/**
+ * Outbound SMS queue statistics for one priority class.
+ */
+public record OutboxClassStatsDto(
+        SmsPriority priority,
+        long pending,
+        long oldestPendingSeconds,
+        long sent,
+        long p50WaitMillis,
+        long p99WaitMillis,
+        long maxWaitMillis
+) {
+}
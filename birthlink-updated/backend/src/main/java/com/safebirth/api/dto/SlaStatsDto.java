@@ -0,0 +1,18 @@
+package com.safebirth.api.dto;
+
+import com.safebirth.domain.helprequest.RequestType;
+import com.safebirth.domain.mother.RiskLevel;
+
+/**
+ * Response-time SLA figures for a slice of help requests.
+ * A null zone, request type or risk level means the row covers all values of that dimension.
+ */
+public record SlaStatsDto(
+        String zone,
+        RequestType requestType,
+        RiskLevel riskLevel,
+        LatencyStatsDto timeToFirstAlert,
+        LatencyStatsDto timeToAccept,
+        LatencyStatsDto timeToClose
+) {
+}
@@ -0,0 +1,26 @@
+package com.safebirth.api.dto;
+
+import com.safebirth.domain.helprequest.RequestType;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Closed case counts per zone and hour of day (0-23) over a date range.
+ */
+public record ZoneHourHeatmapDto(
+        LocalDate from,
+        LocalDate to,
+        RequestType requestType,
+        List<ZoneRow> rows
+) {
+    /**
+     * Heatmap row for a single zone.
+     *
+     * @param zone         the zone
+     * @param hourlyCounts 24 counts, index = hour of day
+     * @param total        sum of all hours
+     */
+    public record ZoneRow(String zone, List<Long> hourlyCounts, long total) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.safebirth.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for the dashboard Server-Sent Events stream.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "dashboard.stream")
+public class DashboardStreamConfig {
+
+    /**
+     * Number of recent events kept for replay to reconnecting clients.
+     */
+    private int replayBufferSize = 500;
+
+    /**
+     * Minutes before an idle SSE connection is closed by the server.
+     * The browser EventSource reconnects automatically with Last-Event-ID.
+     */
+    private long emitterTimeoutMinutes = 30;
+
+    public int getReplayBufferSize() {
+        return replayBufferSize;
+    }
+
+    public void setReplayBufferSize(int replayBufferSize) {
+        this.replayBufferSize = replayBufferSize;
+    }
+
+    public long getEmitterTimeoutMinutes() {
+        return emitterTimeoutMinutes;
+    }
+
+    public void setEmitterTimeoutMinutes(long emitterTimeoutMinutes) {
+        this.emitterTimeoutMinutes = emitterTimeoutMinutes;
+    }
+}
@@ -0,0 +1,27 @@
+package com.safebirth.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for emergency intake.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "emergency")
+public class EmergencyConfig {
+
+    /**
+     * Minutes during which a repeat EMERGENCY from a mother or her linked household phone
+     * is attached to her open case instead of opening a new one and alerting volunteers again.
+     * 0 disables coalescing.
+     */
+    private int coalesceWindowMinutes = 30;
+
+    public int getCoalesceWindowMinutes() {
+        return coalesceWindowMinutes;
+    }
+
+    public void setCoalesceWindowMinutes(int coalesceWindowMinutes) {
+        this.coalesceWindowMinutes = coalesceWindowMinutes;
+    }
+}
@@ -0,0 +1,140 @@
+package com.safebirth.config;
+
+import com.safebirth.sms.inbound.KeyedMailboxExecutor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for inbound SMS processing.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "sms.inbound")
+public class InboundSmsConfig {
+
+    /**
+     * When true, the Twilio webhook stores the message and acknowledges immediately;
+     * processing and the reply happen on a worker pool.
+     */
+    private boolean asyncAck = false;
+
+    /**
+     * Number of worker threads processing inbound messages.
+     * Messages from the same sender are always processed one at a time, in order.
+     */
+    private int workerThreads = 4;
+
+    /**
+     * Maximum number of messages waiting for a worker across all senders.
+     */
+    private int queueCapacity = 500;
+
+    /**
+     * Maximum number of messages waiting for a worker from a single sender.
+     */
+    private int maxPendingPerSender = 20;
+
+    /**
+     * Seconds a stored message may wait before the retry sweep re-submits it.
+     */
+    private int retryAfterSeconds = 30;
+
+    /**
+     * Seconds after which a message stuck in PROCESSING (e.g. after a crash) is processed again.
+     */
+    private int processingTimeoutSeconds = 300;
+
+    /**
+     * Seconds a provider message id is remembered to suppress redelivered messages.
+     */
+    private int dedupIdTtlSeconds = 3600;
+
+    /**
+     * Seconds within which a message without a provider id, with the same sender and body,
+     * counts as a duplicate. 0 (the default) disables the content-hash fallback, since it would
+     * also drop a deliberately repeated short reply such as "1" or "YES".
+     */
+    private int dedupWindowSeconds = 0;
+
+    /**
+     * Maximum number of remembered message keys of each kind; the oldest are evicted first.
+     */
+    private int dedupMaxEntries = 10000;
+
+    @Bean(destroyMethod = "shutdown")
+    public KeyedMailboxExecutor inboundSmsMailbox() {
+        return new KeyedMailboxExecutor("sms-inbound-", workerThreads, maxPendingPerSender, queueCapacity);
+    }
+
+    public boolean isAsyncAck() {
+        return asyncAck;
+    }
+
+    public void setAsyncAck(boolean asyncAck) {
+        this.asyncAck = asyncAck;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public void setWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getMaxPendingPerSender() {
+        return maxPendingPerSender;
+    }
+
+    public void setMaxPendingPerSender(int maxPendingPerSender) {
+        this.maxPendingPerSender = maxPendingPerSender;
+    }
+
+    public int getDedupIdTtlSeconds() {
+        return dedupIdTtlSeconds;
+    }
+
+    public void setDedupIdTtlSeconds(int dedupIdTtlSeconds) {
+        this.dedupIdTtlSeconds = dedupIdTtlSeconds;
+    }
+
+    public int getDedupWindowSeconds() {
+        return dedupWindowSeconds;
+    }
+
+    public void setDedupWindowSeconds(int dedupWindowSeconds) {
+        this.dedupWindowSeconds = dedupWindowSeconds;
+    }
+
+    public int getDedupMaxEntries() {
+        return dedupMaxEntries;
+    }
+
+    public void setDedupMaxEntries(int dedupMaxEntries) {
+        this.dedupMaxEntries = dedupMaxEntries;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getProcessingTimeoutSeconds() {
+        return processingTimeoutSeconds;
+    }
+
+    public void setProcessingTimeoutSeconds(int processingTimeoutSeconds) {
+        this.processingTimeoutSeconds = processingTimeoutSeconds;
+    }
+}
@@ -0,0 +1,13 @@
+package com.safebirth.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (SSE heartbeats and similar housekeeping).
+ * They share the spring.task.scheduling pool; jobs that may block hand the work to their own executor.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,239 @@
+package com.safebirth.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for the pool of Android gateway phones connected over WebSocket.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "sms.gateway.websocket")
+public class SmsGatewayPoolConfig {
+
+    /**
+     * Whether the Android gateway WebSocket endpoint is enabled.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Points each device gets on the consistent-hash ring.
+     * More points spread recipients more evenly across devices.
+     */
+    private int virtualNodes = 100;
+
+    /**
+     * SMS parts a device may have unconfirmed before new sends go to the next device on the ring.
+     * When every device is at the limit, sends are refused so they can go another way.
+     */
+    private int maxInFlightPerDevice = 30;
+
+    /**
+     * SMS parts a phone sends per minute; must match the app's sms_sends_per_minute.
+     * Used to extend a command's confirmation deadline by the time the phone needs to send it.
+     */
+    private int devicePartsPerMinute = 30;
+
+    /**
+     * Seconds after which an unconfirmed send no longer counts against its device's in-flight limit.
+     */
+    private int inFlightTimeoutSeconds = 120;
+
+    /**
+     * Seconds to wait for a device to confirm a command, on top of the time it needs at
+     * device-parts-per-minute for the parts queued on it, before the command is resent.
+     */
+    private int confirmTimeoutSeconds = 60;
+
+    /**
+     * Times a command is sent, including the first, before an unconfirmed command is given up.
+     * Each resend prefers a different device.
+     */
+    private int maxSendAttempts = 3;
+
+    /**
+     * Unconfirmed commands tracked at most; beyond this the one closest to its deadline is dropped.
+     */
+    private int maxPending = 5000;
+
+    /**
+     * Milliseconds between sweeps for commands past their confirmation deadline.
+     */
+    private long sweepIntervalMillis = 5000;
+
+    /**
+     * Frames queued per device behind its writer; beyond this sends go to another device.
+     */
+    private int outboundQueuePerDevice = 100;
+
+    /**
+     * Frames queued across all devices.
+     */
+    private int outboundQueueCapacity = 2000;
+
+    /**
+     * Threads writing queued frames to devices.
+     */
+    private int writerThreads = 4;
+
+    /**
+     * Milliseconds a single write may take before a slow device is disconnected.
+     */
+    private int sendTimeLimitMillis = 10000;
+
+    /**
+     * Bytes buffered for a device while a write is in progress before it is disconnected.
+     */
+    private int sendBufferSizeBytes = 512 * 1024;
+
+    /**
+     * Unacknowledged commands kept per protocol v2 device for replay after a reconnect.
+     */
+    private int resumeBufferPerDevice = 500;
+
+    /**
+     * Most frames packed into one batch frame for a device that supports batching; 0 disables batching.
+     */
+    private int batchMaxFrames = 50;
+
+    /**
+     * After answering an emergency that a phone already acknowledged locally, repeats of it from the
+     * same sender within this many seconds get no reply; 0 answers every one.
+     */
+    private int autoAckReplyWindowSeconds = 600;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    public void setVirtualNodes(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+
+    public int getMaxInFlightPerDevice() {
+        return maxInFlightPerDevice;
+    }
+
+    public void setMaxInFlightPerDevice(int maxInFlightPerDevice) {
+        this.maxInFlightPerDevice = maxInFlightPerDevice;
+    }
+
+    public int getDevicePartsPerMinute() {
+        return devicePartsPerMinute;
+    }
+
+    public void setDevicePartsPerMinute(int devicePartsPerMinute) {
+        this.devicePartsPerMinute = devicePartsPerMinute;
+    }
+
+    public int getInFlightTimeoutSeconds() {
+        return inFlightTimeoutSeconds;
+    }
+
+    public void setInFlightTimeoutSeconds(int inFlightTimeoutSeconds) {
+        this.inFlightTimeoutSeconds = inFlightTimeoutSeconds;
+    }
+
+    public int getConfirmTimeoutSeconds() {
+        return confirmTimeoutSeconds;
+    }
+
+    public void setConfirmTimeoutSeconds(int confirmTimeoutSeconds) {
+        this.confirmTimeoutSeconds = confirmTimeoutSeconds;
+    }
+
+    public int getMaxSendAttempts() {
+        return maxSendAttempts;
+    }
+
+    public void setMaxSendAttempts(int maxSendAttempts) {
+        this.maxSendAttempts = maxSendAttempts;
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    public void setMaxPending(int maxPending) {
+        this.maxPending = maxPending;
+    }
+
+    public long getSweepIntervalMillis() {
+        return sweepIntervalMillis;
+    }
+
+    public void setSweepIntervalMillis(long sweepIntervalMillis) {
+        this.sweepIntervalMillis = sweepIntervalMillis;
+    }
+
+    public int getOutboundQueuePerDevice() {
+        return outboundQueuePerDevice;
+    }
+
+    public void setOutboundQueuePerDevice(int outboundQueuePerDevice) {
+        this.outboundQueuePerDevice = outboundQueuePerDevice;
+    }
+
+    public int getOutboundQueueCapacity() {
+        return outboundQueueCapacity;
+    }
+
+    public void setOutboundQueueCapacity(int outboundQueueCapacity) {
+        this.outboundQueueCapacity = outboundQueueCapacity;
+    }
+
+    public int getWriterThreads() {
+        return writerThreads;
+    }
+
+    public void setWriterThreads(int writerThreads) {
+        this.writerThreads = writerThreads;
+    }
+
+    public int getSendTimeLimitMillis() {
+        return sendTimeLimitMillis;
+    }
+
+    public void setSendTimeLimitMillis(int sendTimeLimitMillis) {
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+    }
+
+    public int getSendBufferSizeBytes() {
+        return sendBufferSizeBytes;
+    }
+
+    public void setSendBufferSizeBytes(int sendBufferSizeBytes) {
+        this.sendBufferSizeBytes = sendBufferSizeBytes;
+    }
+
+    public int getResumeBufferPerDevice() {
+        return resumeBufferPerDevice;
+    }
+
+    public void setResumeBufferPerDevice(int resumeBufferPerDevice) {
+        this.resumeBufferPerDevice = resumeBufferPerDevice;
+    }
+
+    public int getBatchMaxFrames() {
+        return batchMaxFrames;
+    }
+
+    public void setBatchMaxFrames(int batchMaxFrames) {
+        this.batchMaxFrames = batchMaxFrames;
+    }
+
+    public int getAutoAckReplyWindowSeconds() {
+        return autoAckReplyWindowSeconds;
+    }
+
+    public void setAutoAckReplyWindowSeconds(int autoAckReplyWindowSeconds) {
+        this.autoAckReplyWindowSeconds = autoAckReplyWindowSeconds;
+    }
+}
@@ -0,0 +1,262 @@
+package com.safebirth.config;
+
+import com.safebirth.sms.outbox.SmsPriority;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration for the outbound SMS outbox.
+ * Outbound messages are stored in the same transaction as the change that caused them
+ * and delivered by a background dispatcher with retries.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "sms.outbox")
+public class SmsOutboxConfig {
+
+    /**
+     * Route outbound SMS through the outbox. When false, messages are sent inline as before.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of messages the dispatcher loads per batch.
+     */
+    private int batchSize = 50;
+
+    /**
+     * Milliseconds between dispatcher sweeps for due retries.
+     */
+    private long pollIntervalMillis = 1000;
+
+    /**
+     * Delivery attempts before a message is moved to the dead-letter state.
+     */
+    private int maxAttempts = 8;
+
+    /**
+     * Delay before the first retry; doubled on every further failure.
+     */
+    private int initialBackoffSeconds = 5;
+
+    /**
+     * Upper bound for the retry delay.
+     */
+    private int maxBackoffSeconds = 900;
+
+    /**
+     * Seconds after which a message stuck in SENDING (e.g. after a crash) is retried.
+     */
+    private int sendingTimeoutSeconds = 300;
+
+    /**
+     * Seconds after which a queued message is sent ahead of higher priority classes,
+     * so routine traffic still moves during a sustained emergency burst.
+     */
+    private int starvationThresholdSeconds = 120;
+
+    /**
+     * Milliseconds a new message is held so later messages to the same recipient and class
+     * can be merged into one SMS. 0 disables coalescing.
+     */
+    private long coalesceWindowMillis = 3000;
+
+    /**
+     * Hard cap on the coalescing hold for emergency alerts.
+     */
+    private long emergencyMaxDelayMillis = 500;
+
+    /**
+     * Maximum segments of a merged SMS. Messages are only merged if the result fits.
+     */
+    private int coalesceMaxSegments = 2;
+
+    /**
+     * Default per-provider send rate (messages per second).
+     */
+    private int ratePerSecond = 10;
+
+    /**
+     * Per-provider overrides of the send rate, keyed by provider name (e.g. twilio: 1).
+     */
+    private Map<String, Integer> rateLimits = new HashMap<>();
+
+    /**
+     * Seconds an emergency alert may stay without a delivery report before it is sent again,
+     * for providers that report deliveries. 0 disables the re-send.
+     */
+    private int emergencyDeliveryDeadlineSeconds = 300;
+
+    /**
+     * Times an undelivered emergency alert is sent again.
+     */
+    private int maxDeliveryResends = 1;
+
+    /**
+     * Milliseconds between checks for undelivered emergency alerts.
+     */
+    private long deliverySweepIntervalMillis = 30000;
+
+    /**
+     * Get the send rate for a provider.
+     *
+     * @param provider the provider name
+     * @return messages per second
+     */
+    public int rateFor(String provider) {
+        return rateLimits.getOrDefault(provider, ratePerSecond);
+    }
+
+    /**
+     * Get how long a new message of a priority class is held for coalescing.
+     *
+     * @param priority the priority class
+     * @return the hold, never longer than the emergency cap for emergency alerts
+     */
+    public Duration coalesceDelayFor(SmsPriority priority) {
+        long millis = priority == SmsPriority.EMERGENCY_ALERT
+                ? Math.min(coalesceWindowMillis, emergencyMaxDelayMillis)
+                : coalesceWindowMillis;
+        return Duration.ofMillis(Math.max(millis, 0));
+    }
+
+    /**
+     * Check whether messages to the same recipient are merged.
+     *
+     * @return true if the coalescing window is positive
+     */
+    public boolean isCoalescingEnabled() {
+        return coalesceWindowMillis > 0;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getPollIntervalMillis() {
+        return pollIntervalMillis;
+    }
+
+    public void setPollIntervalMillis(long pollIntervalMillis) {
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public int getInitialBackoffSeconds() {
+        return initialBackoffSeconds;
+    }
+
+    public void setInitialBackoffSeconds(int initialBackoffSeconds) {
+        this.initialBackoffSeconds = initialBackoffSeconds;
+    }
+
+    public int getMaxBackoffSeconds() {
+        return maxBackoffSeconds;
+    }
+
+    public void setMaxBackoffSeconds(int maxBackoffSeconds) {
+        this.maxBackoffSeconds = maxBackoffSeconds;
+    }
+
+    public int getSendingTimeoutSeconds() {
+        return sendingTimeoutSeconds;
+    }
+
+    public void setSendingTimeoutSeconds(int sendingTimeoutSeconds) {
+        this.sendingTimeoutSeconds = sendingTimeoutSeconds;
+    }
+
+    public int getStarvationThresholdSeconds() {
+        return starvationThresholdSeconds;
+    }
+
+    public void setStarvationThresholdSeconds(int starvationThresholdSeconds) {
+        this.starvationThresholdSeconds = starvationThresholdSeconds;
+    }
+
+    public long getCoalesceWindowMillis() {
+        return coalesceWindowMillis;
+    }
+
+    public void setCoalesceWindowMillis(long coalesceWindowMillis) {
+        this.coalesceWindowMillis = coalesceWindowMillis;
+    }
+
+    public long getEmergencyMaxDelayMillis() {
+        return emergencyMaxDelayMillis;
+    }
+
+    public void setEmergencyMaxDelayMillis(long emergencyMaxDelayMillis) {
+        this.emergencyMaxDelayMillis = emergencyMaxDelayMillis;
+    }
+
+    public int getCoalesceMaxSegments() {
+        return coalesceMaxSegments;
+    }
+
+    public void setCoalesceMaxSegments(int coalesceMaxSegments) {
+        this.coalesceMaxSegments = coalesceMaxSegments;
+    }
+
+    public int getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    public void setRatePerSecond(int ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    public Map<String, Integer> getRateLimits() {
+        return rateLimits;
+    }
+
+    public void setRateLimits(Map<String, Integer> rateLimits) {
+        this.rateLimits = rateLimits;
+    }
+
+    public int getEmergencyDeliveryDeadlineSeconds() {
+        return emergencyDeliveryDeadlineSeconds;
+    }
+
+    public void setEmergencyDeliveryDeadlineSeconds(int emergencyDeliveryDeadlineSeconds) {
+        this.emergencyDeliveryDeadlineSeconds = emergencyDeliveryDeadlineSeconds;
+    }
+
+    public int getMaxDeliveryResends() {
+        return maxDeliveryResends;
+    }
+
+    public void setMaxDeliveryResends(int maxDeliveryResends) {
+        this.maxDeliveryResends = maxDeliveryResends;
+    }
+
+    public long getDeliverySweepIntervalMillis() {
+        return deliverySweepIntervalMillis;
+    }
+
+    public void setDeliverySweepIntervalMillis(long deliverySweepIntervalMillis) {
+        this.deliverySweepIntervalMillis = deliverySweepIntervalMillis;
+    }
+}
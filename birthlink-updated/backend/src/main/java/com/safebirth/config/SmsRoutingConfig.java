@@ -0,0 +1,91 @@
+package com.safebirth.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for routing outbound SMS between the Android gateway phones and the SMS provider.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "sms.routing")
+public class SmsRoutingConfig {
+
+    /**
+     * Whether sends may go through connected Android gateway phones; if false everything uses the provider.
+     */
+    private boolean androidEnabled = true;
+
+    /**
+     * Score weight of the Android phones. Higher than the provider's so the cheaper route is preferred
+     * until its health drops below the provider's by this ratio.
+     */
+    private double androidWeight = 2.0;
+
+    /**
+     * Score weight of the SMS provider (Twilio, or the mock in development).
+     */
+    private double providerWeight = 1.0;
+
+    /**
+     * Latency up to which a route scores in full; slower routes score proportionally less.
+     */
+    private long latencyTargetMillis = 10000;
+
+    /**
+     * Recent outcomes per route used for its success rate.
+     */
+    private int healthWindow = 50;
+
+    /**
+     * Outcomes a route needs before its success rate counts; until then it is assumed healthy.
+     */
+    private int minSamples = 10;
+
+    public boolean isAndroidEnabled() {
+        return androidEnabled;
+    }
+
+    public void setAndroidEnabled(boolean androidEnabled) {
+        this.androidEnabled = androidEnabled;
+    }
+
+    public double getAndroidWeight() {
+        return androidWeight;
+    }
+
+    public void setAndroidWeight(double androidWeight) {
+        this.androidWeight = androidWeight;
+    }
+
+    public double getProviderWeight() {
+        return providerWeight;
+    }
+
+    public void setProviderWeight(double providerWeight) {
+        this.providerWeight = providerWeight;
+    }
+
+    public long getLatencyTargetMillis() {
+        return latencyTargetMillis;
+    }
+
+    public void setLatencyTargetMillis(long latencyTargetMillis) {
+        this.latencyTargetMillis = latencyTargetMillis;
+    }
+
+    public int getHealthWindow() {
+        return healthWindow;
+    }
+
+    public void setHealthWindow(int healthWindow) {
+        this.healthWindow = healthWindow;
+    }
+
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    public void setMinSamples(int minSamples) {
+        this.minSamples = minSamples;
+    }
+}
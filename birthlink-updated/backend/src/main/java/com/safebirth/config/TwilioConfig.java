@@ -21,6 +21,13 @@ public class TwilioConfig {
     private String authToken;
     private String phoneNumber;
     private boolean mockEnabled;
+    // Delivery status webhook passed to Twilio with every message; empty for none
+    private String statusCallbackUrl;
+    // Concurrent API calls used for one bulk send
+    private int bulkParallelism = 8;
+    // Messages the mock gateway keeps in memory, overall and per recipient
+    private int mockOutboxCapacity = 10000;
+    private int mockOutboxPerRecipient = 200;
 
     public String getAccountSid() {
         return accountSid;
@@ -46,6 +53,14 @@ public class TwilioConfig {
         this.phoneNumber = phoneNumber;
     }
 
+    public String getStatusCallbackUrl() {
+        return statusCallbackUrl;
+    }
+
+    public void setStatusCallbackUrl(String statusCallbackUrl) {
+        this.statusCallbackUrl = statusCallbackUrl;
+    }
+
     public boolean isMockEnabled() {
         return mockEnabled;
     }
@@ -54,6 +69,30 @@ public class TwilioConfig {
         this.mockEnabled = mockEnabled;
     }
 
+    public int getBulkParallelism() {
+        return bulkParallelism;
+    }
+
+    public void setBulkParallelism(int bulkParallelism) {
+        this.bulkParallelism = bulkParallelism;
+    }
+
+    public int getMockOutboxCapacity() {
+        return mockOutboxCapacity;
+    }
+
+    public void setMockOutboxCapacity(int mockOutboxCapacity) {
+        this.mockOutboxCapacity = mockOutboxCapacity;
+    }
+
+    public int getMockOutboxPerRecipient() {
+        return mockOutboxPerRecipient;
+    }
+
+    public void setMockOutboxPerRecipient(int mockOutboxPerRecipient) {
+        this.mockOutboxPerRecipient = mockOutboxPerRecipient;
+    }
+
     @PostConstruct
     public void init() {
         if (!mockEnabled && accountSid != null && authToken != null
@@ -38,6 +38,7 @@ public class WebConfig implements WebMvcConfigurer {
                 "Origin",
                 "Access-Control-Request-Method",
                 "Access-Control-Request-Headers",
+                "If-None-Match",  // Conditional GET for dashboard polling
                 "X-Phone-Number"  // Custom header for volunteer identification (POC)
         ));
         
@@ -45,7 +46,8 @@ public class WebConfig implements WebMvcConfigurer {
         config.setExposedHeaders(Arrays.asList(
                 "Access-Control-Allow-Origin",
                 "Access-Control-Allow-Credentials",
-                "X-Total-Count"  // For pagination support
+                "X-Total-Count",  // For pagination support
+                "ETag"
         ));
         
         // Allow credentials (cookies, authorization headers)
@@ -0,0 +1,56 @@
+package com.safebirth.domain;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonically increasing version of the dashboard-visible data (mothers, volunteers, help requests).
+ * Used as a strong ETag so unchanged dashboard resources can be answered with 304 Not Modified.
+ *
+ * The counter is seeded with the boot time in milliseconds so versions issued after a restart
+ * never collide with ETags cached by clients before it.
+ */
+@Component
+public class DataVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * Get the current data version.
+     *
+     * @return the version
+     */
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Get the current version formatted as a strong ETag value.
+     *
+     * @return the quoted ETag
+     */
+    public String etag() {
+        return "\"v" + version.get() + "\"";
+    }
+
+    /**
+     * Record a write. When called inside a transaction the bump is deferred until commit,
+     * so a reader can never pair the new version with data that is not yet visible.
+     * Rolled-back writes leave the version unchanged.
+     */
+    public void recordWrite() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        } else {
+            version.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.safebirth.domain;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener that bumps the DataVersion on every insert, update or delete
+ * of a dashboard-visible entity, whichever service or repository performed the write.
+ * Instantiated by Hibernate through Spring's bean container.
+ */
+@Component
+public class DataVersionEntityListener {
+
+    private final DataVersion dataVersion;
+
+    public DataVersionEntityListener(DataVersion dataVersion) {
+        this.dataVersion = dataVersion;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onWrite(Object entity) {
+        dataVersion.recordWrite();
+    }
+}
@@ -0,0 +1,151 @@
+package com.safebirth.domain.analytics;
+
+import com.safebirth.domain.helprequest.RequestStatus;
+import com.safebirth.domain.helprequest.RequestType;
+import com.safebirth.domain.mother.RiskLevel;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated count of closed help requests for one time bucket.
+ * Keyed by granularity, bucket start (request creation time), zone, type, outcome and risk level,
+ * so historical queries read one row per bucket instead of scanning help_requests.
+ */
+@Entity
+@Table(name = "case_rollups", indexes = {
+        @Index(name = "idx_rollup_bucket", columnList = "granularity, bucketStart"),
+        @Index(name = "idx_rollup_key", columnList = "granularity, bucketStart, zone, requestType, outcome, riskLevel",
+                unique = true)
+})
+public class CaseRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RollupGranularity granularity;
+
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(length = 20)
+    private String zone;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private RequestType requestType;
+
+    /**
+     * Final status of the cases: COMPLETED or CANCELLED.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private RequestStatus outcome;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private RiskLevel riskLevel;
+
+    @Column(nullable = false)
+    private long caseCount;
+
+    /**
+     * Number of cases that were accepted by a volunteer before closing.
+     */
+    @Column(nullable = false)
+    private long acceptedCount;
+
+    @Column(nullable = false)
+    private long totalSecondsToAccept;
+
+    @Column(nullable = false)
+    private long totalSecondsToClose;
+
+    public CaseRollup() {
+    }
+
+    public CaseRollup(RollupGranularity granularity, LocalDateTime bucketStart, String zone,
+                      RequestType requestType, RequestStatus outcome, RiskLevel riskLevel) {
+        this.granularity = granularity;
+        this.bucketStart = bucketStart;
+        this.zone = zone;
+        this.requestType = requestType;
+        this.outcome = outcome;
+        this.riskLevel = riskLevel;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public RollupGranularity getGranularity() {
+        return granularity;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public RequestType getRequestType() {
+        return requestType;
+    }
+
+    public RequestStatus getOutcome() {
+        return outcome;
+    }
+
+    public RiskLevel getRiskLevel() {
+        return riskLevel;
+    }
+
+    public long getCaseCount() {
+        return caseCount;
+    }
+
+    public long getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    public long getTotalSecondsToAccept() {
+        return totalSecondsToAccept;
+    }
+
+    public long getTotalSecondsToClose() {
+        return totalSecondsToClose;
+    }
+
+    /**
+     * Add one closed case to this bucket.
+     *
+     * @param secondsToAccept seconds from creation to acceptance, or null if never accepted
+     * @param secondsToClose  seconds from creation to closing
+     */
+    public void addCase(Long secondsToAccept, long secondsToClose) {
+        this.caseCount++;
+        if (secondsToAccept != null) {
+            this.acceptedCount++;
+            this.totalSecondsToAccept += secondsToAccept;
+        }
+        this.totalSecondsToClose += secondsToClose;
+    }
+
+    /**
+     * Merge a finer-grained rollup into this one.
+     *
+     * @param other the rollup to add
+     */
+    public void merge(CaseRollup other) {
+        this.caseCount += other.caseCount;
+        this.acceptedCount += other.acceptedCount;
+        this.totalSecondsToAccept += other.totalSecondsToAccept;
+        this.totalSecondsToClose += other.totalSecondsToClose;
+    }
+}
@@ -0,0 +1,50 @@
+package com.safebirth.domain.analytics;
+
+import com.safebirth.domain.helprequest.RequestType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for CaseRollup entity operations.
+ */
+@Repository
+public interface CaseRollupRepository extends JpaRepository<CaseRollup, Long> {
+
+    /**
+     * Find rollups in a bucket range, optionally filtered by zone and request type.
+     *
+     * @param granularity the bucket size
+     * @param from        inclusive start of the range
+     * @param to          exclusive end of the range
+     * @param zone        optional zone filter (null for all)
+     * @param requestType optional request type filter (null for all)
+     * @return rollups ordered by bucket and zone
+     */
+    @Query("SELECT r FROM CaseRollup r WHERE r.granularity = :granularity "
+            + "AND r.bucketStart >= :from AND r.bucketStart < :to "
+            + "AND (:zone IS NULL OR r.zone = :zone) "
+            + "AND (:requestType IS NULL OR r.requestType = :requestType) "
+            + "ORDER BY r.bucketStart, r.zone")
+    List<CaseRollup> findInRange(@Param("granularity") RollupGranularity granularity,
+                                 @Param("from") LocalDateTime from,
+                                 @Param("to") LocalDateTime to,
+                                 @Param("zone") String zone,
+                                 @Param("requestType") RequestType requestType);
+
+    /**
+     * Delete all rollups of a bucket so it can be recomputed.
+     *
+     * @param granularity the bucket size
+     * @param bucketStart the bucket start
+     */
+    @Modifying
+    @Query("DELETE FROM CaseRollup r WHERE r.granularity = :granularity AND r.bucketStart = :bucketStart")
+    void deleteBucket(@Param("granularity") RollupGranularity granularity,
+                      @Param("bucketStart") LocalDateTime bucketStart);
+}
@@ -0,0 +1,146 @@
+package com.safebirth.domain.analytics;
+
+import com.safebirth.domain.helprequest.HelpRequest;
+import com.safebirth.domain.helprequest.HelpRequestRepository;
+import com.safebirth.domain.helprequest.RequestStatus;
+import com.safebirth.domain.helprequest.RequestType;
+import com.safebirth.domain.mother.RiskLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that compacts closed help requests into hourly and daily rollups.
+ *
+ * Each run looks at requests closed since the last watermark, works out which creation-time
+ * buckets they belong to, and recomputes those buckets from scratch. Recomputing whole buckets
+ * keeps the job idempotent, so a crash between runs never double counts.
+ */
+@Service
+@Transactional(readOnly = true)
+public class CaseRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(CaseRollupService.class);
+
+    static final String CHECKPOINT_NAME = "case-rollup";
+
+    // Requests closed in the last moments may belong to transactions that have not committed yet
+    private static final Duration SETTLE_TIME = Duration.ofMinutes(1);
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private record RollupKey(String zone, RequestType requestType, RequestStatus outcome, RiskLevel riskLevel) {
+    }
+
+    private final HelpRequestRepository helpRequestRepository;
+    private final CaseRollupRepository caseRollupRepository;
+    private final RollupCheckpointRepository checkpointRepository;
+
+    public CaseRollupService(HelpRequestRepository helpRequestRepository,
+                             CaseRollupRepository caseRollupRepository,
+                             RollupCheckpointRepository checkpointRepository) {
+        this.helpRequestRepository = helpRequestRepository;
+        this.caseRollupRepository = caseRollupRepository;
+        this.checkpointRepository = checkpointRepository;
+    }
+
+    /**
+     * Scheduled entry point for the rollup job.
+     */
+    @Scheduled(initialDelayString = "${analytics.rollup.interval-minutes:5}",
+               fixedDelayString = "${analytics.rollup.interval-minutes:5}", timeUnit = TimeUnit.MINUTES)
+    @Transactional
+    public void scheduledRollup() {
+        rollUp(LocalDateTime.now().minus(SETTLE_TIME));
+    }
+
+    /**
+     * Compact all requests closed since the last watermark up to the given time.
+     *
+     * @param upTo the new watermark
+     * @return number of hourly buckets recomputed
+     */
+    @Transactional
+    public int rollUp(LocalDateTime upTo) {
+        RollupCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT_NAME)
+                .orElseGet(() -> new RollupCheckpoint(CHECKPOINT_NAME, EPOCH));
+        LocalDateTime from = checkpoint.getWatermark();
+        if (!upTo.isAfter(from)) {
+            return 0;
+        }
+
+        Set<LocalDateTime> hours = new TreeSet<>();
+        for (LocalDateTime createdAt : helpRequestRepository.findCreatedAtOfClosedBetween(from, upTo)) {
+            hours.add(RollupGranularity.HOUR.bucketStart(createdAt));
+        }
+
+        Set<LocalDateTime> days = new TreeSet<>();
+        for (LocalDateTime hour : hours) {
+            rebuildHour(hour, upTo);
+            days.add(RollupGranularity.DAY.bucketStart(hour));
+        }
+        for (LocalDateTime day : days) {
+            rebuildDay(day);
+        }
+
+        checkpoint.setWatermark(upTo);
+        checkpointRepository.save(checkpoint);
+
+        if (!hours.isEmpty()) {
+            log.info("📊 Rolled up {} hourly and {} daily buckets (watermark {})", hours.size(), days.size(), upTo);
+        }
+        return hours.size();
+    }
+
+    private void rebuildHour(LocalDateTime hour, LocalDateTime closedBefore) {
+        List<HelpRequest> closed = helpRequestRepository.findClosedCreatedBetween(
+                hour, RollupGranularity.HOUR.next(hour), closedBefore);
+
+        Map<RollupKey, CaseRollup> rollups = new HashMap<>();
+        for (HelpRequest request : closed) {
+            RollupKey key = new RollupKey(request.getZone(), request.getRequestType(),
+                    request.getStatus(), request.getRiskLevel());
+            Long secondsToAccept = request.getAcceptedAt() != null
+                    ? secondsBetween(request.getCreatedAt(), request.getAcceptedAt())
+                    : null;
+            rollups.computeIfAbsent(key, k -> newRollup(RollupGranularity.HOUR, hour, k))
+                    .addCase(secondsToAccept, secondsBetween(request.getCreatedAt(), request.getClosedAt()));
+        }
+
+        caseRollupRepository.deleteBucket(RollupGranularity.HOUR, hour);
+        caseRollupRepository.saveAll(rollups.values());
+    }
+
+    private void rebuildDay(LocalDateTime day) {
+        List<CaseRollup> hourly = caseRollupRepository.findInRange(
+                RollupGranularity.HOUR, day, RollupGranularity.DAY.next(day), null, null);
+
+        Map<RollupKey, CaseRollup> rollups = new HashMap<>();
+        for (CaseRollup hour : hourly) {
+            RollupKey key = new RollupKey(hour.getZone(), hour.getRequestType(), hour.getOutcome(), hour.getRiskLevel());
+            rollups.computeIfAbsent(key, k -> newRollup(RollupGranularity.DAY, day, k)).merge(hour);
+        }
+
+        caseRollupRepository.deleteBucket(RollupGranularity.DAY, day);
+        caseRollupRepository.saveAll(rollups.values());
+    }
+
+    private CaseRollup newRollup(RollupGranularity granularity, LocalDateTime bucketStart, RollupKey key) {
+        return new CaseRollup(granularity, bucketStart, key.zone(), key.requestType(), key.outcome(), key.riskLevel());
+    }
+
+    private long secondsBetween(LocalDateTime from, LocalDateTime to) {
+        return Math.max(0, Duration.between(from, to).toSeconds());
+    }
+}
@@ -0,0 +1,41 @@
+package com.safebirth.domain.analytics;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress marker for a background rollup job.
+ * Records the closedAt time up to which help requests have been compacted.
+ */
+@Entity
+@Table(name = "rollup_checkpoints")
+public class RollupCheckpoint {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDateTime watermark;
+
+    public RollupCheckpoint() {
+    }
+
+    public RollupCheckpoint(String name, LocalDateTime watermark) {
+        this.name = name;
+        this.watermark = watermark;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LocalDateTime getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(LocalDateTime watermark) {
+        this.watermark = watermark;
+    }
+}
@@ -0,0 +1,11 @@
+package com.safebirth.domain.analytics;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for RollupCheckpoint entity operations.
+ */
+@Repository
+public interface RollupCheckpointRepository extends JpaRepository<RollupCheckpoint, String> {
+}
@@ -1,5 +1,6 @@
 package com.safebirth.domain.helprequest;
 
+import com.safebirth.domain.DataVersionEntityListener;
 import com.safebirth.domain.mother.Mother;
 import com.safebirth.domain.mother.RiskLevel;
 import com.safebirth.domain.volunteer.Volunteer;
@@ -17,8 +18,10 @@ import java.time.LocalDateTime;
         @Index(name = "idx_hr_case_id", columnList = "caseId", unique = true),
         @Index(name = "idx_hr_status", columnList = "status"),
         @Index(name = "idx_hr_zone", columnList = "zone"),
-        @Index(name = "idx_hr_created", columnList = "createdAt")
+        @Index(name = "idx_hr_created", columnList = "createdAt"),
+        @Index(name = "idx_hr_closed", columnList = "closedAt")
 })
+@EntityListeners(DataVersionEntityListener.class)
 public class HelpRequest {
 
     @Id
@@ -84,12 +87,24 @@ public class HelpRequest {
     @Column
     private LocalDateTime closedAt;
 
+    /**
+     * When the first volunteer alert went out for this request.
+     */
+    @Column
+    private LocalDateTime firstAlertAt;
+
     /**
      * Number of volunteer alerts sent for this request.
      */
     @Column
     private int alertsSent = 0;
 
+    /**
+     * Number of repeat emergencies from the mother or her household attached to this request.
+     */
+    @Column
+    private int repeatCount = 0;
+
     public HelpRequest() {
     }
 
@@ -171,10 +186,18 @@ public class HelpRequest {
         return closedAt;
     }
 
+    public LocalDateTime getFirstAlertAt() {
+        return firstAlertAt;
+    }
+
     public int getAlertsSent() {
         return alertsSent;
     }
 
+    public int getRepeatCount() {
+        return repeatCount;
+    }
+
     // Setters
     public void setId(Long id) {
         this.id = id;
@@ -232,6 +255,10 @@ public class HelpRequest {
         this.closedAt = closedAt;
     }
 
+    public void setFirstAlertAt(LocalDateTime firstAlertAt) {
+        this.firstAlertAt = firstAlertAt;
+    }
+
     public void setAlertsSent(int alertsSent) {
         this.alertsSent = alertsSent;
     }
@@ -267,6 +294,23 @@ public class HelpRequest {
         this.acceptedAt = LocalDateTime.now();
     }
 
+    /**
+     * Record a round of volunteer alerts. The first round stamps firstAlertAt.
+     */
+    public void recordAlertsSent() {
+        if (this.firstAlertAt == null) {
+            this.firstAlertAt = LocalDateTime.now();
+        }
+        this.alertsSent++;
+    }
+
+    /**
+     * Record a repeat emergency attached to this request instead of opening a new one.
+     */
+    public void recordRepeat() {
+        this.repeatCount++;
+    }
+
     /**
      * Mark this request as in progress.
      */
@@ -0,0 +1,58 @@
+package com.safebirth.domain.helprequest;
+
+import com.safebirth.domain.mother.RiskLevel;
+
+import java.time.LocalDateTime;
+
+/**
+ * Application event published by HelpRequestService on every lifecycle transition.
+ * Carries a snapshot of the request so listeners never need to re-load the entity.
+ */
+public record HelpRequestEvent(
+        Type type,
+        String caseId,
+        String zone,
+        RequestType requestType,
+        RiskLevel riskLevel,
+        RequestStatus status,
+        LocalDateTime createdAt,
+        LocalDateTime firstAlertAt,
+        LocalDateTime acceptedAt,
+        LocalDateTime inProgressAt,
+        LocalDateTime closedAt
+) {
+    /**
+     * Lifecycle transition that triggered the event.
+     */
+    public enum Type {
+        CREATED,
+        ALERTED,
+        ACCEPTED,
+        STARTED,
+        COMPLETED,
+        CANCELLED
+    }
+
+    /**
+     * Create an event from the current state of a help request.
+     *
+     * @param type    the transition
+     * @param request the help request after the transition
+     * @return the event
+     */
+    public static HelpRequestEvent of(Type type, HelpRequest request) {
+        return new HelpRequestEvent(
+                type,
+                request.getCaseId(),
+                request.getZone(),
+                request.getRequestType(),
+                request.getRiskLevel(),
+                request.getStatus(),
+                request.getCreatedAt(),
+                request.getFirstAlertAt(),
+                request.getAcceptedAt(),
+                request.getInProgressAt(),
+                request.getClosedAt()
+        );
+    }
+}
@@ -1,13 +1,17 @@
 package com.safebirth.domain.helprequest;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for HelpRequest entity operations.
@@ -105,6 +109,20 @@ public interface HelpRequestRepository extends JpaRepository<HelpRequest, Long>
     @Query("SELECT hr FROM HelpRequest hr WHERE hr.requestType = 'EMERGENCY' AND hr.createdAt >= :since ORDER BY hr.createdAt DESC")
     List<HelpRequest> findRecentEmergencies(@Param("since") LocalDateTime since);
 
+    /**
+     * Find a mother's open emergency requests in a zone created within a time window.
+     *
+     * @param motherId the mother's ID
+     * @param zone     the zone identifier
+     * @param since    the start time
+     * @return open emergencies, newest first
+     */
+    @Query("SELECT hr FROM HelpRequest hr WHERE hr.mother.id = :motherId AND hr.zone = :zone "
+            + "AND hr.requestType = 'EMERGENCY' AND hr.status IN ('PENDING', 'ACCEPTED', 'IN_PROGRESS') "
+            + "AND hr.createdAt >= :since ORDER BY hr.createdAt DESC")
+    List<HelpRequest> findOpenEmergencies(@Param("motherId") Long motherId, @Param("zone") String zone,
+                                          @Param("since") LocalDateTime since);
+
     /**
      * Get the most recent requests.
      *
@@ -121,6 +139,29 @@ public interface HelpRequestRepository extends JpaRepository<HelpRequest, Long>
     @Query("SELECT hr FROM HelpRequest hr WHERE hr.status = 'PENDING' AND hr.createdAt < :threshold")
     List<HelpRequest> findPendingOlderThan(@Param("threshold") LocalDateTime threshold);
 
+    /**
+     * Get the creation times of requests closed within a window (for rollup invalidation).
+     *
+     * @param from exclusive start of the closedAt window
+     * @param to   inclusive end of the closedAt window
+     * @return creation times of the closed requests
+     */
+    @Query("SELECT hr.createdAt FROM HelpRequest hr WHERE hr.closedAt > :from AND hr.closedAt <= :to")
+    List<LocalDateTime> findCreatedAtOfClosedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Find completed or cancelled requests created in a time range and closed before a cutoff.
+     *
+     * @param from         inclusive start of the createdAt range
+     * @param to           exclusive end of the createdAt range
+     * @param closedBefore inclusive closedAt cutoff
+     * @return list of closed requests
+     */
+    @Query("SELECT hr FROM HelpRequest hr WHERE hr.createdAt >= :from AND hr.createdAt < :to "
+            + "AND hr.status IN ('COMPLETED', 'CANCELLED') AND hr.closedAt <= :closedBefore")
+    List<HelpRequest> findClosedCreatedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                               @Param("closedBefore") LocalDateTime closedBefore);
+
     /**
      * Get the maximum case number for generating new case IDs.
      *
@@ -128,4 +169,35 @@ public interface HelpRequestRepository extends JpaRepository<HelpRequest, Long>
      */
     @Query("SELECT MAX(CAST(SUBSTRING(hr.caseId, 4) AS int)) FROM HelpRequest hr")
     Integer findMaxCaseNumber();
+
+    /**
+     * Stream requests for export, optionally filtered, without loading them all into memory.
+     * Must be consumed inside a transaction and closed after use.
+     *
+     * @param zone   optional zone filter (null for all)
+     * @param status optional status filter (null for all)
+     * @return stream of requests ordered by id
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT hr FROM HelpRequest hr JOIN FETCH hr.mother LEFT JOIN FETCH hr.acceptedBy "
+            + "WHERE (:zone IS NULL OR hr.zone = :zone) AND (:status IS NULL OR hr.status = :status) "
+            + "ORDER BY hr.id")
+    Stream<HelpRequest> streamForExport(@Param("zone") String zone, @Param("status") RequestStatus status);
+
+    /**
+     * Stream the timestamps of every request for rebuilding SLA metrics, without loading entities.
+     * Must be consumed inside a transaction and closed after use.
+     *
+     * @return stream of SLA history rows
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.safebirth.domain.helprequest.SlaHistoryRow(hr.zone, hr.requestType, hr.riskLevel, "
+            + "hr.status, hr.createdAt, hr.firstAlertAt, hr.acceptedAt, hr.closedAt) FROM HelpRequest hr")
+    Stream<SlaHistoryRow> streamSlaHistory();
 }
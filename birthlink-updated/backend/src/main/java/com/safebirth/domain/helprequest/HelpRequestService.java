@@ -1,9 +1,12 @@
 package com.safebirth.domain.helprequest;
 
+import com.safebirth.config.EmergencyConfig;
 import com.safebirth.domain.mother.Mother;
+import com.safebirth.domain.mother.MotherRepository;
 import com.safebirth.domain.volunteer.Volunteer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,9 +24,18 @@ public class HelpRequestService {
     private static final Logger log = LoggerFactory.getLogger(HelpRequestService.class);
 
     private final HelpRequestRepository helpRequestRepository;
+    private final MotherRepository motherRepository;
+    private final EmergencyConfig emergencyConfig;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public HelpRequestService(HelpRequestRepository helpRequestRepository) {
+    public HelpRequestService(HelpRequestRepository helpRequestRepository,
+                              MotherRepository motherRepository,
+                              EmergencyConfig emergencyConfig,
+                              ApplicationEventPublisher eventPublisher) {
         this.helpRequestRepository = helpRequestRepository;
+        this.motherRepository = motherRepository;
+        this.emergencyConfig = emergencyConfig;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -52,9 +64,38 @@ public class HelpRequestService {
 
         HelpRequest saved = helpRequestRepository.save(request);
         log.info("Created help request: {} for zone {}", caseId, mother.getZone());
+        eventPublisher.publishEvent(HelpRequestEvent.of(HelpRequestEvent.Type.CREATED, saved));
         return saved;
     }
 
+    /**
+     * Open an emergency for a mother, or attach it to her open emergency in the same zone
+     * if one was created within the coalescing window.
+     * A panicking mother or family member often sends EMERGENCY several times in a minute;
+     * only the first one should alert volunteers. The mother's row is locked so repeats
+     * arriving at once from different phones cannot both open a case.
+     *
+     * @param mother the mother requesting help
+     * @return the case and whether the message was a repeat
+     */
+    @Transactional
+    public EmergencyIntake openEmergency(Mother mother) {
+        int windowMinutes = emergencyConfig.getCoalesceWindowMinutes();
+        if (windowMinutes > 0) {
+            motherRepository.findByIdForUpdate(mother.getId());
+            LocalDateTime since = LocalDateTime.now().minusMinutes(windowMinutes);
+            List<HelpRequest> open = helpRequestRepository.findOpenEmergencies(mother.getId(), mother.getZone(), since);
+            if (!open.isEmpty()) {
+                HelpRequest request = open.get(0);
+                request.recordRepeat();
+                HelpRequest saved = helpRequestRepository.save(request);
+                log.info("🔁 Repeat emergency #{} attached to {}", saved.getRepeatCount(), saved.getCaseId());
+                return new EmergencyIntake(saved, true);
+            }
+        }
+        return new EmergencyIntake(createRequest(mother, RequestType.EMERGENCY), false);
+    }
+
     /**
      * Find a help request by case ID.
      *
@@ -83,7 +124,9 @@ public class HelpRequestService {
 
         request.accept(volunteer);
         log.info("Request {} accepted by volunteer {}", caseId, volunteer.getFormattedId());
-        return helpRequestRepository.save(request);
+        HelpRequest saved = helpRequestRepository.save(request);
+        eventPublisher.publishEvent(HelpRequestEvent.of(HelpRequestEvent.Type.ACCEPTED, saved));
+        return saved;
     }
 
     /**
@@ -103,7 +146,9 @@ public class HelpRequestService {
 
         request.startProgress();
         log.info("Request {} marked as in progress", caseId);
-        return helpRequestRepository.save(request);
+        HelpRequest saved = helpRequestRepository.save(request);
+        eventPublisher.publishEvent(HelpRequestEvent.of(HelpRequestEvent.Type.STARTED, saved));
+        return saved;
     }
 
     /**
@@ -123,7 +168,9 @@ public class HelpRequestService {
 
         request.complete();
         log.info("Request {} completed", caseId);
-        return helpRequestRepository.save(request);
+        HelpRequest saved = helpRequestRepository.save(request);
+        eventPublisher.publishEvent(HelpRequestEvent.of(HelpRequestEvent.Type.COMPLETED, saved));
+        return saved;
     }
 
     /**
@@ -143,7 +190,9 @@ public class HelpRequestService {
 
         request.cancel();
         log.info("Request {} cancelled", caseId);
-        return helpRequestRepository.save(request);
+        HelpRequest saved = helpRequestRepository.save(request);
+        eventPublisher.publishEvent(HelpRequestEvent.of(HelpRequestEvent.Type.CANCELLED, saved));
+        return saved;
     }
 
     /**
@@ -186,6 +235,7 @@ public class HelpRequestService {
 
     /**
      * Increment the alerts sent counter.
+     * The first round of alerts for a request also publishes an ALERTED event.
      *
      * @param caseId the case ID
      */
@@ -193,8 +243,12 @@ public class HelpRequestService {
     public void incrementAlertsSent(String caseId) {
         helpRequestRepository.findByCaseId(normalizeId(caseId))
                 .ifPresent(request -> {
-                    request.setAlertsSent(request.getAlertsSent() + 1);
-                    helpRequestRepository.save(request);
+                    boolean firstAlert = request.getFirstAlertAt() == null;
+                    request.recordAlertsSent();
+                    HelpRequest saved = helpRequestRepository.save(request);
+                    if (firstAlert) {
+                        eventPublisher.publishEvent(HelpRequestEvent.of(HelpRequestEvent.Type.ALERTED, saved));
+                    }
                 });
     }
 
@@ -229,4 +283,13 @@ public class HelpRequestService {
         String digits = caseId.replaceAll("[^0-9]", "");
         return "HR-" + digits;
     }
+
+    /**
+     * Result of emergency intake.
+     *
+     * @param request the open case
+     * @param repeat  true if the message was attached to an existing case; volunteers were not alerted again
+     */
+    public record EmergencyIntake(HelpRequest request, boolean repeat) {
+    }
 }
@@ -0,0 +1,20 @@
+package com.safebirth.domain.helprequest;
+
+import com.safebirth.domain.mother.RiskLevel;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a help request that SLA metrics are rebuilt from, read without loading the entity.
+ */
+public record SlaHistoryRow(
+        String zone,
+        RequestType requestType,
+        RiskLevel riskLevel,
+        RequestStatus status,
+        LocalDateTime createdAt,
+        LocalDateTime firstAlertAt,
+        LocalDateTime acceptedAt,
+        LocalDateTime closedAt
+) {
+}
@@ -1,5 +1,6 @@
 package com.safebirth.domain.mother;
 
+import com.safebirth.domain.DataVersionEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
@@ -14,8 +15,10 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "mothers", indexes = {
         @Index(name = "idx_mother_phone", columnList = "phoneNumber", unique = true),
-        @Index(name = "idx_mother_zone", columnList = "zone")
+        @Index(name = "idx_mother_zone", columnList = "zone"),
+        @Index(name = "idx_mother_household_phone", columnList = "householdPhone", unique = true)
 })
+@EntityListeners(DataVersionEntityListener.class)
 public class Mother {
 
     @Id
@@ -73,6 +76,13 @@ public class Mother {
     @Column
     private LocalDateTime lastContactAt;
 
+    /**
+     * Phone number of a family member linked with LINK, whose EMERGENCY messages
+     * are treated as coming from this mother.
+     */
+    @Column(length = 20)
+    private String householdPhone;
+
     public Mother() {
     }
 
@@ -142,6 +152,10 @@ public class Mother {
         return lastContactAt;
     }
 
+    public String getHouseholdPhone() {
+        return householdPhone;
+    }
+
     // Setters
     public void setId(Long id) {
         this.id = id;
@@ -191,6 +205,10 @@ public class Mother {
         this.lastContactAt = lastContactAt;
     }
 
+    public void setHouseholdPhone(String householdPhone) {
+        this.householdPhone = householdPhone;
+    }
+
     /**
      * Generate a human-readable mother ID.
      *
@@ -237,6 +255,7 @@ public class Mother {
         private Language preferredLanguage = Language.ENGLISH;
         private LocalDateTime registeredAt = LocalDateTime.now();
         private LocalDateTime lastContactAt;
+        private String householdPhone;
 
         public MotherBuilder id(Long id) {
             this.id = id;
@@ -298,9 +317,16 @@ public class Mother {
             return this;
         }
 
+        public MotherBuilder householdPhone(String householdPhone) {
+            this.householdPhone = householdPhone;
+            return this;
+        }
+
         public Mother build() {
-            return new Mother(id, phoneNumber, name, age, camp, zone, dueDate, prevComplications,
+            Mother mother = new Mother(id, phoneNumber, name, age, camp, zone, dueDate, prevComplications,
                     riskLevel, preferredLanguage, registeredAt, lastContactAt);
+            mother.setHouseholdPhone(householdPhone);
+            return mother;
         }
     }
 }
@@ -1,12 +1,18 @@
 package com.safebirth.domain.mother;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for Mother entity operations.
@@ -30,6 +36,26 @@ public interface MotherRepository extends JpaRepository<Mother, Long> {
      */
     boolean existsByPhoneNumber(String phoneNumber);
 
+    /**
+     * Find the mother whose household phone is linked to the given number.
+     * A number is linked to at most one mother.
+     *
+     * @param householdPhone the household member's phone number
+     * @return the mother if one is linked
+     */
+    Optional<Mother> findByHouseholdPhone(String householdPhone);
+
+    /**
+     * Load a mother and hold a write lock on her row until the transaction ends.
+     * Serialises concurrent emergencies for the same mother.
+     *
+     * @param id the mother ID
+     * @return the mother if found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM Mother m WHERE m.id = :id")
+    Optional<Mother> findByIdForUpdate(@Param("id") Long id);
+
     /**
      * Find all mothers in a specific zone.
      *
@@ -86,4 +112,18 @@ public interface MotherRepository extends JpaRepository<Mother, Long> {
      */
     @Query("SELECT m FROM Mother m WHERE m.zone = :zone AND m.riskLevel = 'HIGH'")
     List<Mother> findHighRiskInZone(@Param("zone") String zone);
+
+    /**
+     * Stream mothers for export, optionally filtered by zone, without loading them all into memory.
+     * Must be consumed inside a transaction and closed after use.
+     *
+     * @param zone optional zone filter (null for all)
+     * @return stream of mothers ordered by id
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT m FROM Mother m WHERE (:zone IS NULL OR m.zone = :zone) ORDER BY m.id")
+    Stream<Mother> streamForExport(@Param("zone") String zone);
 }
@@ -1,5 +1,6 @@
 package com.safebirth.domain.mother;
 
+import com.safebirth.domain.volunteer.VolunteerRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -20,9 +21,11 @@ public class MotherService {
     private static final Logger log = LoggerFactory.getLogger(MotherService.class);
 
     private final MotherRepository motherRepository;
+    private final VolunteerRepository volunteerRepository;
 
-    public MotherService(MotherRepository motherRepository) {
+    public MotherService(MotherRepository motherRepository, VolunteerRepository volunteerRepository) {
         this.motherRepository = motherRepository;
+        this.volunteerRepository = volunteerRepository;
     }
 
     /**
@@ -99,6 +102,54 @@ public class MotherService {
         return motherRepository.findByPhoneNumber(phoneNumber);
     }
 
+    /**
+     * Find a mother by her own phone number or, failing that, by a linked household phone.
+     *
+     * @param phoneNumber the sender's phone number
+     * @return the mother if found
+     */
+    public Optional<Mother> findByPhoneOrHousehold(String phoneNumber) {
+        Optional<Mother> mother = motherRepository.findByPhoneNumber(phoneNumber);
+        if (mother.isPresent()) {
+            return mother;
+        }
+        return motherRepository.findByHouseholdPhone(phoneNumber);
+    }
+
+    /**
+     * Link a family member's phone to a mother, so emergencies sent from it
+     * attach to her case.
+     *
+     * The number is stored in the international format senders arrive in, taking the
+     * country code from the mother's own number when it is typed in national form. A number
+     * registered as a mother or volunteer, or linked to another mother, cannot be linked.
+     *
+     * @param phoneNumber    the mother's phone number
+     * @param householdPhone the family member's phone number, as typed
+     * @return the updated mother
+     */
+    @Transactional
+    public Mother linkHouseholdPhone(String phoneNumber, String householdPhone) {
+        Mother mother = motherRepository.findByPhoneNumber(phoneNumber)
+                .orElseThrow(() -> new IllegalArgumentException("Mother not found: " + maskPhone(phoneNumber)));
+        String normalized = normalizePhone(householdPhone, mother.getPhoneNumber());
+        if (normalized.equals(mother.getPhoneNumber())) {
+            throw new IllegalArgumentException("Household phone must differ from your own number");
+        }
+        if (motherRepository.existsByPhoneNumber(normalized) || volunteerRepository.existsByPhoneNumber(normalized)) {
+            throw new IllegalArgumentException("This phone is already registered and cannot be linked");
+        }
+        motherRepository.findByHouseholdPhone(normalized)
+                .filter(other -> !other.getId().equals(mother.getId()))
+                .ifPresent(other -> {
+                    throw new IllegalArgumentException("This phone is already linked to another registration");
+                });
+
+        mother.setHouseholdPhone(normalized);
+        log.info("Linked household phone {} to {}", maskPhone(householdPhone), mother.getFormattedId());
+        return motherRepository.save(mother);
+    }
+
     /**
      * Find a mother by ID.
      *
@@ -195,6 +246,30 @@ public class MotherService {
         return motherRepository.findAllZones();
     }
 
+    /**
+     * Bring a typed number into the +country format of the given number: "00" becomes "+",
+     * and a national number (leading 0, or fewer digits) gets the country code of the
+     * reference number, assuming national numbers of the same length.
+     */
+    static String normalizePhone(String phone, String reference) {
+        String digits = phone.replaceAll("[\\s-]", "");
+        if (digits.startsWith("+")) {
+            return digits;
+        }
+        if (digits.startsWith("00")) {
+            return "+" + digits.substring(2);
+        }
+        String national = digits.startsWith("0") ? digits.substring(1) : digits;
+        if (!digits.startsWith("0") && reference.startsWith("+") && digits.length() == reference.length() - 1) {
+            // Already international, without the "+"
+            return "+" + digits;
+        }
+        if (!reference.startsWith("+") || national.length() >= reference.length() - 1) {
+            throw new IllegalArgumentException("Please send the number with its country code, e.g. LINK +970599123456");
+        }
+        return reference.substring(0, reference.length() - national.length()) + national;
+    }
+
     private String maskPhone(String phone) {
         if (phone == null || phone.length() < 4) return "***";
         return phone.substring(0, phone.length() - 4) + "****";
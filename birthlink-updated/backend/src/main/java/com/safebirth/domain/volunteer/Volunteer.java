@@ -1,5 +1,6 @@
 package com.safebirth.domain.volunteer;
 
+import com.safebirth.domain.DataVersionEntityListener;
 import com.safebirth.domain.mother.Language;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
@@ -18,6 +19,7 @@ import java.util.Set;
         @Index(name = "idx_volunteer_phone", columnList = "phoneNumber", unique = true),
         @Index(name = "idx_volunteer_status", columnList = "status")
 })
+@EntityListeners(DataVersionEntityListener.class)
 public class Volunteer {
 
     @Id
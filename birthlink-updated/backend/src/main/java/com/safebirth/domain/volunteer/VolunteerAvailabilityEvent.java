@@ -0,0 +1,16 @@
+package com.safebirth.domain.volunteer;
+
+import java.time.LocalDateTime;
+
+/**
+ * Application event published by VolunteerService when a volunteer's availability changes.
+ * A null previous status means the volunteer has just registered.
+ */
+public record VolunteerAvailabilityEvent(
+        Long volunteerId,
+        String formattedId,
+        AvailabilityStatus previous,
+        AvailabilityStatus current,
+        LocalDateTime occurredAt
+) {
+}
@@ -1,12 +1,16 @@
 package com.safebirth.domain.volunteer;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for Volunteer entity operations.
@@ -114,4 +118,18 @@ public interface VolunteerRepository extends JpaRepository<Volunteer, Long> {
      */
     @Query("SELECT DISTINCT v.camp FROM Volunteer v")
     List<String> findAllCamps();
+
+    /**
+     * Stream volunteers for export without loading them all into memory.
+     * Zones are fetched in the same query rather than one extra select per volunteer.
+     * Must be consumed inside a transaction and closed after use.
+     *
+     * @return stream of volunteers ordered by id
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT DISTINCT v FROM Volunteer v LEFT JOIN FETCH v.zones ORDER BY v.id")
+    Stream<Volunteer> streamForExport();
 }
@@ -3,6 +3,7 @@ package com.safebirth.domain.volunteer;
 import com.safebirth.domain.mother.Language;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,9 +22,12 @@ public class VolunteerService {
     private static final Logger log = LoggerFactory.getLogger(VolunteerService.class);
 
     private final VolunteerRepository volunteerRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public VolunteerService(VolunteerRepository volunteerRepository) {
+    public VolunteerService(VolunteerRepository volunteerRepository,
+                            ApplicationEventPublisher eventPublisher) {
         this.volunteerRepository = volunteerRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -70,6 +74,8 @@ public class VolunteerService {
 
         Volunteer saved = volunteerRepository.save(volunteer);
         log.info("New volunteer registered: {}", saved.getFormattedId());
+        eventPublisher.publishEvent(new VolunteerAvailabilityEvent(saved.getId(), saved.getFormattedId(),
+                null, saved.getStatus(), LocalDateTime.now()));
         return saved;
     }
 
@@ -105,10 +111,16 @@ public class VolunteerService {
         Volunteer volunteer = volunteerRepository.findByPhoneNumber(phoneNumber)
                 .orElseThrow(() -> new IllegalArgumentException("Volunteer not found: " + phoneNumber));
 
+        AvailabilityStatus previous = volunteer.getStatus();
         volunteer.setAvailability(status);
         volunteer.setLastActiveAt(LocalDateTime.now());
         log.info("Updated availability for {}: {}", volunteer.getFormattedId(), status);
-        return volunteerRepository.save(volunteer);
+        Volunteer saved = volunteerRepository.save(volunteer);
+        if (previous != status) {
+            eventPublisher.publishEvent(new VolunteerAvailabilityEvent(volunteer.getId(), volunteer.getFormattedId(),
+                    previous, status, volunteer.getLastActiveAt()));
+        }
+        return saved;
     }
 
     /**
@@ -161,7 +173,7 @@ public class VolunteerService {
      * @return count of available volunteers
      */
     public long countAvailable() {
-        return volunteerRepository.countByAvailability(AvailabilityStatus.AVAILABLE);
+        return volunteerRepository.countByStatus(AvailabilityStatus.AVAILABLE);
     }
 
     private String maskPhone(String phone) {
@@ -7,7 +7,10 @@ import com.safebirth.domain.mother.RiskLevel;
 import com.safebirth.domain.volunteer.SkillType;
 import com.safebirth.domain.volunteer.Volunteer;
 import com.safebirth.domain.volunteer.VolunteerRepository;
-import com.safebirth.sms.gateway.SmsGateway;
+import com.safebirth.sms.gateway.SmsMessageOptimizer;
+import com.safebirth.sms.gateway.SmsRecipient;
+import com.safebirth.sms.outbox.SmsOutboxService;
+import com.safebirth.sms.outbox.SmsPriority;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -35,14 +38,16 @@ public class MatchingService {
     private static final Logger log = LoggerFactory.getLogger(MatchingService.class);
 
     private final VolunteerRepository volunteerRepository;
-    private final SmsGateway smsGateway;
+    private final SmsOutboxService smsOutbox;
     private final HelpRequestService helpRequestService;
+    private final SmsMessageOptimizer messageOptimizer;
 
-    public MatchingService(VolunteerRepository volunteerRepository, SmsGateway smsGateway,
-                          HelpRequestService helpRequestService) {
+    public MatchingService(VolunteerRepository volunteerRepository, SmsOutboxService smsOutbox,
+                          HelpRequestService helpRequestService, SmsMessageOptimizer messageOptimizer) {
         this.volunteerRepository = volunteerRepository;
-        this.smsGateway = smsGateway;
+        this.smsOutbox = smsOutbox;
         this.helpRequestService = helpRequestService;
+        this.messageOptimizer = messageOptimizer;
     }
 
     /**
@@ -65,16 +70,8 @@ public class MatchingService {
             return List.of();
         }
 
-        // Notify each volunteer
-        int notified = 0;
-        for (Volunteer volunteer : volunteersToNotify) {
-            try {
-                notifyVolunteer(volunteer, request);
-                notified++;
-            } catch (Exception e) {
-                log.error("Failed to notify volunteer {}: {}", volunteer.getFormattedId(), e.getMessage());
-            }
-        }
+        // Notify all volunteers, one multi-recipient send per language
+        int notified = notifyVolunteers(volunteersToNotify, request);
 
         // Update alerts sent counter
         helpRequestService.incrementAlertsSent(request.getCaseId());
@@ -164,6 +161,30 @@ public class MatchingService {
         return toAlert;
     }
 
+    /**
+     * Notify several volunteers about a help request.
+     * Volunteers are grouped by the rendered alert text (i.e. by language), so the gateway
+     * sends one multi-recipient message per group instead of one per volunteer.
+     *
+     * @param volunteers the volunteers to notify
+     * @param request    the help request
+     * @return number of volunteers the alert was queued or sent for
+     */
+    public int notifyVolunteers(List<Volunteer> volunteers, HelpRequest request) {
+        List<SmsRecipient> recipients = volunteers.stream()
+                .map(v -> new SmsRecipient(v.getPhoneNumber(), v.getPreferredLanguage()))
+                .toList();
+        SmsPriority priority = request.isEmergency() ? SmsPriority.EMERGENCY_ALERT : SmsPriority.CASE_UPDATE;
+
+        log.info("📱 Notifying {} volunteers about request {}", volunteers.size(), request.getCaseId());
+        try {
+            return smsOutbox.enqueueBulk(recipients, r -> buildAlertMessage(r.language(), request), priority);
+        } catch (Exception e) {
+            log.error("Failed to notify volunteers for request {}: {}", request.getCaseId(), e.getMessage());
+            return 0;
+        }
+    }
+
     /**
      * Notify a single volunteer about a help request.
      * Sends an SMS alert in the volunteer's preferred language.
@@ -176,9 +197,10 @@ public class MatchingService {
                 volunteer.getFormattedId(), request.getCaseId());
 
         String alertMessage = buildAlertMessage(volunteer, request);
-        smsGateway.sendSms(volunteer.getPhoneNumber(), alertMessage);
+        SmsPriority priority = request.isEmergency() ? SmsPriority.EMERGENCY_ALERT : SmsPriority.CASE_UPDATE;
+        smsOutbox.enqueue(volunteer.getPhoneNumber(), alertMessage, priority);
         
-        log.debug("Alert sent to {}: {}", volunteer.getPhoneNumber(), alertMessage);
+        log.debug("Alert queued for {}: {}", volunteer.getPhoneNumber(), alertMessage);
     }
 
     /**
@@ -189,7 +211,17 @@ public class MatchingService {
      * @return formatted alert message
      */
     public String buildAlertMessage(Volunteer volunteer, HelpRequest request) {
-        Language lang = volunteer.getPreferredLanguage();
+        return buildAlertMessage(volunteer.getPreferredLanguage(), request);
+    }
+
+    /**
+     * Build the alert message for a help request in the given language.
+     *
+     * @param lang    the message language
+     * @param request the help request
+     * @return formatted alert message
+     */
+    public String buildAlertMessage(Language lang, HelpRequest request) {
 
         String typeLabel = request.isEmergency()
                 ? (lang == Language.ARABIC ? "طوارئ" : "EMERGENCY")
@@ -201,20 +233,33 @@ public class MatchingService {
         String caseId = request.getCaseId();
         String motherPhone = request.getMother().getPhoneNumber();
 
+        // Full and abbreviated variants; the optimiser sends whichever fits fewer segments
         if (lang == Language.ARABIC) {
-            return String.format("""
-                    🚨 %s منطقة %s
-                    الخطورة: %s | الموعد: %s
-                    📞 رقم الأم: %s
-                    للقبول أرسل: قبول %s""",
-                    typeLabel, zone, riskLabel, dueDateStr, motherPhone, caseId);
+            return messageOptimizer.choose(
+                    String.format("""
+                            🚨 %s منطقة %s
+                            الخطورة: %s | الموعد: %s
+                            📞 رقم الأم: %s
+                            للقبول أرسل: قبول %s""",
+                            typeLabel, zone, riskLabel, dueDateStr, motherPhone, caseId),
+                    String.format("""
+                            %s منطقة %s %s %s
+                            الأم %s
+                            قبول %s""",
+                            typeLabel, zone, riskLabel, dueDateStr, motherPhone, caseId));
         } else {
-            return String.format("""
-                    🚨 %s Zone %s
-                    Risk: %s | Due: %s
-                    📞 Mother: %s
-                    Reply: ACCEPT %s""",
-                    typeLabel, zone, riskLabel, dueDateStr, motherPhone, caseId);
+            return messageOptimizer.choose(
+                    String.format("""
+                            🚨 %s Zone %s
+                            Risk: %s | Due: %s
+                            📞 Mother: %s
+                            Reply: ACCEPT %s""",
+                            typeLabel, zone, riskLabel, dueDateStr, motherPhone, caseId),
+                    String.format("""
+                            %s Z%s %s, due %s
+                            Mother %s
+                            ACCEPT %s""",
+                            typeLabel, zone, riskLabel, dueDateStr, motherPhone, caseId));
         }
     }
 
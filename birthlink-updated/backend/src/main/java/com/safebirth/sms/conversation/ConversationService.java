@@ -277,20 +277,21 @@ public class ConversationService {
             // Map AI request type to our RequestType enum
             RequestType requestType = mapToRequestType(requestTypeStr, isEmergency);
 
-            // Create help request and trigger matching
-            HelpRequest helpRequest = helpRequestService.createRequest(mother, requestType);
-            List<Volunteer> notified = matchingService.matchAndNotify(helpRequest);
-
-            log.info("Created help request {} and notified {} volunteers",
-                    helpRequest.getCaseId(), notified.size());
-
-            // Build response with case info
+            // An emergency repeated while her case is open attaches to it without alerting again
             Language lang = mother.getPreferredLanguage();
-            String caseInfo = lang == Language.ARABIC
-                    ? "\n\nرقم الحالة: " + helpRequest.getCaseId() + " | تم إخطار " + notified.size() + " متطوع"
-                    : "\n\nCase: " + helpRequest.getCaseId() + " | " + notified.size() + " volunteer(s) notified";
+            if (requestType == RequestType.EMERGENCY) {
+                HelpRequestService.EmergencyIntake intake = helpRequestService.openEmergency(mother);
+                if (intake.repeat()) {
+                    String caseId = intake.request().getCaseId();
+                    return lang == Language.ARABIC
+                            ? "🚨 حالتك " + caseId + " مسجلة لدينا. المساعدة في الطريق. ابق هادئاً."
+                            : "🚨 We already have your case " + caseId + ". Help is on the way. Stay calm.";
+                }
+                return replyWithCase(response, intake.request(), lang);
+            }
 
-            return response.getReply() + caseInfo;
+            // Create help request and trigger matching
+            return replyWithCase(response, helpRequestService.createRequest(mother, requestType), lang);
         } else {
             // Need more info - create conversation state
             ConversationState state = ConversationState.builder()
@@ -308,6 +309,23 @@ public class ConversationService {
         return response.getReply();
     }
 
+    /**
+     * Match and notify volunteers for a new help request and append the case info to the AI reply.
+     */
+    private String replyWithCase(AiResponse response, HelpRequest helpRequest, Language lang) {
+        List<Volunteer> notified = matchingService.matchAndNotify(helpRequest);
+
+        log.info("Created help request {} and notified {} volunteers",
+                helpRequest.getCaseId(), notified.size());
+
+        // Build response with case info
+        String caseInfo = lang == Language.ARABIC
+                ? "\n\nرقم الحالة: " + helpRequest.getCaseId() + " | تم إخطار " + notified.size() + " متطوع"
+                : "\n\nCase: " + helpRequest.getCaseId() + " | " + notified.size() + " volunteer(s) notified";
+
+        return response.getReply() + caseInfo;
+    }
+
     /**
      * Map AI-detected request type string to RequestType enum.
      */
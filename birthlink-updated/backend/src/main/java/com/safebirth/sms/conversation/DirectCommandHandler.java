@@ -65,9 +65,13 @@ public class DirectCommandHandler {
     public boolean isDirectCommand(String message, String phone) {
         String normalized = message.trim();
 
-        // Check for EMERGENCY/SUPPORT from registered mothers
-        if (EMERGENCY_PATTERN.matcher(normalized).matches() ||
-            SUPPORT_PATTERN.matcher(normalized).matches()) {
+        // Check for EMERGENCY from registered mothers or their linked household phones
+        if (EMERGENCY_PATTERN.matcher(normalized).matches()) {
+            return findMotherOrHousehold(phone).isPresent();
+        }
+
+        // Check for SUPPORT from registered mothers
+        if (SUPPORT_PATTERN.matcher(normalized).matches()) {
             return motherRepository.findByPhoneNumber(phone).isPresent();
         }
 
@@ -135,9 +139,10 @@ public class DirectCommandHandler {
 
     /**
      * Handle EMERGENCY command - creates help request and notifies volunteers.
+     * Repeats from the mother or her household within the coalescing window attach to the open case.
      */
     private DirectCommandResult handleEmergencyCommand(String phone) {
-        Optional<Mother> motherOpt = motherRepository.findByPhoneNumber(phone);
+        Optional<Mother> motherOpt = findMotherOrHousehold(phone);
         if (motherOpt.isEmpty()) {
             return DirectCommandResult.handled(
                 "You are not registered. Please register first. / لم يتم تسجيلك. يرجى التسجيل أولاً.");
@@ -147,8 +152,14 @@ public class DirectCommandHandler {
         Language lang = mother.getPreferredLanguage();
         log.warn("🚨 EMERGENCY request from {} in zone {}", mother.getFormattedId(), mother.getZone());
 
-        // Create emergency help request
-        HelpRequest request = helpRequestService.createRequest(mother, RequestType.EMERGENCY);
+        // Create emergency help request, or attach a repeat to the one already open
+        HelpRequestService.EmergencyIntake intake = helpRequestService.openEmergency(mother);
+        HelpRequest request = intake.request();
+        if (intake.repeat()) {
+            return DirectCommandResult.handled(lang == Language.ARABIC
+                ? "🚨 حالتك " + request.getCaseId() + " مسجلة لدينا. المساعدة في الطريق. ابق هادئاً."
+                : "🚨 We already have your case " + request.getCaseId() + ". Help is on the way. Stay calm.");
+        }
 
         // Match and notify volunteers in the same zone
         List<Volunteer> notified = matchingService.matchAndNotify(request);
@@ -164,6 +175,11 @@ public class DirectCommandHandler {
             : "🚨 EMERGENCY received! Case: " + request.getCaseId() + "\n✅ " + notified.size() + " volunteer(s) have been alerted. Help is on the way. Stay calm.");
     }
 
+    private Optional<Mother> findMotherOrHousehold(String phone) {
+        Optional<Mother> mother = motherRepository.findByPhoneNumber(phone);
+        return mother.isPresent() ? mother : motherRepository.findByHouseholdPhone(phone);
+    }
+
     /**
      * Handle SUPPORT command - creates support request and notifies volunteers.
      */
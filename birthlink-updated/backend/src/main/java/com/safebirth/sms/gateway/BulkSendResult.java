@@ -0,0 +1,45 @@
+package com.safebirth.sms.gateway;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-recipient outcome of a bulk send.
+ *
+ * @param sent   provider message id by recipient phone number
+ * @param failed failure reason by recipient phone number
+ */
+public record BulkSendResult(
+        Map<String, String> sent,
+        Map<String, String> failed
+) {
+    /**
+     * Create an empty, mutable result.
+     *
+     * @return the result
+     */
+    public static BulkSendResult empty() {
+        return new BulkSendResult(new LinkedHashMap<>(), new LinkedHashMap<>());
+    }
+
+    /**
+     * Add the outcomes of another send to this result.
+     *
+     * @param other the other result
+     * @return this result
+     */
+    public BulkSendResult merge(BulkSendResult other) {
+        sent.putAll(other.sent());
+        failed.putAll(other.failed());
+        return this;
+    }
+
+    /**
+     * Check whether every recipient was accepted by the provider.
+     *
+     * @return true if nothing failed
+     */
+    public boolean isComplete() {
+        return failed.isEmpty();
+    }
+}
@@ -1,5 +1,6 @@
 package com.safebirth.sms.gateway;
 
+import com.safebirth.config.TwilioConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -7,15 +8,25 @@ import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Mock SMS gateway for development and testing.
  * Logs messages with emojis instead of actually sending them.
  * Maintains an in-memory outbox for test assertions.
  * Activated when twilio.mock-enabled is true (default for dev).
+ *
+ * The outbox is bounded so the demo deployment and soak tests don't grow without limit:
+ * a global ring keeps the last twilio.mock-outbox-capacity messages, and a ring per recipient
+ * (twilio.mock-outbox-per-recipient) indexes them by phone. Appends never take a lock;
+ * a recipient's index is dropped once all of its messages have left the global ring.
  */
 @Component
 @ConditionalOnProperty(name = "twilio.mock-enabled", havingValue = "true", matchIfMissing = true)
@@ -23,7 +34,17 @@ public class MockSmsGateway implements SmsGateway {
 
     private static final Logger log = LoggerFactory.getLogger(MockSmsGateway.class);
 
-    private final List<OutboxMessage> outbox = Collections.synchronizedList(new ArrayList<>());
+    private final int capacity;
+    private final int perRecipient;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Ring> byRecipient = new ConcurrentHashMap<>();
+    private volatile Ring outbox;
+
+    public MockSmsGateway(TwilioConfig config) {
+        this.capacity = Math.max(1, config.getMockOutboxCapacity());
+        this.perRecipient = Math.max(1, config.getMockOutboxPerRecipient());
+        this.outbox = new Ring(capacity);
+    }
 
     @Override
     public String sendSms(String to, String message) {
@@ -34,11 +55,29 @@ public class MockSmsGateway implements SmsGateway {
         log.info("SMS OUTBOUND [MOCK MODE] - To: {}, Message: {}, SID: {}, Time: {}",
                 to, truncateForLog(message), mockSid, timestamp);
 
-        outbox.add(new OutboxMessage(to, message, mockSid, timestamp));
+        record(new OutboxMessage(to, message, mockSid, timestamp));
 
         return mockSid;
     }
 
+    private void record(OutboxMessage message) {
+        Slot slot = new Slot(sequence.incrementAndGet(), message);
+
+        Ring recipient = byRecipient.computeIfAbsent(message.to(), k -> new Ring(perRecipient));
+        recipient.add(slot);
+        if (byRecipient.get(message.to()) != recipient) {
+            // The index was evicted while we appended; add to its replacement
+            byRecipient.computeIfAbsent(message.to(), k -> new Ring(perRecipient)).add(slot);
+        }
+
+        Slot overwritten = outbox.add(slot);
+        if (overwritten != null) {
+            // Drop the recipient's index once its newest message has left the global ring
+            byRecipient.computeIfPresent(overwritten.message().to(),
+                    (k, ring) -> ring.newestSeq() <= overwritten.seq() ? null : ring);
+        }
+    }
+
     @Override
     public String generateTwimlResponse(String message) {
         String twiml = String.format("""
@@ -52,6 +91,11 @@ public class MockSmsGateway implements SmsGateway {
         return twiml;
     }
 
+    @Override
+    public String getProviderName() {
+        return "mock";
+    }
+
     @Override
     public boolean isAvailable() {
         return true;
@@ -61,10 +105,21 @@ public class MockSmsGateway implements SmsGateway {
      * Get all messages in the outbox.
      * Useful for testing verification.
      *
-     * @return unmodifiable list of outbox messages
+     * @return the retained messages, oldest first
      */
     public List<OutboxMessage> getOutbox() {
-        return new ArrayList<>(outbox);
+        return outbox.snapshot(oldestRetainedSeq());
+    }
+
+    /**
+     * Get messages sent at or after a point in time.
+     * Used by pollers that only need what is new since their last call.
+     *
+     * @param since the earliest timestamp to include
+     * @return the matching messages, oldest first
+     */
+    public List<OutboxMessage> getMessagesSince(LocalDateTime since) {
+        return outbox.newerThan(oldestRetainedSeq(), since);
     }
 
     /**
@@ -73,22 +128,40 @@ public class MockSmsGateway implements SmsGateway {
      * @return the last message or null if outbox is empty
      */
     public OutboxMessage getLastMessage() {
-        if (outbox.isEmpty()) {
-            return null;
-        }
-        return outbox.get(outbox.size() - 1);
+        Slot newest = outbox.newest();
+        return newest != null ? newest.message() : null;
     }
 
     /**
      * Get messages sent to a specific phone number.
      *
      * @param phoneNumber the recipient phone number
-     * @return list of messages sent to this number
+     * @return list of messages sent to this number, oldest first
      */
     public List<OutboxMessage> getMessagesSentTo(String phoneNumber) {
-        return outbox.stream()
-                .filter(msg -> msg.to().equals(phoneNumber))
-                .toList();
+        Ring ring = byRecipient.get(phoneNumber);
+        return ring != null ? ring.snapshot(oldestRetainedSeq()) : List.of();
+    }
+
+    /**
+     * Get messages sent to a specific phone number at or after a point in time.
+     *
+     * @param phoneNumber the recipient phone number
+     * @param since       the earliest timestamp to include
+     * @return the matching messages, oldest first
+     */
+    public List<OutboxMessage> getMessagesSentTo(String phoneNumber, LocalDateTime since) {
+        Ring ring = byRecipient.get(phoneNumber);
+        return ring != null ? ring.newerThan(oldestRetainedSeq(), since) : List.of();
+    }
+
+    /**
+     * Get the phone numbers that currently have messages in the outbox.
+     *
+     * @return the recipients
+     */
+    public Set<String> getRecipients() {
+        return Set.copyOf(byRecipient.keySet());
     }
 
     /**
@@ -105,7 +178,8 @@ public class MockSmsGateway implements SmsGateway {
      * Useful for test cleanup between test cases.
      */
     public void clearOutbox() {
-        outbox.clear();
+        outbox = new Ring(capacity);
+        byRecipient.clear();
         log.debug("Mock SMS outbox cleared");
     }
 
@@ -116,7 +190,7 @@ public class MockSmsGateway implements SmsGateway {
      * @return true if any message contains this text
      */
     public boolean hasMessageContaining(String textFragment) {
-        return outbox.stream()
+        return getOutbox().stream()
                 .anyMatch(msg -> msg.message().contains(textFragment));
     }
 
@@ -127,8 +201,14 @@ public class MockSmsGateway implements SmsGateway {
      * @return true if any message was sent to this number
      */
     public boolean hasMessageTo(String phoneNumber) {
-        return outbox.stream()
-                .anyMatch(msg -> msg.to().equals(phoneNumber));
+        return !getMessagesSentTo(phoneNumber).isEmpty();
+    }
+
+    /**
+     * Messages older than this sequence have left the global ring, even if a recipient ring still holds them.
+     */
+    private long oldestRetainedSeq() {
+        return sequence.get() - capacity + 1;
     }
 
     private String truncateForLog(String text) {
@@ -157,4 +237,71 @@ public class MockSmsGateway implements SmsGateway {
             String sid,
             LocalDateTime timestamp
     ) {}
+
+    private record Slot(long seq, OutboxMessage message) {
+    }
+
+    /**
+     * Fixed-size ring of slots. Writers claim an index with a single atomic increment and
+     * overwrite the oldest slot; readers take a weakly consistent snapshot ordered by sequence.
+     */
+    private static final class Ring {
+
+        private final AtomicReferenceArray<Slot> slots;
+        private final AtomicLong writes = new AtomicLong();
+        private final AtomicLong newestSeq = new AtomicLong();
+
+        Ring(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+        }
+
+        Slot add(Slot slot) {
+            long index = writes.getAndIncrement();
+            newestSeq.accumulateAndGet(slot.seq(), Math::max);
+            return slots.getAndSet(slotIndex(index), slot);
+        }
+
+        long newestSeq() {
+            return newestSeq.get();
+        }
+
+        int size() {
+            return (int) Math.min(writes.get(), slots.length());
+        }
+
+        Slot newest() {
+            long written = writes.get();
+            return written == 0 ? null : slots.get(slotIndex(written - 1));
+        }
+
+        List<OutboxMessage> snapshot(long minSeq) {
+            return newerThan(minSeq, null);
+        }
+
+        /**
+         * Walk back from the newest slot, stopping at the first message older than since.
+         * Timestamps follow append order, so a poll only touches the messages it returns.
+         */
+        List<OutboxMessage> newerThan(long minSeq, LocalDateTime since) {
+            long written = writes.get();
+            long oldest = Math.max(0, written - slots.length());
+            List<Slot> found = new ArrayList<>();
+            for (long index = written - 1; index >= oldest; index--) {
+                Slot slot = slots.get(slotIndex(index));
+                if (slot == null || slot.seq() < minSeq) {
+                    continue;
+                }
+                if (since != null && slot.message().timestamp().isBefore(since)) {
+                    break;
+                }
+                found.add(slot);
+            }
+            found.sort(Comparator.comparingLong(Slot::seq));
+            return found.stream().map(Slot::message).toList();
+        }
+
+        private int slotIndex(long index) {
+            return (int) (index % slots.length());
+        }
+    }
 }
@@ -0,0 +1,76 @@
+package com.safebirth.sms.gateway;
+
+/**
+ * Recent health of one SMS route: success rate over the last outcomes and a latency estimate.
+ *
+ * Outcomes are kept in a fixed ring, so a provider that recovers is trusted again once its
+ * failures have rotated out. Until a route has enough outcomes its success rate is taken as 1,
+ * so a newly connected route is tried rather than starved. Latency is an exponentially weighted
+ * average of the samples recorded, or set directly by routes that measure it elsewhere.
+ */
+public class RouteHealth {
+
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final boolean[] outcomes;
+    private final int minSamples;
+    private int next;
+    private int count;
+    private int successes;
+    private double latencyMillis = -1;
+
+    /**
+     * @param window     outcomes remembered
+     * @param minSamples outcomes needed before the success rate counts
+     */
+    public RouteHealth(int window, int minSamples) {
+        this.outcomes = new boolean[Math.max(1, window)];
+        this.minSamples = Math.max(1, Math.min(minSamples, outcomes.length));
+    }
+
+    /**
+     * Record the outcome of one send.
+     */
+    public synchronized void record(boolean success) {
+        if (count == outcomes.length) {
+            if (outcomes[next]) {
+                successes--;
+            }
+        } else {
+            count++;
+        }
+        outcomes[next] = success;
+        if (success) {
+            successes++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    /**
+     * Record a latency sample.
+     */
+    public synchronized void recordLatency(long millis) {
+        latencyMillis = latencyMillis < 0 ? millis : latencyMillis + LATENCY_SMOOTHING * (millis - latencyMillis);
+    }
+
+    /**
+     * Replace the latency estimate, for routes that measure latency themselves.
+     */
+    public synchronized void setLatency(long millis) {
+        latencyMillis = millis;
+    }
+
+    /**
+     * Get the share of recent sends that succeeded, or 1 without enough outcomes.
+     */
+    public synchronized double successRate() {
+        return count < minSamples ? 1.0 : (double) successes / count;
+    }
+
+    /**
+     * Get the latency estimate in milliseconds, or 0 without samples.
+     */
+    public synchronized long latencyMillis() {
+        return latencyMillis < 0 ? 0 : Math.round(latencyMillis);
+    }
+}
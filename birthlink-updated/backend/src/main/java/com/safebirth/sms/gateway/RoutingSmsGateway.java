@@ -0,0 +1,452 @@
+package com.safebirth.sms.gateway;
+
+import com.safebirth.config.SmsRoutingConfig;
+import com.safebirth.exception.SmsDeliveryException;
+import com.safebirth.sms.gateway.websocket.PendingRequestTracker;
+import com.safebirth.sms.gateway.websocket.SmsGatewayWebSocketHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The SmsGateway the application sends through: routes each send to the healthiest of the
+ * connected Android gateway phones and the SMS provider (Twilio, or the mock in development).
+ *
+ * Every route gets a score of weight x recent success rate x latency factor, and an unavailable
+ * route scores 0. The Android phones carry the higher weight, so they take the traffic while they
+ * are connected and confirming sends, and the provider takes over when they disconnect, fail or
+ * slow down. A send that a route rejects is tried on the next route at once, so a failover never
+ * waits for the scores to catch up.
+ *
+ * For the phones, the success rate and latency come from the WebSocket handler's confirmations;
+ * for the provider, from the outcome and duration of its API calls. Routed, failed and failed-over
+ * sends are counted per route, and switches of the preferred route are logged.
+ */
+@Component
+@Primary
+public class RoutingSmsGateway implements SmsGateway {
+
+    private static final Logger log = LoggerFactory.getLogger(RoutingSmsGateway.class);
+
+    private final SmsRoutingConfig config;
+    private final SmsGateway provider;
+    private final List<Route> routes = new ArrayList<>();
+    private volatile String preferred;
+
+    public RoutingSmsGateway(SmsRoutingConfig config, ObjectProvider<TwilioSmsGateway> twilio,
+                             ObjectProvider<MockSmsGateway> mock, ObjectProvider<WebSocketSmsGateway> android) {
+        this.config = config;
+        SmsGateway twilioGateway = twilio.getIfAvailable();
+        this.provider = twilioGateway != null ? twilioGateway : mock.getObject();
+        if (config.isAndroidEnabled()) {
+            // Resolved on first use: the WebSocket handler depends on services that send through this gateway
+            routes.add(new AndroidRoute(android));
+        }
+        routes.add(new ProviderRoute());
+    }
+
+    @Override
+    public String sendSms(String to, String message) {
+        SmsDeliveryException lastError = null;
+        Route previous = null;
+        for (Route route : ranked()) {
+            if (previous != null) {
+                previous.failedOver.incrementAndGet();
+                log.warn("🔀 Failing over SMS to {} from {} to {}", maskPhone(to), previous.name, route.name);
+            }
+            try {
+                String id = route.send(List.of(to), message);
+                if (id != null) {
+                    route.routed.incrementAndGet();
+                    return id;
+                }
+                route.failed.incrementAndGet();
+            } catch (Exception e) {
+                route.failed.incrementAndGet();
+                lastError = new SmsDeliveryException("SMS route " + route.name + " failed: " + e.getMessage(), e);
+            }
+            previous = route;
+        }
+        throw lastError != null ? lastError : new SmsDeliveryException("No SMS route available");
+    }
+
+    /**
+     * Send to all recipients on the best route, and whoever it rejects on the next one.
+     */
+    @Override
+    public BulkSendResult sendBulk(List<String> recipients, String message) {
+        BulkSendResult result = BulkSendResult.empty();
+        List<String> remaining = recipients;
+        Route previous = null;
+        for (Route route : ranked()) {
+            if (remaining.isEmpty()) {
+                break;
+            }
+            if (previous != null) {
+                previous.failedOver.addAndGet(remaining.size());
+                log.warn("🔀 Failing over {} recipient(s) from {} to {}", remaining.size(), previous.name, route.name);
+            }
+            BulkSendResult attempt = route.sendBulk(remaining, message);
+            route.routed.addAndGet(attempt.sent().size());
+            route.failed.addAndGet(attempt.failed().size());
+            result.sent().putAll(attempt.sent());
+            result.failed().keySet().removeAll(attempt.sent().keySet());
+            result.failed().putAll(attempt.failed());
+            remaining = new ArrayList<>(attempt.failed().keySet());
+            previous = route;
+        }
+        for (String to : remaining) {
+            result.failed().putIfAbsent(to, "No SMS route available");
+        }
+        return result;
+    }
+
+    @Override
+    public String generateTwimlResponse(String message) {
+        return provider.generateTwimlResponse(message);
+    }
+
+    @Override
+    public String generateEmptyTwimlResponse() {
+        return provider.generateEmptyTwimlResponse();
+    }
+
+    /**
+     * Name of the route sends currently go to, so the outbox applies that provider's rate limit.
+     */
+    @Override
+    public String getProviderName() {
+        List<Route> ranked = ranked();
+        return ranked.isEmpty() ? provider.getProviderName() : ranked.get(0).providerName();
+    }
+
+    /**
+     * Name of the route that sent the message, which differs from {@link #getProviderName()}
+     * when the send failed over.
+     */
+    @Override
+    public String getProviderName(String providerMessageId) {
+        for (Route route : routes) {
+            if (route.sent(providerMessageId)) {
+                return route.providerName();
+            }
+        }
+        return getProviderName();
+    }
+
+    /**
+     * Only when every route reports deliveries can a missing report be taken as not delivered;
+     * the phones' reports depend on the operator.
+     */
+    @Override
+    public boolean reportsDelivery() {
+        return routes.stream().allMatch(Route::reportsDelivery);
+    }
+
+    /**
+     * Ask the route that sent the message, so the provider's messages are still followed up
+     * while the phones are enabled. The phones report the commands they give up on as undelivered.
+     */
+    @Override
+    public boolean reportsDelivery(String providerMessageId) {
+        for (Route route : routes) {
+            if (route.sent(providerMessageId)) {
+                return route.reportsDelivery();
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return routes.stream().anyMatch(Route::isAvailable);
+    }
+
+    /**
+     * Get each route's health, score and routing counts.
+     *
+     * @return routing statistics since startup
+     */
+    public Stats getStats() {
+        Map<String, RouteStats> byRoute = new LinkedHashMap<>();
+        for (Route route : routes) {
+            boolean available = route.isAvailable();
+            route.refresh();
+            byRoute.put(route.name, new RouteStats(available, available ? route.score() : 0,
+                    route.health.successRate(), route.health.latencyMillis(),
+                    route.routed.get(), route.failed.get(), route.failedOver.get()));
+        }
+        return new Stats(preferred, byRoute);
+    }
+
+    /**
+     * Available routes, best score first.
+     */
+    private List<Route> ranked() {
+        List<Route> available = new ArrayList<>();
+        for (Route route : routes) {
+            if (route.isAvailable()) {
+                route.refresh();
+                available.add(route);
+            }
+        }
+        available.sort(Comparator.comparingDouble(Route::score).reversed());
+
+        String best = available.isEmpty() ? null : available.get(0).name;
+        if (best != null && !best.equals(preferred)) {
+            log.info("🔀 SMS routing now prefers {} (was {}): {}", best, preferred, describe(available));
+            preferred = best;
+        }
+        return available;
+    }
+
+    private String describe(List<Route> ranked) {
+        StringBuilder text = new StringBuilder();
+        for (Route route : ranked) {
+            if (!text.isEmpty()) {
+                text.append(", ");
+            }
+            text.append(route.name).append(String.format("=%.2f", route.score()));
+        }
+        return text.toString();
+    }
+
+    private String maskPhone(String phone) {
+        if (phone == null || phone.length() < 4)
+            return "***";
+        return phone.substring(0, phone.length() - 4) + "****";
+    }
+
+    /**
+     * One way out for an SMS, with its health and counters.
+     */
+    private abstract class Route {
+        final String name;
+        final double weight;
+        final RouteHealth health = new RouteHealth(config.getHealthWindow(), config.getMinSamples());
+        final AtomicLong routed = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong failedOver = new AtomicLong();
+
+        Route(String name, double weight) {
+            this.name = name;
+            this.weight = weight;
+        }
+
+        abstract boolean isAvailable();
+
+        /**
+         * Send one message to the recipients together.
+         *
+         * @return the provider's id for the send, or null if the route did not take it
+         */
+        abstract String send(List<String> recipients, String message);
+
+        abstract BulkSendResult sendBulk(List<String> recipients, String message);
+
+        abstract String providerName();
+
+        abstract boolean reportsDelivery();
+
+        /**
+         * Whether a provider id was returned by this route.
+         */
+        abstract boolean sent(String providerMessageId);
+
+        /**
+         * Bring the health up to date before scoring.
+         */
+        void refresh() {
+        }
+
+        double score() {
+            long target = Math.max(1, config.getLatencyTargetMillis());
+            double latencyFactor = (double) target / Math.max(target, health.latencyMillis());
+            return weight * health.successRate() * latencyFactor;
+        }
+    }
+
+    /**
+     * The Android gateway phones. A send succeeds once a phone has taken the command; its success
+     * rate and latency follow the phones' sent confirmations, which arrive later.
+     */
+    private final class AndroidRoute extends Route {
+        private final ObjectProvider<WebSocketSmsGateway> gatewayProvider;
+        private long confirmedSeen;
+        private long failedSeen;
+
+        AndroidRoute(ObjectProvider<WebSocketSmsGateway> gatewayProvider) {
+            super("android", config.getAndroidWeight());
+            this.gatewayProvider = gatewayProvider;
+        }
+
+        @Override
+        boolean isAvailable() {
+            WebSocketSmsGateway gateway = gatewayProvider.getIfAvailable();
+            return gateway != null && gateway.isConnected();
+        }
+
+        @Override
+        String send(List<String> recipients, String message) {
+            WebSocketSmsGateway gateway = gatewayProvider.getIfAvailable();
+            String requestId;
+            try {
+                requestId = gateway != null ? gateway.sendSms(recipients, message) : null;
+            } catch (RuntimeException e) {
+                health.record(false);
+                throw e;
+            }
+            if (requestId == null) {
+                health.record(false);
+            }
+            return requestId;
+        }
+
+        @Override
+        BulkSendResult sendBulk(List<String> recipients, String message) {
+            BulkSendResult result = BulkSendResult.empty();
+            String error = "No Android gateway connected";
+            try {
+                String requestId = send(recipients, message);
+                if (requestId != null) {
+                    recipients.forEach(to -> result.sent().put(to, requestId));
+                    return result;
+                }
+            } catch (Exception e) {
+                error = e.getMessage();
+            }
+            for (String to : recipients) {
+                result.failed().put(to, error);
+            }
+            return result;
+        }
+
+        @Override
+        synchronized void refresh() {
+            WebSocketSmsGateway gateway = gatewayProvider.getIfAvailable();
+            if (gateway == null) {
+                return;
+            }
+            PendingRequestTracker.Stats stats = gateway.getDeliveryStats();
+            long failures = stats.failed() + stats.timedOut();
+            long newConfirmed = stats.confirmed() - confirmedSeen;
+            long newFailed = failures - failedSeen;
+            confirmedSeen = stats.confirmed();
+            failedSeen = failures;
+            // Only the last window's worth of outcomes matter
+            int window = Math.max(1, config.getHealthWindow());
+            for (long i = Math.max(0, newConfirmed - window); i < newConfirmed; i++) {
+                health.record(true);
+            }
+            for (long i = Math.max(0, newFailed - window); i < newFailed; i++) {
+                health.record(false);
+            }
+            if (stats.confirmedLatency().count() > 0) {
+                health.setLatency(stats.confirmedLatency().p90Millis());
+            }
+        }
+
+        @Override
+        String providerName() {
+            return name;
+        }
+
+        @Override
+        boolean reportsDelivery() {
+            return false;
+        }
+
+        @Override
+        boolean sent(String providerMessageId) {
+            return providerMessageId != null
+                    && providerMessageId.startsWith(SmsGatewayWebSocketHandler.REQUEST_ID_PREFIX);
+        }
+    }
+
+    /**
+     * The SMS provider; a send succeeds when its API accepts the message.
+     */
+    private final class ProviderRoute extends Route {
+
+        ProviderRoute() {
+            super(provider.getProviderName(), config.getProviderWeight());
+        }
+
+        @Override
+        boolean isAvailable() {
+            return provider.isAvailable();
+        }
+
+        @Override
+        String send(List<String> recipients, String message) {
+            long start = System.nanoTime();
+            try {
+                String id = provider.sendSms(recipients.get(0), message);
+                health.record(id != null);
+                health.recordLatency((System.nanoTime() - start) / 1_000_000);
+                return id;
+            } catch (RuntimeException e) {
+                health.record(false);
+                throw e;
+            }
+        }
+
+        @Override
+        BulkSendResult sendBulk(List<String> recipients, String message) {
+            // A bulk call's duration says little about one send, so only its outcomes are recorded
+            BulkSendResult result = provider.sendBulk(recipients, message);
+            result.sent().keySet().forEach(to -> health.record(true));
+            result.failed().keySet().forEach(to -> health.record(false));
+            return result;
+        }
+
+        @Override
+        String providerName() {
+            return provider.getProviderName();
+        }
+
+        @Override
+        boolean reportsDelivery() {
+            return provider.reportsDelivery();
+        }
+
+        @Override
+        boolean sent(String providerMessageId) {
+            // Tried after the phones, so it owns every id that is not theirs
+            return providerMessageId != null;
+        }
+    }
+
+    /**
+     * Routing statistics since startup.
+     *
+     * @param preferred route sends currently go to first, null before the first send
+     * @param routes    health and counts per route
+     */
+    public record Stats(String preferred, Map<String, RouteStats> routes) {
+    }
+
+    /**
+     * Health and counts of one route.
+     *
+     * @param available     whether the route can take sends now
+     * @param score         routing score; the highest available route is tried first
+     * @param successRate   share of recent sends that succeeded
+     * @param latencyMillis latency estimate (confirmation p90 for the phones, API call time for the provider)
+     * @param routed        recipients sent through the route
+     * @param failed        recipients the route did not take
+     * @param failedOver    recipients moved from this route to the next one
+     */
+    public record RouteStats(boolean available, double score, double successRate, long latencyMillis,
+                             long routed, long failed, long failedOver) {
+    }
+}
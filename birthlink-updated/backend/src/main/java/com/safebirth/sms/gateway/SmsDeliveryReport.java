@@ -0,0 +1,19 @@
+package com.safebirth.sms.gateway;
+
+import java.time.LocalDateTime;
+
+/**
+ * Application event published when a provider reports whether an SMS reached the recipient's
+ * handset: a Twilio status callback, or an Android gateway phone's delivery report.
+ *
+ * providerMessageId is the id the gateway returned when the message was sent (the Twilio SID,
+ * or the WebSocket request id, which covers every recipient of one command).
+ */
+public record SmsDeliveryReport(
+        String providerMessageId,
+        String recipient,
+        boolean delivered,
+        String error,
+        LocalDateTime reportedAt
+) {
+}
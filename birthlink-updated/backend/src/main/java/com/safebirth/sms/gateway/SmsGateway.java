@@ -1,8 +1,13 @@
 package com.safebirth.sms.gateway;
 
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
 /**
  * Interface for SMS gateway operations.
- * Implementations include Twilio (production) and Mock (development).
+ * Implementations include Twilio (production) and Mock (development). The application sends
+ * through {@link RoutingSmsGateway}, which picks between one of them and the Android gateway phones.
  */
 public interface SmsGateway {
 
@@ -16,6 +21,48 @@ public interface SmsGateway {
      */
     String sendSms(String to, String message);
 
+    /**
+     * Send the same message to several recipients.
+     * The default sends one at a time; gateways with a cheaper multi-recipient path override it.
+     * Never throws for individual recipient failures; they are reported in the result.
+     *
+     * @param recipients recipient phone numbers (E.164 format)
+     * @param message    the message body
+     * @return per-recipient outcome
+     */
+    default BulkSendResult sendBulk(List<String> recipients, String message) {
+        BulkSendResult result = BulkSendResult.empty();
+        for (String to : recipients) {
+            try {
+                String id = sendSms(to, message);
+                if (id != null) {
+                    result.sent().put(to, id);
+                } else {
+                    result.failed().put(to, "Gateway did not accept the message");
+                }
+            } catch (Exception e) {
+                result.failed().put(to, String.valueOf(e.getMessage()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Render a message per recipient and send each distinct text once to all recipients
+     * that share it (typically one send per language).
+     *
+     * @param recipients the recipients
+     * @param template   renders the message for a recipient
+     * @return per-recipient outcome
+     */
+    default BulkSendResult sendBulk(List<SmsRecipient> recipients, Function<SmsRecipient, String> template) {
+        BulkSendResult result = BulkSendResult.empty();
+        for (Map.Entry<String, List<String>> group : SmsRecipient.groupByText(recipients, template).entrySet()) {
+            result.merge(sendBulk(group.getValue(), group.getKey()));
+        }
+        return result;
+    }
+
     /**
      * Generate a TwiML XML response for Twilio webhook.
      * This is the format Twilio expects as a response to incoming SMS.
@@ -25,6 +72,56 @@ public interface SmsGateway {
      */
     String generateTwimlResponse(String message);
 
+    /**
+     * Generate a TwiML response that acknowledges the webhook without replying.
+     * Used when the reply is sent later via {@link #sendSms(String, String)}.
+     *
+     * @return TwiML XML string with an empty Response element
+     */
+    default String generateEmptyTwimlResponse() {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?><Response></Response>";
+    }
+
+    /**
+     * Name of the underlying provider, used for per-provider rate limits in the outbox.
+     *
+     * @return provider name (e.g. "twilio")
+     */
+    default String getProviderName() {
+        return "default";
+    }
+
+    /**
+     * Name of the provider that sent a message, so the outbox charges that provider's rate limit.
+     *
+     * @param providerMessageId the id returned when the message was sent
+     * @return provider name
+     */
+    default String getProviderName(String providerMessageId) {
+        return getProviderName();
+    }
+
+    /**
+     * Whether the provider reports delivery to the handset as a {@link SmsDeliveryReport}.
+     * Only then can a message without a report be taken as not delivered.
+     *
+     * @return true if delivery reports are expected for sent messages
+     */
+    default boolean reportsDelivery() {
+        return false;
+    }
+
+    /**
+     * Whether a delivery report is expected for a message this gateway sent, so that a message
+     * without one can be taken as not delivered.
+     *
+     * @param providerMessageId the id returned when the message was sent
+     * @return true if the route that sent it reports deliveries
+     */
+    default boolean reportsDelivery(String providerMessageId) {
+        return reportsDelivery();
+    }
+
     /**
      * Check if the gateway is available and properly configured.
      *
@@ -0,0 +1,139 @@
+package com.safebirth.sms.gateway;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rewrites outbound message bodies to occupy as few SMS segments as possible.
+ *
+ * A single emoji or curly quote forces the whole body into UCS-2 (70 characters per
+ * segment instead of 160), and even in Arabic text every emoji costs two UCS-2 units.
+ * For each body the optimiser also tries an emoji-free form and a GSM-7 transliteration
+ * of common punctuation, and keeps the original unless a rewrite saves a segment.
+ */
+@Component
+public class SmsMessageOptimizer {
+
+    private static final Map<Character, String> GSM7_REPLACEMENTS = Map.ofEntries(
+            Map.entry('‘', "'"),
+            Map.entry('’', "'"),
+            Map.entry('“', "\""),
+            Map.entry('”', "\""),
+            Map.entry('–', "-"),
+            Map.entry('—', "-"),
+            Map.entry('•', "-"),
+            Map.entry('…', "..."),
+            Map.entry('\u00A0', " ")
+    );
+
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder rewritten = new LongAdder();
+    private final LongAdder segmentsBefore = new LongAdder();
+    private final LongAdder segmentsAfter = new LongAdder();
+
+    /**
+     * Optimise a body on its way to the gateway and record the saving.
+     *
+     * @param body the message body
+     * @return the body with the fewest segments
+     */
+    public String optimize(String body) {
+        String best = choose(body);
+        int before = SmsSegments.count(body);
+        int after = SmsSegments.count(best);
+        messages.increment();
+        segmentsBefore.add(before);
+        segmentsAfter.add(after);
+        if (after < before) {
+            rewritten.increment();
+        }
+        return best;
+    }
+
+    /**
+     * Pick the cheapest of several template variants, ordered by preference
+     * (e.g. the full text first, then an abbreviated one). Each variant is also tried
+     * without emoji and with GSM-7 punctuation; ties go to the earlier candidate.
+     *
+     * @param variants the variants, most preferred first
+     * @return the candidate with the fewest segments
+     */
+    public String choose(String... variants) {
+        String best = null;
+        int bestSegments = Integer.MAX_VALUE;
+        for (String variant : variants) {
+            for (String candidate : candidates(variant)) {
+                int segments = SmsSegments.count(candidate);
+                if (segments < bestSegments) {
+                    best = candidate;
+                    bestSegments = segments;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Get counters for all bodies optimised since startup.
+     *
+     * @return the statistics
+     */
+    public Stats getStats() {
+        return new Stats(messages.sum(), rewritten.sum(), segmentsBefore.sum(), segmentsAfter.sum());
+    }
+
+    private List<String> candidates(String body) {
+        List<String> candidates = new ArrayList<>(3);
+        candidates.add(body);
+        String withoutEmoji = stripEmoji(body);
+        candidates.add(withoutEmoji);
+        candidates.add(toGsm7Punctuation(withoutEmoji));
+        return candidates;
+    }
+
+    /**
+     * Remove pictographs and their joiners/variation selectors, then tidy the spacing they leave.
+     */
+    static String stripEmoji(String body) {
+        StringBuilder out = new StringBuilder(body.length());
+        body.codePoints()
+                .filter(cp -> !isEmoji(cp))
+                .forEach(out::appendCodePoint);
+        return out.toString()
+                .replaceAll("(?m)^[ \\t]+", "")
+                .replaceAll(" {2,}", " ")
+                .strip();
+    }
+
+    private static boolean isEmoji(int codePoint) {
+        return codePoint >= 0x1F000
+                || codePoint == 0x200D
+                || codePoint == 0xFE0F
+                || (codePoint >= 0x2100 && codePoint <= 0x2BFF)
+                || Character.getType(codePoint) == Character.OTHER_SYMBOL;
+    }
+
+    static String toGsm7Punctuation(String body) {
+        StringBuilder out = new StringBuilder(body.length());
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            out.append(GSM7_REPLACEMENTS.getOrDefault(c, String.valueOf(c)));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Optimiser counters.
+     *
+     * @param messages       bodies optimised
+     * @param rewritten      bodies sent in fewer segments than written
+     * @param segmentsBefore total segments as written
+     * @param segmentsAfter  total segments as sent
+     */
+    public record Stats(long messages, long rewritten, long segmentsBefore, long segmentsAfter) {
+    }
+}
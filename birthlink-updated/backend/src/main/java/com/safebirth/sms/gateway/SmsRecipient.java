@@ -0,0 +1,35 @@
+package com.safebirth.sms.gateway;
+
+import com.safebirth.domain.mother.Language;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A recipient of a bulk SMS, with the language its message is rendered in.
+ */
+public record SmsRecipient(
+        String phoneNumber,
+        Language language
+) {
+    /**
+     * Render the template for each recipient and group recipients that get identical text,
+     * so each distinct message is sent once as a multi-recipient command.
+     *
+     * @param recipients the recipients
+     * @param template   renders the message for a recipient
+     * @return phone numbers keyed by message text, in first-seen order
+     */
+    public static Map<String, List<String>> groupByText(List<SmsRecipient> recipients,
+                                                        Function<SmsRecipient, String> template) {
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (SmsRecipient recipient : recipients) {
+            groups.computeIfAbsent(template.apply(recipient), text -> new ArrayList<>())
+                    .add(recipient.phoneNumber());
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,68 @@
+package com.safebirth.sms.gateway;
+
+/**
+ * Counts the SMS segments a message body occupies on the air.
+ *
+ * Bodies made only of GSM 03.38 characters are sent as GSM-7: 160 characters in a single
+ * segment, 153 per segment once concatenated, with extension characters (e.g. {@code €}, {@code [})
+ * taking two. Any other character (Arabic, emoji, curly quotes) switches the whole body to
+ * UCS-2: 70 characters in a single segment, 67 per segment once concatenated.
+ */
+public final class SmsSegments {
+
+    private static final String GSM7_BASIC =
+            "@£$¥èéùìòÇ\nØø\rÅåΔ_ΦΓΛΩΠΨΣΘΞÆæßÉ !\"#¤%&'()*+,-./0123456789:;<=>?"
+                    + "¡ABCDEFGHIJKLMNOPQRSTUVWXYZÄÖÑÜ§¿abcdefghijklmnopqrstuvwxyzäöñüà";
+    private static final String GSM7_EXTENSION = "^{}\\[~]|€\f";
+
+    private static final int GSM7_SINGLE = 160;
+    private static final int GSM7_MULTI = 153;
+    private static final int UCS2_SINGLE = 70;
+    private static final int UCS2_MULTI = 67;
+
+    private SmsSegments() {
+    }
+
+    /**
+     * Check whether a body can be sent with the GSM-7 alphabet.
+     *
+     * @param body the message body
+     * @return true if every character is in the GSM 03.38 basic or extension table
+     */
+    public static boolean isGsm7(String body) {
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (GSM7_BASIC.indexOf(c) < 0 && GSM7_EXTENSION.indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Count the segments a body is split into.
+     *
+     * @param body the message body
+     * @return number of segments (at least 1)
+     */
+    public static int count(String body) {
+        if (isGsm7(body)) {
+            int septets = body.length();
+            for (int i = 0; i < body.length(); i++) {
+                if (GSM7_EXTENSION.indexOf(body.charAt(i)) >= 0) {
+                    septets++;
+                }
+            }
+            return segments(septets, GSM7_SINGLE, GSM7_MULTI);
+        }
+        // UCS-2 counts UTF-16 code units, so characters outside the BMP take two
+        return segments(body.length(), UCS2_SINGLE, UCS2_MULTI);
+    }
+
+    private static int segments(int units, int single, int multi) {
+        if (units <= single) {
+            return 1;
+        }
+        return (units + multi - 1) / multi;
+    }
+}
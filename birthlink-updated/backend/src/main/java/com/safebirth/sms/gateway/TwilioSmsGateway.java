@@ -3,15 +3,26 @@ package com.safebirth.sms.gateway;
 import com.safebirth.config.TwilioConfig;
 import com.safebirth.exception.SmsDeliveryException;
 import com.twilio.rest.api.v2010.account.Message;
+import com.twilio.rest.api.v2010.account.MessageCreator;
 import com.twilio.twiml.MessagingResponse;
 import com.twilio.twiml.TwiMLException;
 import com.twilio.twiml.messaging.Body;
 import com.twilio.type.PhoneNumber;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Production SMS gateway implementation using Twilio API.
  * Only activated when twilio.mock-enabled is false.
@@ -19,6 +30,10 @@ import org.springframework.stereotype.Component;
  * Uses Twilio SDK for:
  * - Sending outbound SMS via Message.creator()
  * - Generating TwiML responses via MessagingResponse builder
+ * - Requesting delivery status callbacks when twilio.status-callback-url is set
+ *
+ * Twilio's Messages API takes one recipient per call, so bulk sends are issued as parallel
+ * calls on a small bounded pool (twilio.bulk-parallelism).
  */
 @Component
 @ConditionalOnProperty(name = "twilio.mock-enabled", havingValue = "false")
@@ -27,9 +42,16 @@ public class TwilioSmsGateway implements SmsGateway {
     private static final Logger log = LoggerFactory.getLogger(TwilioSmsGateway.class);
 
     private final TwilioConfig twilioConfig;
+    private final ExecutorService bulkExecutor;
 
     public TwilioSmsGateway(TwilioConfig twilioConfig) {
         this.twilioConfig = twilioConfig;
+        AtomicInteger counter = new AtomicInteger();
+        this.bulkExecutor = Executors.newFixedThreadPool(Math.max(1, twilioConfig.getBulkParallelism()), r -> {
+            Thread thread = new Thread(r, "twilio-bulk-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     @Override
@@ -37,11 +59,15 @@ public class TwilioSmsGateway implements SmsGateway {
         try {
             log.info("Sending SMS to {} via Twilio", maskPhoneNumber(to));
 
-            Message twilioMessage = Message.creator(
+            MessageCreator creator = Message.creator(
                     new PhoneNumber(to),
                     new PhoneNumber(twilioConfig.getPhoneNumber()),
                     message
-            ).create();
+            );
+            if (reportsDelivery()) {
+                creator.setStatusCallback(URI.create(twilioConfig.getStatusCallbackUrl()));
+            }
+            Message twilioMessage = creator.create();
 
             String sid = twilioMessage.getSid();
             log.info("SMS sent successfully. SID: {}", sid);
@@ -53,6 +79,35 @@ public class TwilioSmsGateway implements SmsGateway {
         }
     }
 
+    @Override
+    public BulkSendResult sendBulk(List<String> recipients, String message) {
+        if (recipients.size() <= 1) {
+            return SmsGateway.super.sendBulk(recipients, message);
+        }
+        log.info("Sending SMS to {} recipients via Twilio", recipients.size());
+
+        Map<String, CompletableFuture<String>> calls = new LinkedHashMap<>();
+        for (String to : recipients) {
+            calls.put(to, CompletableFuture.supplyAsync(() -> sendSms(to, message), bulkExecutor));
+        }
+
+        BulkSendResult result = BulkSendResult.empty();
+        calls.forEach((to, call) -> {
+            try {
+                result.sent().put(to, call.join());
+            } catch (Exception e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                result.failed().put(to, String.valueOf(cause.getMessage()));
+            }
+        });
+        return result;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        bulkExecutor.shutdown();
+    }
+
     @Override
     public String generateTwimlResponse(String message) {
         try {
@@ -78,6 +133,16 @@ public class TwilioSmsGateway implements SmsGateway {
         }
     }
 
+    @Override
+    public String getProviderName() {
+        return "twilio";
+    }
+
+    @Override
+    public boolean reportsDelivery() {
+        return twilioConfig.getStatusCallbackUrl() != null && !twilioConfig.getStatusCallbackUrl().isBlank();
+    }
+
     @Override
     public boolean isAvailable() {
         return twilioConfig.getAccountSid() != null
@@ -1,12 +1,17 @@
 package com.safebirth.sms.gateway;
 
+import com.safebirth.exception.SmsDeliveryException;
+import com.safebirth.sms.gateway.websocket.PendingRequestTracker;
 import com.safebirth.sms.gateway.websocket.SmsGatewayWebSocketHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * WebSocket SMS Gateway service for sending SMS via connected Android app.
@@ -16,7 +21,8 @@ import java.util.List;
  * Falls back gracefully if no device is connected.
  *
  * Note: This does NOT implement SmsGateway interface intentionally.
- * It's a parallel/supplementary service, not a replacement.
+ * It's a parallel/supplementary service, not a replacement. {@link RoutingSmsGateway} uses it
+ * as one of its routes.
  */
 @Service
 @ConditionalOnProperty(name = "sms.gateway.websocket.enabled", havingValue = "true", matchIfMissing = true)
@@ -48,12 +54,22 @@ public class WebSocketSmsGateway {
         return webSocketHandler.getConnectedCount();
     }
 
+    /**
+     * Get command counts and confirmation latency of the connected phones.
+     *
+     * @return gateway statistics since startup
+     */
+    public PendingRequestTracker.Stats getDeliveryStats() {
+        return webSocketHandler.getDeliveryStats();
+    }
+
     /**
      * Send an SMS to a single recipient via the connected Android app.
      *
      * @param to      the recipient phone number (E.164 format)
      * @param message the message body
      * @return the request ID if sent, null if no device connected
+     * @throws SmsDeliveryException if every connected device's send queue is full
      */
     public String sendSms(String to, String message) {
         if (!isConnected()) {
@@ -71,6 +87,7 @@ public class WebSocketSmsGateway {
      * @param recipients list of recipient phone numbers
      * @param message    the message body
      * @return the request ID if sent, null if no device connected
+     * @throws SmsDeliveryException if every connected device's send queue is full
      */
     public String sendSms(List<String> recipients, String message) {
         if (!isConnected()) {
@@ -83,6 +100,33 @@ public class WebSocketSmsGateway {
         return webSocketHandler.sendSms(recipients, message);
     }
 
+    /**
+     * Render a message per recipient and send one multi-recipient command per distinct text,
+     * so an alert fan-out in two languages is two WebSocket frames.
+     *
+     * @param recipients the recipients
+     * @param template   renders the message for a recipient
+     * @return request IDs of the commands sent, empty if no device connected
+     * @throws SmsDeliveryException if every connected device's send queue is full
+     */
+    public List<String> sendBulk(List<SmsRecipient> recipients, Function<SmsRecipient, String> template) {
+        if (!isConnected()) {
+            log.warn("WebSocket SMS Gateway: No device connected, cannot send SMS to {} recipients",
+                    recipients.size());
+            return List.of();
+        }
+
+        List<String> requestIds = new ArrayList<>();
+        for (Map.Entry<String, List<String>> group : SmsRecipient.groupByText(recipients, template).entrySet()) {
+            String requestId = webSocketHandler.sendSms(group.getValue(), group.getKey());
+            if (requestId != null) {
+                requestIds.add(requestId);
+            }
+        }
+        log.info("WebSocket SMS Gateway: Sent {} command(s) for {} recipients", requestIds.size(), recipients.size());
+        return requestIds;
+    }
+
     /**
      * Send SMS and return success status.
      * Convenience method that returns boolean instead of request ID.
@@ -92,7 +136,12 @@ public class WebSocketSmsGateway {
      * @return true if message was queued for sending
      */
     public boolean trySendSms(String to, String message) {
-        return sendSms(to, message) != null;
+        try {
+            return sendSms(to, message) != null;
+        } catch (SmsDeliveryException e) {
+            log.warn("WebSocket SMS Gateway: {}", e.getMessage());
+            return false;
+        }
     }
 
     /**
@@ -103,7 +152,12 @@ public class WebSocketSmsGateway {
      * @return true if message was queued for sending
      */
     public boolean trySendSms(List<String> recipients, String message) {
-        return sendSms(recipients, message) != null;
+        try {
+            return sendSms(recipients, message) != null;
+        } catch (SmsDeliveryException e) {
+            log.warn("WebSocket SMS Gateway: {}", e.getMessage());
+            return false;
+        }
     }
 
     private String maskPhone(String phone) {
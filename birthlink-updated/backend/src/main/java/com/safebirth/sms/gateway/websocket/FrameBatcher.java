@@ -0,0 +1,113 @@
+package com.safebirth.sms.gateway.websocket;
+
+import com.safebirth.sms.gateway.websocket.dto.GatewayBatch;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Outbound frames of one batching device, waiting for its writer.
+ *
+ * Frames are coalesced only while a write is already queued or in progress, so a lone frame
+ * goes out on its own without delay and a burst (a broadcast split across many commands, or the
+ * acks of a batch) leaves as a few {@link GatewayBatch} messages. At most one flush task per
+ * device sits on the writer: {@link #offer} asks for one when the buffer was empty, and the task
+ * calls {@link #next} until it returns null. The buffer is bounded like a writer queue: once
+ * it holds capacity frames further offers are refused so the caller can pick another device,
+ * but an offer to an empty buffer, such as a resume replay, is always taken whole.
+ */
+public class FrameBatcher {
+
+    /**
+     * Outcome of {@link #offer}.
+     */
+    public enum Offer {
+        /** Buffered; the caller must queue a flush task. */
+        SCHEDULE_FLUSH,
+        /** Buffered behind a flush task that is already queued. */
+        QUEUED,
+        /** Refused, the buffer is full. */
+        FULL
+    }
+
+    private static final String BATCH_PREFIX = "{\"type\":\"" + GatewayBatch.TYPE + "\",\"frames\":[";
+
+    private final int capacity;
+    private final int maxBatch;
+    private final Deque<String> frames = new ArrayDeque<>();
+    private boolean flushPending;
+
+    /**
+     * @param capacity frames buffered before offers are refused
+     * @param maxBatch most frames in one batch
+     */
+    public FrameBatcher(int capacity, int maxBatch) {
+        this.capacity = capacity;
+        this.maxBatch = maxBatch;
+    }
+
+    /**
+     * Buffer serialized frames, all or none, to be written in order.
+     *
+     * @param json the frames
+     * @return whether they were buffered and whether a flush task is needed
+     */
+    public synchronized Offer offer(List<String> json) {
+        if (!frames.isEmpty() && frames.size() >= capacity) {
+            return Offer.FULL;
+        }
+        frames.addAll(json);
+        if (flushPending) {
+            return Offer.QUEUED;
+        }
+        flushPending = true;
+        return Offer.SCHEDULE_FLUSH;
+    }
+
+    /**
+     * Take the next message to write: a single frame as is, or up to the batch limit wrapped in a batch.
+     *
+     * @return the message, or null once the buffer is empty, which ends the flush task
+     */
+    public synchronized String next() {
+        if (frames.isEmpty()) {
+            flushPending = false;
+            return null;
+        }
+        if (frames.size() == 1 || maxBatch <= 1) {
+            return frames.poll();
+        }
+
+        StringBuilder batch = new StringBuilder(BATCH_PREFIX);
+        for (int i = 0; i < maxBatch && !frames.isEmpty(); i++) {
+            if (i > 0) {
+                batch.append(',');
+            }
+            batch.append(frames.poll());
+        }
+        return batch.append("]}").toString();
+    }
+
+    /**
+     * Drop every buffered frame, e.g. because the flush task could not be queued or the session is gone.
+     */
+    public synchronized void clear() {
+        frames.clear();
+        flushPending = false;
+    }
+
+    /**
+     * Get the most frames written in one batch.
+     */
+    public int maxBatch() {
+        return maxBatch;
+    }
+
+    /**
+     * Get the number of frames waiting to be written.
+     */
+    public synchronized int size() {
+        return frames.size();
+    }
+}
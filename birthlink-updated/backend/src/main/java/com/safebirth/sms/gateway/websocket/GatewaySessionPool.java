@@ -0,0 +1,309 @@
+package com.safebirth.sms.gateway.websocket;
+
+import com.safebirth.config.SmsGatewayPoolConfig;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Pool of Android gateway phones connected over WebSocket.
+ *
+ * Each SMS goes to exactly one device. Recipients are placed on a consistent-hash ring, so
+ * a recipient keeps using the same SIM while the pool is stable and only the recipients of
+ * a device that joins or leaves move.
+ *
+ * Load is counted in SMS parts, since a phone's send rate is a number of parts per minute and
+ * an Arabic alert can be three of them. A device that would go over its in-flight limit is
+ * skipped in favour of the next one on the ring; if every device is full the recipient is left
+ * unassigned, so the caller can send it another way instead of queueing it behind a backlog the
+ * phone cannot clear before the confirmation deadline. An idle device always takes a message,
+ * however many parts it has.
+ *
+ * Devices are keyed by the X-Device-Id handshake header so a phone that reconnects returns
+ * to the same place on the ring; without the header the WebSocket session id is used.
+ */
+public class GatewaySessionPool {
+
+    static final String DEVICE_ID_HEADER = "X-Device-Id";
+
+    private final SmsGatewayPoolConfig config;
+    private final LongSupplier nanoTime;
+    private final Map<String, Device> devices = new ConcurrentHashMap<>();
+
+    // Rebuilt on every join/leave and swapped in whole, so lookups never lock
+    private volatile NavigableMap<Long, String> ring = Collections.emptyNavigableMap();
+
+    public GatewaySessionPool(SmsGatewayPoolConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    GatewaySessionPool(SmsGatewayPoolConfig config, LongSupplier nanoTime) {
+        this.config = config;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Get the pool key for a session.
+     *
+     * @param session the WebSocket session
+     * @return the device id from the handshake, or the session id
+     */
+    public static String deviceId(WebSocketSession session) {
+        String header = session.getHandshakeHeaders().getFirst(DEVICE_ID_HEADER);
+        return header != null && !header.isBlank() ? header.strip() : session.getId();
+    }
+
+    /**
+     * Add a device, replacing an older session of the same device.
+     *
+     * @param deviceId the device id
+     * @param session  the device's session
+     */
+    public synchronized void add(String deviceId, WebSocketSession session) {
+        devices.put(deviceId, new Device(session));
+        rebuildRing();
+    }
+
+    /**
+     * Remove a device if the given session is still its current one.
+     *
+     * @param deviceId the device id
+     * @param session  the session that closed
+     * @return true if the device left the pool
+     */
+    public synchronized boolean remove(String deviceId, WebSocketSession session) {
+        Device device = devices.get(deviceId);
+        // Compare ids: the pool holds the send decorator, callbacks pass the raw session
+        if (device == null || !device.session.getId().equals(session.getId())) {
+            return false;
+        }
+        devices.remove(deviceId);
+        rebuildRing();
+        return true;
+    }
+
+    /**
+     * Get the current session of a device.
+     *
+     * @param deviceId the device id
+     * @return the session, or null if the device is not connected
+     */
+    public WebSocketSession session(String deviceId) {
+        Device device = devices.get(deviceId);
+        return device != null ? device.session : null;
+    }
+
+    /**
+     * Split recipients across devices.
+     *
+     * @param recipients the recipients
+     * @return recipients by device id, in ring order per recipient; empty if no device is open
+     */
+    public Map<String, List<String>> assign(List<String> recipients) {
+        return assign(recipients, Set.of());
+    }
+
+    /**
+     * Split recipients across devices, avoiding some devices unless no other device is open.
+     * Used to resend a command that a device did not confirm.
+     *
+     * @param recipients the recipients
+     * @param avoid      device ids to use only as a last resort
+     * @return recipients by device id; empty if no device is open
+     */
+    public Map<String, List<String>> assign(List<String> recipients, Set<String> avoid) {
+        return assign(recipients, avoid, Set.of());
+    }
+
+    /**
+     * Split recipients across devices, never using the excluded devices.
+     * Used to route around a device whose send queue is full.
+     *
+     * @param recipients the recipients
+     * @param avoid      device ids to use only as a last resort
+     * @param exclude    device ids not to use
+     * @return recipients by device id; empty if no usable device is open
+     */
+    public Map<String, List<String>> assign(List<String> recipients, Set<String> avoid, Set<String> exclude) {
+        return assign(recipients, 1, avoid, exclude);
+    }
+
+    /**
+     * Split recipients of a message with the given number of parts across devices with room for it.
+     *
+     * @param recipients the recipients
+     * @param parts      SMS parts per recipient
+     * @param avoid      device ids to use only as a last resort
+     * @param exclude    device ids not to use
+     * @return recipients by device id; recipients no device has room for are left out
+     */
+    public Map<String, List<String>> assign(List<String> recipients, int parts, Set<String> avoid,
+                                            Set<String> exclude) {
+        NavigableMap<Long, String> current = ring;
+        Map<String, Integer> load = new HashMap<>();
+        Map<String, List<String>> assignment = new LinkedHashMap<>();
+
+        for (String recipient : recipients) {
+            String chosen = null;
+            String lastResort = null;
+            for (String deviceId : (Iterable<String>) walk(current, hash(recipient))::iterator) {
+                Device device = devices.get(deviceId);
+                if (device == null || !device.session.isOpen() || exclude.contains(deviceId)) {
+                    continue;
+                }
+                int deviceLoad = load.computeIfAbsent(deviceId, id -> inFlight(id));
+                if (!hasRoom(deviceLoad, parts)) {
+                    continue;
+                }
+                if (avoid.contains(deviceId)) {
+                    if (lastResort == null) {
+                        lastResort = deviceId;
+                    }
+                    continue;
+                }
+                chosen = deviceId;
+                break;
+            }
+            if (chosen == null) {
+                chosen = lastResort;
+            }
+            if (chosen != null) {
+                load.merge(chosen, parts, Integer::sum);
+                assignment.computeIfAbsent(chosen, id -> new ArrayList<>()).add(recipient);
+            }
+        }
+        return assignment;
+    }
+
+    /**
+     * Count a command against its device's in-flight limit until it is confirmed.
+     *
+     * @param deviceId  the device id
+     * @param requestId the command's request id
+     * @param parts     SMS parts in the command, over all recipients
+     */
+    public void acquire(String deviceId, String requestId, int parts) {
+        Device device = devices.get(deviceId);
+        if (device != null) {
+            device.inFlight.put(requestId, new InFlight(parts, nanoTime.getAsLong()));
+        }
+    }
+
+    /**
+     * Release a confirmed command.
+     *
+     * @param deviceId  the device id
+     * @param requestId the command's request id
+     */
+    public void release(String deviceId, String requestId) {
+        Device device = devices.get(deviceId);
+        if (device != null) {
+            device.inFlight.remove(requestId);
+        }
+    }
+
+    /**
+     * Get the number of unconfirmed SMS parts on a device, ignoring sends past the in-flight timeout.
+     *
+     * @param deviceId the device id
+     * @return the in-flight part count
+     */
+    public int inFlight(String deviceId) {
+        Device device = devices.get(deviceId);
+        if (device == null) {
+            return 0;
+        }
+        long now = nanoTime.getAsLong();
+        long timeout = TimeUnit.SECONDS.toNanos(config.getInFlightTimeoutSeconds());
+        device.inFlight.values().removeIf(f -> now - f.sentAt > timeout + sendNanos(f.parts));
+        return device.inFlight.values().stream().mapToInt(InFlight::parts).sum();
+    }
+
+    /** Time the phone needs to send the given number of parts at its configured rate. */
+    private long sendNanos(int parts) {
+        return TimeUnit.MINUTES.toNanos(parts) / Math.max(1, config.getDevicePartsPerMinute());
+    }
+
+    private boolean hasRoom(int load, int parts) {
+        return load == 0 || load + parts <= config.getMaxInFlightPerDevice();
+    }
+
+    /**
+     * Check whether any device is connected.
+     *
+     * @return true if at least one session is open
+     */
+    public boolean isConnected() {
+        return devices.values().stream().anyMatch(d -> d.session.isOpen());
+    }
+
+    /**
+     * Get the number of connected devices.
+     *
+     * @return count of open sessions
+     */
+    public int getConnectedCount() {
+        return (int) devices.values().stream().filter(d -> d.session.isOpen()).count();
+    }
+
+    private void rebuildRing() {
+        NavigableMap<Long, String> rebuilt = new TreeMap<>();
+        for (String deviceId : devices.keySet()) {
+            for (int i = 0; i < config.getVirtualNodes(); i++) {
+                rebuilt.put(hash(deviceId + "#" + i), deviceId);
+            }
+        }
+        ring = rebuilt;
+    }
+
+    /**
+     * Distinct devices in ring order, starting at the first point at or after the hash.
+     * Lazy, so the walk stops at the first device with capacity.
+     */
+    private static Stream<String> walk(NavigableMap<Long, String> ring, long hash) {
+        return Stream.concat(ring.tailMap(hash, true).values().stream(), ring.headMap(hash, false).values().stream())
+                .distinct();
+    }
+
+    /**
+     * 64-bit FNV-1a with a final avalanche so nearby phone numbers land far apart.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Device {
+        private final WebSocketSession session;
+        private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+        private Device(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+
+    private record InFlight(int parts, long sentAt) {
+    }
+}
@@ -0,0 +1,198 @@
+package com.safebirth.sms.gateway.websocket;
+
+import com.safebirth.sms.gateway.websocket.dto.GatewayHello;
+import com.safebirth.sms.gateway.websocket.dto.SendSmsCommand;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Server side of one device's protocol v2 stream. Outlives the device's WebSocket sessions.
+ *
+ * Outbound commands are numbered and kept until the device acknowledges them, so a command
+ * written to a socket that then drops is replayed when the device resumes instead of being
+ * lost. Inbound frames are accepted only if their sequence number is above the highest one
+ * seen, so a frame the device replays after a reconnect is processed once. Sequence numbers
+ * may skip (a command taken back with {@link #cancel}), but never go backwards.
+ *
+ * An inbound frame is only recorded once the server has taken it. If it could not be taken,
+ * the stream stalls: later frames are neither recorded nor acknowledged, since the ack is
+ * cumulative and would cover the one that was refused, until the device sends that frame again
+ * in answer to a {@link #replayRequest()} or on its next resume.
+ *
+ * The replay buffer is bounded; when it is full the oldest command is dropped from it and
+ * only the pending-request timeout can still recover it.
+ */
+public class GatewayStream {
+
+    private final int capacity;
+
+    private String id = newId();
+    private String sessionId;
+    private long nextSeq = 1;
+    private long lastReceived;
+    private long stalledAt;
+    private final NavigableMap<Long, SendSmsCommand> unacked = new TreeMap<>();
+
+    public GatewayStream(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Handle a device's hello on a new session.
+     *
+     * @param sessionId the session the hello arrived on
+     * @param hello     the device's hello
+     * @return the reply and the commands to replay, in sequence order
+     */
+    public synchronized Resume resume(String sessionId, GatewayHello hello) {
+        this.sessionId = sessionId;
+        stalledAt = 0;
+        boolean resumed = id.equals(hello.stream());
+        if (resumed) {
+            acknowledge(hello.ackOrZero());
+        } else {
+            // The device has no state for this stream: start over, keeping what is still unacknowledged
+            id = newId();
+            lastReceived = 0;
+            List<SendSmsCommand> pending = new ArrayList<>(unacked.values());
+            unacked.clear();
+            nextSeq = 1;
+            for (SendSmsCommand command : pending) {
+                unacked.put(nextSeq, command.withSeq(nextSeq));
+                nextSeq++;
+            }
+        }
+        return new Resume(GatewayHello.reply(id, lastReceived, resumed), List.copyOf(unacked.values()));
+    }
+
+    /**
+     * Number a command and keep it until the device acknowledges it.
+     *
+     * @param command the unnumbered command
+     * @return the numbered command to write
+     */
+    public synchronized SendSmsCommand send(SendSmsCommand command) {
+        SendSmsCommand numbered = command.withSeq(nextSeq);
+        unacked.put(nextSeq, numbered);
+        nextSeq++;
+        while (unacked.size() > capacity) {
+            unacked.pollFirstEntry();
+        }
+        return numbered;
+    }
+
+    /**
+     * Record an inbound frame.
+     *
+     * @param seq the frame's sequence number
+     * @return true if the frame is new, false if it was already received
+     */
+    public synchronized boolean receive(long seq) {
+        if (!isNew(seq)) {
+            return false;
+        }
+        lastReceived = seq;
+        stalledAt = 0;
+        return true;
+    }
+
+    /**
+     * Check whether an inbound frame would be accepted, without recording it.
+     *
+     * @param seq the frame's sequence number
+     * @return true if the frame is new and the stream is not waiting for an earlier one
+     */
+    public synchronized boolean isNew(long seq) {
+        return seq > lastReceived && (stalledAt == 0 || seq == stalledAt);
+    }
+
+    /**
+     * Refuse an inbound frame the server could not take, and every later one until it is sent again.
+     *
+     * @param seq the refused frame's sequence number
+     */
+    public synchronized void stall(long seq) {
+        if (stalledAt == 0 && seq > lastReceived) {
+            stalledAt = seq;
+        }
+    }
+
+    /**
+     * Check whether the stream is waiting for a refused frame.
+     */
+    public synchronized boolean isStalled() {
+        return stalledAt != 0;
+    }
+
+    /**
+     * Get the hello that asks the device to replay what it has not had acknowledged.
+     *
+     * @return the hello, or null if the stream is not stalled
+     */
+    public synchronized GatewayHello replayRequest() {
+        return stalledAt == 0 ? null : GatewayHello.reply(id, lastReceived, true);
+    }
+
+    /**
+     * Drop commands the device has received.
+     *
+     * @param ack the device's cumulative ack
+     */
+    public synchronized void acknowledge(long ack) {
+        unacked.headMap(ack, true).clear();
+    }
+
+    /**
+     * Stop replaying a command, e.g. because it was resent through another device.
+     *
+     * @param requestId the command's request id
+     */
+    public synchronized void cancel(String requestId) {
+        unacked.values().removeIf(command -> command.requestId().equals(requestId));
+    }
+
+    /**
+     * Get the cumulative ack to send the device.
+     *
+     * @return the highest inbound sequence number received
+     */
+    public synchronized long lastReceived() {
+        return lastReceived;
+    }
+
+    /**
+     * Check whether a session completed the handshake for this stream.
+     *
+     * @param sessionId the session id
+     * @return true if it is the stream's current session
+     */
+    public synchronized boolean isBoundTo(String sessionId) {
+        return sessionId.equals(this.sessionId);
+    }
+
+    /**
+     * Get the number of commands waiting for the device's ack.
+     *
+     * @return the replay buffer size
+     */
+    public synchronized int unacknowledged() {
+        return unacked.size();
+    }
+
+    private static String newId() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Outcome of a hello.
+     *
+     * @param reply  the hello to send back
+     * @param replay unacknowledged commands to write after the reply
+     */
+    public record Resume(GatewayHello reply, List<SendSmsCommand> replay) {
+    }
+}
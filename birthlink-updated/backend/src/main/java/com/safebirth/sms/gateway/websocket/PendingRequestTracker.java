@@ -0,0 +1,268 @@
+package com.safebirth.sms.gateway.websocket;
+
+import com.safebirth.config.SmsGatewayPoolConfig;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Commands sent to gateway phones that have not been confirmed yet.
+ *
+ * Each command gets a deadline when it is tracked: the confirm timeout plus the time the phone
+ * needs, at its send rate, for the parts queued on it ahead of and in the command. Commands are kept in deadline order, so
+ * an expiry sweep only looks at the commands that are actually due and a confirmation
+ * removes its command in logarithmic time. The number of tracked commands is bounded: when
+ * the tracker is full the command closest to its deadline is dropped to make room, so lost
+ * confirmations can no longer grow the map without limit.
+ *
+ * Confirmation latency (send to sms_sent) is recorded per outcome for monitoring.
+ */
+public class PendingRequestTracker {
+
+    // Latency up to one hour at 2 significant digits
+    private static final long HIGHEST_TRACKABLE_LATENCY_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private static final Comparator<PendingRequest> BY_DEADLINE = Comparator
+            .comparingLong(PendingRequest::deadline)
+            .thenComparing(PendingRequest::requestId);
+
+    private final SmsGatewayPoolConfig config;
+    private final LongSupplier nanoTime;
+
+    private final Map<String, PendingRequest> byRequestId = new HashMap<>();
+    private final NavigableSet<PendingRequest> byDeadline = new TreeSet<>(BY_DEADLINE);
+
+    private final Histogram confirmedLatency = new Histogram(HIGHEST_TRACKABLE_LATENCY_MILLIS, SIGNIFICANT_DIGITS);
+    private final Histogram failedLatency = new Histogram(HIGHEST_TRACKABLE_LATENCY_MILLIS, SIGNIFICANT_DIGITS);
+    private long confirmed;
+    private long failed;
+    private long timedOut;
+    private long retried;
+    private long dropped;
+    private long late;
+
+    public PendingRequestTracker(SmsGatewayPoolConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    PendingRequestTracker(SmsGatewayPoolConfig config, LongSupplier nanoTime) {
+        this.config = config;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Start tracking a command that was sent to a device.
+     *
+     * @param requestId  the command's request id
+     * @param deviceId   the device it was sent to
+     * @param sessionId  the device's session
+     * @param recipients the command's recipients
+     * @param message    the message body
+     * @param attempt    1 for the first send, higher for resends
+     * @return the command dropped to make room, or null if the tracker was not full
+     */
+    public PendingRequest track(String requestId, String deviceId, String sessionId,
+                                List<String> recipients, String message, int attempt) {
+        return track(requestId, requestId, deviceId, sessionId, recipients, message, attempt, 0);
+    }
+
+    /**
+     * Start tracking a command that was sent to a device, allowing for the parts the device has to send first.
+     *
+     * @param requestId   the command's request id
+     * @param originId    the request id the send was first reported under
+     * @param deviceId    the device it was sent to
+     * @param sessionId   the device's session
+     * @param recipients  the command's recipients
+     * @param message     the message body
+     * @param attempt     1 for the first send, higher for resends
+     * @param queuedParts SMS parts the device sends up to and including this command's
+     * @return the command dropped to make room, or null if the tracker was not full
+     */
+    public synchronized PendingRequest track(String requestId, String originId, String deviceId, String sessionId,
+                                             List<String> recipients, String message, int attempt,
+                                             int queuedParts) {
+        PendingRequest evicted = null;
+        if (byRequestId.size() >= config.getMaxPending()) {
+            evicted = byDeadline.pollFirst();
+            if (evicted != null) {
+                byRequestId.remove(evicted.requestId());
+                dropped++;
+            }
+        }
+
+        long now = nanoTime.getAsLong();
+        long sendMillis = TimeUnit.MINUTES.toMillis(queuedParts) / Math.max(1, config.getDevicePartsPerMinute());
+        PendingRequest pending = new PendingRequest(requestId, originId, deviceId, sessionId, List.copyOf(recipients),
+                message, attempt, now, now + TimeUnit.SECONDS.toNanos(config.getConfirmTimeoutSeconds())
+                + TimeUnit.MILLISECONDS.toNanos(sendMillis));
+        byRequestId.put(requestId, pending);
+        byDeadline.add(pending);
+        if (attempt > 1) {
+            retried++;
+        }
+        return evicted;
+    }
+
+    /**
+     * Record a device's confirmation of a command.
+     *
+     * @param requestId the command's request id
+     * @param success   whether the device sent the SMS
+     * @return the command, or null if it was not tracked (already timed out or unknown)
+     */
+    public synchronized PendingRequest confirm(String requestId, boolean success) {
+        PendingRequest pending = remove(requestId);
+        if (pending == null) {
+            late++;
+            return null;
+        }
+
+        long latencyMillis = TimeUnit.NANOSECONDS.toMillis(nanoTime.getAsLong() - pending.sentAt());
+        long recorded = Math.min(Math.max(latencyMillis, 0), HIGHEST_TRACKABLE_LATENCY_MILLIS);
+        if (success) {
+            confirmed++;
+            confirmedLatency.recordValue(recorded);
+        } else {
+            failed++;
+            failedLatency.recordValue(recorded);
+        }
+        return pending;
+    }
+
+    /**
+     * Stop tracking a command without counting an outcome, e.g. because the write to the device failed.
+     *
+     * @param requestId the command's request id
+     * @return the command, or null if it was not tracked
+     */
+    public synchronized PendingRequest cancel(String requestId) {
+        return remove(requestId);
+    }
+
+    /**
+     * Remove and return the commands whose confirmation deadline has passed, earliest first.
+     *
+     * @return the expired commands
+     */
+    public synchronized List<PendingRequest> expire() {
+        long now = nanoTime.getAsLong();
+        List<PendingRequest> expired = new ArrayList<>();
+        while (!byDeadline.isEmpty() && byDeadline.first().deadline() - now <= 0) {
+            PendingRequest pending = byDeadline.pollFirst();
+            byRequestId.remove(pending.requestId());
+            expired.add(pending);
+        }
+        timedOut += expired.size();
+        return expired;
+    }
+
+    /**
+     * Remove and return the commands sent through a session, e.g. because it closed.
+     *
+     * @param sessionId the session id
+     * @return the session's unconfirmed commands, earliest deadline first
+     */
+    public synchronized List<PendingRequest> removeSession(String sessionId) {
+        List<PendingRequest> orphaned = new ArrayList<>();
+        byDeadline.removeIf(pending -> {
+            if (pending.sessionId().equals(sessionId)) {
+                orphaned.add(pending);
+                return true;
+            }
+            return false;
+        });
+        orphaned.forEach(pending -> byRequestId.remove(pending.requestId()));
+        return orphaned;
+    }
+
+    /**
+     * Get command counts and confirmation latency since startup.
+     *
+     * @return the statistics
+     */
+    public synchronized Stats getStats() {
+        return new Stats(byRequestId.size(), confirmed, failed, timedOut, retried, dropped, late,
+                Latency.of(confirmedLatency), Latency.of(failedLatency));
+    }
+
+    private PendingRequest remove(String requestId) {
+        PendingRequest pending = byRequestId.remove(requestId);
+        if (pending != null) {
+            byDeadline.remove(pending);
+        }
+        return pending;
+    }
+
+    /**
+     * A command waiting for its sms_sent confirmation.
+     *
+     * @param originId request id returned to the sender, which resends and other shards of the send keep
+     * @param sentAt   nanoTime when it was sent
+     * @param deadline nanoTime after which it counts as timed out
+     */
+    public record PendingRequest(
+            String requestId,
+            String originId,
+            String deviceId,
+            String sessionId,
+            List<String> recipients,
+            String message,
+            int attempt,
+            long sentAt,
+            long deadline
+    ) {
+    }
+
+    /**
+     * Gateway command statistics.
+     *
+     * @param inFlight          commands waiting for confirmation
+     * @param confirmed         commands the device reported as sent
+     * @param failed            commands the device reported as failed
+     * @param timedOut          commands not confirmed before their deadline
+     * @param retried           resends after a timeout or disconnect
+     * @param dropped           commands dropped because the tracker was full
+     * @param lateConfirmations confirmations for commands no longer tracked
+     * @param confirmedLatency  send-to-confirmation latency of sent commands
+     * @param failedLatency     send-to-confirmation latency of failed commands
+     */
+    public record Stats(
+            int inFlight,
+            long confirmed,
+            long failed,
+            long timedOut,
+            long retried,
+            long dropped,
+            long lateConfirmations,
+            Latency confirmedLatency,
+            Latency failedLatency
+    ) {
+    }
+
+    /**
+     * Latency percentiles in milliseconds; all zero when no samples have been recorded.
+     */
+    public record Latency(long count, long p50Millis, long p90Millis, long p99Millis, long maxMillis) {
+
+        static Latency of(Histogram histogram) {
+            if (histogram.getTotalCount() == 0) {
+                return new Latency(0, 0, 0, 0, 0);
+            }
+            return new Latency(histogram.getTotalCount(),
+                    histogram.getValueAtPercentile(50),
+                    histogram.getValueAtPercentile(90),
+                    histogram.getValueAtPercentile(99),
+                    histogram.getMaxValue());
+        }
+    }
+}
@@ -3,28 +3,53 @@ package com.safebirth.sms.gateway.websocket;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safebirth.config.SmsGatewayPoolConfig;
+import com.safebirth.exception.SmsDeliveryException;
+import com.safebirth.sms.gateway.SmsDeliveryReport;
+import com.safebirth.sms.gateway.SmsSegments;
+import com.safebirth.sms.gateway.websocket.PendingRequestTracker.PendingRequest;
+import com.safebirth.sms.gateway.websocket.dto.GatewayAck;
+import com.safebirth.sms.gateway.websocket.dto.GatewayBatch;
+import com.safebirth.sms.gateway.websocket.dto.GatewayHello;
 import com.safebirth.sms.gateway.websocket.dto.IncomingSmsMessage;
 import com.safebirth.sms.gateway.websocket.dto.SendSmsCommand;
+import com.safebirth.sms.gateway.websocket.dto.SmsDeliveryReportMessage;
 import com.safebirth.sms.gateway.websocket.dto.SmsSentConfirmation;
 import com.safebirth.sms.conversation.ConversationService;
 import com.safebirth.sms.handler.SmsCommandHandler;
+import com.safebirth.sms.inbound.InboundDeduplicator;
+import com.safebirth.sms.inbound.InboundSmsService;
+import com.safebirth.sms.inbound.KeyedMailboxExecutor;
 import com.safebirth.sms.parser.CommandType;
 import com.safebirth.sms.parser.SmsCommand;
 import com.safebirth.sms.parser.SmsParser;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * WebSocket handler for SMS Gateway communication with Android app.
@@ -34,48 +59,130 @@ import java.util.concurrent.ConcurrentHashMap;
  * - incoming_sms: App receives SMS on device, forwards to server
  * - send_sms: Server sends SMS command to app for delivery
  * - sms_sent: App confirms SMS was sent
+ * - sms_delivered: App reports whether the SMS reached one recipient's handset
  * - ping/pong: Keep-alive mechanism
+ * - hello/ack: Protocol v2 resume handshake and cumulative acknowledgements
+ * - batch: Several protocol v2 frames in one message, for apps that announce batch support
+ *
+ * An app that opens with hello speaks protocol v2: its frames and ours carry sequence numbers,
+ * each side acknowledges what it received and keeps the rest in a {@link GatewayStream}, and a
+ * reconnect replays what the other side missed. A v2 device that drops keeps its commands for
+ * the resume; only the pending-request timeout moves them to another device. Older apps that
+ * never say hello keep the v1 behaviour.
+ *
+ * A v2 app that announces a batch size in its hello may send and receive {@link GatewayBatch}
+ * messages. Frames for such a device go through a {@link FrameBatcher}: they are coalesced while
+ * a write to the device is in progress, and a received batch is answered with one ack.
+ *
+ * Incoming SMS are processed on the per-sender mailbox executor so the socket's receive
+ * thread is never blocked by command handling or AI calls. An SMS the mailbox refuses is stored
+ * for the {@link InboundSmsService} retry sweep instead; only an SMS handed to one of the two is
+ * acknowledged, so the phone keeps anything else in its journal and replays it. A phone that lost its connection
+ * acknowledges emergencies locally and flags them when it forwards them; the first is answered
+ * as usual, with the case, and repeats of it within a window are processed without a reply.
+ *
+ * Outbound frames never touch the socket on the caller's thread. Each session is wrapped in a
+ * {@link ConcurrentWebSocketSessionDecorator} with a send-time and buffer limit, and frames are
+ * queued per session on a bounded writer executor. A device whose queue is full is skipped for
+ * the next one on the ring; if every queue is full the send fails fast with
+ * {@link SmsDeliveryException} so the caller can retry later instead of blocking. A device that
+ * exceeds the send limits is disconnected and its commands fail over.
+ *
+ * Connected phones form a {@link GatewaySessionPool}: each outbound SMS goes to one device
+ * chosen by consistent hashing on the recipient. Unconfirmed commands of a device that
+ * disconnects, or whose session fails on send, are resent through the remaining devices.
+ *
+ * Commands waiting for sms_sent are held in a bounded {@link PendingRequestTracker}. A command
+ * not confirmed within the timeout is resent, on another device if one is connected, up to
+ * the configured number of attempts. When the phones give up on a command, every recipient is
+ * reported undelivered under the request id the send was returned with, so the outbox can send
+ * it again another way.
  */
 @Component
 public class SmsGatewayWebSocketHandler extends TextWebSocketHandler {
 
     private static final Logger log = LoggerFactory.getLogger(SmsGatewayWebSocketHandler.class);
 
+    /** Prefix of the request ids of commands sent to the phones. */
+    public static final String REQUEST_ID_PREFIX = "WS-";
+
     private final ObjectMapper objectMapper;
     private final SmsParser smsParser;
     private final SmsCommandHandler smsCommandHandler;
     private final ConversationService conversationService;
+    private final KeyedMailboxExecutor inboundSmsMailbox;
+    private final InboundDeduplicator inboundDeduplicator;
+    private final InboundSmsService inboundSmsService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public SmsGatewayWebSocketHandler(
             ObjectMapper objectMapper,
             SmsParser smsParser,
             SmsCommandHandler smsCommandHandler,
-            @Qualifier("aiConversationManager") ConversationService conversationService) {
+            @Qualifier("aiConversationManager") ConversationService conversationService,
+            KeyedMailboxExecutor inboundSmsMailbox,
+            InboundDeduplicator inboundDeduplicator,
+            InboundSmsService inboundSmsService,
+            SmsGatewayPoolConfig poolConfig,
+            ApplicationEventPublisher eventPublisher) {
         this.objectMapper = objectMapper;
         this.smsParser = smsParser;
         this.smsCommandHandler = smsCommandHandler;
         this.conversationService = conversationService;
+        this.inboundSmsMailbox = inboundSmsMailbox;
+        this.inboundDeduplicator = inboundDeduplicator;
+        this.inboundSmsService = inboundSmsService;
+        this.poolConfig = poolConfig;
+        this.eventPublisher = eventPublisher;
+        this.pool = new GatewaySessionPool(poolConfig);
+        this.pendingRequests = new PendingRequestTracker(poolConfig);
+        this.outboundWriter = new KeyedMailboxExecutor("sms-ws-writer-", poolConfig.getWriterThreads(),
+                poolConfig.getOutboundQueuePerDevice(), poolConfig.getOutboundQueueCapacity());
     }
 
-    // Track connected sessions (in POC, we expect single Android app connection)
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private final SmsGatewayPoolConfig poolConfig;
 
-    // Track pending requests for confirmation (optional for POC)
-    private final Map<String, PendingRequest> pendingRequests = new ConcurrentHashMap<>();
+    // Connected Android devices
+    private final GatewaySessionPool pool;
+
+    // Commands waiting for confirmation, for timeouts and failover
+    private final PendingRequestTracker pendingRequests;
+
+    // Per-session outbound queues, drained one frame at a time per session
+    private final KeyedMailboxExecutor outboundWriter;
+
+    // Protocol v2 streams by device id; they outlive the sessions
+    private final Map<String, GatewayStream> streams = new ConcurrentHashMap<>();
+
+    // Outbound coalescing by session id, for sessions that negotiated batching
+    private final Map<String, FrameBatcher> batchers = new ConcurrentHashMap<>();
+
+    // Senders answered for a locally acknowledged emergency, by expiry (System.nanoTime), oldest first
+    private final Map<String, Long> answeredAutoAcks = new LinkedHashMap<>();
+    private static final int MAX_ANSWERED_AUTO_ACKS = 1000;
+
+    @PreDestroy
+    void shutdown() {
+        outboundWriter.shutdown();
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        String sessionId = session.getId();
-        sessions.put(sessionId, session);
-        log.info("📱 SMS Gateway connected: sessionId={}, remoteAddr={}",
-                sessionId, session.getRemoteAddress());
+        String deviceId = GatewaySessionPool.deviceId(session);
+        pool.add(deviceId, new ConcurrentWebSocketSessionDecorator(session,
+                poolConfig.getSendTimeLimitMillis(), poolConfig.getSendBufferSizeBytes()));
+        log.info("📱 SMS Gateway connected: device={}, sessionId={}, remoteAddr={}, devices={}",
+                deviceId, session.getId(), session.getRemoteAddress(), pool.getConnectedCount());
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-        String sessionId = session.getId();
-        sessions.remove(sessionId);
-        log.info("📱 SMS Gateway disconnected: sessionId={}, status={}", sessionId, status);
+        String deviceId = GatewaySessionPool.deviceId(session);
+        pool.remove(deviceId, session);
+        log.info("📱 SMS Gateway disconnected: device={}, sessionId={}, status={}",
+                deviceId, session.getId(), status);
+        dropBatcher(session);
+        failOver(session);
     }
 
     @Override
@@ -85,45 +192,354 @@ public class SmsGatewayWebSocketHandler extends TextWebSocketHandler {
 
         try {
             JsonNode json = objectMapper.readTree(payload);
-            String type = json.has("type") ? json.get("type").asText() : null;
+            if (GatewayBatch.TYPE.equals(json.path("type").asText())) {
+                handleBatch(session, json);
+            } else if (dispatch(session, json)) {
+                acknowledge(session);
+            }
+        } catch (JsonProcessingException e) {
+            log.error("Failed to parse WebSocket message: {}", e.getMessage());
+        }
+    }
 
-            if (type == null) {
-                log.warn("Received message without type field: {}", truncateForLog(payload));
-                return;
+    /**
+     * Handle a single frame.
+     *
+     * @return true if it was a sequenced frame, which the caller must acknowledge
+     */
+    private boolean dispatch(WebSocketSession session, JsonNode json) throws JsonProcessingException {
+        String type = json.has("type") ? json.get("type").asText() : null;
+
+        if (type == null) {
+            log.warn("Received message without type field: {}", truncateForLog(json.toString()));
+            return false;
+        }
+
+        switch (type) {
+            case IncomingSmsMessage.TYPE -> {
+                GatewayStream stream = sequencedStream(session, json);
+                if (stream == null) {
+                    handleIncomingSms(session, json);
+                } else if (isNew(session, stream, json)) {
+                    long seq = json.get("seq").asLong();
+                    if (handleIncomingSms(session, json)) {
+                        stream.receive(seq);
+                    } else {
+                        stream.stall(seq);
+                        log.warn("⏸️ Not acknowledging incoming SMS seq={} from session {}, asking for a replay",
+                                seq, session.getId());
+                    }
+                }
+                return stream != null;
             }
+            case SmsSentConfirmation.TYPE -> {
+                GatewayStream stream = sequencedStream(session, json);
+                if (stream == null || isFresh(session, stream, json)) {
+                    handleSmsSentConfirmation(json);
+                }
+                return stream != null;
+            }
+            case SmsDeliveryReportMessage.TYPE -> {
+                GatewayStream stream = sequencedStream(session, json);
+                if (stream == null || isFresh(session, stream, json)) {
+                    handleDeliveryReport(json);
+                }
+                return stream != null;
+            }
+            case GatewayHello.TYPE -> handleHello(session, json);
+            case GatewayAck.TYPE -> handleAck(session, json);
+            case "ping" -> handlePing(session);
+            default -> log.warn("Unknown message type: {}", type);
+        }
+        return false;
+    }
 
-            switch (type) {
-                case IncomingSmsMessage.TYPE -> handleIncomingSms(session, json);
-                case SmsSentConfirmation.TYPE -> handleSmsSentConfirmation(json);
-                case "ping" -> handlePing(session);
-                default -> log.warn("Unknown message type: {}", type);
+    /**
+     * Handle the frames of a batch in order and acknowledge them together.
+     */
+    private void handleBatch(WebSocketSession session, JsonNode json) throws JsonProcessingException {
+        GatewayBatch batch = objectMapper.treeToValue(json, GatewayBatch.class);
+        if (!batch.isValid()) {
+            log.warn("Invalid batch: {}", truncateForLog(json.toString()));
+            return;
+        }
+
+        boolean sequenced = false;
+        for (JsonNode frame : batch.frames()) {
+            if (GatewayBatch.TYPE.equals(frame.path("type").asText())) {
+                log.warn("Ignoring nested batch from session {}", session.getId());
+                continue;
             }
-        } catch (JsonProcessingException e) {
-            log.error("Failed to parse WebSocket message: {}", e.getMessage());
+            try {
+                sequenced |= dispatch(session, frame);
+            } catch (JsonProcessingException e) {
+                log.error("Failed to parse batched WebSocket message: {}", e.getMessage());
+            }
+        }
+        if (sequenced) {
+            acknowledge(session);
         }
+        log.debug("📦 Handled batch of {} frame(s) from session {}", batch.frames().size(), session.getId());
     }
 
     @Override
     public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
         log.error("WebSocket transport error for session {}: {}", session.getId(), exception.getMessage());
-        sessions.remove(session.getId());
+        pool.remove(GatewaySessionPool.deviceId(session), session);
+        dropBatcher(session);
+        failOver(session);
+    }
+
+    private void dropBatcher(WebSocketSession session) {
+        FrameBatcher batcher = batchers.remove(session.getId());
+        if (batcher != null) {
+            batcher.clear();
+        }
     }
 
     /**
-     * Handle incoming SMS from Android app.
-     * Uses AI for natural conversations, but falls back to command handler
-     * for critical operations (EMERGENCY, SUPPORT, ACCEPT, COMPLETE) that require
-     * location matching and volunteer notifications.
+     * Resend the unconfirmed commands of a session that went away through the remaining devices.
+     * The phone may have sent some of them before it dropped, so a recipient can get a message twice;
+     * for emergency alerts that is preferable to not getting it at all.
      */
-    private void handleIncomingSms(WebSocketSession session, JsonNode json) {
+    private void failOver(WebSocketSession session) {
+        GatewayStream stream = streams.get(GatewaySessionPool.deviceId(session));
+        if (stream != null && stream.isBoundTo(session.getId())) {
+            log.info("⏸️ Keeping {} unacknowledged command(s) of session {} for resume",
+                    stream.unacknowledged(), session.getId());
+            return;
+        }
+
+        List<PendingRequest> orphaned = pendingRequests.removeSession(session.getId());
+        if (orphaned.isEmpty()) {
+            return;
+        }
+
+        log.warn("🔀 Failing over {} unconfirmed command(s) from session {}", orphaned.size(), session.getId());
+        for (PendingRequest pending : orphaned) {
+            pool.release(pending.deviceId(), pending.requestId());
+            resend(pending, Set.of());
+        }
+    }
+
+    /**
+     * Resend commands that were not confirmed before their deadline, preferring a different device.
+     * A command is given up once it has been sent the configured number of times.
+     */
+    @Scheduled(fixedDelayString = "${sms.gateway.websocket.sweep-interval-millis:5000}")
+    public void expirePendingRequests() {
+        for (PendingRequest pending : pendingRequests.expire()) {
+            pool.release(pending.deviceId(), pending.requestId());
+            GatewayStream stream = streams.get(pending.deviceId());
+            if (stream != null) {
+                stream.cancel(pending.requestId());
+            }
+            if (pending.attempt() >= poolConfig.getMaxSendAttempts()) {
+                log.error("❌ SMS command {} not confirmed after {} attempt(s), giving up on {} recipient(s)",
+                        pending.requestId(), pending.attempt(), pending.recipients().size());
+                reportUndelivered(pending, "Not confirmed by the gateway phones after "
+                        + pending.attempt() + " attempt(s)");
+                continue;
+            }
+
+            log.warn("⏱️ SMS command {} not confirmed by device {}, resending (attempt {})",
+                    pending.requestId(), pending.deviceId(), pending.attempt() + 1);
+            resend(pending, Set.of(pending.deviceId()));
+        }
+    }
+
+    /**
+     * Ask devices whose stream stalled on a refused incoming SMS to replay it; repeated every sweep
+     * until the frame arrives.
+     */
+    @Scheduled(fixedDelayString = "${sms.gateway.websocket.sweep-interval-millis:5000}")
+    public void requestReplays() {
+        for (Map.Entry<String, GatewayStream> entry : streams.entrySet()) {
+            GatewayStream stream = entry.getValue();
+            WebSocketSession session = pool.session(entry.getKey());
+            if (session == null || !stream.isBoundTo(session.getId())) {
+                continue;
+            }
+            GatewayHello request = stream.replayRequest();
+            if (request == null) {
+                continue;
+            }
+            FrameBatcher batcher = batchers.get(session.getId());
+            if (enqueue(session, request.withBatch(batcher != null ? batcher.maxBatch() : 0))) {
+                log.info("🔁 Asking device {} to replay incoming SMS after seq {}", entry.getKey(), request.ack());
+            }
+        }
+    }
+
+    private void resend(PendingRequest pending, Set<String> avoid) {
         try {
-            IncomingSmsMessage incoming = objectMapper.treeToValue(json, IncomingSmsMessage.class);
+            if (route(pending.recipients(), pending.message(), pending.attempt() + 1, pending.originId(),
+                    avoid, new HashSet<>()) == null) {
+                log.error("❌ No gateway device left for {} recipient(s) of {}",
+                        pending.recipients().size(), pending.requestId());
+                reportUndelivered(pending, "No gateway phone left to resend to");
+            }
+        } catch (SmsDeliveryException e) {
+            log.error("❌ Could not resend {}: {}", pending.requestId(), e.getMessage());
+            reportUndelivered(pending, e.getMessage());
+        }
+    }
+
+    /**
+     * Publish an undelivered report for each recipient of a command the phones will not send.
+     */
+    private void reportUndelivered(PendingRequest pending, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        for (String recipient : pending.recipients()) {
+            eventPublisher.publishEvent(new SmsDeliveryReport(pending.originId(), recipient, false, error, now));
+        }
+    }
+
+    /**
+     * Start or resume a device's protocol v2 stream: answer with our ack and batch size, then
+     * replay the commands the device has not acknowledged.
+     */
+    private void handleHello(WebSocketSession session, JsonNode json) throws JsonProcessingException {
+        GatewayHello hello = objectMapper.treeToValue(json, GatewayHello.class);
+        if (!hello.isValid()) {
+            log.warn("Invalid hello: {}", json);
+            return;
+        }
+
+        String deviceId = GatewaySessionPool.deviceId(session);
+        GatewayStream stream = streams.computeIfAbsent(deviceId,
+                id -> new GatewayStream(poolConfig.getResumeBufferPerDevice()));
+        int batch = Math.min(hello.batchOrZero(), poolConfig.getBatchMaxFrames());
+
+        GatewayStream.Resume resume;
+        synchronized (stream) {
+            resume = stream.resume(session.getId(), hello);
+            if (batch > 1) {
+                batchers.put(session.getId(), new FrameBatcher(poolConfig.getOutboundQueuePerDevice(), batch));
+            } else {
+                dropBatcher(session);
+            }
 
-            if (!incoming.isValid()) {
-                log.warn("Invalid incoming SMS message: {}", json);
+            List<Object> frames = new ArrayList<>();
+            frames.add(resume.reply().withBatch(batch > 1 ? batch : 0));
+            frames.addAll(resume.replay());
+            if (!enqueueAll(outbound(session), frames)) {
+                log.warn("Could not queue hello reply for device {}", deviceId);
                 return;
             }
+        }
+        log.info("🤝 Gateway stream {} for device {}: ack={}, batch={}, replaying {} command(s)",
+                resume.reply().resumed() ? "resumed" : "started", deviceId,
+                resume.reply().ack(), batch > 1 ? batch : "off", resume.replay().size());
+    }
+
+    private void handleAck(WebSocketSession session, JsonNode json) throws JsonProcessingException {
+        GatewayAck ack = objectMapper.treeToValue(json, GatewayAck.class);
+        GatewayStream stream = streams.get(GatewaySessionPool.deviceId(session));
+        if (ack.isValid() && stream != null) {
+            stream.acknowledge(ack.ack());
+        }
+    }
+
+    /**
+     * Get the stream a frame is sequenced on.
+     *
+     * @return null for frames without a sequence number (protocol v1), which are always new
+     */
+    private GatewayStream sequencedStream(WebSocketSession session, JsonNode json) {
+        JsonNode seq = json.get("seq");
+        if (seq == null || !seq.canConvertToLong()) {
+            return null;
+        }
+        return streams.get(GatewaySessionPool.deviceId(session));
+    }
 
+    /**
+     * Check whether a sequenced frame is new, without recording it.
+     */
+    private boolean isNew(WebSocketSession session, GatewayStream stream, JsonNode json) {
+        long seq = json.get("seq").asLong();
+        boolean fresh = stream.isNew(seq);
+        if (!fresh) {
+            log.debug("Dropping {} frame seq={} from session {}",
+                    stream.isStalled() ? "stalled" : "replayed", seq, session.getId());
+        }
+        return fresh;
+    }
+
+    /**
+     * Record a sequenced frame and report whether it is new.
+     */
+    private boolean isFresh(WebSocketSession session, GatewayStream stream, JsonNode json) {
+        long seq = json.get("seq").asLong();
+        boolean fresh = stream.receive(seq);
+        if (!fresh) {
+            log.debug("Dropping replayed frame seq={} from session {}", seq, session.getId());
+        }
+        return fresh;
+    }
+
+    /**
+     * Send the device our cumulative ack for its stream.
+     */
+    private void acknowledge(WebSocketSession session) {
+        GatewayStream stream = streams.get(GatewaySessionPool.deviceId(session));
+        if (stream != null) {
+            enqueue(outbound(session), GatewayAck.of(stream.lastReceived()));
+        }
+    }
+
+    /**
+     * Validate an incoming SMS from the Android app, drop it if it was already received,
+     * and queue it on the sender's mailbox, or store it for the retry sweep if the mailbox is full.
+     *
+     * @return false if the SMS could be neither queued nor stored and the phone must send it again
+     */
+    private boolean handleIncomingSms(WebSocketSession session, JsonNode json) {
+        IncomingSmsMessage incoming;
+        try {
+            incoming = objectMapper.treeToValue(json, IncomingSmsMessage.class);
+        } catch (Exception e) {
+            log.error("Error handling incoming SMS: {}", e.getMessage(), e);
+            return true;
+        }
+
+        if (!incoming.isValid()) {
+            log.warn("Invalid incoming SMS message: {}", json);
+            return true;
+        }
+        if (inboundDeduplicator.isDuplicate(incoming.messageId(), incoming.sender(), incoming.message())) {
+            return true;
+        }
+
+        try {
+            inboundSmsMailbox.execute(incoming.sender(), () -> processIncomingSms(session, incoming));
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ Inbound SMS queue full, storing WebSocket message from {} for retry: {}",
+                    maskPhone(incoming.sender()), e.getMessage());
+        }
+        try {
+            inboundSmsService.receive(incoming.sender(), null, incoming.message(), incoming.messageId());
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            log.warn("🔁 Incoming SMS {} from {} already stored", incoming.messageId(), maskPhone(incoming.sender()));
+            return true;
+        } catch (Exception e) {
+            log.error("🚫 Could not store incoming SMS from {}: {}", maskPhone(incoming.sender()), e.getMessage());
+            inboundDeduplicator.forget(incoming.messageId(), incoming.sender(), incoming.message());
+            return false;
+        }
+    }
+
+    /**
+     * Process an incoming SMS from Android app.
+     * Uses AI for natural conversations, but falls back to command handler
+     * for critical operations (EMERGENCY, SUPPORT, ACCEPT, COMPLETE) that require
+     * location matching and volunteer notifications.
+     */
+    private void processIncomingSms(WebSocketSession session, IncomingSmsMessage incoming) {
+        try {
             log.info("📨 Incoming SMS via WebSocket: from={}, message={}",
                     maskPhone(incoming.sender()), truncateForLog(incoming.message()));
 
@@ -136,25 +552,60 @@ public class SmsGatewayWebSocketHandler extends TextWebSocketHandler {
             if (requiresLocationMatching(command.type())) {
                 log.info("🎯 Using command handler for {}", command.type());
                 response = smsCommandHandler.handle(command);
+                if (command.type() == CommandType.EMERGENCY && isAnsweredAutoAck(incoming)) {
+                    log.info("🔕 Not replying to repeated emergency from {}, already acknowledged by the phone",
+                            maskPhone(incoming.sender()));
+                    return;
+                }
             } else {
                 // Use AI conversation service for everything else
                 log.info("🤖 Using AI conversation service");
                 response = conversationService.processMessage(incoming.sender(), incoming.message());
             }
 
-            // Send response back via WebSocket for the app to deliver as SMS
-            String requestId = "WS-" + UUID.randomUUID().toString().substring(0, 8);
-            SendSmsCommand sendCmd = SendSmsCommand.create(requestId, incoming.sender(), response);
-
-            sendToSession(session, sendCmd);
-            log.info("📤 Response sent via WebSocket: requestId={}, to={}",
-                    requestId, maskPhone(incoming.sender()));
+            // Reply from the SIM that received the message; if that phone has gone or is busy, use the pool
+            String requestId = sendToDevice(GatewaySessionPool.deviceId(session),
+                    List.of(incoming.sender()), response, 1, null);
+            if (requestId != null) {
+                log.info("📤 Response sent via WebSocket: requestId={}, to={}",
+                        requestId, maskPhone(incoming.sender()));
+            } else {
+                sendSms(incoming.sender(), response);
+            }
 
         } catch (Exception e) {
             log.error("Error handling incoming SMS: {}", e.getMessage(), e);
         }
     }
 
+    /**
+     * Check whether a locally acknowledged emergency repeats one already answered within the window,
+     * and record it as answered otherwise.
+     */
+    private boolean isAnsweredAutoAck(IncomingSmsMessage incoming) {
+        int window = poolConfig.getAutoAckReplyWindowSeconds();
+        if (!incoming.isAutoAcked() || window <= 0) {
+            return false;
+        }
+        long now = System.nanoTime();
+        synchronized (answeredAutoAcks) {
+            Iterator<Long> expiries = answeredAutoAcks.values().iterator();
+            while (expiries.hasNext() && expiries.next() - now <= 0) {
+                expiries.remove();
+            }
+            if (answeredAutoAcks.containsKey(incoming.sender())) {
+                return true;
+            }
+            answeredAutoAcks.put(incoming.sender(), now + TimeUnit.SECONDS.toNanos(window));
+            if (answeredAutoAcks.size() > MAX_ANSWERED_AUTO_ACKS) {
+                expiries = answeredAutoAcks.values().iterator();
+                expiries.next();
+                expiries.remove();
+            }
+            return false;
+        }
+    }
+
     /**
      * Check if this command type requires location-based volunteer matching.
      * These commands use the old handler to ensure proper matching and notifications.
@@ -180,8 +631,13 @@ public class SmsGatewayWebSocketHandler extends TextWebSocketHandler {
                 return;
             }
 
-            // Remove from pending requests
-            pendingRequests.remove(confirmation.requestId());
+            // Remove from pending requests and free the device's in-flight slot
+            PendingRequest pending = pendingRequests.confirm(confirmation.requestId(), confirmation.isSuccess());
+            if (pending != null) {
+                pool.release(pending.deviceId(), pending.requestId());
+            } else {
+                log.debug("Confirmation for untracked request {} (timed out or resent)", confirmation.requestId());
+            }
 
             if (confirmation.isSuccess()) {
                 log.info("✅ SMS delivery confirmed: requestId={}, successCount={}",
@@ -195,16 +651,33 @@ public class SmsGatewayWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
+    /**
+     * Handle a delivery report from Android app by publishing it as an {@link SmsDeliveryReport}.
+     */
+    private void handleDeliveryReport(JsonNode json) {
+        try {
+            SmsDeliveryReportMessage report = objectMapper.treeToValue(json, SmsDeliveryReportMessage.class);
+
+            if (!report.isValid()) {
+                log.warn("Invalid SMS delivery report: {}", json);
+                return;
+            }
+
+            log.debug("📬 SMS delivery report: requestId={}, status={}", report.requestId(), report.status());
+            eventPublisher.publishEvent(new SmsDeliveryReport(report.requestId(), report.recipient(),
+                    report.isDelivered(), report.isDelivered() ? null : "Not delivered (" + report.status() + ")",
+                    LocalDateTime.now()));
+        } catch (Exception e) {
+            log.error("Error handling SMS delivery report: {}", e.getMessage());
+        }
+    }
+
     /**
      * Handle ping message, respond with pong.
      */
     private void handlePing(WebSocketSession session) {
-        try {
-            String pong = objectMapper.writeValueAsString(Map.of("type", "pong"));
-            session.sendMessage(new TextMessage(pong));
-            log.debug("🏓 Pong sent to session {}", session.getId());
-        } catch (IOException e) {
-            log.error("Failed to send pong: {}", e.getMessage());
+        if (enqueue(outbound(session), Map.of("type", "pong"))) {
+            log.debug("🏓 Pong queued for session {}", session.getId());
         }
     }
 
@@ -217,54 +690,219 @@ public class SmsGatewayWebSocketHandler extends TextWebSocketHandler {
     }
 
     /**
-     * Send an SMS to multiple recipients via the connected Android app.
-     * Returns the request ID for tracking.
+     * Send an SMS to multiple recipients via the connected Android apps.
+     * Recipients are split across devices, one command per device.
+     * Returns the request ID of the first command for tracking.
+     *
+     * @throws SmsDeliveryException if devices are connected but none has room for the message
+     *                              or could queue the command
      */
     public String sendSms(List<String> recipients, String message) {
-        if (sessions.isEmpty()) {
+        return route(recipients, message, 1, null, Set.of(), new HashSet<>());
+    }
+
+    /**
+     * Send each shard to its device; a shard whose device cannot take it is routed again
+     * without that device, so the recursion ends once every device has been tried.
+     * Nothing is sent unless every recipient fits within the devices' in-flight limits,
+     * so a refused message can go to the provider whole. All shards are tracked under the
+     * origin id, or under the first shard's request id on a first send.
+     */
+    private String route(List<String> recipients, String message, int attempt, String originId,
+                         Set<String> avoid, Set<String> exclude) {
+        String firstRequestId = null;
+        Map<String, List<String>> assignment = pool.assign(recipients, SmsSegments.count(message), avoid, exclude);
+        int assigned = assignment.values().stream().mapToInt(List::size).sum();
+        if (assigned < recipients.size() && pool.isConnected()) {
+            throw new SmsDeliveryException(exclude.isEmpty()
+                    ? "All SMS Gateway devices are at their in-flight limit"
+                    : "All SMS Gateway send queues are full");
+        }
+        if (assignment.isEmpty()) {
             log.warn("No SMS Gateway connected, cannot send SMS");
             return null;
         }
 
-        String requestId = "WS-" + UUID.randomUUID().toString().substring(0, 8);
-        SendSmsCommand cmd = SendSmsCommand.create(requestId, recipients, message);
+        for (Map.Entry<String, List<String>> shard : assignment.entrySet()) {
+            String origin = originId != null ? originId : firstRequestId;
+            String requestId = sendToDevice(shard.getKey(), shard.getValue(), message, attempt, origin);
+            if (requestId == null) {
+                exclude.add(shard.getKey());
+                requestId = route(shard.getValue(), message, attempt, origin, avoid, exclude);
+            }
+            if (firstRequestId == null) {
+                firstRequestId = requestId;
+            }
+        }
+        return firstRequestId;
+    }
+
+    private String sendToDevice(String deviceId, List<String> recipients, String message, int attempt,
+                                String originId) {
+        WebSocketSession session = pool.session(deviceId);
+        if (session == null) {
+            return null;
+        }
 
-        // Track pending request
-        pendingRequests.put(requestId, new PendingRequest(requestId, recipients, message, System.currentTimeMillis()));
+        String requestId = REQUEST_ID_PREFIX + UUID.randomUUID().toString().substring(0, 8);
+        SendSmsCommand cmd = SendSmsCommand.create(requestId, recipients, message);
+        GatewayStream stream = streams.get(deviceId);
+
+        // Track pending request, allowing for the parts the phone has to send before this one
+        int parts = recipients.size() * SmsSegments.count(message);
+        PendingRequest dropped = pendingRequests.track(requestId, originId != null ? originId : requestId,
+                deviceId, session.getId(), recipients, message, attempt, pool.inFlight(deviceId) + parts);
+        if (dropped != null) {
+            pool.release(dropped.deviceId(), dropped.requestId());
+            log.error("🚫 Pending request tracker full, stopped tracking {} ({} recipient(s))",
+                    dropped.requestId(), dropped.recipients().size());
+        }
+        pool.acquire(deviceId, requestId, parts);
 
-        // Send to all connected sessions (typically just one Android app)
-        for (WebSocketSession session : sessions.values()) {
-            if (session.isOpen()) {
-                sendToSession(session, cmd);
+        if (!enqueueCommand(session, stream, cmd)) {
+            if (stream != null) {
+                stream.cancel(requestId);
             }
+            pendingRequests.cancel(requestId);
+            pool.release(deviceId, requestId);
+            return null;
         }
 
-        log.info("📤 SMS command sent via WebSocket: requestId={}, recipients={}",
-                requestId, recipients.size());
+        log.info("📤 SMS command queued for WebSocket: requestId={}, device={}, recipients={}",
+                requestId, deviceId, recipients.size());
         return requestId;
     }
 
+    /**
+     * Number a command on the device's stream and queue it under the stream's lock, so
+     * concurrent commands reach the device in sequence order and none is taken for a replay.
+     */
+    private boolean enqueueCommand(WebSocketSession session, GatewayStream stream, SendSmsCommand command) {
+        if (stream == null) {
+            return enqueue(session, command);
+        }
+        synchronized (stream) {
+            return enqueue(session, stream.send(command));
+        }
+    }
+
     /**
      * Check if any Android app is connected.
      */
     public boolean isConnected() {
-        return sessions.values().stream().anyMatch(WebSocketSession::isOpen);
+        return pool.isConnected();
     }
 
     /**
      * Get count of connected sessions.
      */
     public int getConnectedCount() {
-        return (int) sessions.values().stream().filter(WebSocketSession::isOpen).count();
+        return pool.getConnectedCount();
+    }
+
+    /**
+     * Get command counts and confirmation latency since startup.
+     */
+    public PendingRequestTracker.Stats getDeliveryStats() {
+        return pendingRequests.getStats();
+    }
+
+    /**
+     * Get the pooled send decorator of a session, or the session itself if it is no longer pooled.
+     */
+    private WebSocketSession outbound(WebSocketSession session) {
+        WebSocketSession pooled = pool.session(GatewaySessionPool.deviceId(session));
+        return pooled != null && pooled.getId().equals(session.getId()) ? pooled : session;
+    }
+
+    /**
+     * Queue a frame on the session's writer without blocking.
+     *
+     * @return false if the session is closed or its queue is full
+     */
+    private boolean enqueue(WebSocketSession session, Object payload) {
+        return enqueueAll(session, List.of(payload));
     }
 
-    private void sendToSession(WebSocketSession session, Object payload) {
+    /**
+     * Queue several frames to be written back to back, e.g. a hello reply and its replay.
+     * For a batching session they join its {@link FrameBatcher} instead.
+     *
+     * @return false if the session is closed or its queue is full
+     */
+    private boolean enqueueAll(WebSocketSession session, List<Object> payloads) {
+        if (!session.isOpen()) {
+            return false;
+        }
+        try {
+            List<String> frames = new ArrayList<>();
+            for (Object payload : payloads) {
+                frames.add(objectMapper.writeValueAsString(payload));
+            }
+
+            FrameBatcher batcher = batchers.get(session.getId());
+            if (batcher == null) {
+                outboundWriter.execute(session.getId(), () -> frames.forEach(json -> write(session, json)));
+                return true;
+            }
+            switch (batcher.offer(frames)) {
+                case FULL -> {
+                    log.warn("🚦 Send queue full for session {}: {} frame(s) waiting", session.getId(), batcher.size());
+                    return false;
+                }
+                case SCHEDULE_FLUSH -> {
+                    try {
+                        outboundWriter.execute(session.getId(), () -> flush(session, batcher));
+                    } catch (RejectedExecutionException e) {
+                        // No flush was pending, so the buffer holds only the frames just offered
+                        batcher.clear();
+                        throw e;
+                    }
+                }
+                case QUEUED -> {
+                    // Written by the flush task already queued
+                }
+            }
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("🚦 Send queue full for session {}: {}", session.getId(), e.getMessage());
+            return false;
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize WebSocket message: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Write a batching session's buffered frames on the writer thread, a batch at a time,
+     * including those added while writing.
+     */
+    private void flush(WebSocketSession session, FrameBatcher batcher) {
+        String json;
+        while ((json = batcher.next()) != null) {
+            if (!session.isOpen()) {
+                batcher.clear();
+                return;
+            }
+            write(session, json);
+        }
+    }
+
+    /**
+     * Write a frame on the writer thread. A failed or too slow write closes the session,
+     * which fails its unconfirmed commands over to the other devices.
+     */
+    private void write(WebSocketSession session, String json) {
         try {
-            String json = objectMapper.writeValueAsString(payload);
             session.sendMessage(new TextMessage(json));
             log.debug("📤 WS sent: {}", truncateForLog(json));
-        } catch (IOException e) {
-            log.error("Failed to send WebSocket message: {}", e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to send WebSocket message to session {}: {}", session.getId(), e.getMessage());
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException | RuntimeException closeFailure) {
+                log.debug("Closing session {} failed: {}", session.getId(), closeFailure.getMessage());
+            }
         }
     }
 
@@ -278,14 +916,4 @@ public class SmsGatewayWebSocketHandler extends TextWebSocketHandler {
         if (text.length() <= 200) return text;
         return text.substring(0, 197) + "...";
     }
-
-    /**
-     * Record for tracking pending SMS requests.
-     */
-    private record PendingRequest(
-            String requestId,
-            List<String> recipients,
-            String message,
-            long timestamp
-    ) {}
 }
@@ -0,0 +1,25 @@
+package com.safebirth.sms.gateway.websocket.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Cumulative acknowledgement of gateway protocol v2: the sender has received every frame of
+ * the peer's stream up to and including ack, so the peer can drop them from its replay buffer.
+ *
+ * Example JSON:
+ * {"type": "ack", "ack": 42}
+ */
+public record GatewayAck(
+        @JsonProperty("type") String type,
+        @JsonProperty("ack") Long ack
+) {
+    public static final String TYPE = "ack";
+
+    public static GatewayAck of(long ack) {
+        return new GatewayAck(TYPE, ack);
+    }
+
+    public boolean isValid() {
+        return TYPE.equals(type) && ack != null;
+    }
+}
@@ -0,0 +1,30 @@
+package com.safebirth.sms.gateway.websocket.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+/**
+ * Several gateway protocol v2 frames carried in one WebSocket message, in sequence order.
+ * Only sent to a peer that announced batch support in its {@link GatewayHello}.
+ *
+ * Each inner frame is a complete frame of any type but batch, sequenced ones with their own seq.
+ * The receiver handles them in order and answers the whole batch with a single ack. The JSON keys repeated across the inner frames
+ * are what permessage-deflate, negotiated by OkHttp and the servlet container at connect time,
+ * compresses best.
+ *
+ * Example JSON:
+ * {"type": "batch", "frames": [{"type": "sms_sent", "request_id": "WS-1", ..., "seq": 18},
+ *                              {"type": "sms_sent", "request_id": "WS-2", ..., "seq": 19}]}
+ */
+public record GatewayBatch(
+        @JsonProperty("type") String type,
+        @JsonProperty("frames") List<JsonNode> frames
+) {
+    public static final String TYPE = "batch";
+
+    public boolean isValid() {
+        return TYPE.equals(type) && frames != null;
+    }
+}
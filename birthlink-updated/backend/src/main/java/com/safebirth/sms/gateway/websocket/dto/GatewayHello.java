@@ -0,0 +1,62 @@
+package com.safebirth.sms.gateway.websocket.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Resume handshake of gateway protocol v2, sent by the app right after it connects and
+ * answered by the server.
+ *
+ * Under v2 every incoming_sms, sms_sent and send_sms frame carries a sequence number that
+ * increases by one per frame within a stream. Each side keeps the frames the other has not
+ * acknowledged and, after a reconnect, replays those past the peer's ack.
+ *
+ * The app sends the stream id it was last given (null on first connect) and the highest
+ * server sequence number it has received. The server answers with the stream id and its own
+ * ack. resumed is false when the server did not know the stream (first connect, or the
+ * server restarted): both sides then number their unacknowledged frames again from 1.
+ *
+ * The server also sends a resumed hello mid-stream when it could not take an incoming_sms frame
+ * and left it unacknowledged; the app answers it like the reply to its own hello, by replaying
+ * every frame past the ack.
+ *
+ * batch is the most frames the sender accepts in one {@link GatewayBatch}. The server answers
+ * with the smaller of the app's value and its own limit; absent or 0 means frames are only sent
+ * one per message, as with older app versions.
+ *
+ * Example JSON:
+ * {"type": "hello", "version": 2, "stream": "b71c...", "ack": 41, "batch": 50}
+ * {"type": "hello", "version": 2, "stream": "b71c...", "ack": 17, "resumed": true, "batch": 50}
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record GatewayHello(
+        @JsonProperty("type") String type,
+        @JsonProperty("version") Integer version,
+        @JsonProperty("stream") String stream,
+        @JsonProperty("ack") Long ack,
+        @JsonProperty("resumed") Boolean resumed,
+        @JsonProperty("batch") Integer batch
+) {
+    public static final String TYPE = "hello";
+    public static final int VERSION = 2;
+
+    public static GatewayHello reply(String stream, long ack, boolean resumed) {
+        return new GatewayHello(TYPE, VERSION, stream, ack, resumed, null);
+    }
+
+    public GatewayHello withBatch(int batch) {
+        return new GatewayHello(type, version, stream, ack, resumed, batch > 0 ? batch : null);
+    }
+
+    public boolean isValid() {
+        return TYPE.equals(type) && version != null && version >= VERSION;
+    }
+
+    public long ackOrZero() {
+        return ack != null ? ack : 0;
+    }
+
+    public int batchOrZero() {
+        return batch != null ? Math.max(batch, 0) : 0;
+    }
+}
@@ -7,17 +7,32 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  * The Android app sends this when it receives an SMS on the device.
  *
  * Example JSON:
- * {"type": "incoming_sms", "sender": "+249123456789", "message": "HELP", "timestamp": 1706554800000}
+ * {"type": "incoming_sms", "sender": "+249123456789", "message": "HELP", "timestamp": 1706554800000,
+ *  "messageId": "3f2a...", "seq": 17}
+ *
+ * messageId is derived on the device from the SMS itself, so a broadcast delivered twice
+ * carries the same id. Older app versions omit it. seq is the device's frame sequence number
+ * under protocol v2 and is absent for older app versions.
+ *
+ * autoAcked is true when the phone already answered the sender's emergency with a local
+ * acknowledgement while the backend was unreachable, and absent otherwise.
  */
 public record IncomingSmsMessage(
         @JsonProperty("type") String type,
         @JsonProperty("sender") String sender,
         @JsonProperty("message") String message,
-        @JsonProperty("timestamp") Long timestamp
+        @JsonProperty("timestamp") Long timestamp,
+        @JsonProperty("messageId") String messageId,
+        @JsonProperty("seq") Long seq,
+        @JsonProperty("autoAcked") Boolean autoAcked
 ) {
     public static final String TYPE = "incoming_sms";
 
     public boolean isValid() {
         return TYPE.equals(type) && sender != null && !sender.isBlank() && message != null;
     }
+
+    public boolean isAutoAcked() {
+        return Boolean.TRUE.equals(autoAcked);
+    }
 }
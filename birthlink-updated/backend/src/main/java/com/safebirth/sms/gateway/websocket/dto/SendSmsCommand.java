@@ -1,5 +1,6 @@
 package com.safebirth.sms.gateway.websocket.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.List;
@@ -9,21 +10,29 @@ import java.util.List;
  * The app will send actual SMS messages to the specified recipients.
  *
  * Example JSON:
- * {"type": "send_sms", "request_id": "WS-12345", "recipients": ["+249123456789"], "message": "Help is on the way!"}
+ * {"type": "send_sms", "request_id": "WS-12345", "recipients": ["+249123456789"], "message": "Help is on the way!",
+ *  "seq": 42}
+ *
+ * seq is only set for devices that speak protocol v2 (see {@link GatewayHello}).
  */
 public record SendSmsCommand(
         @JsonProperty("type") String type,
         @JsonProperty("request_id") String requestId,
         @JsonProperty("recipients") List<String> recipients,
-        @JsonProperty("message") String message
+        @JsonProperty("message") String message,
+        @JsonProperty("seq") @JsonInclude(JsonInclude.Include.NON_NULL) Long seq
 ) {
     public static final String TYPE = "send_sms";
 
     public static SendSmsCommand create(String requestId, List<String> recipients, String message) {
-        return new SendSmsCommand(TYPE, requestId, recipients, message);
+        return new SendSmsCommand(TYPE, requestId, recipients, message, null);
     }
 
     public static SendSmsCommand create(String requestId, String recipient, String message) {
-        return new SendSmsCommand(TYPE, requestId, List.of(recipient), message);
+        return new SendSmsCommand(TYPE, requestId, List.of(recipient), message, null);
+    }
+
+    public SendSmsCommand withSeq(long seq) {
+        return new SendSmsCommand(type, requestId, recipients, message, seq);
     }
 }
@@ -0,0 +1,33 @@
+package com.safebirth.sms.gateway.websocket.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * DTO for SMS delivery reports from the Android SMS Gateway app.
+ * The app sends one per recipient once the network reports whether every part of the SMS
+ * reached the handset; operators that do not return status reports never trigger it.
+ *
+ * Example JSON:
+ * {"type": "sms_delivered", "request_id": "WS-12345", "recipient": "+249123456789",
+ *  "status": "delivered", "seq": 19}
+ *
+ * status is "delivered" or "failed". seq is the device's frame sequence number under protocol v2.
+ */
+public record SmsDeliveryReportMessage(
+        @JsonProperty("type") String type,
+        @JsonProperty("request_id") String requestId,
+        @JsonProperty("recipient") String recipient,
+        @JsonProperty("status") String status,
+        @JsonProperty("seq") Long seq
+) {
+    public static final String TYPE = "sms_delivered";
+
+    public boolean isValid() {
+        return TYPE.equals(type) && requestId != null && !requestId.isBlank()
+                && recipient != null && !recipient.isBlank();
+    }
+
+    public boolean isDelivered() {
+        return "delivered".equalsIgnoreCase(status);
+    }
+}
@@ -10,7 +10,9 @@ import java.util.List;
  *
  * Example JSON:
  * {"type": "sms_sent", "request_id": "WS-12345", "recipients": ["+249123456789"],
- *  "success_count": 1, "failure_count": 0, "status": "success"}
+ *  "success_count": 1, "failure_count": 0, "status": "success", "seq": 18}
+ *
+ * seq is the device's frame sequence number under protocol v2 and is absent for older app versions.
  */
 public record SmsSentConfirmation(
         @JsonProperty("type") String type,
@@ -18,7 +20,8 @@ public record SmsSentConfirmation(
         @JsonProperty("recipients") List<String> recipients,
         @JsonProperty("success_count") Integer successCount,
         @JsonProperty("failure_count") Integer failureCount,
-        @JsonProperty("status") String status
+        @JsonProperty("status") String status,
+        @JsonProperty("seq") Long seq
 ) {
     public static final String TYPE = "sms_sent";
 
@@ -12,7 +12,8 @@ import com.safebirth.domain.volunteer.SkillType;
 import com.safebirth.domain.volunteer.Volunteer;
 import com.safebirth.domain.volunteer.VolunteerService;
 import com.safebirth.matching.MatchingService;
-import com.safebirth.sms.gateway.SmsGateway;
+import com.safebirth.sms.outbox.SmsOutboxService;
+import com.safebirth.sms.outbox.SmsPriority;
 import com.safebirth.sms.parser.SmsCommand;
 import com.safebirth.sms.parser.SmsParser;
 import org.slf4j.Logger;
@@ -30,7 +31,7 @@ import java.util.Set;
  * Returns response messages in the sender's detected language.
  * 
  * Handles all SMS commands:
- * - Registration (mother, volunteer)
+ * - Registration (mother, volunteer) and household phone links
  * - Emergency/Support requests
  * - Case management (accept, complete, cancel)
  * - Availability status
@@ -45,17 +46,17 @@ public class SmsCommandHandler {
     private final VolunteerService volunteerService;
     private final HelpRequestService helpRequestService;
     private final MatchingService matchingService;
-    private final SmsGateway smsGateway;
+    private final SmsOutboxService smsOutbox;
     private final SmsParser smsParser;
 
     public SmsCommandHandler(MotherService motherService, VolunteerService volunteerService,
                             HelpRequestService helpRequestService, MatchingService matchingService,
-                            SmsGateway smsGateway, SmsParser smsParser) {
+                            SmsOutboxService smsOutbox, SmsParser smsParser) {
         this.motherService = motherService;
         this.volunteerService = volunteerService;
         this.helpRequestService = helpRequestService;
         this.matchingService = matchingService;
-        this.smsGateway = smsGateway;
+        this.smsOutbox = smsOutbox;
         this.smsParser = smsParser;
     }
 
@@ -73,6 +74,7 @@ public class SmsCommandHandler {
             return switch (command.type()) {
                 case REGISTER_MOTHER -> handleRegisterMother(command);
                 case REGISTER_VOLUNTEER -> handleRegisterVolunteer(command);
+                case LINK_HOUSEHOLD -> handleLinkHousehold(command);
                 case EMERGENCY -> handleEmergency(command);
                 case SUPPORT -> handleSupport(command);
                 case ACCEPT_CASE -> handleAcceptCase(command);
@@ -178,8 +180,34 @@ public class SmsCommandHandler {
     }
 
     /**
-     * Handle emergency request from a registered mother.
-     * Creates a help request and notifies available volunteers.
+     * Handle linking a family member's phone to a registered mother.
+     * Emergencies sent from the linked phone attach to the mother's case.
+     */
+    private String handleLinkHousehold(SmsCommand command) {
+        String phone = command.senderPhone();
+        String householdPhone = command.getHouseholdPhone();
+        Language lang = command.detectedLanguage();
+
+        if (motherService.findByPhone(phone).isEmpty()) {
+            return getMessage(lang,
+                    "❌ You are not registered. Please register first: REG MOTHER CAMP [name] ZONE [number]",
+                    "❌ لم يتم تسجيلك. يرجى التسجيل أولاً: تسجيل ام مخيم [اسم] منطقة [رقم]");
+        }
+
+        log.info("Linking household phone {} to mother {}", maskPhone(householdPhone), maskPhone(phone));
+
+        Mother mother = motherService.linkHouseholdPhone(phone, householdPhone);
+
+        return getMessage(lang,
+                "✅ %s is linked to %s. EMERGENCY from that phone will reach your case.",
+                "✅ تم ربط %s بـ %s. رسالة طوارئ من هذا الهاتف ستصل إلى حالتك.",
+                mother.getHouseholdPhone(), mother.getFormattedId());
+    }
+
+    /**
+     * Handle emergency request from a registered mother or her linked household phone.
+     * Creates a help request and notifies available volunteers; a repeat within the
+     * coalescing window is attached to the open case and only acknowledged.
      */
     private String handleEmergency(SmsCommand command) {
         String phone = command.senderPhone();
@@ -187,8 +215,8 @@ public class SmsCommandHandler {
 
         log.warn("🚨 EMERGENCY request from {}", maskPhone(phone));
 
-        // Find registered mother
-        Optional<Mother> motherOpt = motherService.findByPhone(phone);
+        // Find registered mother, by her own phone or a linked household phone
+        Optional<Mother> motherOpt = motherService.findByPhoneOrHousehold(phone);
         if (motherOpt.isEmpty()) {
             return getMessage(lang,
                     "❌ You are not registered. Please register first: REG MOTHER CAMP [name] ZONE [number]",
@@ -196,10 +224,17 @@ public class SmsCommandHandler {
         }
 
         Mother mother = motherOpt.get();
-        motherService.recordContact(phone);
+        motherService.recordContact(mother.getPhoneNumber());
 
-        // Create emergency help request
-        HelpRequest request = helpRequestService.createRequest(mother, RequestType.EMERGENCY);
+        // Create emergency help request, or attach to the one already open
+        HelpRequestService.EmergencyIntake intake = helpRequestService.openEmergency(mother);
+        HelpRequest request = intake.request();
+        if (intake.repeat()) {
+            return getMessage(lang,
+                    "🚨 We already have your case %s. Help is on the way. Stay calm.",
+                    "🚨 حالتك %s مسجلة لدينا. المساعدة في الطريق. ابق هادئاً.",
+                    request.getCaseId());
+        }
 
         // Match and notify volunteers
         List<Volunteer> notified = matchingService.matchAndNotify(request);
@@ -490,6 +525,7 @@ public class SmsCommandHandler {
                 REGISTRATION:
                 • REG MOTHER CAMP [name] ZONE [number]
                 • REG VOLUNTEER NAME [name] CAMP [name] ZONE [number] SKILL [type]
+                • LINK [phone] - Let a family phone send EMERGENCY for you
                 
                 REQUESTS:
                 • EMERGENCY - Request urgent help
@@ -508,6 +544,7 @@ public class SmsCommandHandler {
                 التسجيل:
                 • تسجيل ام مخيم [اسم] منطقة [رقم]
                 • تسجيل متطوع الاسم [اسم] مخيم [اسم] منطقة [رقم] مهارة [نوع]
+                • ربط [رقم] - السماح لهاتف من العائلة بإرسال طوارئ عنك
                 
                 الطلبات:
                 • طوارئ - طلب مساعدة عاجلة
@@ -545,7 +582,7 @@ public class SmsCommandHandler {
                 "✅ تم قبول طلبك %s!\nالمتطوع: %s (%s)\nالمساعدة في الطريق.",
                 request.getCaseId(), volunteerName, skillLabel);
         
-        smsGateway.sendSms(mother.getPhoneNumber(), message);
+        smsOutbox.enqueue(mother.getPhoneNumber(), message, SmsPriority.CASE_UPDATE);
     }
 
     private void notifyVolunteerOfCancellation(HelpRequest request) {
@@ -557,7 +594,7 @@ public class SmsCommandHandler {
                 "ℹ️ تم إلغاء الحالة %s من قبل الأم.",
                 request.getCaseId());
         
-        smsGateway.sendSms(volunteer.getPhoneNumber(), message);
+        smsOutbox.enqueue(volunteer.getPhoneNumber(), message, SmsPriority.CASE_UPDATE);
     }
 
     private void notifyMotherOfCancellation(HelpRequest request) {
@@ -569,7 +606,7 @@ public class SmsCommandHandler {
                 "ℹ️ تم إلغاء حالتك %s من قبل المتطوع. أرسل 'طوارئ' لطلب المساعدة مرة أخرى.",
                 request.getCaseId());
         
-        smsGateway.sendSms(mother.getPhoneNumber(), message);
+        smsOutbox.enqueue(mother.getPhoneNumber(), message, SmsPriority.CASE_UPDATE);
     }
 
     // ==================== Formatting Helpers ====================
@@ -1,16 +1,24 @@
 package com.safebirth.sms.handler;
 
+import com.safebirth.config.InboundSmsConfig;
 import com.safebirth.sms.conversation.ConversationService;
+import com.safebirth.sms.gateway.SmsDeliveryReport;
 import com.safebirth.sms.gateway.SmsGateway;
+import com.safebirth.sms.inbound.InboundDeduplicator;
+import com.safebirth.sms.inbound.InboundSmsService;
+import com.safebirth.sms.inbound.KeyedMailboxExecutor;
 import com.safebirth.sms.parser.SmsCommand;
 import com.safebirth.sms.parser.SmsParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 
 /**
@@ -27,35 +35,75 @@ public class SmsWebhookController {
     private final SmsCommandHandler commandHandler;
     private final SmsGateway smsGateway;
     private final ConversationService conversationService;
+    private final InboundSmsService inboundSmsService;
+    private final InboundSmsConfig inboundSmsConfig;
+    private final KeyedMailboxExecutor inboundSmsMailbox;
+    private final InboundDeduplicator inboundDeduplicator;
+    private final ApplicationEventPublisher eventPublisher;
 
     public SmsWebhookController(
             SmsParser smsParser,
             SmsCommandHandler commandHandler,
             SmsGateway smsGateway,
-            @Qualifier("aiConversationManager") ConversationService conversationService) {
+            @Qualifier("aiConversationManager") ConversationService conversationService,
+            InboundSmsService inboundSmsService,
+            InboundSmsConfig inboundSmsConfig,
+            KeyedMailboxExecutor inboundSmsMailbox,
+            InboundDeduplicator inboundDeduplicator,
+            ApplicationEventPublisher eventPublisher) {
         this.smsParser = smsParser;
         this.commandHandler = commandHandler;
         this.smsGateway = smsGateway;
         this.conversationService = conversationService;
+        this.inboundSmsService = inboundSmsService;
+        this.inboundSmsConfig = inboundSmsConfig;
+        this.inboundSmsMailbox = inboundSmsMailbox;
+        this.inboundDeduplicator = inboundDeduplicator;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * Twilio webhook endpoint for incoming SMS messages.
      * Twilio sends form-urlencoded data with From, To, Body, etc.
      *
-     * @param from the sender's phone number
-     * @param to   the Twilio phone number that received the SMS
-     * @param body the SMS message body
+     * In async-ack mode (sms.inbound.async-ack) the message is stored and acknowledged with
+     * an empty TwiML response; the reply is sent later via the SMS gateway.
+     * A message Twilio already delivered (same MessageSid) is acknowledged without processing,
+     * whether it is still in the deduplicator or already stored. A message that could not be
+     * handled is forgotten by the deduplicator so that Twilio's retry gets through.
+     *
+     * @param from       the sender's phone number
+     * @param to         the Twilio phone number that received the SMS
+     * @param body       the SMS message body
+     * @param messageSid Twilio's unique message id
      * @return TwiML response (XML) for Twilio
      */
     @PostMapping(value = "/incoming", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
     public ResponseEntity<String> handleIncomingSms(
             @RequestParam("From") String from,
             @RequestParam("To") String to,
-            @RequestParam("Body") String body) {
+            @RequestParam("Body") String body,
+            @RequestParam(value = "MessageSid", required = false) String messageSid) {
 
         log.info("SMS INBOUND - From: {}, To: {}, Body: {}", maskPhone(from), to, truncateForLog(body));
 
+        if (inboundDeduplicator.isDuplicate(messageSid, from, body)) {
+            return ResponseEntity.ok(smsGateway.generateEmptyTwimlResponse());
+        }
+
+        if (inboundSmsConfig.isAsyncAck()) {
+            try {
+                inboundSmsService.receive(from, to, body, messageSid);
+                return ResponseEntity.ok(smsGateway.generateEmptyTwimlResponse());
+            } catch (DataIntegrityViolationException e) {
+                log.warn("🔁 SMS {} from {} already stored, not processing it again", messageSid, maskPhone(from));
+                return ResponseEntity.ok(smsGateway.generateEmptyTwimlResponse());
+            } catch (Exception e) {
+                // Could not store the message - fall back to handling it inline
+                log.error("Failed to queue SMS from {}, processing synchronously: {}", maskPhone(from), e.getMessage());
+            }
+        }
+
         try {
             SmsCommand command = smsParser.parse(from, body);
             log.info("Parsed command: type={}, language={}", command.type(), command.detectedLanguage());
@@ -69,6 +117,7 @@ public class SmsWebhookController {
             return ResponseEntity.ok(twiml);
         } catch (Exception e) {
             log.error("Error processing SMS from {}: {}", maskPhone(from), e.getMessage(), e);
+            inboundDeduplicator.forget(messageSid, from, body);
 
             String errorMessage = "An error occurred. Please try again. / حدث خطأ. يرجى المحاولة مرة أخرى.";
             String errorTwiml = smsGateway.generateTwimlResponse(errorMessage);
@@ -77,6 +126,40 @@ public class SmsWebhookController {
         }
     }
 
+    /**
+     * Twilio status callback for outgoing SMS (twilio.status-callback-url).
+     * Final delivery outcomes are published as {@link SmsDeliveryReport} events;
+     * intermediate statuses (queued, sent) are acknowledged and ignored.
+     *
+     * @param messageSid    Twilio's id of the outgoing message
+     * @param messageStatus the message's new status
+     * @param to            the recipient
+     * @param errorCode     Twilio's error code when the message failed
+     * @return empty 200 response so Twilio does not retry
+     */
+    @PostMapping(value = "/status", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public ResponseEntity<Void> handleStatusCallback(
+            @RequestParam("MessageSid") String messageSid,
+            @RequestParam("MessageStatus") String messageStatus,
+            @RequestParam(value = "To", required = false) String to,
+            @RequestParam(value = "ErrorCode", required = false) String errorCode) {
+
+        log.debug("SMS STATUS - Sid: {}, To: {}, Status: {}", messageSid, maskPhone(to), messageStatus);
+
+        switch (messageStatus) {
+            case "delivered" -> eventPublisher.publishEvent(
+                    new SmsDeliveryReport(messageSid, to, true, null, LocalDateTime.now()));
+            case "undelivered", "failed" -> eventPublisher.publishEvent(
+                    new SmsDeliveryReport(messageSid, to, false,
+                            "Twilio " + messageStatus + (errorCode != null ? " (error " + errorCode + ")" : ""),
+                            LocalDateTime.now()));
+            default -> {
+                // queued, sending, sent: not final
+            }
+        }
+        return ResponseEntity.ok().build();
+    }
+
     /**
      * Simulation endpoint for development testing.
      * Allows testing SMS flow without actual Twilio integration.
@@ -158,6 +241,14 @@ public class SmsWebhookController {
                 gatewayAvailable ? "ready" : "mock_mode"));
     }
 
+    /**
+     * Queue metrics for the per-sender inbound mailbox (async-ack webhook and WebSocket gateway).
+     */
+    @GetMapping("/inbound/stats")
+    public ResponseEntity<KeyedMailboxExecutor.Stats> inboundStats() {
+        return ResponseEntity.ok(inboundSmsMailbox.getStats());
+    }
+
     private String maskPhone(String phone) {
         if (phone == null || phone.length() < 4)
             return "***";
@@ -0,0 +1,150 @@
+package com.safebirth.sms.inbound;
+
+import com.safebirth.config.InboundSmsConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Suppresses inbound SMS that were already received.
+ *
+ * Twilio retries a webhook that timed out with the same MessageSid, and Android can deliver
+ * one SMS broadcast twice. Either would otherwise open two cases for one emergency and alert
+ * every volunteer twice. Messages are keyed on the provider message id. Messages without one
+ * are let through unless a content window is configured, in which case the same sender and
+ * body within that window counts as a duplicate; it is off by default because it cannot tell
+ * a redelivery from a deliberately repeated reply.
+ *
+ * Keys live in memory, expire after their TTL and are capped in number, oldest evicted first.
+ * A message is recorded when it is first seen, so two deliveries racing each other cannot both
+ * get through; a caller that then fails to queue or store it must {@link #forget} it, or the
+ * redelivery would be suppressed too. Stored messages are also unique on their provider id in
+ * inbound_sms, which still holds after a restart.
+ */
+@Component
+public class InboundDeduplicator {
+
+    private static final Logger log = LoggerFactory.getLogger(InboundDeduplicator.class);
+
+    private final InboundSmsConfig config;
+    private final LongSupplier nanoTime;
+
+    // Expiry time by key, in insertion order; one map per TTL so the eldest entry always expires first
+    private final Map<String, Long> seenIds = new LinkedHashMap<>();
+    private final Map<String, Long> seenHashes = new LinkedHashMap<>();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    @Autowired
+    public InboundDeduplicator(InboundSmsConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    InboundDeduplicator(InboundSmsConfig config, LongSupplier nanoTime) {
+        this.config = config;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Record a message and check whether it was already seen.
+     *
+     * @param providerId provider message id (Twilio MessageSid or gateway id), may be null
+     * @param from       sender phone number
+     * @param body       message body
+     * @return true if the message is a duplicate and must not be processed
+     */
+    public boolean isDuplicate(String providerId, String from, String body) {
+        boolean duplicate;
+        if (providerId != null && !providerId.isBlank()) {
+            duplicate = checkAndRecord(seenIds, providerId, config.getDedupIdTtlSeconds());
+        } else if (config.getDedupWindowSeconds() > 0) {
+            duplicate = checkAndRecord(seenHashes, contentHash(from, body), config.getDedupWindowSeconds());
+        } else {
+            duplicate = false;
+        }
+
+        if (duplicate) {
+            suppressed.incrementAndGet();
+            log.warn("🔁 Duplicate inbound SMS from {} suppressed (id={})", maskPhone(from), providerId);
+        }
+        return duplicate;
+    }
+
+    /**
+     * Forget a message recorded by {@link #isDuplicate} that could not be handed off, so its
+     * redelivery is processed.
+     *
+     * @param providerId provider message id, may be null
+     * @param from       sender phone number
+     * @param body       message body
+     */
+    public synchronized void forget(String providerId, String from, String body) {
+        if (providerId != null && !providerId.isBlank()) {
+            seenIds.remove(providerId);
+        } else {
+            seenHashes.remove(contentHash(from, body));
+        }
+    }
+
+    /**
+     * Get the number of duplicates suppressed since startup.
+     *
+     * @return the count
+     */
+    public long getSuppressedCount() {
+        return suppressed.get();
+    }
+
+    private synchronized boolean checkAndRecord(Map<String, Long> seen, String key, int ttlSeconds) {
+        long now = nanoTime.getAsLong();
+        evictExpired(seen, now);
+
+        Long expiresAt = seen.get(key);
+        if (expiresAt != null) {
+            return true;
+        }
+        seen.put(key, now + TimeUnit.SECONDS.toNanos(ttlSeconds));
+        if (seen.size() > config.getDedupMaxEntries()) {
+            Iterator<String> eldest = seen.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+        return false;
+    }
+
+    private void evictExpired(Map<String, Long> seen, long now) {
+        Iterator<Long> it = seen.values().iterator();
+        while (it.hasNext() && it.next() - now <= 0) {
+            it.remove();
+        }
+    }
+
+    private String contentHash(String from, String body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(from).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(body).strip().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String maskPhone(String phone) {
+        if (phone == null || phone.length() < 4)
+            return "***";
+        return phone.substring(0, phone.length() - 4) + "****";
+    }
+}
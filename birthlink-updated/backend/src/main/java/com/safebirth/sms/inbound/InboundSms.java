@@ -0,0 +1,127 @@
+package com.safebirth.sms.inbound;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * An inbound SMS stored before processing, so the webhook can be acknowledged
+ * immediately and nothing is lost if the server restarts mid-flight.
+ */
+@Entity
+@Table(name = "inbound_sms", indexes = {
+        @Index(name = "idx_inbound_status", columnList = "status, receivedAt"),
+        @Index(name = "idx_inbound_sid_unique", columnList = "messageSid", unique = true)
+})
+public class InboundSms {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Provider message id (Twilio MessageSid or gateway id), if supplied; unique, so a redelivery
+     * cannot be stored twice.
+     */
+    @Column(length = 64)
+    private String messageSid;
+
+    @Column(nullable = false, length = 20)
+    private String fromPhone;
+
+    @Column(length = 20)
+    private String toPhone;
+
+    @Column(nullable = false, length = 1600)
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 15)
+    private InboundSmsStatus status = InboundSmsStatus.RECEIVED;
+
+    @Column(nullable = false)
+    private LocalDateTime receivedAt = LocalDateTime.now();
+
+    /**
+     * When a worker claimed the message for processing.
+     */
+    @Column
+    private LocalDateTime claimedAt;
+
+    @Column
+    private LocalDateTime processedAt;
+
+    @Column(length = 500)
+    private String error;
+
+    public InboundSms() {
+    }
+
+    public InboundSms(String messageSid, String fromPhone, String toPhone, String body) {
+        this.messageSid = messageSid;
+        this.fromPhone = fromPhone;
+        this.toPhone = toPhone;
+        this.body = body;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getMessageSid() {
+        return messageSid;
+    }
+
+    public String getFromPhone() {
+        return fromPhone;
+    }
+
+    public String getToPhone() {
+        return toPhone;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public InboundSmsStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getReceivedAt() {
+        return receivedAt;
+    }
+
+    public LocalDateTime getClaimedAt() {
+        return claimedAt;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Mark this message as successfully processed.
+     */
+    public void markProcessed() {
+        this.status = InboundSmsStatus.PROCESSED;
+        this.processedAt = LocalDateTime.now();
+        this.error = null;
+    }
+
+    /**
+     * Mark this message as failed.
+     *
+     * @param error the failure reason
+     */
+    public void markFailed(String error) {
+        this.status = InboundSmsStatus.FAILED;
+        this.processedAt = LocalDateTime.now();
+        this.error = error != null && error.length() > 500 ? error.substring(0, 500) : error;
+    }
+}
@@ -0,0 +1,60 @@
+package com.safebirth.sms.inbound;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for stored inbound SMS.
+ */
+@Repository
+public interface InboundSmsRepository extends JpaRepository<InboundSms, Long> {
+
+    /**
+     * Atomically claim a received message for processing.
+     *
+     * @param id        the message id
+     * @param claimedAt the time of the claim
+     * @return 1 if this caller claimed it, 0 if it was already claimed
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE InboundSms m SET m.status = 'PROCESSING', m.claimedAt = :claimedAt "
+            + "WHERE m.id = :id AND m.status = 'RECEIVED'")
+    int claim(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt);
+
+    /**
+     * Return messages stuck in PROCESSING (worker or server died mid-processing) to RECEIVED.
+     *
+     * @param claimedBefore only messages claimed before this time
+     * @return number of messages released
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE InboundSms m SET m.status = 'RECEIVED' WHERE m.status = 'PROCESSING' "
+            + "AND (m.claimedAt IS NULL OR m.claimedAt < :claimedBefore)")
+    int releaseStale(@Param("claimedBefore") LocalDateTime claimedBefore);
+
+    /**
+     * Find messages still waiting for a worker.
+     *
+     * @param receivedBefore only messages received before this time
+     * @return waiting messages, oldest first
+     */
+    @Query("SELECT m FROM InboundSms m WHERE m.status = 'RECEIVED' AND m.receivedAt < :receivedBefore ORDER BY m.id")
+    List<InboundSms> findWaiting(@Param("receivedBefore") LocalDateTime receivedBefore);
+
+    /**
+     * Count messages in a given state.
+     *
+     * @param status the status
+     * @return count of messages
+     */
+    long countByStatus(InboundSmsStatus status);
+}
@@ -0,0 +1,136 @@
+package com.safebirth.sms.inbound;
+
+import com.safebirth.config.InboundSmsConfig;
+import com.safebirth.sms.handler.SmsCommandHandler;
+import com.safebirth.sms.outbox.SmsOutboxService;
+import com.safebirth.sms.outbox.SmsPriority;
+import com.safebirth.sms.parser.SmsCommand;
+import com.safebirth.sms.parser.SmsParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores inbound SMS and processes them on a worker pool, replying via the {@link SmsOutboxService}.
+ *
+ * Used by the Twilio webhook in async-ack mode so the HTTP response never waits for
+ * matching and alert fan-out. Every message is persisted before it is queued on the
+ * per-sender mailbox; a worker claims it atomically, so a message re-submitted by the
+ * retry sweep is never handled twice while its claim is live. A claim older than the
+ * processing timeout is taken as a worker that died, and the message is processed again.
+ */
+@Service
+public class InboundSmsService {
+
+    private static final Logger log = LoggerFactory.getLogger(InboundSmsService.class);
+
+    static final String ERROR_REPLY = "An error occurred. Please try again. / حدث خطأ. يرجى المحاولة مرة أخرى.";
+
+    private final InboundSmsRepository inboundSmsRepository;
+    private final SmsParser smsParser;
+    private final SmsCommandHandler commandHandler;
+    private final SmsOutboxService smsOutbox;
+    private final InboundSmsConfig config;
+    private final KeyedMailboxExecutor mailbox;
+
+    public InboundSmsService(InboundSmsRepository inboundSmsRepository, SmsParser smsParser,
+                             SmsCommandHandler commandHandler, SmsOutboxService smsOutbox, InboundSmsConfig config,
+                             KeyedMailboxExecutor mailbox) {
+        this.inboundSmsRepository = inboundSmsRepository;
+        this.smsParser = smsParser;
+        this.commandHandler = commandHandler;
+        this.smsOutbox = smsOutbox;
+        this.config = config;
+        this.mailbox = mailbox;
+    }
+
+    /**
+     * Store an inbound SMS and queue it for processing.
+     *
+     * @param from       sender phone number
+     * @param to         receiving number
+     * @param body       message body
+     * @param messageSid provider message id, may be null
+     * @return the stored message
+     */
+    public InboundSms receive(String from, String to, String body, String messageSid) {
+        InboundSms stored = inboundSmsRepository.save(new InboundSms(messageSid, from, to, body));
+        submit(stored);
+        return stored;
+    }
+
+    /**
+     * Re-submit messages that were stored but never picked up, e.g. because the queue was
+     * full or the server restarted before a worker ran, and those whose worker did not finish.
+     */
+    @Scheduled(fixedDelayString = "${sms.inbound.retry-after-seconds:30}", timeUnit = TimeUnit.SECONDS)
+    public void resubmitWaiting() {
+        int released = inboundSmsRepository.releaseStale(
+                LocalDateTime.now().minusSeconds(config.getProcessingTimeoutSeconds()));
+        if (released > 0) {
+            log.warn("⚠️ Released {} inbound SMS stuck in PROCESSING", released);
+        }
+
+        List<InboundSms> waiting = inboundSmsRepository.findWaiting(
+                LocalDateTime.now().minusSeconds(config.getRetryAfterSeconds()));
+        if (!waiting.isEmpty()) {
+            log.warn("⚠️ Re-submitting {} inbound SMS still waiting for a worker", waiting.size());
+            waiting.forEach(this::submit);
+        }
+    }
+
+    private void submit(InboundSms message) {
+        Long id = message.getId();
+        try {
+            mailbox.execute(message.getFromPhone(), () -> process(id));
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ Inbound SMS queue full, message {} will be retried by the sweep: {}", id, e.getMessage());
+        }
+    }
+
+    /**
+     * Process a stored message: parse, handle and send the reply.
+     *
+     * @param id the stored message id
+     */
+    void process(Long id) {
+        if (inboundSmsRepository.claim(id, LocalDateTime.now()) == 0) {
+            log.debug("Inbound SMS {} already claimed", id);
+            return;
+        }
+        InboundSms message = inboundSmsRepository.findById(id).orElseThrow();
+        String from = message.getFromPhone();
+
+        try {
+            SmsCommand command = smsParser.parse(from, message.getBody());
+            log.info("Parsed command: type={}, language={}", command.type(), command.detectedLanguage());
+
+            String reply = commandHandler.handle(command);
+            if (reply != null && !reply.isBlank()) {
+                smsOutbox.enqueue(from, reply, SmsPriority.CONVERSATION);
+            }
+            message.markProcessed();
+        } catch (Exception e) {
+            log.error("Error processing inbound SMS {} from {}: {}", id, maskPhone(from), e.getMessage(), e);
+            message.markFailed(e.getMessage());
+            try {
+                smsOutbox.enqueue(from, ERROR_REPLY, SmsPriority.CONVERSATION);
+            } catch (Exception sendError) {
+                log.error("Could not send error reply to {}: {}", maskPhone(from), sendError.getMessage());
+            }
+        }
+        inboundSmsRepository.save(message);
+    }
+
+    private String maskPhone(String phone) {
+        if (phone == null || phone.length() < 4)
+            return "***";
+        return phone.substring(0, phone.length() - 4) + "****";
+    }
+}
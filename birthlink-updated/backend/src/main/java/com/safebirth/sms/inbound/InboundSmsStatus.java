@@ -0,0 +1,11 @@
+package com.safebirth.sms.inbound;
+
+/**
+ * Processing state of a stored inbound SMS.
+ */
+public enum InboundSmsStatus {
+    RECEIVED,
+    PROCESSING,
+    PROCESSED,
+    FAILED
+}
@@ -0,0 +1,191 @@
+package com.safebirth.sms.inbound;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor that runs tasks for the same key (sender phone number) strictly one after another,
+ * in submission order, while tasks for different keys run in parallel on a shared worker pool.
+ *
+ * Each key has a mailbox; at most one drain task per mailbox is on the worker pool at any time,
+ * and it runs a single task before yielding, so a chatty sender cannot starve others.
+ * Queues are bounded both per key and in total; overflow is rejected with
+ * {@link RejectedExecutionException} rather than growing without limit.
+ */
+public class KeyedMailboxExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyedMailboxExecutor.class);
+
+    /**
+     * Point-in-time executor metrics.
+     */
+    public record Stats(
+            int activeKeys,
+            int pending,
+            long submitted,
+            long completed,
+            long failed,
+            long rejected,
+            long avgQueueWaitMillis,
+            long maxQueueWaitMillis
+    ) {
+    }
+
+    private record QueuedTask(Runnable task, long enqueuedAtNanos) {
+    }
+
+    private final ExecutorService workers;
+    private final int maxPendingPerKey;
+    private final int maxPending;
+
+    // A key has a mailbox only while its drain task is scheduled or running.
+    // Mailboxes are only touched inside ConcurrentHashMap.compute, which locks the key's bin.
+    private final Map<String, Deque<QueuedTask>> mailboxes = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * Create an executor with its own worker pool.
+     *
+     * @param name             thread name prefix
+     * @param threads          number of worker threads
+     * @param maxPendingPerKey maximum queued tasks for a single key
+     * @param maxPending       maximum queued tasks across all keys
+     */
+    public KeyedMailboxExecutor(String name, int threads, int maxPendingPerKey, int maxPending) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread thread = new Thread(r, name + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // Unbounded is safe here: the pool queue never holds more than one drain task per mailbox
+        this.workers = Executors.newFixedThreadPool(threads, threadFactory);
+        this.maxPendingPerKey = maxPendingPerKey;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Queue a task behind any earlier tasks for the same key.
+     *
+     * @param key  the ordering key (e.g. sender phone number)
+     * @param task the task
+     * @throws RejectedExecutionException if the key's mailbox or the executor is full
+     */
+    public void execute(String key, Runnable task) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("Inbound queue full (" + maxPending + " pending)");
+        }
+
+        boolean[] outcome = new boolean[2]; // [accepted, needsSchedule]
+        QueuedTask queued = new QueuedTask(task, System.nanoTime());
+        mailboxes.compute(key, (k, existing) -> {
+            Deque<QueuedTask> box = existing != null ? existing : new ArrayDeque<>();
+            if (box.size() >= maxPendingPerKey) {
+                return existing;
+            }
+            box.addLast(queued);
+            outcome[0] = true;
+            outcome[1] = existing == null;
+            return box;
+        });
+
+        if (!outcome[0]) {
+            pending.decrementAndGet();
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("Mailbox full for key (" + maxPendingPerKey + " pending)");
+        }
+        submitted.incrementAndGet();
+        if (outcome[1]) {
+            workers.execute(() -> drainOne(key));
+        }
+    }
+
+    /**
+     * Get current metrics.
+     *
+     * @return stats snapshot
+     */
+    public Stats getStats() {
+        long done = completed.get() + failed.get();
+        return new Stats(
+                mailboxes.size(),
+                pending.get(),
+                submitted.get(),
+                completed.get(),
+                failed.get(),
+                rejected.get(),
+                done > 0 ? TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get() / done) : 0,
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+    }
+
+    /**
+     * Stop accepting work and wait briefly for running tasks.
+     */
+    public void shutdown() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainOne(String key) {
+        QueuedTask[] next = new QueuedTask[1];
+        mailboxes.computeIfPresent(key, (k, box) -> {
+            next[0] = box.peekFirst();
+            return box;
+        });
+        if (next[0] != null) {
+            long waited = System.nanoTime() - next[0].enqueuedAtNanos();
+            totalWaitNanos.addAndGet(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+            try {
+                next[0].task().run();
+                completed.incrementAndGet();
+            } catch (Throwable t) {
+                failed.incrementAndGet();
+                log.error("Mailbox task failed: {}", t.getMessage());
+            }
+        }
+
+        // Remove the finished task only now, so a concurrent execute() never schedules a second drain
+        boolean[] more = new boolean[1];
+        mailboxes.computeIfPresent(key, (k, box) -> {
+            box.pollFirst();
+            pending.decrementAndGet();
+            if (box.isEmpty()) {
+                return null;
+            }
+            more[0] = true;
+            return box;
+        });
+        if (more[0]) {
+            workers.execute(() -> drainOne(key));
+        }
+    }
+}
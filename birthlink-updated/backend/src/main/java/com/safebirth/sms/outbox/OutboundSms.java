@@ -0,0 +1,265 @@
+package com.safebirth.sms.outbox;
+
+import com.safebirth.sms.gateway.SmsSegments;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * An outbound SMS stored in the same transaction as the domain change that produced it.
+ * The dispatcher delivers it after commit and retries until the provider accepts it.
+ */
+@Entity
+@Table(name = "sms_outbox", indexes = {
+        @Index(name = "idx_outbox_due", columnList = "status, priority, nextAttemptAt"),
+        @Index(name = "idx_outbox_provider_id", columnList = "providerMessageId")
+})
+public class OutboundSms {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 20)
+    private String toPhone;
+
+    @Column(nullable = false, length = 1600)
+    private String body;
+
+    /**
+     * Number of SMS segments the body occupies.
+     */
+    @Column(nullable = false)
+    private int segments = 1;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private OutboundSmsStatus status = OutboundSmsStatus.PENDING;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private SmsPriority priority = SmsPriority.CONVERSATION;
+
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    @Column
+    private LocalDateTime lastAttemptAt;
+
+    @Column
+    private LocalDateTime sentAt;
+
+    /**
+     * Provider message id (e.g. Twilio SID) once sent.
+     */
+    @Column(length = 64)
+    private String providerMessageId;
+
+    @Column(length = MAX_ERROR_LENGTH)
+    private String lastError;
+
+    /**
+     * When the handset confirmed receipt, if the provider reports deliveries.
+     */
+    @Column
+    private LocalDateTime deliveredAt;
+
+    /**
+     * Whether the route that sent the message reports deliveries, so a missing report after
+     * the deadline means it was not delivered.
+     */
+    @Column(nullable = false)
+    private boolean awaitsDeliveryReport = false;
+
+    /**
+     * Times the message was sent again because it was not delivered.
+     */
+    @Column(nullable = false)
+    private int deliveryResends = 0;
+
+    public OutboundSms() {
+    }
+
+    public OutboundSms(String toPhone, String body, SmsPriority priority) {
+        this.toPhone = toPhone;
+        this.body = body;
+        this.priority = priority;
+        this.segments = SmsSegments.count(body);
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getToPhone() {
+        return toPhone;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public int getSegments() {
+        return segments;
+    }
+
+    public OutboundSmsStatus getStatus() {
+        return status;
+    }
+
+    public SmsPriority getPriority() {
+        return priority;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public LocalDateTime getLastAttemptAt() {
+        return lastAttemptAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public String getProviderMessageId() {
+        return providerMessageId;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public LocalDateTime getDeliveredAt() {
+        return deliveredAt;
+    }
+
+    public int getDeliveryResends() {
+        return deliveryResends;
+    }
+
+    public boolean isAwaitsDeliveryReport() {
+        return awaitsDeliveryReport;
+    }
+
+    /**
+     * Hold a new message until the given time so later messages to the same recipient
+     * can be merged into it.
+     *
+     * @param until earliest send time
+     */
+    public void holdUntil(LocalDateTime until) {
+        this.nextAttemptAt = until;
+    }
+
+    /**
+     * Record a successful delivery attempt.
+     *
+     * @param providerMessageId the id returned by the provider
+     */
+    public void markSent(String providerMessageId) {
+        markSent(providerMessageId, false);
+    }
+
+    /**
+     * Record a successful delivery attempt.
+     *
+     * @param providerMessageId    the id returned by the provider
+     * @param awaitsDeliveryReport whether the route that sent it reports deliveries
+     */
+    public void markSent(String providerMessageId, boolean awaitsDeliveryReport) {
+        LocalDateTime now = LocalDateTime.now();
+        this.attempts++;
+        this.status = OutboundSmsStatus.SENT;
+        this.lastAttemptAt = now;
+        this.sentAt = now;
+        this.providerMessageId = providerMessageId;
+        this.awaitsDeliveryReport = awaitsDeliveryReport;
+        this.lastError = null;
+    }
+
+    /**
+     * Record a failed attempt and schedule the next one.
+     *
+     * @param error         the failure reason
+     * @param nextAttemptAt when to retry
+     */
+    public void markRetry(String error, LocalDateTime nextAttemptAt) {
+        this.attempts++;
+        this.status = OutboundSmsStatus.PENDING;
+        this.lastAttemptAt = LocalDateTime.now();
+        this.nextAttemptAt = nextAttemptAt;
+        this.lastError = truncate(error);
+    }
+
+    /**
+     * Record a failed final attempt and move the message to the dead-letter state.
+     *
+     * @param error the failure reason
+     */
+    public void markDead(String error) {
+        this.attempts++;
+        this.status = OutboundSmsStatus.DEAD;
+        this.lastAttemptAt = LocalDateTime.now();
+        this.lastError = truncate(error);
+    }
+
+    /**
+     * Record the handset's confirmation of receipt.
+     *
+     * @param at when it was delivered
+     */
+    public void markDelivered(LocalDateTime at) {
+        this.status = OutboundSmsStatus.DELIVERED;
+        this.deliveredAt = at;
+    }
+
+    /**
+     * Record a report that the message did not reach the handset.
+     *
+     * @param error the reason reported
+     */
+    public void markUndelivered(String error) {
+        this.status = OutboundSmsStatus.UNDELIVERED;
+        this.lastError = truncate(error);
+    }
+
+    /**
+     * Queue a sent but undelivered message again for a fresh set of attempts.
+     */
+    public void resendUndelivered() {
+        this.deliveryResends++;
+        requeue();
+    }
+
+    /**
+     * Put a dead message back in the queue for a fresh set of attempts.
+     */
+    public void requeue() {
+        this.status = OutboundSmsStatus.PENDING;
+        this.attempts = 0;
+        this.nextAttemptAt = LocalDateTime.now();
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
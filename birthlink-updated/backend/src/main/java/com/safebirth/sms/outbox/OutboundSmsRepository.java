@@ -0,0 +1,157 @@
+package com.safebirth.sms.outbox;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for the outbound SMS outbox.
+ */
+@Repository
+public interface OutboundSmsRepository extends JpaRepository<OutboundSms, Long> {
+
+    /**
+     * Find ids of messages of one priority class due for a delivery attempt.
+     *
+     * @param priority the priority class
+     * @param now      the current time
+     * @param pageable batch size
+     * @return due message ids, oldest first
+     */
+    @Query("SELECT m.id FROM OutboundSms m WHERE m.status = 'PENDING' AND m.priority = :priority "
+            + "AND m.nextAttemptAt <= :now ORDER BY m.id")
+    List<Long> findDueIds(@Param("priority") SmsPriority priority, @Param("now") LocalDateTime now,
+                          Pageable pageable);
+
+    /**
+     * Find ids of due messages of any class that have been queued longer than the starvation threshold.
+     *
+     * @param now           the current time
+     * @param createdBefore only messages queued before this time
+     * @param pageable      batch size
+     * @return starved message ids, oldest first
+     */
+    @Query("SELECT m.id FROM OutboundSms m WHERE m.status = 'PENDING' AND m.nextAttemptAt <= :now "
+            + "AND m.createdAt < :createdBefore ORDER BY m.id")
+    List<Long> findStarvedIds(@Param("now") LocalDateTime now, @Param("createdBefore") LocalDateTime createdBefore,
+                              Pageable pageable);
+
+    /**
+     * Get the enqueue time of the oldest pending message of a priority class.
+     *
+     * @param priority the priority class
+     * @return the oldest creation time, or null if none are pending
+     */
+    @Query("SELECT MIN(m.createdAt) FROM OutboundSms m WHERE m.status = 'PENDING' AND m.priority = :priority")
+    LocalDateTime findOldestPendingCreatedAt(@Param("priority") SmsPriority priority);
+
+    /**
+     * Find pending messages to a recipient in a priority class, whether due yet or not.
+     * Used to merge messages still in their coalescing window into one SMS.
+     *
+     * @param toPhone  the recipient phone number
+     * @param priority the priority class
+     * @param status   PENDING
+     * @return messages, oldest first
+     */
+    List<OutboundSms> findByToPhoneAndPriorityAndStatusOrderByIdAsc(String toPhone, SmsPriority priority,
+                                                                    OutboundSmsStatus status);
+
+    /**
+     * Atomically claim a pending message for sending.
+     *
+     * @param id  the message id
+     * @param now the current time
+     * @return 1 if this caller claimed it, 0 if it was already claimed
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboundSms m SET m.status = 'SENDING', m.lastAttemptAt = :now "
+            + "WHERE m.id = :id AND m.status = 'PENDING'")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Return claimed messages to the queue without counting an attempt.
+     *
+     * @param ids the message ids
+     * @return number of messages released
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboundSms m SET m.status = 'PENDING' WHERE m.id IN :ids AND m.status = 'SENDING'")
+    int release(@Param("ids") List<Long> ids);
+
+    /**
+     * Return messages stuck in SENDING (dispatcher crashed mid-send) to the queue.
+     *
+     * @param claimedBefore only messages claimed before this time
+     * @return number of messages released
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboundSms m SET m.status = 'PENDING' WHERE m.status = 'SENDING' AND m.lastAttemptAt < :claimedBefore")
+    int releaseStale(@Param("claimedBefore") LocalDateTime claimedBefore);
+
+    /**
+     * Find messages in a given state, newest first.
+     *
+     * @param status   the status
+     * @param pageable page
+     * @return messages
+     */
+    List<OutboundSms> findByStatusOrderByIdDesc(OutboundSmsStatus status, Pageable pageable);
+
+    /**
+     * Count messages in a given state.
+     *
+     * @param status the status
+     * @return count of messages
+     */
+    long countByStatus(OutboundSmsStatus status);
+
+    /**
+     * Count messages of a priority class in a given state.
+     *
+     * @param status   the status
+     * @param priority the priority class
+     * @return count of messages
+     */
+    long countByStatusAndPriority(OutboundSmsStatus status, SmsPriority priority);
+
+    /**
+     * Find the messages a delivery report refers to.
+     *
+     * @param providerMessageId the provider's message or request id
+     * @param toPhone           the recipient
+     * @return matching messages (several if they were coalesced into one SMS)
+     */
+    List<OutboundSms> findByProviderMessageIdAndToPhone(String providerMessageId, String toPhone);
+
+    /**
+     * Find messages of a class that need sending again: reported undelivered, or, if sent by a
+     * route that reports deliveries, sent before the deadline without a report.
+     *
+     * @param priority          the priority class
+     * @param sentBefore        sent messages older than this count as undelivered
+     * @param includeUnreported whether sent messages without a report are included
+     * @param maxResends        only messages resent fewer times than this
+     * @param pageable          page
+     * @return messages, oldest first
+     */
+    @Query("SELECT m FROM OutboundSms m WHERE m.priority = :priority AND m.deliveryResends < :maxResends "
+            + "AND (m.status = 'UNDELIVERED' OR (:includeUnreported = true AND m.status = 'SENT' "
+            + "AND m.awaitsDeliveryReport = true AND m.sentAt < :sentBefore)) "
+            + "ORDER BY m.id")
+    List<OutboundSms> findUndelivered(@Param("priority") SmsPriority priority,
+                                      @Param("sentBefore") LocalDateTime sentBefore,
+                                      @Param("includeUnreported") boolean includeUnreported,
+                                      @Param("maxResends") int maxResends,
+                                      Pageable pageable);
+}
@@ -0,0 +1,19 @@
+package com.safebirth.sms.outbox;
+
+/**
+ * Delivery state of an outbox message.
+ */
+public enum OutboundSmsStatus {
+    /** Waiting to be sent (first attempt or scheduled retry) */
+    PENDING,
+    /** Claimed by the dispatcher */
+    SENDING,
+    /** Accepted by the provider */
+    SENT,
+    /** The recipient's handset confirmed receipt */
+    DELIVERED,
+    /** The provider or handset reported it could not be delivered */
+    UNDELIVERED,
+    /** Gave up after the maximum number of attempts */
+    DEAD
+}
@@ -0,0 +1,178 @@
+package com.safebirth.sms.outbox;
+
+import com.safebirth.config.SmsOutboxConfig;
+import com.safebirth.sms.gateway.SmsDeliveryReport;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies delivery reports to outbox messages and sends undelivered emergency alerts again.
+ *
+ * A report is matched to the messages sent under its provider id to its recipient, and moves
+ * them from SENT to DELIVERED or UNDELIVERED; time from send to delivery is recorded per
+ * priority class. Reports for messages sent outside the outbox (direct WebSocket replies) are
+ * only counted.
+ *
+ * On a fixed sweep, emergency alerts reported undelivered are queued again, and so are those
+ * still without a report after the deadline if the route that sent them reports deliveries. Each
+ * alert is re-sent at most the configured number of times; the recipient may get it twice,
+ * which for an emergency is preferable to not getting it.
+ */
+@Service
+public class SmsDeliveryTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(SmsDeliveryTracker.class);
+
+    // Time to deliver per class, up to one day at 2 significant digits
+    private static final long HIGHEST_TRACKABLE_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final OutboundSmsRepository outboundSmsRepository;
+    private final SmsOutboxDispatcher dispatcher;
+    private final SmsOutboxConfig config;
+
+    private final Map<SmsPriority, Histogram> deliveryHistograms = new EnumMap<>(SmsPriority.class);
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong undelivered = new AtomicLong();
+    private final AtomicLong unmatched = new AtomicLong();
+    private final AtomicLong resent = new AtomicLong();
+
+    public SmsDeliveryTracker(OutboundSmsRepository outboundSmsRepository, SmsOutboxDispatcher dispatcher,
+                              SmsOutboxConfig config) {
+        this.outboundSmsRepository = outboundSmsRepository;
+        this.dispatcher = dispatcher;
+        this.config = config;
+        for (SmsPriority priority : SmsPriority.values()) {
+            deliveryHistograms.put(priority, new ConcurrentHistogram(HIGHEST_TRACKABLE_MILLIS, SIGNIFICANT_DIGITS));
+        }
+    }
+
+    /**
+     * Record a delivery report against the messages it refers to.
+     * A message already delivered is not changed by a later report.
+     *
+     * @param report the report
+     */
+    @EventListener
+    @Transactional
+    public void onDeliveryReport(SmsDeliveryReport report) {
+        List<OutboundSms> messages = outboundSmsRepository.findByProviderMessageIdAndToPhone(
+                report.providerMessageId(), report.recipient());
+        if (messages.isEmpty()) {
+            unmatched.incrementAndGet();
+            log.debug("Delivery report for untracked message {} to {}",
+                    report.providerMessageId(), maskPhone(report.recipient()));
+            return;
+        }
+
+        for (OutboundSms message : messages) {
+            if (message.getStatus() != OutboundSmsStatus.SENT && message.getStatus() != OutboundSmsStatus.UNDELIVERED) {
+                continue;
+            }
+            if (report.delivered()) {
+                message.markDelivered(report.reportedAt());
+                delivered.incrementAndGet();
+                if (message.getSentAt() != null) {
+                    long millis = Duration.between(message.getSentAt(), report.reportedAt()).toMillis();
+                    deliveryHistograms.get(message.getPriority())
+                            .recordValue(Math.max(0, Math.min(millis, HIGHEST_TRACKABLE_MILLIS)));
+                }
+            } else {
+                message.markUndelivered(report.error() != null ? report.error() : "Not delivered");
+                undelivered.incrementAndGet();
+                log.warn("📵 SMS {} to {} not delivered: {}",
+                        message.getId(), maskPhone(message.getToPhone()), report.error());
+            }
+        }
+        outboundSmsRepository.saveAll(messages);
+    }
+
+    /**
+     * Queue undelivered emergency alerts again.
+     *
+     * @return number of alerts queued
+     */
+    @Scheduled(fixedDelayString = "${sms.outbox.delivery-sweep-interval-millis:30000}")
+    @Transactional
+    public int resendUndelivered() {
+        if (!config.isEnabled() || config.getMaxDeliveryResends() <= 0) {
+            return 0;
+        }
+        int deadline = config.getEmergencyDeliveryDeadlineSeconds();
+        boolean includeUnreported = deadline > 0;
+
+        List<OutboundSms> overdue = outboundSmsRepository.findUndelivered(SmsPriority.EMERGENCY_ALERT,
+                LocalDateTime.now().minusSeconds(deadline), includeUnreported, config.getMaxDeliveryResends(),
+                PageRequest.of(0, config.getBatchSize()));
+        if (overdue.isEmpty()) {
+            return 0;
+        }
+
+        for (OutboundSms message : overdue) {
+            log.warn("🔁 Emergency alert {} to {} not delivered ({}), sending again",
+                    message.getId(), maskPhone(message.getToPhone()),
+                    message.getStatus() == OutboundSmsStatus.UNDELIVERED ? "reported undelivered" : "no report");
+            message.resendUndelivered();
+        }
+        outboundSmsRepository.saveAll(overdue);
+        resent.addAndGet(overdue.size());
+        dispatcher.wakeUp();
+        return overdue.size();
+    }
+
+    /**
+     * Get delivery counts and time-to-deliver percentiles since startup.
+     *
+     * @return delivery statistics
+     */
+    public Stats getStats() {
+        Map<SmsPriority, Latency> timeToDeliver = new EnumMap<>(SmsPriority.class);
+        deliveryHistograms.forEach((priority, histogram) -> timeToDeliver.put(priority, Latency.of(histogram.copy())));
+        return new Stats(delivered.get(), undelivered.get(), unmatched.get(), resent.get(), timeToDeliver);
+    }
+
+    private String maskPhone(String phone) {
+        if (phone == null || phone.length() < 4)
+            return "***";
+        return phone.substring(0, phone.length() - 4) + "****";
+    }
+
+    /**
+     * Delivery statistics since startup.
+     *
+     * @param delivered     messages reported delivered
+     * @param undelivered   messages reported undelivered
+     * @param unmatched     reports for messages sent outside the outbox
+     * @param resent        emergency alerts queued again for lack of delivery
+     * @param timeToDeliver send-to-delivery percentiles per priority class
+     */
+    public record Stats(long delivered, long undelivered, long unmatched, long resent,
+                        Map<SmsPriority, Latency> timeToDeliver) {
+    }
+
+    /**
+     * Percentiles of a time-to-deliver histogram.
+     */
+    public record Latency(long count, long p50Millis, long p90Millis, long p99Millis, long maxMillis) {
+
+        static Latency of(Histogram histogram) {
+            return new Latency(histogram.getTotalCount(), histogram.getValueAtPercentile(50),
+                    histogram.getValueAtPercentile(90), histogram.getValueAtPercentile(99), histogram.getMaxValue());
+        }
+    }
+}
@@ -0,0 +1,509 @@
+package com.safebirth.sms.outbox;
+
+import com.safebirth.config.SmsOutboxConfig;
+import com.safebirth.exception.SmsDeliveryException;
+import com.safebirth.sms.gateway.BulkSendResult;
+import com.safebirth.sms.gateway.SmsGateway;
+import com.safebirth.sms.gateway.SmsSegments;
+import jakarta.annotation.PreDestroy;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Drains the SMS outbox in batches.
+ *
+ * Runs right after a transaction that enqueued messages commits, and on a fixed sweep for
+ * scheduled retries. Drains always run on the outbox's own thread; the sweep only releases
+ * stale claims and wakes it, so blocking provider calls and the rate limiter never hold up
+ * the shared scheduler. Batches are planned by priority class: messages queued longer than the
+ * starvation threshold go first, then EMERGENCY_ALERT, CASE_UPDATE, CONVERSATION, BROADCAST.
+ * A commit during a drain makes it re-plan after the current send, so a new emergency alert
+ * overtakes queued routine traffic within one send.
+ *
+ * Claimed messages with identical text are sent together through
+ * {@link SmsGateway#sendBulk(List, String)}, so an alert fan-out becomes one provider
+ * command per language rather than one per volunteer. Before that, pending messages to the
+ * same recipient and class that are still in their coalescing window are merged into the
+ * claimed one as extra lines, as long as the result stays within the segment budget.
+ *
+ * Each message is claimed atomically before sending, so concurrent drains never send it
+ * twice. Failures are retried with exponential backoff and moved to
+ * the dead-letter state after the configured number of attempts. Sends are throttled per
+ * provider with a token bucket; a drain that hits several consecutive failures stops early
+ * so a provider outage does not burn the retry budget of the whole backlog.
+ */
+@Component
+public class SmsOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(SmsOutboxDispatcher.class);
+
+    static final int MAX_CONSECUTIVE_FAILURES = 3;
+
+    // Queue wait (enqueue to provider acceptance) per class, up to one day at 2 significant digits
+    private static final long HIGHEST_TRACKABLE_WAIT_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final OutboundSmsRepository outboundSmsRepository;
+    private final SmsGateway smsGateway;
+    private final SmsOutboxConfig config;
+
+    private final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    private final Map<SmsPriority, Histogram> waitHistograms = new EnumMap<>(SmsPriority.class);
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+    private final AtomicBoolean sweepQueued = new AtomicBoolean();
+    private final ScheduledExecutorService wakeUpExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "sms-outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SmsOutboxDispatcher(OutboundSmsRepository outboundSmsRepository, SmsGateway smsGateway,
+                               SmsOutboxConfig config) {
+        this.outboundSmsRepository = outboundSmsRepository;
+        this.smsGateway = smsGateway;
+        this.config = config;
+        for (SmsPriority priority : SmsPriority.values()) {
+            waitHistograms.put(priority, new ConcurrentHistogram(HIGHEST_TRACKABLE_WAIT_MILLIS, SIGNIFICANT_DIGITS));
+        }
+    }
+
+    /**
+     * Request a drain as soon as possible, without blocking the caller.
+     */
+    public void wakeUp() {
+        wakeUpExecutor.execute(this::dispatch);
+    }
+
+    /**
+     * Request a drain once a coalescing hold has passed, without blocking the caller.
+     *
+     * @param delay how long to wait before draining
+     */
+    public void wakeUpAfter(Duration delay) {
+        if (delay.isZero() || delay.isNegative()) {
+            wakeUp();
+        } else {
+            wakeUpExecutor.schedule(this::dispatch, delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Periodic sweep: recover messages stuck in SENDING and wake the outbox thread for due retries.
+     * At most one sweep wake-up waits behind a running drain.
+     */
+    @Scheduled(fixedDelayString = "${sms.outbox.poll-interval-millis:1000}")
+    public void sweep() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        int released = outboundSmsRepository.releaseStale(
+                LocalDateTime.now().minusSeconds(config.getSendingTimeoutSeconds()));
+        if (released > 0) {
+            log.warn("⚠️ Released {} outbound SMS stuck in SENDING", released);
+        }
+        if (sweepQueued.compareAndSet(false, true)) {
+            wakeUpExecutor.execute(() -> {
+                sweepQueued.set(false);
+                dispatch();
+            });
+        }
+    }
+
+    /**
+     * Deliver all due messages. If a drain is already running, it is asked to run again
+     * instead of starting a second one.
+     *
+     * @return number of messages sent
+     */
+    public int dispatch() {
+        drainRequested.set(true);
+        if (!drainLock.tryLock()) {
+            return 0;
+        }
+        int sent = 0;
+        try {
+            while (drainRequested.getAndSet(false)) {
+                sent += drain();
+            }
+        } catch (Exception e) {
+            log.error("Outbox dispatch failed: {}", e.getMessage(), e);
+        } finally {
+            drainLock.unlock();
+        }
+        return sent;
+    }
+
+    /**
+     * Get a snapshot of the queue wait histogram for a priority class.
+     *
+     * @param priority the priority class
+     * @return wait times in milliseconds of messages sent since startup
+     */
+    public Histogram getWaitHistogram(SmsPriority priority) {
+        return waitHistograms.get(priority).copy();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        wakeUpExecutor.shutdown();
+    }
+
+    private int drain() {
+        int sent = 0;
+        int consecutiveFailures = 0;
+
+        while (true) {
+            List<Long> batch = nextBatch(LocalDateTime.now());
+            if (batch.isEmpty()) {
+                return sent;
+            }
+
+            // Claim in plan order, one rate-limit permit per SMS claimed, taken from the route
+            // that is preferred now; deliver() moves it if the send fails over to another one
+            List<Delivery> claimed = new ArrayList<>();
+            boolean rateLimited = false;
+            for (Long id : batch) {
+                String provider = smsGateway.getProviderName();
+                RateLimiter limiter = limiterFor(provider);
+                if (!limiter.hasPermit()) {
+                    log.debug("Outbox rate limit reached for {}, deferring to next sweep", provider);
+                    rateLimited = true;
+                    break;
+                }
+                OutboundSms message = claim(id);
+                if (message != null) {
+                    limiter.tryAcquire();
+                    Delivery delivery = coalesce(message);
+                    delivery.chargedTo = provider;
+                    claimed.add(delivery);
+                }
+            }
+            if (claimed.isEmpty()) {
+                // Rate limited, or everything due is being sent by another drain
+                return sent;
+            }
+
+            List<List<Delivery>> groups = groupByBody(claimed);
+            for (int i = 0; i < groups.size(); i++) {
+                List<Delivery> group = groups.get(i);
+                int delivered = deliver(group);
+                sent += delivered;
+                consecutiveFailures = delivered > 0 ? 0 : consecutiveFailures + group.size();
+
+                if (consecutiveFailures >= MAX_CONSECUTIVE_FAILURES) {
+                    log.warn("⚠️ {} consecutive SMS failures via {}, pausing until next sweep",
+                            consecutiveFailures, smsGateway.getProviderName());
+                    release(groups.subList(i + 1, groups.size()));
+                    return sent;
+                }
+                if (drainRequested.getAndSet(false)) {
+                    // New messages were committed; re-plan so higher classes go first
+                    release(groups.subList(i + 1, groups.size()));
+                    break;
+                }
+            }
+            if (rateLimited && !drainRequested.get()) {
+                // Stopped claiming early because of the rate limit
+                return sent;
+            }
+        }
+    }
+
+    private RateLimiter limiterFor(String provider) {
+        return rateLimiters.computeIfAbsent(provider, p -> new RateLimiter(config.rateFor(p)));
+    }
+
+    /**
+     * Plan the next batch: starved messages of any class first, then each class in priority order.
+     *
+     * @param now the current time
+     * @return message ids in send order
+     */
+    private List<Long> nextBatch(LocalDateTime now) {
+        int size = config.getBatchSize();
+        Set<Long> batch = new LinkedHashSet<>(outboundSmsRepository.findStarvedIds(
+                now, now.minusSeconds(config.getStarvationThresholdSeconds()), PageRequest.of(0, size)));
+        for (SmsPriority priority : SmsPriority.values()) {
+            if (batch.size() >= size) {
+                break;
+            }
+            batch.addAll(outboundSmsRepository.findDueIds(priority, now, PageRequest.of(0, size - batch.size())));
+        }
+        return new ArrayList<>(batch);
+    }
+
+    /**
+     * Claim a message for sending.
+     *
+     * @return the message, or null if another drain claimed it
+     */
+    private OutboundSms claim(Long id) {
+        if (outboundSmsRepository.claim(id, LocalDateTime.now()) == 0) {
+            return null;
+        }
+        return outboundSmsRepository.findById(id).orElse(null);
+    }
+
+    /**
+     * Merge pending messages to the same recipient and class into a claimed message.
+     * Only first attempts are merged, so a message in retry backoff is not sent early,
+     * and merging stops at the first message that would break the segment budget.
+     */
+    private Delivery coalesce(OutboundSms first) {
+        Delivery delivery = new Delivery(first);
+        if (!config.isCoalescingEnabled()) {
+            return delivery;
+        }
+        List<OutboundSms> pending = outboundSmsRepository.findByToPhoneAndPriorityAndStatusOrderByIdAsc(
+                first.getToPhone(), first.getPriority(), OutboundSmsStatus.PENDING);
+        for (OutboundSms next : pending) {
+            if (next.getAttempts() > 0) {
+                continue;
+            }
+            String merged = delivery.body + "\n" + next.getBody();
+            int segments = SmsSegments.count(merged);
+            if (segments > config.getCoalesceMaxSegments()
+                    || segments > SmsSegments.count(delivery.body) + SmsSegments.count(next.getBody())) {
+                break;
+            }
+            OutboundSms companion = claim(next.getId());
+            if (companion != null) {
+                delivery.messages.add(companion);
+                delivery.body = merged;
+            }
+        }
+        if (delivery.messages.size() > 1) {
+            log.debug("Coalesced {} outbound SMS to {} into one",
+                    delivery.messages.size(), maskPhone(first.getToPhone()));
+        }
+        return delivery;
+    }
+
+    /**
+     * Group deliveries with identical text so each group is one multi-recipient send.
+     * A recipient appears at most once per group; repeats go to a later group.
+     */
+    private List<List<Delivery>> groupByBody(List<Delivery> claimed) {
+        List<List<Delivery>> groups = new ArrayList<>();
+        Map<String, List<List<Delivery>>> byBody = new HashMap<>();
+        for (Delivery delivery : claimed) {
+            List<List<Delivery>> candidates = byBody.computeIfAbsent(delivery.body, b -> new ArrayList<>());
+            List<Delivery> target = candidates.stream()
+                    .filter(group -> group.stream().noneMatch(d -> d.to.equals(delivery.to)))
+                    .findFirst()
+                    .orElse(null);
+            if (target == null) {
+                target = new ArrayList<>();
+                candidates.add(target);
+                groups.add(target);
+            }
+            target.add(delivery);
+        }
+        return groups;
+    }
+
+    private void release(List<List<Delivery>> groups) {
+        List<Long> ids = groups.stream()
+                .flatMap(List::stream)
+                .flatMap(d -> d.messages.stream())
+                .map(OutboundSms::getId)
+                .toList();
+        if (!ids.isEmpty()) {
+            outboundSmsRepository.release(ids);
+        }
+    }
+
+    /**
+     * Send a group of deliveries with identical text and record the outcome of each message.
+     *
+     * @return number of messages sent
+     */
+    private int deliver(List<Delivery> group) {
+        String body = group.get(0).body;
+        List<String> recipients = group.stream().map(d -> d.to).toList();
+
+        BulkSendResult result;
+        if (group.size() == 1) {
+            result = BulkSendResult.empty();
+            try {
+                String providerId = smsGateway.sendSms(recipients.get(0), body);
+                if (providerId == null) {
+                    throw new SmsDeliveryException("Gateway did not accept the message");
+                }
+                result.sent().put(recipients.get(0), providerId);
+            } catch (Exception e) {
+                result.failed().put(recipients.get(0), e.getMessage());
+            }
+        } else {
+            try {
+                result = smsGateway.sendBulk(recipients, body);
+            } catch (Exception e) {
+                result = BulkSendResult.empty();
+                for (String to : recipients) {
+                    result.failed().put(to, e.getMessage());
+                }
+            }
+        }
+
+        int delivered = 0;
+        List<OutboundSms> messages = new ArrayList<>();
+        for (Delivery delivery : group) {
+            String providerId = result.sent().get(delivery.to);
+            if (providerId != null) {
+                chargeActualRoute(delivery, providerId);
+            }
+            for (OutboundSms message : delivery.messages) {
+                if (providerId != null) {
+                    message.markSent(providerId, smsGateway.reportsDelivery(providerId));
+                    long waitedMillis = Duration.between(message.getCreatedAt(), message.getSentAt()).toMillis();
+                    waitHistograms.get(message.getPriority())
+                            .recordValue(Math.max(0, Math.min(waitedMillis, HIGHEST_TRACKABLE_WAIT_MILLIS)));
+                    delivered++;
+                } else {
+                    recordFailure(message, result.failed().getOrDefault(delivery.to, "No result from gateway"));
+                }
+                messages.add(message);
+            }
+        }
+        outboundSmsRepository.saveAll(messages);
+        return delivered;
+    }
+
+    /**
+     * Move the delivery's rate-limit permit to the provider that actually sent it, if the send
+     * failed over from the route it was charged to.
+     */
+    private void chargeActualRoute(Delivery delivery, String providerId) {
+        String actual = smsGateway.getProviderName(providerId);
+        if (actual != null && !actual.equals(delivery.chargedTo)) {
+            limiterFor(delivery.chargedTo).refund();
+            limiterFor(actual).charge();
+        }
+    }
+
+    private void recordFailure(OutboundSms message, String error) {
+        int failures = message.getAttempts() + 1;
+        if (failures >= config.getMaxAttempts()) {
+            message.markDead(error);
+            log.error("☠️ Outbound SMS {} to {} dead-lettered after {} attempts: {}",
+                    message.getId(), maskPhone(message.getToPhone()), failures, error);
+        } else {
+            Duration delay = backoff(failures);
+            message.markRetry(error, LocalDateTime.now().plus(delay));
+            log.warn("⚠️ Outbound SMS {} to {} failed (attempt {}), retrying in {}s: {}",
+                    message.getId(), maskPhone(message.getToPhone()), failures, delay.toSeconds(), error);
+        }
+    }
+
+    /**
+     * Delay before the next attempt: initial backoff doubled per failure, capped, plus up to 20% jitter
+     * so messages that failed together do not retry in lockstep.
+     *
+     * @param failures number of failed attempts so far
+     * @return the delay
+     */
+    Duration backoff(int failures) {
+        long base = (long) config.getInitialBackoffSeconds() << Math.min(failures - 1, 30);
+        long capped = Math.min(base, config.getMaxBackoffSeconds());
+        long jitterMillis = ThreadLocalRandom.current().nextLong(capped * 200 + 1);
+        return Duration.ofSeconds(capped).plusMillis(jitterMillis);
+    }
+
+    private String maskPhone(String phone) {
+        if (phone == null || phone.length() < 4)
+            return "***";
+        return phone.substring(0, phone.length() - 4) + "****";
+    }
+
+    /**
+     * One SMS to send: a claimed message plus any pending messages merged into it.
+     */
+    private static final class Delivery {
+
+        private final String to;
+        private final List<OutboundSms> messages = new ArrayList<>();
+        private String body;
+        private String chargedTo;
+
+        Delivery(OutboundSms first) {
+            this.to = first.getToPhone();
+            this.body = first.getBody();
+            this.messages.add(first);
+        }
+    }
+
+    /**
+     * Token bucket allowing short bursts up to one second's worth of sends.
+     */
+    static class RateLimiter {
+
+        private final double permitsPerSecond;
+        private double tokens;
+        private long lastRefillNanos = System.nanoTime();
+
+        RateLimiter(int permitsPerSecond) {
+            this.permitsPerSecond = Math.max(permitsPerSecond, 1);
+            this.tokens = this.permitsPerSecond;
+        }
+
+        synchronized boolean hasPermit() {
+            refill();
+            return tokens >= 1;
+        }
+
+        synchronized boolean tryAcquire() {
+            refill();
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+
+        /**
+         * Take a permit for a send that already happened; the bucket may go into debt.
+         */
+        synchronized void charge() {
+            refill();
+            tokens--;
+        }
+
+        /**
+         * Return a permit taken for a send that went elsewhere.
+         */
+        synchronized void refund() {
+            refill();
+            tokens = Math.min(permitsPerSecond, tokens + 1);
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(permitsPerSecond,
+                    tokens + (now - lastRefillNanos) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+            lastRefillNanos = now;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.safebirth.sms.outbox;
+
+import com.safebirth.api.dto.OutboxClassStatsDto;
+import com.safebirth.config.SmsOutboxConfig;
+import com.safebirth.exception.ResourceNotFoundException;
+import com.safebirth.sms.gateway.BulkSendResult;
+import com.safebirth.sms.gateway.SmsGateway;
+import com.safebirth.sms.gateway.SmsMessageOptimizer;
+import com.safebirth.sms.gateway.SmsRecipient;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Entry point for all outbound SMS.
+ *
+ * Messages are written to the sms_outbox table in the caller's transaction, so an alert is
+ * stored if and only if the change that triggered it commits. The dispatcher is woken after
+ * commit and delivers them with retries; nothing is lost if the provider is briefly down
+ * or the server restarts.
+ *
+ * New messages are held for a short coalescing window (capped for emergency alerts), so
+ * several messages to the same recipient in quick succession go out as one SMS.
+ * Every body passes through {@link SmsMessageOptimizer} first, so it is stored and sent
+ * in the fewest segments.
+ */
+@Service
+@Transactional(readOnly = true)
+public class SmsOutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(SmsOutboxService.class);
+
+    private final OutboundSmsRepository outboundSmsRepository;
+    private final SmsOutboxDispatcher dispatcher;
+    private final SmsGateway smsGateway;
+    private final SmsMessageOptimizer optimizer;
+    private final SmsOutboxConfig config;
+
+    public SmsOutboxService(OutboundSmsRepository outboundSmsRepository, SmsOutboxDispatcher dispatcher,
+                            SmsGateway smsGateway, SmsMessageOptimizer optimizer, SmsOutboxConfig config) {
+        this.outboundSmsRepository = outboundSmsRepository;
+        this.dispatcher = dispatcher;
+        this.smsGateway = smsGateway;
+        this.optimizer = optimizer;
+        this.config = config;
+    }
+
+    /**
+     * Queue an SMS for delivery. When the outbox is disabled the message is sent inline.
+     *
+     * @param to       the recipient phone number (E.164 format)
+     * @param message  the message body
+     * @param priority the scheduling class
+     * @throws com.safebirth.exception.SmsDeliveryException if the outbox is disabled and sending fails
+     */
+    @Transactional
+    public void enqueue(String to, String message, SmsPriority priority) {
+        String body = optimizer.optimize(message);
+        if (!config.isEnabled()) {
+            smsGateway.sendSms(to, body);
+            return;
+        }
+
+        Duration hold = config.coalesceDelayFor(priority);
+        OutboundSms outbound = new OutboundSms(to, body, priority);
+        outbound.holdUntil(LocalDateTime.now().plus(hold));
+        OutboundSms saved = outboundSmsRepository.save(outbound);
+        log.debug("📥 Outbound SMS {} ({}) queued for {}", saved.getId(), priority, maskPhone(to));
+        wakeDispatcherAfterCommit(hold);
+    }
+
+    /**
+     * Queue a message rendered per recipient. Recipients that get identical text are stored
+     * next to each other so the dispatcher sends them as one multi-recipient command.
+     * When the outbox is disabled the messages are sent inline with {@link SmsGateway#sendBulk}.
+     *
+     * @param recipients the recipients
+     * @param template   renders the message for a recipient
+     * @param priority   the scheduling class
+     * @return number of recipients queued (or sent, when the outbox is disabled)
+     */
+    @Transactional
+    public int enqueueBulk(List<SmsRecipient> recipients, Function<SmsRecipient, String> template,
+                           SmsPriority priority) {
+        if (recipients.isEmpty()) {
+            return 0;
+        }
+        Function<SmsRecipient, String> optimized = template.andThen(optimizer::optimize);
+        if (!config.isEnabled()) {
+            BulkSendResult result = smsGateway.sendBulk(recipients, optimized);
+            result.failed().forEach((to, error) ->
+                    log.error("Failed to send SMS to {}: {}", maskPhone(to), error));
+            return result.sent().size();
+        }
+
+        Duration hold = config.coalesceDelayFor(priority);
+        LocalDateTime holdUntil = LocalDateTime.now().plus(hold);
+        List<OutboundSms> rows = new ArrayList<>();
+        SmsRecipient.groupByText(recipients, optimized).forEach((text, phones) -> phones.forEach(to -> {
+            OutboundSms outbound = new OutboundSms(to, text, priority);
+            outbound.holdUntil(holdUntil);
+            rows.add(outbound);
+        }));
+        outboundSmsRepository.saveAll(rows);
+        log.debug("📥 {} outbound SMS ({}) queued for bulk send", rows.size(), priority);
+        wakeDispatcherAfterCommit(hold);
+        return rows.size();
+    }
+
+    /**
+     * Get the number of outbox messages in each state.
+     *
+     * @return counts by status
+     */
+    public Map<OutboundSmsStatus, Long> getStatusCounts() {
+        Map<OutboundSmsStatus, Long> counts = new EnumMap<>(OutboundSmsStatus.class);
+        for (OutboundSmsStatus status : OutboundSmsStatus.values()) {
+            counts.put(status, outboundSmsRepository.countByStatus(status));
+        }
+        return counts;
+    }
+
+    /**
+     * Get queue depth and queue wait per priority class.
+     * Wait percentiles cover messages sent since startup.
+     *
+     * @return one entry per class, highest priority first
+     */
+    public List<OutboxClassStatsDto> getClassStats() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxClassStatsDto> stats = new ArrayList<>();
+        for (SmsPriority priority : SmsPriority.values()) {
+            LocalDateTime oldest = outboundSmsRepository.findOldestPendingCreatedAt(priority);
+            Histogram waits = dispatcher.getWaitHistogram(priority);
+            stats.add(new OutboxClassStatsDto(
+                    priority,
+                    outboundSmsRepository.countByStatusAndPriority(OutboundSmsStatus.PENDING, priority),
+                    oldest != null ? Duration.between(oldest, now).toSeconds() : 0,
+                    waits.getTotalCount(),
+                    waits.getTotalCount() > 0 ? waits.getValueAtPercentile(50) : 0,
+                    waits.getTotalCount() > 0 ? waits.getValueAtPercentile(99) : 0,
+                    waits.getMaxValue()));
+        }
+        return stats;
+    }
+
+    /**
+     * Get the most recent dead-lettered messages.
+     *
+     * @param limit maximum number of messages
+     * @return dead messages, newest first
+     */
+    public List<OutboundSms> getDeadLetters(int limit) {
+        return outboundSmsRepository.findByStatusOrderByIdDesc(OutboundSmsStatus.DEAD, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Put a dead-lettered message back in the queue.
+     *
+     * @param id the outbox message id
+     * @return the requeued message
+     * @throws ResourceNotFoundException if the message does not exist
+     * @throws IllegalStateException     if the message is not dead-lettered
+     */
+    @Transactional
+    public OutboundSms requeue(Long id) {
+        OutboundSms message = outboundSmsRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Outbound SMS", String.valueOf(id)));
+        if (message.getStatus() != OutboundSmsStatus.DEAD) {
+            throw new IllegalStateException("Only dead-lettered messages can be retried, status is " + message.getStatus());
+        }
+        message.requeue();
+        OutboundSms saved = outboundSmsRepository.save(message);
+        log.info("🔁 Outbound SMS {} requeued", id);
+        wakeDispatcherAfterCommit(Duration.ZERO);
+        return saved;
+    }
+
+    /**
+     * Get segment counts of outbound bodies before and after optimisation.
+     *
+     * @return optimiser statistics since startup
+     */
+    public SmsMessageOptimizer.Stats getSegmentStats() {
+        return optimizer.getStats();
+    }
+
+    private void wakeDispatcherAfterCommit(Duration delay) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.wakeUpAfter(delay);
+                }
+            });
+        } else {
+            dispatcher.wakeUpAfter(delay);
+        }
+    }
+
+    private String maskPhone(String phone) {
+        if (phone == null || phone.length() < 4)
+            return "***";
+        return phone.substring(0, phone.length() - 4) + "****";
+    }
+}
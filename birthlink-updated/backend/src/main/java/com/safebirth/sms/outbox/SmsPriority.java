@@ -0,0 +1,16 @@
+package com.safebirth.sms.outbox;
+
+/**
+ * Scheduling class of an outbound SMS, highest priority first.
+ * When the gateway is saturated the dispatcher always drains higher classes first.
+ */
+public enum SmsPriority {
+    /** Volunteer alerts for emergency requests */
+    EMERGENCY_ALERT,
+    /** Case lifecycle notices (accepted, cancelled) and support request alerts */
+    CASE_UPDATE,
+    /** Replies to inbound messages (registrations, status queries, conversation) */
+    CONVERSATION,
+    /** Bulk informational messages */
+    BROADCAST
+}
@@ -9,6 +9,7 @@ public enum CommandType {
     // Registration Commands
     REGISTER_MOTHER,      // REG MOTHER / تسجيل ام
     REGISTER_VOLUNTEER,   // REG VOLUNTEER / تسجيل متطوع
+    LINK_HOUSEHOLD,       // LINK +249... / ربط +249...
     
     // Emergency Commands
     EMERGENCY,            // EMERGENCY, SOS / طوارئ
@@ -11,6 +11,7 @@ import java.util.Map;
  * Parameters map may contain:
  * - For REGISTER_MOTHER: camp, zone, dueDate, riskLevel
  * - For REGISTER_VOLUNTEER: name, camp, zones, skillType
+ * - For LINK_HOUSEHOLD: householdPhone
  * - For case commands (ACCEPT, COMPLETE, CANCEL): caseId
  */
 public record SmsCommand(
@@ -116,6 +117,15 @@ public record SmsCommand(
         return getParameter("skillType");
     }
 
+    /**
+     * Get the family member's phone number from a LINK command.
+     *
+     * @return the household phone or null if not present
+     */
+    public String getHouseholdPhone() {
+        return getParameter("householdPhone");
+    }
+
     /**
      * Check if this is a registration command.
      *
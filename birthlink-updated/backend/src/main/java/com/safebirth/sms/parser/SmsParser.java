@@ -58,6 +58,7 @@ public class SmsParser {
             Map.entry("مشغولة", "BUSY"),
             Map.entry("غير متاح", "OFFLINE"),
             Map.entry("حالة", "STATUS"),
+            Map.entry("ربط", "LINK"),
             // Field names
             Map.entry("مخيم", "CAMP"),
             Map.entry("منطقة", "ZONE"),
@@ -94,6 +95,11 @@ public class SmsParser {
             Pattern.UNICODE_CHARACTER_CLASS
     );
     
+    private static final Pattern LINK_PATTERN = Pattern.compile(
+            "(?i)^LINK\\s+(\\+?[0-9][0-9 -]{5,19})$",
+            Pattern.UNICODE_CHARACTER_CLASS
+    );
+    
     private static final Pattern EMERGENCY_PATTERN = Pattern.compile(
             "(?i)^(EMERGENCY|SOS|URGENT)$",
             Pattern.UNICODE_CHARACTER_CLASS
@@ -259,6 +265,9 @@ public class SmsParser {
         } else if (REG_VOLUNTEER_PATTERN.matcher(normalizedMessage).find()) {
             type = CommandType.REGISTER_VOLUNTEER;
             extractVolunteerRegistrationParams(normalizedMessage, params);
+        } else if (LINK_PATTERN.matcher(normalizedMessage).matches()) {
+            type = CommandType.LINK_HOUSEHOLD;
+            extractHouseholdPhone(normalizedMessage, params);
         }
         // Check for emergency/support commands
         else if (EMERGENCY_PATTERN.matcher(normalizedMessage).matches() || 
@@ -373,6 +382,16 @@ public class SmsParser {
         }
     }
 
+    /**
+     * Extract the household phone from a LINK command, dropping spaces and dashes.
+     */
+    private void extractHouseholdPhone(String message, Map<String, String> params) {
+        Matcher matcher = LINK_PATTERN.matcher(message);
+        if (matcher.matches()) {
+            params.put("householdPhone", matcher.group(1).replaceAll("[ -]", ""));
+        }
+    }
+
     /**
      * Extract case ID from the message.
      */
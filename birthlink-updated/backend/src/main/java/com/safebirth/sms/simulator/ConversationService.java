@@ -107,14 +107,17 @@ public class ConversationService {
 
         // Add devices from outbox (may include phones we haven't seen yet)
         if (mockSmsGateway != null) {
-            for (MockSmsGateway.OutboxMessage outbox : mockSmsGateway.getOutbox()) {
-                String phone = outbox.to();
-                if (!devices.containsKey(phone)) {
+            for (String phone : mockSmsGateway.getRecipients()) {
+                if (devices.containsKey(phone)) {
+                    continue;
+                }
+                List<MockSmsGateway.OutboxMessage> sent = mockSmsGateway.getMessagesSentTo(phone);
+                if (!sent.isEmpty()) {
                     devices.put(phone, new DeviceDto(
                             phone,
                             generateLabel(phone),
-                            1,
-                            outbox.timestamp()));
+                            sent.size(),
+                            sent.get(sent.size() - 1).timestamp()));
                 }
             }
         }
@@ -7,8 +7,20 @@
     // State
     let currentPhone = '';
     let pollingInterval = null;
+    let eventSource = null;
     let lastOutboxCount = 0;
 
+    // Dashboard stream events that can produce new outbound SMS
+    const STREAM_EVENTS = [
+        'case.created', 'case.alerted', 'case.accepted', 'case.started', 'case.completed',
+        'case.cancelled', 'volunteer.availability', 'resync',
+    ];
+
+    // Outbox poll interval without a stream, and the slower safety net while it is open:
+    // the outbox sends alerts up to a coalescing window after the event that queued them
+    const POLL_INTERVAL_MS = 2000;
+    const STREAM_POLL_INTERVAL_MS = 5000;
+
     // DOM Elements
     const elements = {
         phoneSelect: document.getElementById('phone-select'),
@@ -57,8 +69,8 @@
         await loadDevices();
         await refreshOutbox();
 
-        // Start polling for outbox updates
-        startPolling();
+        // Listen for live updates (falls back to polling without SSE support)
+        startLiveUpdates();
     }
 
     /**
@@ -274,31 +286,60 @@
     }
 
     /**
-     * Start polling for outbox updates.
+     * Re-render the outbox, conversation and devices if new messages arrived.
      */
-    function startPolling() {
-        if (pollingInterval) {
-            clearInterval(pollingInterval);
-        }
+    async function checkOutbox() {
+        try {
+            const outbox = await SimulatorAPI.getOutbox();
 
-        pollingInterval = setInterval(async () => {
-            try {
-                const outbox = await SimulatorAPI.getOutbox();
+            if (outbox.length !== lastOutboxCount) {
+                OutboxRenderer.render(elements.outboxMessages, outbox);
+                lastOutboxCount = outbox.length;
 
-                if (outbox.length !== lastOutboxCount) {
-                    OutboxRenderer.render(elements.outboxMessages, outbox);
-                    lastOutboxCount = outbox.length;
+                if (currentPhone) {
+                    await loadConversation(currentPhone);
+                }
 
-                    if (currentPhone) {
-                        await loadConversation(currentPhone);
-                    }
+                await loadDevices();
+            }
+        } catch (error) {
+            console.error('Outbox refresh error:', error);
+        }
+    }
 
-                    await loadDevices();
-                }
-            } catch (error) {
-                console.error('Polling error:', error);
+    /**
+     * Subscribe to the dashboard event stream and refresh as soon as something changes.
+     * SMS the outbox sends later are picked up by a slow poll that keeps running alongside.
+     * EventSource reconnects on its own and resumes via Last-Event-ID.
+     */
+    function startLiveUpdates() {
+        if (!window.EventSource) {
+            startPolling(POLL_INTERVAL_MS);
+            return;
+        }
+
+        eventSource = new EventSource('/api/dashboard/stream');
+        STREAM_EVENTS.forEach(type => eventSource.addEventListener(type, checkOutbox));
+        eventSource.onopen = () => startPolling(STREAM_POLL_INTERVAL_MS);
+        eventSource.onerror = () => {
+            // CLOSED means the browser gave up reconnecting - poll until the page reloads
+            if (eventSource.readyState === EventSource.CLOSED) {
+                startPolling(POLL_INTERVAL_MS);
             }
-        }, 2000);
+        };
+    }
+
+    /**
+     * Start polling for outbox updates.
+     *
+     * @param {number} intervalMs - Poll interval in milliseconds
+     */
+    function startPolling(intervalMs) {
+        if (pollingInterval) {
+            clearInterval(pollingInterval);
+        }
+
+        pollingInterval = setInterval(checkOutbox, intervalMs);
     }
 
     /**
@@ -318,6 +359,11 @@
         init();
     }
 
-    window.addEventListener('beforeunload', stopPolling);
+    window.addEventListener('beforeunload', () => {
+        stopPolling();
+        if (eventSource) {
+            eventSource.close();
+        }
+    });
 
 })();
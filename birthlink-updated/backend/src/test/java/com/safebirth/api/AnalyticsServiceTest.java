@@ -0,0 +1,174 @@
+package com.safebirth.api;
+
+import com.safebirth.api.dto.CaseRollupDto;
+import com.safebirth.api.dto.ZoneHourHeatmapDto;
+import com.safebirth.domain.analytics.CaseRollupRepository;
+import com.safebirth.domain.analytics.CaseRollupService;
+import com.safebirth.domain.analytics.RollupCheckpointRepository;
+import com.safebirth.domain.analytics.RollupGranularity;
+import com.safebirth.domain.helprequest.HelpRequest;
+import com.safebirth.domain.helprequest.HelpRequestRepository;
+import com.safebirth.domain.helprequest.RequestStatus;
+import com.safebirth.domain.helprequest.RequestType;
+import com.safebirth.domain.mother.Mother;
+import com.safebirth.domain.mother.MotherRepository;
+import com.safebirth.domain.mother.RiskLevel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the case rollup job and the analytics queries served from it.
+ */
+@SpringBootTest
+@Transactional
+@org.springframework.test.annotation.DirtiesContext(classMode = org.springframework.test.annotation.DirtiesContext.ClassMode.BEFORE_CLASS)
+class AnalyticsServiceTest {
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private CaseRollupService caseRollupService;
+
+    @Autowired
+    private CaseRollupRepository caseRollupRepository;
+
+    @Autowired
+    private RollupCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private HelpRequestRepository helpRequestRepository;
+
+    @Autowired
+    private MotherRepository motherRepository;
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 10);
+
+    private Mother mother;
+    private int caseCounter = 0;
+
+    @BeforeEach
+    void setUp() {
+        caseRollupRepository.deleteAll();
+        checkpointRepository.deleteAll();
+        helpRequestRepository.deleteAll();
+        motherRepository.deleteAll();
+
+        mother = motherRepository.save(Mother.builder()
+                .phoneNumber("+962791000001")
+                .zone("ZONE-A")
+                .build());
+    }
+
+    private HelpRequest closedCase(String zone, RequestType type, RequestStatus outcome, LocalDateTime createdAt,
+                                   LocalDateTime acceptedAt, LocalDateTime closedAt) {
+        caseCounter++;
+        return helpRequestRepository.save(HelpRequest.builder()
+                .caseId(String.format("HR-%04d", caseCounter))
+                .mother(mother)
+                .zone(zone)
+                .requestType(type)
+                .riskLevel(RiskLevel.HIGH)
+                .status(outcome)
+                .createdAt(createdAt)
+                .acceptedAt(acceptedAt)
+                .closedAt(closedAt)
+                .build());
+    }
+
+    @Nested
+    @DisplayName("Rollup job")
+    class RollupJobTests {
+
+        @Test
+        @DisplayName("Should aggregate closed cases into hourly and daily buckets")
+        void testRollUp_HourlyAndDaily() {
+            LocalDateTime nine = DAY.atTime(9, 15);
+            closedCase("ZONE-A", RequestType.EMERGENCY, RequestStatus.COMPLETED, nine, nine.plusMinutes(2), nine.plusHours(1));
+            closedCase("ZONE-A", RequestType.EMERGENCY, RequestStatus.COMPLETED, nine.plusMinutes(10), nine.plusMinutes(14), nine.plusHours(2));
+            closedCase("ZONE-A", RequestType.EMERGENCY, RequestStatus.COMPLETED, DAY.atTime(17, 0), null, DAY.atTime(18, 0));
+
+            int buckets = caseRollupService.rollUp(DAY.atTime(23, 0));
+
+            assertThat(buckets).isEqualTo(2);
+            List<CaseRollupDto> hourly = analyticsService.getRollups(RollupGranularity.HOUR, DAY, DAY, null, null);
+            assertThat(hourly).extracting(CaseRollupDto::bucketStart)
+                    .containsExactly(DAY.atTime(9, 0), DAY.atTime(17, 0));
+            assertThat(hourly.get(0).caseCount()).isEqualTo(2);
+            assertThat(hourly.get(0).avgSecondsToAccept()).isEqualTo(180L);
+
+            List<CaseRollupDto> daily = analyticsService.getRollups(RollupGranularity.DAY, DAY, DAY, "zone-a", null);
+            assertThat(daily).hasSize(1);
+            assertThat(daily.get(0).caseCount()).isEqualTo(3);
+            assertThat(daily.get(0).acceptedCount()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should skip open cases and key by outcome")
+        void testRollUp_OutcomesAndOpenCases() {
+            LocalDateTime t = DAY.atTime(10, 0);
+            closedCase("ZONE-A", RequestType.SUPPORT, RequestStatus.COMPLETED, t, t.plusMinutes(1), t.plusMinutes(30));
+            closedCase("ZONE-A", RequestType.SUPPORT, RequestStatus.CANCELLED, t, null, t.plusMinutes(5));
+            closedCase("ZONE-A", RequestType.SUPPORT, RequestStatus.PENDING, t, null, null);
+
+            caseRollupService.rollUp(DAY.atTime(23, 0));
+
+            List<CaseRollupDto> daily = analyticsService.getRollups(RollupGranularity.DAY, DAY, DAY, null, null);
+            assertThat(daily).extracting(CaseRollupDto::outcome)
+                    .containsExactlyInAnyOrder(RequestStatus.COMPLETED, RequestStatus.CANCELLED);
+        }
+
+        @Test
+        @DisplayName("Should recompute a bucket when a later case in it closes")
+        void testRollUp_Incremental() {
+            LocalDateTime t = DAY.atTime(8, 0);
+            closedCase("ZONE-A", RequestType.EMERGENCY, RequestStatus.COMPLETED, t, null, t.plusMinutes(20));
+            caseRollupService.rollUp(DAY.atTime(12, 0));
+
+            closedCase("ZONE-A", RequestType.EMERGENCY, RequestStatus.COMPLETED, t.plusMinutes(5), null, DAY.atTime(13, 0));
+            caseRollupService.rollUp(DAY.atTime(14, 0));
+
+            // Running again with nothing new must not double count
+            assertThat(caseRollupService.rollUp(DAY.atTime(15, 0))).isZero();
+
+            List<CaseRollupDto> daily = analyticsService.getRollups(RollupGranularity.DAY, DAY, DAY, null, null);
+            assertThat(daily).hasSize(1);
+            assertThat(daily.get(0).caseCount()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Zone x hour heatmap")
+    class HeatmapTests {
+
+        @Test
+        @DisplayName("Should count cases per zone and hour of day")
+        void testHeatmap() {
+            closedCase("ZONE-A", RequestType.EMERGENCY, RequestStatus.COMPLETED, DAY.atTime(3, 10), null, DAY.atTime(4, 0));
+            closedCase("ZONE-A", RequestType.EMERGENCY, RequestStatus.COMPLETED, DAY.plusDays(1).atTime(3, 40), null, DAY.plusDays(1).atTime(5, 0));
+            closedCase("ZONE-B", RequestType.SUPPORT, RequestStatus.COMPLETED, DAY.atTime(20, 0), null, DAY.atTime(21, 0));
+            caseRollupService.rollUp(DAY.plusDays(2).atStartOfDay());
+
+            ZoneHourHeatmapDto heatmap = analyticsService.getZoneHourHeatmap(DAY, DAY.plusDays(1), null);
+
+            assertThat(heatmap.rows()).extracting(ZoneHourHeatmapDto.ZoneRow::zone).containsExactly("ZONE-A", "ZONE-B");
+            assertThat(heatmap.rows().get(0).hourlyCounts()).hasSize(24);
+            assertThat(heatmap.rows().get(0).hourlyCounts().get(3)).isEqualTo(2L);
+            assertThat(heatmap.rows().get(1).hourlyCounts().get(20)).isEqualTo(1L);
+
+            ZoneHourHeatmapDto emergencies = analyticsService.getZoneHourHeatmap(DAY, DAY.plusDays(1), RequestType.EMERGENCY);
+            assertThat(emergencies.rows()).extracting(ZoneHourHeatmapDto.ZoneRow::total).containsExactly(2L);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.safebirth.api;
 
+import com.safebirth.domain.DataVersion;
 import com.safebirth.domain.helprequest.HelpRequest;
 import com.safebirth.domain.helprequest.HelpRequestRepository;
 import com.safebirth.domain.helprequest.RequestStatus;
@@ -21,6 +22,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
@@ -28,6 +30,7 @@ import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -54,6 +57,9 @@ class DashboardControllerTest {
     @Autowired
     private HelpRequestRepository helpRequestRepository;
 
+    @Autowired
+    private DataVersion dataVersion;
+
     private Mother testMother;
     private Volunteer testVolunteer;
     private HelpRequest testRequest;
@@ -366,4 +372,81 @@ class DashboardControllerTest {
                             contains(1)));
         }
     }
+
+    @Nested
+    @DisplayName("GET /api/dashboard/sla")
+    class GetSlaStatsTests {
+
+        @Test
+        @DisplayName("Should return one row per zone when grouped")
+        void testGetSlaStats_GroupByZone() throws Exception {
+            mockMvc.perform(get("/api/dashboard/sla")
+                            .param("groupBy", "ZONE")
+                            .param("zone", "ZONE-A"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(lessThanOrEqualTo(1))));
+        }
+
+        @Test
+        @DisplayName("Should return a total row with all metrics")
+        void testGetSlaStats_Total() throws Exception {
+            mockMvc.perform(get("/api/dashboard/sla"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].timeToFirstAlert.count", notNullValue()))
+                    .andExpect(jsonPath("$[0].timeToAccept.count", notNullValue()))
+                    .andExpect(jsonPath("$[0].timeToClose.count", notNullValue()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Conditional GET")
+    class ConditionalGetTests {
+
+        @Test
+        @DisplayName("Should return an ETag with no-cache")
+        void testEtagPresent() throws Exception {
+            mockMvc.perform(get("/api/dashboard/stats"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", dataVersion.etag()))
+                    .andExpect(header().string("Cache-Control", "no-cache"));
+        }
+
+        @Test
+        @DisplayName("Should return 304 with empty body when If-None-Match matches")
+        void testNotModified() throws Exception {
+            MvcResult first = mockMvc.perform(get("/api/dashboard/cases"))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            String etag = first.getResponse().getHeader("ETag");
+
+            mockMvc.perform(get("/api/dashboard/cases").header("If-None-Match", etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", etag))
+                    .andExpect(content().string(""));
+        }
+
+        @Test
+        @DisplayName("Should return 200 when the ETag is stale")
+        void testStaleEtag() throws Exception {
+            String stale = "\"v" + (dataVersion.current() - 1) + "\"";
+
+            mockMvc.perform(get("/api/dashboard/zones").header("If-None-Match", stale))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", not(stale)))
+                    .andExpect(jsonPath("$", hasSize(greaterThanOrEqualTo(1))));
+        }
+
+        @Test
+        @DisplayName("Should not bump the version for writes that are not committed")
+        void testUncommittedWriteKeepsVersion() {
+            long before = dataVersion.current();
+
+            testRequest.accept(testVolunteer);
+            helpRequestRepository.saveAndFlush(testRequest);
+
+            // The test transaction is rolled back, so the write never becomes visible
+            assertThat(dataVersion.current()).isEqualTo(before);
+        }
+    }
 }
@@ -0,0 +1,140 @@
+package com.safebirth.api;
+
+import com.safebirth.api.dto.DashboardEventDto;
+import com.safebirth.config.DashboardStreamConfig;
+import com.safebirth.domain.helprequest.HelpRequest;
+import com.safebirth.domain.helprequest.HelpRequestEvent;
+import com.safebirth.domain.helprequest.HelpRequestRepository;
+import com.safebirth.domain.helprequest.RequestStatus;
+import com.safebirth.domain.helprequest.RequestType;
+import com.safebirth.domain.mother.RiskLevel;
+import com.safebirth.domain.volunteer.AvailabilityStatus;
+import com.safebirth.domain.volunteer.VolunteerAvailabilityEvent;
+import com.safebirth.domain.volunteer.VolunteerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for DashboardStreamService.
+ * Tests event sequencing and resume/replay behaviour.
+ */
+@ExtendWith(MockitoExtension.class)
+class DashboardStreamServiceTest {
+
+    @Mock
+    private HelpRequestRepository helpRequestRepository;
+
+    @Mock
+    private VolunteerRepository volunteerRepository;
+
+    private DashboardStreamConfig config;
+    private DashboardStreamService streamService;
+
+    @BeforeEach
+    void setUp() {
+        config = new DashboardStreamConfig();
+        config.setReplayBufferSize(10);
+        streamService = new DashboardStreamService(helpRequestRepository, volunteerRepository, config);
+    }
+
+    private HelpRequestEvent createdEvent(String caseId) {
+        HelpRequest request = HelpRequest.builder()
+                .caseId(caseId)
+                .requestType(RequestType.EMERGENCY)
+                .status(RequestStatus.PENDING)
+                .zone("ZONE-A")
+                .riskLevel(RiskLevel.HIGH)
+                .build();
+        return HelpRequestEvent.of(HelpRequestEvent.Type.CREATED, request);
+    }
+
+    @Nested
+    @DisplayName("Event sequencing")
+    class SequencingTests {
+
+        @Test
+        @DisplayName("Should emit a case delta followed by a counters update")
+        void testCaseEvent_EmitsDeltaAndCounters() {
+            streamService.onHelpRequestEvent(createdEvent("HR-0001"));
+
+            List<DashboardEventDto> events = streamService.eventsSince(0);
+
+            assertThat(events).extracting(DashboardEventDto::type)
+                    .containsExactly(DashboardEventDto.CASE_CREATED, DashboardEventDto.COUNTERS);
+            assertThat(events).extracting(DashboardEventDto::id).containsExactly(1L, 2L);
+            assertThat(events.get(0).caseId()).isEqualTo("HR-0001");
+            assertThat(events.get(0).zone()).isEqualTo("ZONE-A");
+            assertThat(events.get(1).counters()).isNotNull();
+        }
+
+        @Test
+        @DisplayName("Should emit volunteer availability changes")
+        void testAvailabilityEvent() {
+            streamService.onVolunteerAvailabilityEvent(new VolunteerAvailabilityEvent(
+                    7L, "V-0007", AvailabilityStatus.AVAILABLE, AvailabilityStatus.BUSY, LocalDateTime.now()));
+
+            DashboardEventDto event = streamService.eventsSince(0).get(0);
+
+            assertThat(event.type()).isEqualTo(DashboardEventDto.VOLUNTEER_AVAILABILITY);
+            assertThat(event.volunteerId()).isEqualTo("V-0007");
+            assertThat(event.availability()).isEqualTo(AvailabilityStatus.BUSY);
+        }
+    }
+
+    @Nested
+    @DisplayName("Resume after reconnect")
+    class ResumeTests {
+
+        @Test
+        @DisplayName("Should replay only events after the resume id")
+        void testResume_ReplaysMissedEvents() {
+            streamService.onHelpRequestEvent(createdEvent("HR-0001"));
+            streamService.onHelpRequestEvent(createdEvent("HR-0002"));
+
+            List<DashboardEventDto> missed = streamService.eventsSince(2);
+
+            assertThat(missed).extracting(DashboardEventDto::id).containsExactly(3L, 4L);
+            assertThat(missed.get(0).caseId()).isEqualTo("HR-0002");
+        }
+
+        @Test
+        @DisplayName("Should return nothing when the client is up to date")
+        void testResume_UpToDate() {
+            streamService.onHelpRequestEvent(createdEvent("HR-0001"));
+
+            assertThat(streamService.eventsSince(2)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should ask for resync when the resume point was evicted")
+        void testResume_EvictedGap() {
+            for (int i = 1; i <= 10; i++) {
+                streamService.onHelpRequestEvent(createdEvent(String.format("HR-%04d", i)));
+            }
+
+            List<DashboardEventDto> events = streamService.eventsSince(1);
+
+            assertThat(events).hasSize(1);
+            assertThat(events.get(0).type()).isEqualTo(DashboardEventDto.RESYNC);
+            assertThat(events.get(0).id()).isEqualTo(20L);
+        }
+
+        @Test
+        @DisplayName("Should ask for resync when the client is ahead of the server")
+        void testResume_ClientAheadAfterRestart() {
+            List<DashboardEventDto> events = streamService.eventsSince(42);
+
+            assertThat(events).extracting(DashboardEventDto::type).containsExactly(DashboardEventDto.RESYNC);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.safebirth.api;
+
+import com.safebirth.domain.helprequest.HelpRequest;
+import com.safebirth.domain.helprequest.HelpRequestRepository;
+import com.safebirth.domain.helprequest.RequestStatus;
+import com.safebirth.domain.helprequest.RequestType;
+import com.safebirth.domain.mother.Language;
+import com.safebirth.domain.mother.Mother;
+import com.safebirth.domain.mother.MotherRepository;
+import com.safebirth.domain.mother.RiskLevel;
+import com.safebirth.domain.volunteer.AvailabilityStatus;
+import com.safebirth.domain.volunteer.SkillType;
+import com.safebirth.domain.volunteer.Volunteer;
+import com.safebirth.domain.volunteer.VolunteerRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for ExportController.
+ * Tests CSV/NDJSON output, filtering and phone masking.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@Transactional
+@org.springframework.test.annotation.DirtiesContext(classMode = org.springframework.test.annotation.DirtiesContext.ClassMode.BEFORE_CLASS)
+class ExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MotherRepository motherRepository;
+
+    @Autowired
+    private VolunteerRepository volunteerRepository;
+
+    @Autowired
+    private HelpRequestRepository helpRequestRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        helpRequestRepository.deleteAll();
+        motherRepository.deleteAll();
+        volunteerRepository.deleteAll();
+
+        Mother mother = motherRepository.save(Mother.builder()
+                .phoneNumber("+962791111001")
+                .name("Fatima, Test")
+                .camp("CAMP-A")
+                .zone("ZONE-A")
+                .dueDate(LocalDate.now().plusDays(30))
+                .riskLevel(RiskLevel.HIGH)
+                .preferredLanguage(Language.ARABIC)
+                .build());
+
+        volunteerRepository.save(Volunteer.builder()
+                .phoneNumber("+962792222001")
+                .name("Test Volunteer")
+                .camp("CAMP-A")
+                .skillType(SkillType.MIDWIFE)
+                .zones(new HashSet<>(Set.of("ZONE-A", "ZONE-B")))
+                .availability(AvailabilityStatus.AVAILABLE)
+                .build());
+
+        helpRequestRepository.save(HelpRequest.builder()
+                .caseId("HR-0001")
+                .mother(mother)
+                .requestType(RequestType.EMERGENCY)
+                .status(RequestStatus.PENDING)
+                .zone("ZONE-A")
+                .createdAt(LocalDateTime.now())
+                .build());
+        helpRequestRepository.save(HelpRequest.builder()
+                .caseId("HR-0002")
+                .mother(mother)
+                .requestType(RequestType.SUPPORT)
+                .status(RequestStatus.COMPLETED)
+                .zone("ZONE-B")
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    @Nested
+    @DisplayName("GET /api/dashboard/export/cases")
+    class ExportCasesTests {
+
+        @Test
+        @DisplayName("Should stream CSV with header, quoting and masked phones")
+        void testExportCases_Csv() throws Exception {
+            String body = mockMvc.perform(get("/api/dashboard/export/cases"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                    .andExpect(header().string("Content-Disposition", containsString("cases-")))
+                    .andReturn().getResponse().getContentAsString();
+
+            String[] lines = body.split("\r\n");
+            assertThat(lines).hasSize(3);
+            assertThat(lines[0]).startsWith("caseId,requestType,status,zone");
+            assertThat(lines[1]).startsWith("HR-0001,EMERGENCY,PENDING,ZONE-A");
+            assertThat(body).contains("+96279111****").doesNotContain("+962791111001");
+            assertThat(body).contains("\"Fatima, Test\"");
+        }
+
+        @Test
+        @DisplayName("Should stream NDJSON filtered by status")
+        void testExportCases_NdjsonFiltered() throws Exception {
+            String body = mockMvc.perform(get("/api/dashboard/export/cases")
+                            .param("format", "ndjson")
+                            .param("status", "COMPLETED"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                    .andReturn().getResponse().getContentAsString();
+
+            assertThat(body.lines()).hasSize(1);
+            assertThat(body).contains("\"caseId\":\"HR-0002\"");
+        }
+
+        @Test
+        @DisplayName("Should reject unknown formats")
+        void testExportCases_BadFormat() throws Exception {
+            mockMvc.perform(get("/api/dashboard/export/cases").param("format", "xlsx"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /api/dashboard/export/mothers and /volunteers")
+    class ExportRegistrationsTests {
+
+        @Test
+        @DisplayName("Should export mothers with masked phones")
+        void testExportMothers() throws Exception {
+            String body = mockMvc.perform(get("/api/dashboard/export/mothers").param("zone", "zone-a"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            assertThat(body.split("\r\n")).hasSize(2);
+            assertThat(body).contains("+96279111****").doesNotContain("+962791111001");
+        }
+
+        @Test
+        @DisplayName("Should neutralise formula prefixes but leave phone numbers alone")
+        void testExportMothers_FormulaInjection() throws Exception {
+            motherRepository.save(Mother.builder()
+                    .phoneNumber("+962791111002")
+                    .name("-2+cmd|' /C calc'!A0")
+                    .camp("\tCAMP-C")
+                    .zone("ZONE-C")
+                    .dueDate(LocalDate.now().plusDays(30))
+                    .riskLevel(RiskLevel.LOW)
+                    .preferredLanguage(Language.ARABIC)
+                    .build());
+            motherRepository.save(Mother.builder()
+                    .phoneNumber("+962791111003")
+                    .name("+SUM(1,2)")
+                    .camp("@CAMP-C")
+                    .zone("ZONE-C")
+                    .dueDate(LocalDate.now().plusDays(30))
+                    .riskLevel(RiskLevel.LOW)
+                    .preferredLanguage(Language.ARABIC)
+                    .build());
+
+            String body = mockMvc.perform(get("/api/dashboard/export/mothers").param("zone", "zone-c"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            assertThat(body).contains(",'-2+cmd|' /C calc'!A0,");
+            assertThat(body).contains(",'\tCAMP-C,");
+            assertThat(body).contains(",\"'+SUM(1,2)\",");
+            assertThat(body).contains(",'@CAMP-C,");
+            assertThat(body).contains(",+96279111****,").doesNotContain("'+96279111");
+        }
+
+        @Test
+        @DisplayName("Should export volunteers as NDJSON")
+        void testExportVolunteers() throws Exception {
+            String body = mockMvc.perform(get("/api/dashboard/export/volunteers").param("format", "NDJSON"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            assertThat(body.lines()).hasSize(1);
+            assertThat(body).contains("\"phoneNumber\":\"+96279222****\"");
+        }
+
+        @Test
+        @DisplayName("Should load volunteers and their zones in a single query")
+        void testExportVolunteers_SingleQuery() throws Exception {
+            for (int i = 2; i <= 4; i++) {
+                volunteerRepository.save(Volunteer.builder()
+                        .phoneNumber("+96279222200" + i)
+                        .name("Volunteer " + i)
+                        .camp("CAMP-B")
+                        .skillType(SkillType.NURSE)
+                        .zones(new HashSet<>(Set.of("ZONE-C", "ZONE-D")))
+                        .availability(AvailabilityStatus.AVAILABLE)
+                        .build());
+            }
+            // Load from the database rather than the test's persistence context
+            volunteerRepository.flush();
+            entityManager.clear();
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+
+            String body = mockMvc.perform(get("/api/dashboard/export/volunteers"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            assertThat(body.split("\r\n")).hasSize(5);
+            assertThat(body).contains("ZONE-A;ZONE-B").contains("ZONE-C;ZONE-D");
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.safebirth.api;
+
+import com.safebirth.api.dto.SlaStatsDto;
+import com.safebirth.domain.helprequest.HelpRequest;
+import com.safebirth.domain.helprequest.HelpRequestEvent;
+import com.safebirth.domain.helprequest.HelpRequestRepository;
+import com.safebirth.domain.helprequest.RequestStatus;
+import com.safebirth.domain.helprequest.RequestType;
+import com.safebirth.domain.helprequest.SlaHistoryRow;
+import com.safebirth.domain.mother.RiskLevel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for SlaMetricsService.
+ * Tests incremental recording, the history load, percentile calculation and grouping.
+ */
+@ExtendWith(MockitoExtension.class)
+class SlaMetricsServiceTest {
+
+    @Mock
+    private HelpRequestRepository helpRequestRepository;
+
+    @InjectMocks
+    private SlaMetricsService slaMetricsService;
+
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        base = LocalDateTime.of(2024, 1, 1, 8, 0);
+        when(helpRequestRepository.streamSlaHistory()).thenReturn(Stream.empty());
+        slaMetricsService.loadHistory();
+    }
+
+    private HelpRequestEvent acceptedEvent(String zone, RequestType type, RiskLevel risk, long secondsToAccept) {
+        HelpRequest request = HelpRequest.builder()
+                .caseId("HR-0001")
+                .zone(zone)
+                .requestType(type)
+                .riskLevel(risk)
+                .status(RequestStatus.ACCEPTED)
+                .createdAt(base)
+                .acceptedAt(base.plusSeconds(secondsToAccept))
+                .build();
+        return HelpRequestEvent.of(HelpRequestEvent.Type.ACCEPTED, request);
+    }
+
+    @Nested
+    @DisplayName("Incremental recording")
+    class RecordingTests {
+
+        @Test
+        @DisplayName("Should compute percentiles from accepted events")
+        void testTimeToAcceptPercentiles() {
+            for (int i = 1; i <= 100; i++) {
+                slaMetricsService.onHelpRequestEvent(acceptedEvent("ZONE-A", RequestType.EMERGENCY, RiskLevel.HIGH, i * 60L));
+            }
+
+            SlaStatsDto stats = slaMetricsService.getStats(null, null, null, null).get(0);
+
+            assertThat(stats.timeToAccept().count()).isEqualTo(100);
+            assertThat(stats.timeToAccept().p50Seconds()).isCloseTo(3000L, within(60L));
+            assertThat(stats.timeToAccept().p99Seconds()).isCloseTo(5940L, within(60L));
+            assertThat(stats.timeToClose().count()).isZero();
+            assertThat(stats.timeToClose().p50Seconds()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should ignore cancelled requests for time-to-close")
+        void testCancelledNotCounted() {
+            HelpRequest request = HelpRequest.builder()
+                    .zone("ZONE-A")
+                    .requestType(RequestType.SUPPORT)
+                    .status(RequestStatus.CANCELLED)
+                    .createdAt(base)
+                    .closedAt(base.plusMinutes(5))
+                    .build();
+
+            slaMetricsService.onHelpRequestEvent(HelpRequestEvent.of(HelpRequestEvent.Type.CANCELLED, request));
+
+            assertThat(slaMetricsService.getStats(null, null, null, null).get(0).timeToClose().count()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should rebuild histograms from stored requests")
+        void testLoadHistory() {
+            SlaMetricsService service = new SlaMetricsService(helpRequestRepository);
+            when(helpRequestRepository.streamSlaHistory()).thenReturn(Stream.of(new SlaHistoryRow("ZONE-B",
+                    RequestType.SUPPORT, RiskLevel.LOW, RequestStatus.COMPLETED, base, base.plusSeconds(5),
+                    base.plusMinutes(2), base.plusHours(1))));
+
+            service.loadHistory();
+
+            SlaStatsDto stats = service.getStats("ZONE-B", null, null, null).get(0);
+            assertThat(stats.timeToFirstAlert().p50Seconds()).isEqualTo(5L);
+            assertThat(stats.timeToAccept().p50Seconds()).isEqualTo(120L);
+            assertThat(stats.timeToClose().p50Seconds()).isCloseTo(3600L, within(36L));
+        }
+
+        @Test
+        @DisplayName("Should not count an event received during the load twice")
+        void testEventsDuringLoad() {
+            SlaMetricsService service = new SlaMetricsService(helpRequestRepository);
+            LocalDateTime now = LocalDateTime.now();
+            when(helpRequestRepository.streamSlaHistory()).thenReturn(Stream.of(new SlaHistoryRow("ZONE-A",
+                    RequestType.EMERGENCY, RiskLevel.HIGH, RequestStatus.ACCEPTED, base, null,
+                    base.plusSeconds(60), null)));
+            // Both arrive before the load finishes: the first is in the stored rows, the second is not
+            service.onHelpRequestEvent(acceptedEvent("ZONE-A", RequestType.EMERGENCY, RiskLevel.HIGH, 60));
+            base = now.plusMinutes(10);
+            service.onHelpRequestEvent(acceptedEvent("ZONE-A", RequestType.EMERGENCY, RiskLevel.HIGH, 30));
+
+            assertThat(service.getStats(null, null, null, null).get(0).timeToAccept().count()).isZero();
+
+            service.loadHistory();
+
+            assertThat(service.getStats(null, null, null, null).get(0).timeToAccept().count()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Filtering and grouping")
+    class GroupingTests {
+
+        @BeforeEach
+        void record() {
+            slaMetricsService.onHelpRequestEvent(acceptedEvent("ZONE-A", RequestType.EMERGENCY, RiskLevel.HIGH, 60));
+            slaMetricsService.onHelpRequestEvent(acceptedEvent("ZONE-A", RequestType.SUPPORT, RiskLevel.LOW, 600));
+            slaMetricsService.onHelpRequestEvent(acceptedEvent("ZONE-B", RequestType.EMERGENCY, RiskLevel.HIGH, 120));
+        }
+
+        @Test
+        @DisplayName("Should filter by request type")
+        void testFilter() {
+            SlaStatsDto stats = slaMetricsService.getStats(null, RequestType.EMERGENCY, null, null).get(0);
+
+            assertThat(stats.requestType()).isEqualTo(RequestType.EMERGENCY);
+            assertThat(stats.timeToAccept().count()).isEqualTo(2);
+            assertThat(stats.timeToAccept().maxSeconds()).isEqualTo(120L);
+        }
+
+        @Test
+        @DisplayName("Should return one row per zone when grouped by zone")
+        void testGroupByZone() {
+            List<SlaStatsDto> rows = slaMetricsService.getStats(null, null, null, SlaMetricsService.GroupBy.ZONE);
+
+            assertThat(rows).extracting(SlaStatsDto::zone).containsExactly("ZONE-A", "ZONE-B");
+            assertThat(rows.get(0).timeToAccept().count()).isEqualTo(2);
+            assertThat(rows.get(1).timeToAccept().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should return an empty row when nothing matches")
+        void testNoMatch() {
+            List<SlaStatsDto> rows = slaMetricsService.getStats("ZONE-Z", null, null, null);
+
+            assertThat(rows).hasSize(1);
+            assertThat(rows.get(0).zone()).isEqualTo("ZONE-Z");
+            assertThat(rows.get(0).timeToAccept().count()).isZero();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.safebirth.domain.helprequest;
 
+import com.safebirth.config.EmergencyConfig;
 import com.safebirth.domain.mother.Mother;
+import com.safebirth.domain.mother.MotherRepository;
 import com.safebirth.domain.mother.RiskLevel;
 import com.safebirth.domain.volunteer.Volunteer;
 import com.safebirth.domain.volunteer.SkillType;
@@ -10,7 +12,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -19,6 +23,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -31,6 +36,15 @@ class HelpRequestServiceTest {
     @Mock
     private HelpRequestRepository helpRequestRepository;
 
+    @Mock
+    private MotherRepository motherRepository;
+
+    @Spy
+    private EmergencyConfig emergencyConfig = new EmergencyConfig();
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private HelpRequestService helpRequestService;
 
@@ -547,6 +561,30 @@ class HelpRequestServiceTest {
             verify(helpRequestRepository).save(request);
         }
 
+        @Test
+        @DisplayName("First alert stamps firstAlertAt and publishes ALERTED once")
+        void testIncrementAlertsSent_FirstAlert() {
+            // Arrange
+            HelpRequest request = HelpRequest.builder()
+                    .id(1L)
+                    .caseId("HR-0042")
+                    .build();
+
+            when(helpRequestRepository.findByCaseId("HR-0042")).thenReturn(Optional.of(request));
+            when(helpRequestRepository.save(any(HelpRequest.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            helpRequestService.incrementAlertsSent("HR-0042");
+            LocalDateTime firstAlertAt = request.getFirstAlertAt();
+            helpRequestService.incrementAlertsSent("HR-0042");
+
+            // Assert
+            assertNotNull(firstAlertAt);
+            assertEquals(firstAlertAt, request.getFirstAlertAt());
+            assertEquals(2, request.getAlertsSent());
+            verify(eventPublisher, times(1)).publishEvent(any(HelpRequestEvent.class));
+        }
+
         @Test
         @DisplayName("Increment alerts sent - request not found")
         void testIncrementAlertsSent_NotFound() {
@@ -561,6 +599,75 @@ class HelpRequestServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Emergency Coalescing Tests")
+    class EmergencyCoalescingTests {
+
+        @Test
+        @DisplayName("Repeat emergency attaches to the open case")
+        void testOpenEmergency_Repeat() {
+            // Arrange
+            Mother mother = createTestMother();
+            HelpRequest open = HelpRequest.builder()
+                    .id(1L)
+                    .caseId("HR-0042")
+                    .mother(mother)
+                    .requestType(RequestType.EMERGENCY)
+                    .zone("3")
+                    .build();
+
+            when(helpRequestRepository.findOpenEmergencies(eq(1L), eq("3"), any(LocalDateTime.class)))
+                    .thenReturn(List.of(open));
+            when(helpRequestRepository.save(any(HelpRequest.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            HelpRequestService.EmergencyIntake intake = helpRequestService.openEmergency(mother);
+
+            // Assert
+            assertTrue(intake.repeat());
+            assertSame(open, intake.request());
+            assertEquals(1, open.getRepeatCount());
+            verify(motherRepository).findByIdForUpdate(1L);
+            verify(helpRequestRepository, never()).findMaxCaseNumber();
+            verify(eventPublisher, never()).publishEvent(any());
+        }
+
+        @Test
+        @DisplayName("First emergency opens a new case")
+        void testOpenEmergency_New() {
+            // Arrange
+            Mother mother = createTestMother();
+            when(helpRequestRepository.findOpenEmergencies(anyLong(), anyString(), any(LocalDateTime.class)))
+                    .thenReturn(List.of());
+            when(helpRequestRepository.save(any(HelpRequest.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            HelpRequestService.EmergencyIntake intake = helpRequestService.openEmergency(mother);
+
+            // Assert
+            assertFalse(intake.repeat());
+            assertEquals("HR-0001", intake.request().getCaseId());
+            assertEquals(RequestType.EMERGENCY, intake.request().getRequestType());
+            verify(eventPublisher).publishEvent(any(HelpRequestEvent.class));
+        }
+
+        @Test
+        @DisplayName("Window of 0 disables coalescing")
+        void testOpenEmergency_Disabled() {
+            // Arrange
+            emergencyConfig.setCoalesceWindowMinutes(0);
+            when(helpRequestRepository.save(any(HelpRequest.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            HelpRequestService.EmergencyIntake intake = helpRequestService.openEmergency(createTestMother());
+
+            // Assert
+            assertFalse(intake.repeat());
+            verify(helpRequestRepository, never()).findOpenEmergencies(anyLong(), anyString(), any());
+            verifyNoInteractions(motherRepository);
+        }
+    }
+
     @Nested
     @DisplayName("HelpRequest Entity Tests")
     class HelpRequestEntityTests {
@@ -1,5 +1,6 @@
 package com.safebirth.domain.mother;
 
+import com.safebirth.domain.volunteer.VolunteerRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -28,6 +29,9 @@ class MotherServiceTest {
     @Mock
     private MotherRepository motherRepository;
 
+    @Mock
+    private VolunteerRepository volunteerRepository;
+
     @InjectMocks
     private MotherService motherService;
 
@@ -317,6 +321,70 @@ class MotherServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Household Phone Tests")
+    class HouseholdPhoneTests {
+
+        private static final String SENDER = "+970599000001";
+
+        private Mother mother() {
+            Mother mother = Mother.builder().id(1L).phoneNumber(SENDER).build();
+            when(motherRepository.findByPhoneNumber(SENDER)).thenReturn(Optional.of(mother));
+            return mother;
+        }
+
+        @Test
+        @DisplayName("Link a nationally typed number in the sender's international format")
+        void testLink_NormalizesNationalNumber() {
+            // Arrange
+            mother();
+            when(motherRepository.findByHouseholdPhone("+970599123456")).thenReturn(Optional.empty());
+            when(motherRepository.save(any(Mother.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            Mother result = motherService.linkHouseholdPhone(SENDER, "0599123456");
+
+            // Assert
+            assertEquals("+970599123456", result.getHouseholdPhone());
+        }
+
+        @Test
+        @DisplayName("Normalize international numbers typed with 00 or without +")
+        void testNormalizePhone() {
+            assertEquals("+970599123456", MotherService.normalizePhone("00970599123456", SENDER));
+            assertEquals("+970599123456", MotherService.normalizePhone("970599123456", SENDER));
+            assertEquals("+970599123456", MotherService.normalizePhone("599123456", SENDER));
+            assertEquals("+249912345678", MotherService.normalizePhone("+249912345678", SENDER));
+        }
+
+        @Test
+        @DisplayName("Link - reject a number registered as a volunteer")
+        void testLink_RegisteredNumber() {
+            // Arrange
+            mother();
+            when(volunteerRepository.existsByPhoneNumber("+970599123456")).thenReturn(true);
+
+            // Act & Assert
+            assertThrows(IllegalArgumentException.class,
+                    () -> motherService.linkHouseholdPhone(SENDER, "0599123456"));
+            verify(motherRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Link - reject a number linked to another mother")
+        void testLink_LinkedElsewhere() {
+            // Arrange
+            mother();
+            Mother other = Mother.builder().id(2L).phoneNumber("+970599000002").build();
+            when(motherRepository.findByHouseholdPhone("+970599123456")).thenReturn(Optional.of(other));
+
+            // Act & Assert
+            assertThrows(IllegalArgumentException.class,
+                    () -> motherService.linkHouseholdPhone(SENDER, "0599123456"));
+            verify(motherRepository, never()).save(any());
+        }
+    }
+
     @Nested
     @DisplayName("Count Operations Tests")
     class CountOperationsTests {
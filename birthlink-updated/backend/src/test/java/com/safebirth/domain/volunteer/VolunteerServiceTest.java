@@ -9,6 +9,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -30,6 +31,9 @@ class VolunteerServiceTest {
     @Mock
     private VolunteerRepository volunteerRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private VolunteerService volunteerService;
 
@@ -355,7 +359,7 @@ class VolunteerServiceTest {
         @DisplayName("Count available volunteers")
         void testCountAvailable() {
             // Arrange
-            when(volunteerRepository.countByAvailability(AvailabilityStatus.AVAILABLE)).thenReturn(10L);
+            when(volunteerRepository.countByStatus(AvailabilityStatus.AVAILABLE)).thenReturn(10L);
 
             // Act
             long count = volunteerService.countAvailable();
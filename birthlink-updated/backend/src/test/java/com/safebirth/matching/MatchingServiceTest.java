@@ -10,6 +10,7 @@ import com.safebirth.domain.mother.MotherRepository;
 import com.safebirth.domain.mother.RiskLevel;
 import com.safebirth.domain.volunteer.*;
 import com.safebirth.sms.gateway.MockSmsGateway;
+import com.safebirth.sms.gateway.SmsSegments;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -263,6 +264,17 @@ class MatchingServiceTest {
 
             assertThat(message).contains("Tomorrow");
         }
+
+        @Test
+        @DisplayName("Should fit the English alert in a single GSM-7 segment")
+        void testBuildAlertMessage_SingleSegment() {
+            Volunteer volunteer = createVolunteer("+111", "Fatima", SkillType.MIDWIFE, "3");
+
+            String message = matchingService.buildAlertMessage(volunteer, emergencyRequest);
+
+            assertThat(SmsSegments.isGsm7(message)).isTrue();
+            assertThat(SmsSegments.count(message)).isEqualTo(1);
+        }
     }
 
     @Nested
@@ -0,0 +1,133 @@
+package com.safebirth.sms.gateway;
+
+import com.safebirth.config.TwilioConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the MockSmsGateway outbox.
+ * Tests the global and per-recipient bounds, index eviction and time-based lookups.
+ */
+class MockSmsGatewayTest {
+
+    private TwilioConfig config;
+    private MockSmsGateway gateway;
+
+    @BeforeEach
+    void setUp() {
+        config = new TwilioConfig();
+        config.setMockOutboxCapacity(5);
+        config.setMockOutboxPerRecipient(3);
+        gateway = new MockSmsGateway(config);
+    }
+
+    @Nested
+    @DisplayName("Bounds")
+    class BoundsTests {
+
+        @Test
+        @DisplayName("Should keep only the newest messages up to the global capacity")
+        void testGlobalCapacity() {
+            for (int i = 1; i <= 8; i++) {
+                gateway.sendSms("+24991000000" + i, "msg " + i);
+            }
+
+            assertThat(gateway.getOutboxSize()).isEqualTo(5);
+            assertThat(gateway.getOutbox()).extracting(MockSmsGateway.OutboxMessage::message)
+                    .containsExactly("msg 4", "msg 5", "msg 6", "msg 7", "msg 8");
+            assertThat(gateway.getLastMessage().message()).isEqualTo("msg 8");
+        }
+
+        @Test
+        @DisplayName("Should keep only the newest messages per recipient")
+        void testPerRecipientCapacity() {
+            for (int i = 1; i <= 4; i++) {
+                gateway.sendSms("+249911111111", "msg " + i);
+            }
+
+            assertThat(gateway.getMessagesSentTo("+249911111111"))
+                    .extracting(MockSmsGateway.OutboxMessage::message)
+                    .containsExactly("msg 2", "msg 3", "msg 4");
+        }
+
+        @Test
+        @DisplayName("Should drop a recipient once all its messages left the global ring")
+        void testRecipientEviction() {
+            gateway.sendSms("+249911111111", "first");
+            for (int i = 0; i < 5; i++) {
+                gateway.sendSms("+249922222222", "other " + i);
+            }
+
+            assertThat(gateway.hasMessageTo("+249911111111")).isFalse();
+            assertThat(gateway.getRecipients()).containsExactly("+249922222222");
+        }
+
+        @Test
+        @DisplayName("Should clear messages and recipients")
+        void testClear() {
+            gateway.sendSms("+249911111111", "hello");
+
+            gateway.clearOutbox();
+
+            assertThat(gateway.getOutboxSize()).isZero();
+            assertThat(gateway.getLastMessage()).isNull();
+            assertThat(gateway.getRecipients()).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Lookups")
+    class LookupTests {
+
+        @Test
+        @DisplayName("Should return only messages sent at or after a time")
+        void testSince() throws InterruptedException {
+            gateway.sendSms("+249911111111", "old");
+            Thread.sleep(5);
+            LocalDateTime since = LocalDateTime.now();
+            gateway.sendSms("+249911111111", "new");
+            gateway.sendSms("+249922222222", "other");
+
+            assertThat(gateway.getMessagesSince(since)).extracting(MockSmsGateway.OutboxMessage::message)
+                    .containsExactly("new", "other");
+            assertThat(gateway.getMessagesSentTo("+249911111111", since))
+                    .extracting(MockSmsGateway.OutboxMessage::message)
+                    .containsExactly("new");
+        }
+
+        @Test
+        @DisplayName("Should keep every message from concurrent senders within the bounds")
+        void testConcurrentSends() throws InterruptedException {
+            config.setMockOutboxCapacity(1000);
+            config.setMockOutboxPerRecipient(1000);
+            MockSmsGateway concurrent = new MockSmsGateway(config);
+            ExecutorService pool = Executors.newFixedThreadPool(4);
+            CountDownLatch done = new CountDownLatch(4);
+            for (int t = 0; t < 4; t++) {
+                String phone = "+24991111111" + t;
+                pool.execute(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        concurrent.sendSms(phone, "msg " + i);
+                    }
+                    done.countDown();
+                });
+            }
+            assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+            pool.shutdown();
+
+            assertThat(concurrent.getOutboxSize()).isEqualTo(800);
+            assertThat(concurrent.getOutbox()).hasSize(800);
+            assertThat(concurrent.getMessagesSentTo("+249911111112")).hasSize(200);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.safebirth.sms.gateway;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for RouteHealth.
+ * Tests the success rate window and the latency estimate.
+ */
+class RouteHealthTest {
+
+    @Nested
+    @DisplayName("Success rate")
+    class SuccessRateTests {
+
+        @Test
+        @DisplayName("Should assume a healthy route until it has enough outcomes")
+        void testSuccessRate_BelowMinSamples() {
+            RouteHealth health = new RouteHealth(10, 4);
+            health.record(false);
+            health.record(false);
+            health.record(false);
+
+            assertThat(health.successRate()).isEqualTo(1.0);
+
+            health.record(false);
+
+            assertThat(health.successRate()).isEqualTo(0.0);
+        }
+
+        @Test
+        @DisplayName("Should only count outcomes in the window")
+        void testSuccessRate_Window() {
+            RouteHealth health = new RouteHealth(4, 1);
+            for (int i = 0; i < 4; i++) {
+                health.record(false);
+            }
+            health.record(true);
+            health.record(true);
+
+            assertThat(health.successRate()).isEqualTo(0.5);
+        }
+    }
+
+    @Nested
+    @DisplayName("Latency")
+    class LatencyTests {
+
+        @Test
+        @DisplayName("Should report zero latency without samples")
+        void testLatency_NoSamples() {
+            assertThat(new RouteHealth(10, 1).latencyMillis()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should smooth latency samples after the first")
+        void testLatency_Smoothed() {
+            RouteHealth health = new RouteHealth(10, 1);
+            health.recordLatency(100);
+            health.recordLatency(600);
+
+            assertThat(health.latencyMillis()).isEqualTo(200);
+        }
+
+        @Test
+        @DisplayName("Should replace the estimate when set directly")
+        void testLatency_Set() {
+            RouteHealth health = new RouteHealth(10, 1);
+            health.recordLatency(100);
+            health.setLatency(5000);
+
+            assertThat(health.latencyMillis()).isEqualTo(5000);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.safebirth.sms.gateway;
+
+import com.safebirth.config.SmsRoutingConfig;
+import com.safebirth.exception.SmsDeliveryException;
+import com.safebirth.sms.gateway.websocket.PendingRequestTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for RoutingSmsGateway.
+ * Tests route choice, failover and health-based switching.
+ */
+@ExtendWith(MockitoExtension.class)
+class RoutingSmsGatewayTest {
+
+    private static final PendingRequestTracker.Latency NO_LATENCY = new PendingRequestTracker.Latency(0, 0, 0, 0, 0);
+
+    @Mock
+    private ObjectProvider<TwilioSmsGateway> twilioProvider;
+
+    @Mock
+    private ObjectProvider<MockSmsGateway> mockProvider;
+
+    @Mock
+    private ObjectProvider<WebSocketSmsGateway> androidProvider;
+
+    @Mock
+    private MockSmsGateway provider;
+
+    @Mock
+    private WebSocketSmsGateway android;
+
+    private SmsRoutingConfig config;
+    private RoutingSmsGateway gateway;
+
+    @BeforeEach
+    void setUp() {
+        config = new SmsRoutingConfig();
+        config.setMinSamples(2);
+        lenient().when(mockProvider.getObject()).thenReturn(provider);
+        lenient().when(androidProvider.getIfAvailable()).thenReturn(android);
+        lenient().when(provider.getProviderName()).thenReturn("mock");
+        lenient().when(provider.isAvailable()).thenReturn(true);
+        lenient().when(provider.sendSms(anyString(), anyString())).thenReturn("MOCK_1");
+        deliveryStats(0, 0, 0);
+        gateway = new RoutingSmsGateway(config, twilioProvider, mockProvider, androidProvider);
+    }
+
+    private void deliveryStats(long confirmed, long failed, long p90Millis) {
+        PendingRequestTracker.Latency latency = confirmed == 0 ? NO_LATENCY
+                : new PendingRequestTracker.Latency(confirmed, p90Millis, p90Millis, p90Millis, p90Millis);
+        lenient().when(android.getDeliveryStats()).thenReturn(
+                new PendingRequestTracker.Stats(0, confirmed, failed, 0, 0, 0, 0, latency, NO_LATENCY));
+    }
+
+    @Nested
+    @DisplayName("Route choice")
+    class RouteChoiceTests {
+
+        @Test
+        @DisplayName("Should send through the Android phones when connected")
+        void testSendSms_PrefersAndroid() {
+            when(android.isConnected()).thenReturn(true);
+            when(android.sendSms(anyList(), anyString())).thenReturn("REQ_1");
+
+            assertThat(gateway.sendSms("+249912345678", "Hello")).isEqualTo("REQ_1");
+            assertThat(gateway.getProviderName()).isEqualTo("android");
+            verify(provider, never()).sendSms(anyString(), anyString());
+        }
+
+        @Test
+        @DisplayName("Should send through the provider when no phone is connected")
+        void testSendSms_NoPhone() {
+            when(android.isConnected()).thenReturn(false);
+
+            assertThat(gateway.sendSms("+249912345678", "Hello")).isEqualTo("MOCK_1");
+            assertThat(gateway.getProviderName()).isEqualTo("mock");
+        }
+
+        @Test
+        @DisplayName("Should not use the phones when disabled")
+        void testSendSms_AndroidDisabled() {
+            config.setAndroidEnabled(false);
+            gateway = new RoutingSmsGateway(config, twilioProvider, mockProvider, androidProvider);
+
+            assertThat(gateway.sendSms("+249912345678", "Hello")).isEqualTo("MOCK_1");
+            verify(android, never()).sendSms(anyList(), anyString());
+        }
+
+        @Test
+        @DisplayName("Should report delivery only when every route does")
+        void testReportsDelivery() {
+            when(provider.reportsDelivery()).thenReturn(true);
+            assertThat(gateway.reportsDelivery()).isFalse();
+
+            config.setAndroidEnabled(false);
+            gateway = new RoutingSmsGateway(config, twilioProvider, mockProvider, androidProvider);
+
+            assertThat(gateway.reportsDelivery()).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should expect a delivery report for a message according to the route that sent it")
+        void testReportsDeliveryPerMessage() {
+            when(provider.reportsDelivery()).thenReturn(true);
+
+            assertThat(gateway.reportsDelivery("SM123")).isTrue();
+            assertThat(gateway.reportsDelivery("WS-1234abcd")).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should name the route that sent a message for rate limiting")
+        void testProviderNamePerMessage() {
+            assertThat(gateway.getProviderName("SM123")).isEqualTo("mock");
+            assertThat(gateway.getProviderName("WS-1234abcd")).isEqualTo("android");
+        }
+    }
+
+    @Nested
+    @DisplayName("Failover")
+    class FailoverTests {
+
+        @Test
+        @DisplayName("Should fail over to the provider when the phones do not take the send")
+        void testSendSms_AndroidReturnsNull() {
+            when(android.isConnected()).thenReturn(true);
+            when(android.sendSms(anyList(), anyString())).thenReturn(null);
+
+            assertThat(gateway.sendSms("+249912345678", "Hello")).isEqualTo("MOCK_1");
+
+            RoutingSmsGateway.Stats stats = gateway.getStats();
+            assertThat(stats.routes().get("android").failedOver()).isEqualTo(1);
+            assertThat(stats.routes().get("mock").routed()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should fail over to the provider when the phones' queues are full")
+        void testSendSms_AndroidThrows() {
+            when(android.isConnected()).thenReturn(true);
+            when(android.sendSms(anyList(), anyString())).thenThrow(new SmsDeliveryException("Queue full"));
+
+            assertThat(gateway.sendSms("+249912345678", "Hello")).isEqualTo("MOCK_1");
+        }
+
+        @Test
+        @DisplayName("Should throw when every route fails")
+        void testSendSms_AllFail() {
+            when(android.isConnected()).thenReturn(false);
+            when(provider.sendSms(anyString(), anyString())).thenThrow(new RuntimeException("API down"));
+
+            assertThatThrownBy(() -> gateway.sendSms("+249912345678", "Hello"))
+                    .isInstanceOf(SmsDeliveryException.class)
+                    .hasMessageContaining("API down");
+        }
+
+        @Test
+        @DisplayName("Should send rejected bulk recipients through the next route")
+        void testSendBulk_PartialFailover() {
+            when(android.isConnected()).thenReturn(true);
+            when(android.sendSms(anyList(), anyString())).thenReturn(null);
+            BulkSendResult providerResult = BulkSendResult.empty();
+            providerResult.sent().put("+249911111111", "MOCK_1");
+            providerResult.sent().put("+249922222222", "MOCK_2");
+            when(provider.sendBulk(anyList(), eq("Alert"))).thenReturn(providerResult);
+
+            BulkSendResult result = gateway.sendBulk(List.of("+249911111111", "+249922222222"), "Alert");
+
+            assertThat(result.isComplete()).isTrue();
+            assertThat(result.sent()).containsKeys("+249911111111", "+249922222222");
+            assertThat(gateway.getStats().routes().get("android").failedOver()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Health")
+    class HealthTests {
+
+        @Test
+        @DisplayName("Should prefer the provider once the phones' confirmations mostly fail")
+        void testSendSms_AndroidUnhealthy() {
+            when(android.isConnected()).thenReturn(true);
+            deliveryStats(1, 9, 2000);
+
+            assertThat(gateway.sendSms("+249912345678", "Hello")).isEqualTo("MOCK_1");
+            assertThat(gateway.getStats().preferred()).isEqualTo("mock");
+        }
+
+        @Test
+        @DisplayName("Should prefer the provider when the phones confirm too slowly")
+        void testSendSms_AndroidSlow() {
+            when(android.isConnected()).thenReturn(true);
+            deliveryStats(10, 0, 60_000);
+
+            assertThat(gateway.sendSms("+249912345678", "Hello")).isEqualTo("MOCK_1");
+
+            RoutingSmsGateway.RouteStats androidStats = gateway.getStats().routes().get("android");
+            assertThat(androidStats.latencyMillis()).isEqualTo(60_000);
+            assertThat(androidStats.score()).isLessThan(1.0);
+        }
+
+        @Test
+        @DisplayName("Should go back to the phones once their confirmations recover")
+        void testSendSms_AndroidRecovers() {
+            when(android.isConnected()).thenReturn(true);
+            when(android.sendSms(anyList(), anyString())).thenReturn("REQ_1");
+            config.setHealthWindow(10);
+            gateway = new RoutingSmsGateway(config, twilioProvider, mockProvider, androidProvider);
+            deliveryStats(0, 10, 0);
+            assertThat(gateway.sendSms("+249912345678", "Hello")).isEqualTo("MOCK_1");
+
+            deliveryStats(10, 10, 2000);
+
+            assertThat(gateway.sendSms("+249912345678", "Hello")).isEqualTo("REQ_1");
+        }
+    }
+}
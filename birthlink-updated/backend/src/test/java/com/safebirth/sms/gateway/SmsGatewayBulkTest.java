@@ -0,0 +1,94 @@
+package com.safebirth.sms.gateway;
+
+import com.safebirth.domain.mother.Language;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the bulk send defaults on SmsGateway.
+ * Tests grouping by rendered text and per-recipient outcomes.
+ */
+class SmsGatewayBulkTest {
+
+    private static final Function<SmsRecipient, String> TEMPLATE =
+            r -> r.language() == Language.ARABIC ? "تنبيه" : "Alert";
+
+    private List<SmsRecipient> recipients(int count) {
+        List<SmsRecipient> recipients = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            recipients.add(new SmsRecipient("+2499100" + i, i % 2 == 0 ? Language.ENGLISH : Language.ARABIC));
+        }
+        return recipients;
+    }
+
+    @Nested
+    @DisplayName("Grouping")
+    class GroupingTests {
+
+        @Test
+        @DisplayName("Should group recipients by rendered text in first-seen order")
+        void testGroupByText() {
+            Map<String, List<String>> groups = SmsRecipient.groupByText(recipients(4), TEMPLATE);
+
+            assertThat(groups.keySet()).containsExactly("Alert", "تنبيه");
+            assertThat(groups.get("Alert")).containsExactly("+24991000", "+24991002");
+            assertThat(groups.get("تنبيه")).containsExactly("+24991001", "+24991003");
+        }
+
+        @Test
+        @DisplayName("Should send one bulk command per language")
+        void testSendBulk_OneSendPerLanguage() {
+            SmsGateway gateway = mock(SmsGateway.class, CALLS_REAL_METHODS);
+            when(gateway.sendBulk(anyList(), anyString())).thenAnswer(inv -> {
+                BulkSendResult result = BulkSendResult.empty();
+                inv.<List<String>>getArgument(0).forEach(to -> result.sent().put(to, "SID"));
+                return result;
+            });
+
+            BulkSendResult result = gateway.sendBulk(recipients(40), TEMPLATE);
+
+            verify(gateway, times(2)).sendBulk(anyList(), anyString());
+            verify(gateway).sendBulk(anyList(), eq("Alert"));
+            verify(gateway).sendBulk(anyList(), eq("تنبيه"));
+            assertThat(result.sent()).hasSize(40);
+            assertThat(result.isComplete()).isTrue();
+        }
+    }
+
+    @Nested
+    @DisplayName("Per-recipient outcomes")
+    class OutcomeTests {
+
+        @Test
+        @DisplayName("Should report failed recipients without failing the whole send")
+        void testSendBulk_PartialFailure() {
+            SmsGateway gateway = mock(SmsGateway.class, CALLS_REAL_METHODS);
+            when(gateway.sendSms("+1", "Hi")).thenReturn("SID-1");
+            when(gateway.sendSms("+2", "Hi")).thenThrow(new IllegalStateException("rejected"));
+            when(gateway.sendSms("+3", "Hi")).thenReturn(null);
+
+            BulkSendResult result = gateway.sendBulk(List.of("+1", "+2", "+3"), "Hi");
+
+            assertThat(result.sent()).containsOnlyKeys("+1");
+            assertThat(result.failed()).containsOnlyKeys("+2", "+3");
+            assertThat(result.failed().get("+2")).isEqualTo("rejected");
+            assertThat(result.isComplete()).isFalse();
+        }
+    }
+}
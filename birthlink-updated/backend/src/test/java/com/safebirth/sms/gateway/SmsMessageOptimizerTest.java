@@ -0,0 +1,97 @@
+package com.safebirth.sms.gateway;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for SmsSegments and SmsMessageOptimizer.
+ * Tests GSM-7/UCS-2 segment counting, emoji removal and template variant selection.
+ */
+class SmsMessageOptimizerTest {
+
+    private SmsMessageOptimizer optimizer;
+
+    @BeforeEach
+    void setUp() {
+        optimizer = new SmsMessageOptimizer();
+    }
+
+    @Nested
+    @DisplayName("Segment counting")
+    class SegmentTests {
+
+        @Test
+        @DisplayName("Should fit 160 GSM-7 characters in one segment and 153 per part after that")
+        void testGsm7() {
+            assertThat(SmsSegments.isGsm7("Reply: ACCEPT HR-0001")).isTrue();
+            assertThat(SmsSegments.count("a".repeat(160))).isEqualTo(1);
+            assertThat(SmsSegments.count("a".repeat(161))).isEqualTo(2);
+            assertThat(SmsSegments.count("a".repeat(306))).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should count GSM-7 extension characters twice")
+        void testGsm7Extension() {
+            assertThat(SmsSegments.count("€".repeat(80))).isEqualTo(1);
+            assertThat(SmsSegments.count("€".repeat(81))).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should fall back to UCS-2 for Arabic and emoji")
+        void testUcs2() {
+            assertThat(SmsSegments.isGsm7("طوارئ")).isFalse();
+            assertThat(SmsSegments.count("ب".repeat(70))).isEqualTo(1);
+            assertThat(SmsSegments.count("ب".repeat(71))).isEqualTo(2);
+            assertThat(SmsSegments.count("🚨 " + "a".repeat(80))).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Optimisation")
+    class OptimizeTests {
+
+        @Test
+        @DisplayName("Should drop emoji when that makes an English message GSM-7")
+        void testStripsEmoji() {
+            String body = "🚨 EMERGENCY Zone 3\n📞 Mother: +249912345678\nReply: ACCEPT HR-0001 " + "x".repeat(30);
+
+            String optimized = optimizer.optimize(body);
+
+            assertThat(optimized).startsWith("EMERGENCY Zone 3\nMother: +249912345678");
+            assertThat(SmsSegments.count(body)).isEqualTo(2);
+            assertThat(SmsSegments.count(optimized)).isEqualTo(1);
+            assertThat(optimizer.getStats()).isEqualTo(new SmsMessageOptimizer.Stats(1, 1, 2, 1));
+        }
+
+        @Test
+        @DisplayName("Should keep emoji when removing them saves nothing")
+        void testKeepsEmojiWhenFree() {
+            String body = "✅ Registered";
+
+            assertThat(optimizer.optimize(body)).isEqualTo(body);
+            assertThat(optimizer.getStats().rewritten()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should replace typographic punctuation with GSM-7 equivalents")
+        void testPunctuation() {
+            String body = "Volunteer’s on the way — stay calm " + "x".repeat(100);
+
+            assertThat(optimizer.optimize(body)).startsWith("Volunteer's on the way - stay calm");
+        }
+
+        @Test
+        @DisplayName("Should prefer the first variant unless a later one needs fewer segments")
+        void testChooseVariant() {
+            String full = "ب".repeat(80);
+            String shortened = "ب".repeat(60);
+
+            assertThat(optimizer.choose(full, shortened)).isEqualTo(shortened);
+            assertThat(optimizer.choose("Full text", "Short")).isEqualTo("Full text");
+        }
+    }
+}
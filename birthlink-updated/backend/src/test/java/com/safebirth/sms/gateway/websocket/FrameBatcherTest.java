@@ -0,0 +1,66 @@
+package com.safebirth.sms.gateway.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for FrameBatcher.
+ * Tests flush scheduling, batch wrapping and the buffer bound.
+ */
+class FrameBatcherTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private FrameBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        batcher = new FrameBatcher(4, 3);
+    }
+
+    private String frame(int seq) {
+        return "{\"type\":\"send_sms\",\"seq\":" + seq + "}";
+    }
+
+    @Test
+    @DisplayName("Should ask for one flush and write a lone frame unwrapped")
+    void testLoneFrame() {
+        assertThat(batcher.offer(List.of(frame(1)))).isEqualTo(FrameBatcher.Offer.SCHEDULE_FLUSH);
+
+        assertThat(batcher.next()).isEqualTo(frame(1));
+        assertThat(batcher.next()).isNull();
+        assertThat(batcher.offer(List.of(frame(2)))).isEqualTo(FrameBatcher.Offer.SCHEDULE_FLUSH);
+    }
+
+    @Test
+    @DisplayName("Should coalesce frames queued behind a flush into batches of the limit, in order")
+    void testCoalesce() throws Exception {
+        batcher.offer(List.of(frame(1)));
+        assertThat(batcher.offer(List.of(frame(2), frame(3)))).isEqualTo(FrameBatcher.Offer.QUEUED);
+        batcher.offer(List.of(frame(4)));
+
+        JsonNode batch = mapper.readTree(batcher.next());
+        assertThat(batch.get("type").asText()).isEqualTo("batch");
+        assertThat(batch.get("frames")).extracting(f -> f.get("seq").asInt()).containsExactly(1, 2, 3);
+        assertThat(batcher.next()).isEqualTo(frame(4));
+        assertThat(batcher.next()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should refuse frames once full but take a replay into an empty buffer")
+    void testBound() {
+        batcher.offer(List.of(frame(1), frame(2), frame(3), frame(4), frame(5)));
+        assertThat(batcher.size()).isEqualTo(5);
+
+        assertThat(batcher.offer(List.of(frame(6)))).isEqualTo(FrameBatcher.Offer.FULL);
+
+        batcher.clear();
+        assertThat(batcher.offer(List.of(frame(6)))).isEqualTo(FrameBatcher.Offer.SCHEDULE_FLUSH);
+    }
+}
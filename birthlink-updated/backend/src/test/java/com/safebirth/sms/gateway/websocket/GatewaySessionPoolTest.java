@@ -0,0 +1,215 @@
+package com.safebirth.sms.gateway.websocket;
+
+import com.safebirth.config.SmsGatewayPoolConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for GatewaySessionPool.
+ * Tests consistent-hash placement, in-flight limits, failover and device identity.
+ */
+class GatewaySessionPoolTest {
+
+    private SmsGatewayPoolConfig config;
+    private final AtomicLong clock = new AtomicLong();
+    private GatewaySessionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        config = new SmsGatewayPoolConfig();
+        config.setMaxInFlightPerDevice(1000);
+        pool = new GatewaySessionPool(config, clock::get);
+    }
+
+    private WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getHandshakeHeaders()).thenReturn(new HttpHeaders());
+        return session;
+    }
+
+    private List<String> phones(int count) {
+        return IntStream.range(0, count).mapToObj(i -> String.format("+2499%08d", i)).toList();
+    }
+
+    private String deviceFor(String phone) {
+        return pool.assign(List.of(phone)).keySet().iterator().next();
+    }
+
+    @Nested
+    @DisplayName("Placement")
+    class PlacementTests {
+
+        @Test
+        @DisplayName("Should send each recipient to exactly one device and spread recipients across devices")
+        void testSpread() {
+            pool.add("A", session("s1"));
+            pool.add("B", session("s2"));
+            pool.add("C", session("s3"));
+
+            Map<String, List<String>> assignment = pool.assign(phones(300));
+
+            assertThat(assignment.values().stream().mapToInt(List::size).sum()).isEqualTo(300);
+            assertThat(assignment).containsOnlyKeys("A", "B", "C");
+            assignment.values().forEach(shard -> assertThat(shard.size()).isBetween(50, 150));
+        }
+
+        @Test
+        @DisplayName("Should keep a recipient on the same device while the pool is stable")
+        void testStable() {
+            pool.add("A", session("s1"));
+            pool.add("B", session("s2"));
+
+            String first = deviceFor("+249912345678");
+
+            assertThat(deviceFor("+249912345678")).isEqualTo(first);
+        }
+
+        @Test
+        @DisplayName("Should only move recipients to a device that joins")
+        void testJoinMovesOnlyToNewDevice() {
+            pool.add("A", session("s1"));
+            pool.add("B", session("s2"));
+            List<String> phones = phones(200);
+            Map<String, String> before = phones.stream()
+                    .collect(Collectors.toMap(p -> p, GatewaySessionPoolTest.this::deviceFor));
+
+            pool.add("C", session("s3"));
+
+            phones.forEach(p -> {
+                String after = deviceFor(p);
+                assertThat(after).isIn(before.get(p), "C");
+            });
+        }
+    }
+
+    @Nested
+    @DisplayName("Load and failover")
+    class LoadTests {
+
+        @Test
+        @DisplayName("Should skip a device at its in-flight limit")
+        void testInFlightLimit() {
+            config.setMaxInFlightPerDevice(2);
+            pool.add("A", session("s1"));
+            pool.add("B", session("s2"));
+            String phone = "+249912345678";
+            String home = deviceFor(phone);
+            pool.acquire(home, "WS-1", 2);
+
+            assertThat(deviceFor(phone)).isNotEqualTo(home);
+
+            pool.release(home, "WS-1");
+            assertThat(deviceFor(phone)).isEqualTo(home);
+        }
+
+        @Test
+        @DisplayName("Should leave recipients unassigned when every device is full")
+        void testAllFull() {
+            config.setMaxInFlightPerDevice(1);
+            pool.add("A", session("s1"));
+            pool.add("B", session("s2"));
+            pool.acquire("A", "WS-1", 5);
+            pool.acquire("B", "WS-2", 2);
+
+            assertThat(pool.assign(phones(3))).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should count parts per recipient against the limit")
+        void testPartsLimit() {
+            config.setMaxInFlightPerDevice(6);
+            pool.add("A", session("s1"));
+
+            Map<String, List<String>> assignment = pool.assign(phones(3), 3, Set.of(), Set.of());
+
+            assertThat(assignment.get("A")).hasSize(2);
+        }
+
+        @Test
+        @DisplayName("Should give an idle device a message over the limit")
+        void testIdleDeviceTakesLargeMessage() {
+            config.setMaxInFlightPerDevice(2);
+            pool.add("A", session("s1"));
+
+            assertThat(pool.assign(phones(1), 3, Set.of(), Set.of())).containsOnlyKeys("A");
+        }
+
+        @Test
+        @DisplayName("Should stop counting sends past the in-flight timeout and their send time")
+        void testInFlightTimeout() {
+            config.setDevicePartsPerMinute(30);
+            pool.add("A", session("s1"));
+            pool.acquire("A", "WS-1", 3);
+
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(config.getInFlightTimeoutSeconds() + 1));
+            assertThat(pool.inFlight("A")).isEqualTo(3);
+
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(6));
+            assertThat(pool.inFlight("A")).isZero();
+        }
+
+        @Test
+        @DisplayName("Should route around a closed session and a removed device")
+        void testFailover() {
+            WebSocketSession a = session("s1");
+            pool.add("A", a);
+            pool.add("B", session("s2"));
+
+            when(a.isOpen()).thenReturn(false);
+            assertThat(pool.assign(phones(50))).containsOnlyKeys("B");
+
+            assertThat(pool.remove("A", a)).isTrue();
+            assertThat(pool.getConnectedCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should ignore the close of a session already replaced by a reconnect")
+        void testReconnectReplacesSession() {
+            WebSocketSession old = session("s1");
+            WebSocketSession current = session("s2");
+            pool.add("A", old);
+            pool.add("A", current);
+
+            assertThat(pool.remove("A", old)).isFalse();
+            assertThat(pool.session("A")).isSameAs(current);
+        }
+
+        @Test
+        @DisplayName("Should return no assignment when no device is connected")
+        void testEmpty() {
+            assertThat(pool.assign(phones(3))).isEmpty();
+            assertThat(pool.isConnected()).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("Should identify a device by its handshake header, else by session id")
+    void testDeviceId() {
+        WebSocketSession anonymous = session("s1");
+        WebSocketSession named = session("s2");
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(GatewaySessionPool.DEVICE_ID_HEADER, "phone-7");
+        when(named.getHandshakeHeaders()).thenReturn(headers);
+
+        assertThat(GatewaySessionPool.deviceId(anonymous)).isEqualTo("s1");
+        assertThat(GatewaySessionPool.deviceId(named)).isEqualTo("phone-7");
+    }
+}
@@ -0,0 +1,105 @@
+package com.safebirth.sms.gateway.websocket;
+
+import com.safebirth.sms.gateway.websocket.dto.GatewayHello;
+import com.safebirth.sms.gateway.websocket.dto.SendSmsCommand;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for GatewayStream.
+ * Tests numbering, cumulative acks, duplicate detection and the resume handshake.
+ */
+class GatewayStreamTest {
+
+    private GatewayStream stream;
+
+    @BeforeEach
+    void setUp() {
+        stream = new GatewayStream(3);
+    }
+
+    private SendSmsCommand command(String requestId) {
+        return SendSmsCommand.create(requestId, "+249912345678", "hello");
+    }
+
+    private GatewayHello hello(String streamId, long ack) {
+        return new GatewayHello(GatewayHello.TYPE, GatewayHello.VERSION, streamId, ack, null, null);
+    }
+
+    @Test
+    @DisplayName("Should number commands and replay only those past the device's ack")
+    void testResumeReplaysUnacknowledged() {
+        String id = stream.resume("s1", hello(null, 0)).reply().stream();
+        stream.send(command("WS-1"));
+        stream.send(command("WS-2"));
+        stream.send(command("WS-3"));
+
+        GatewayStream.Resume resume = stream.resume("s2", hello(id, 1));
+
+        assertThat(resume.reply().resumed()).isTrue();
+        assertThat(resume.replay()).extracting(SendSmsCommand::seq).containsExactly(2L, 3L);
+        assertThat(stream.isBoundTo("s2")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should renumber unacknowledged commands when the device does not know the stream")
+    void testUnknownStreamStartsOver() {
+        String id = stream.resume("s1", hello(null, 0)).reply().stream();
+        stream.send(command("WS-1"));
+        stream.send(command("WS-2"));
+        stream.acknowledge(1);
+        stream.receive(7);
+
+        GatewayStream.Resume resume = stream.resume("s2", hello(null, 0));
+
+        assertThat(resume.reply().resumed()).isFalse();
+        assertThat(resume.reply().stream()).isNotEqualTo(id);
+        assertThat(resume.reply().ack()).isZero();
+        assertThat(resume.replay()).extracting(SendSmsCommand::requestId).containsExactly("WS-2");
+        assertThat(resume.replay()).extracting(SendSmsCommand::seq).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Should accept an inbound frame once and tolerate gaps")
+    void testReceive() {
+        assertThat(stream.receive(1)).isTrue();
+        assertThat(stream.receive(3)).isTrue();
+        assertThat(stream.receive(3)).isFalse();
+        assertThat(stream.receive(2)).isFalse();
+        assertThat(stream.lastReceived()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should hold back later frames after a refused one until it is replayed")
+    void testStall() {
+        stream.receive(1);
+        assertThat(stream.isNew(2)).isTrue();
+        stream.stall(2);
+
+        assertThat(stream.receive(3)).isFalse();
+        assertThat(stream.lastReceived()).isEqualTo(1);
+        assertThat(stream.replayRequest().ack()).isEqualTo(1);
+        assertThat(stream.replayRequest().resumed()).isTrue();
+
+        assertThat(stream.receive(2)).isTrue();
+        assertThat(stream.replayRequest()).isNull();
+        assertThat(stream.receive(3)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should bound the replay buffer and let a cancelled command be skipped")
+    void testBoundAndCancel() {
+        for (int i = 1; i <= 5; i++) {
+            stream.send(command("WS-" + i));
+        }
+        assertThat(stream.unacknowledged()).isEqualTo(3);
+
+        stream.cancel("WS-4");
+
+        assertThat(stream.resume("s1", hello(null, 0)).replay())
+                .extracting(SendSmsCommand::requestId).containsExactly("WS-3", "WS-5");
+    }
+}
@@ -0,0 +1,153 @@
+package com.safebirth.sms.gateway.websocket;
+
+import com.safebirth.config.SmsGatewayPoolConfig;
+import com.safebirth.sms.gateway.websocket.PendingRequestTracker.PendingRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for PendingRequestTracker.
+ * Tests deadline expiry, the size bound, session removal and statistics.
+ */
+class PendingRequestTrackerTest {
+
+    private SmsGatewayPoolConfig config;
+    private final AtomicLong clock = new AtomicLong();
+    private PendingRequestTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        config = new SmsGatewayPoolConfig();
+        config.setConfirmTimeoutSeconds(60);
+        config.setMaxPending(3);
+        tracker = new PendingRequestTracker(config, clock::get);
+    }
+
+    private PendingRequest track(String requestId, String sessionId, int attempt) {
+        return tracker.track(requestId, "device-" + sessionId, sessionId, List.of("+249912345678"), "hello", attempt);
+    }
+
+    private void advanceSeconds(long seconds) {
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    @Nested
+    @DisplayName("Expiry")
+    class ExpiryTests {
+
+        @Test
+        @DisplayName("Should expire only commands past their deadline, earliest first")
+        void testExpireInDeadlineOrder() {
+            track("WS-1", "s1", 1);
+            advanceSeconds(10);
+            track("WS-2", "s1", 1);
+            advanceSeconds(10);
+            track("WS-3", "s1", 1);
+
+            advanceSeconds(55);
+
+            assertThat(tracker.expire()).extracting(PendingRequest::requestId).containsExactly("WS-1", "WS-2");
+            assertThat(tracker.getStats().inFlight()).isEqualTo(1);
+            assertThat(tracker.getStats().timedOut()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should not expire a confirmed command")
+        void testConfirmedNotExpired() {
+            track("WS-1", "s1", 1);
+            tracker.confirm("WS-1", true);
+
+            advanceSeconds(120);
+
+            assertThat(tracker.expire()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should count a confirmation that arrives after the timeout as late")
+        void testLateConfirmation() {
+            track("WS-1", "s1", 1);
+            advanceSeconds(61);
+            tracker.expire();
+
+            assertThat(tracker.confirm("WS-1", true)).isNull();
+            assertThat(tracker.getStats().lateConfirmations()).isEqualTo(1);
+            assertThat(tracker.getStats().confirmed()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should extend the deadline by the time the device needs for its queued parts")
+        void testDeadlineCoversQueuedParts() {
+            config.setDevicePartsPerMinute(30);
+            tracker.track("WS-1", "WS-1", "device-s1", "s1", List.of("+249912345678"), "hello", 1, 45);
+
+            advanceSeconds(61);
+            assertThat(tracker.expire()).isEmpty();
+
+            advanceSeconds(90);
+            assertThat(tracker.expire()).extracting(PendingRequest::requestId).containsExactly("WS-1");
+        }
+    }
+
+    @Nested
+    @DisplayName("Bounds and sessions")
+    class BoundsTests {
+
+        @Test
+        @DisplayName("Should drop the command closest to its deadline when full")
+        void testDropWhenFull() {
+            track("WS-1", "s1", 1);
+            advanceSeconds(1);
+            track("WS-2", "s1", 1);
+            track("WS-3", "s1", 1);
+
+            PendingRequest dropped = track("WS-4", "s1", 1);
+
+            assertThat(dropped.requestId()).isEqualTo("WS-1");
+            assertThat(tracker.getStats().inFlight()).isEqualTo(3);
+            assertThat(tracker.getStats().dropped()).isEqualTo(1);
+            assertThat(tracker.confirm("WS-1", true)).isNull();
+        }
+
+        @Test
+        @DisplayName("Should remove only the commands of a closed session")
+        void testRemoveSession() {
+            track("WS-1", "s1", 1);
+            track("WS-2", "s2", 1);
+            track("WS-3", "s1", 1);
+
+            assertThat(tracker.removeSession("s1")).extracting(PendingRequest::requestId)
+                    .containsExactlyInAnyOrder("WS-1", "WS-3");
+            assertThat(tracker.getStats().inFlight()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Should record outcome counts, resends and confirmation latency")
+    void testStats() {
+        track("WS-1", "s1", 1);
+        track("WS-2", "s1", 2);
+        track("WS-3", "s1", 1);
+        advanceSeconds(2);
+        tracker.confirm("WS-1", true);
+        tracker.confirm("WS-2", false);
+        tracker.cancel("WS-3");
+
+        PendingRequestTracker.Stats stats = tracker.getStats();
+
+        assertThat(stats.inFlight()).isZero();
+        assertThat(stats.confirmed()).isEqualTo(1);
+        assertThat(stats.failed()).isEqualTo(1);
+        assertThat(stats.retried()).isEqualTo(1);
+        assertThat(stats.confirmedLatency().count()).isEqualTo(1);
+        assertThat(stats.confirmedLatency().p50Millis()).isBetween(1990L, 2010L);
+        assertThat(stats.failedLatency().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,419 @@
+package com.safebirth.sms.gateway.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safebirth.config.SmsGatewayPoolConfig;
+import com.safebirth.domain.mother.Language;
+import com.safebirth.exception.SmsDeliveryException;
+import com.safebirth.sms.gateway.SmsDeliveryReport;
+import com.safebirth.sms.conversation.ConversationService;
+import com.safebirth.sms.handler.SmsCommandHandler;
+import com.safebirth.sms.inbound.InboundDeduplicator;
+import com.safebirth.sms.inbound.InboundSmsService;
+import com.safebirth.sms.inbound.KeyedMailboxExecutor;
+import com.safebirth.sms.parser.CommandType;
+import com.safebirth.sms.parser.SmsCommand;
+import com.safebirth.sms.parser.SmsParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the SmsGatewayWebSocketHandler send path.
+ * Tests that slow devices do not block callers, full queues route elsewhere and fail fast,
+ * failed writes disconnect the device, protocol v2 streams resume after a reconnect, delivery
+ * reports are published, batching devices exchange batch frames, and incoming SMS are only
+ * acknowledged once queued or stored.
+ */
+class SmsGatewayWebSocketHandlerTest {
+
+    private SmsGatewayPoolConfig config;
+    private SmsGatewayWebSocketHandler handler;
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final SmsParser smsParser = mock(SmsParser.class);
+    private final SmsCommandHandler smsCommandHandler = mock(SmsCommandHandler.class);
+    private final KeyedMailboxExecutor inboundSmsMailbox = mock(KeyedMailboxExecutor.class);
+    private final InboundSmsService inboundSmsService = mock(InboundSmsService.class);
+    private final CountDownLatch releaseWrites = new CountDownLatch(1);
+    private final AtomicInteger sessions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        config = new SmsGatewayPoolConfig();
+        config.setOutboundQueuePerDevice(1);
+        config.setWriterThreads(2);
+        handler = newHandler();
+    }
+
+    private SmsGatewayWebSocketHandler newHandler() {
+        return new SmsGatewayWebSocketHandler(new ObjectMapper(), smsParser,
+                smsCommandHandler, mock(ConversationService.class),
+                inboundSmsMailbox, mock(InboundDeduplicator.class), inboundSmsService, config, eventPublisher);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseWrites.countDown();
+        handler.shutdown();
+    }
+
+    private WebSocketSession connect(String deviceId) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(GatewaySessionPool.DEVICE_ID_HEADER, deviceId);
+        when(session.getId()).thenReturn("session-" + deviceId + "-" + sessions.incrementAndGet());
+        when(session.isOpen()).thenReturn(true);
+        when(session.getHandshakeHeaders()).thenReturn(headers);
+        handler.afterConnectionEstablished(session);
+        return session;
+    }
+
+    private void blockWrites(WebSocketSession session) throws IOException {
+        doAnswer(invocation -> {
+            releaseWrites.await();
+            return null;
+        }).when(session).sendMessage(any(TextMessage.class));
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("Should queue sends to a slow device without blocking and overflow to the next device")
+    void testSlowDeviceOverflows() throws Exception {
+        WebSocketSession first = connect("A");
+        WebSocketSession second = connect("B");
+        blockWrites(first);
+        blockWrites(second);
+
+        assertThat(handler.sendSms("+249912345678", "one")).isNotNull();
+        assertThat(handler.sendSms("+249912345678", "two")).isNotNull();
+
+        releaseWrites.countDown();
+        verify(first, timeout(2000)).sendMessage(any(TextMessage.class));
+        verify(second, timeout(2000)).sendMessage(any(TextMessage.class));
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("Should fail fast when every device's send queue is full")
+    void testAllQueuesFull() throws Exception {
+        blockWrites(connect("A"));
+
+        handler.sendSms("+249912345678", "one");
+
+        assertThatThrownBy(() -> handler.sendSms("+249912345678", "two"))
+                .isInstanceOf(SmsDeliveryException.class);
+        assertThat(handler.getDeliveryStats().inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should refuse a message that does not fit within any device's in-flight limit")
+    void testAllDevicesAtInFlightLimit() throws Exception {
+        config.setMaxInFlightPerDevice(2);
+        connect("A");
+        handler.sendSms("+249912345678", "one");
+
+        assertThatThrownBy(() -> handler.sendSms(List.of("+249912345679", "+249912345670"), "two"))
+                .isInstanceOf(SmsDeliveryException.class)
+                .hasMessageContaining("in-flight limit");
+        assertThat(handler.getDeliveryStats().inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should report every recipient undelivered under the returned id when giving up")
+    void testGiveUpReportsUndelivered() throws Exception {
+        config.setConfirmTimeoutSeconds(0);
+        config.setDevicePartsPerMinute(Integer.MAX_VALUE);
+        config.setMaxSendAttempts(1);
+        connect("A");
+        String requestId = handler.sendSms(List.of("+249912345678", "+249912345679"), "alert");
+
+        handler.expirePendingRequests();
+
+        ArgumentCaptor<SmsDeliveryReport> reports = ArgumentCaptor.forClass(SmsDeliveryReport.class);
+        verify(eventPublisher, times(2)).publishEvent(reports.capture());
+        assertThat(reports.getAllValues()).extracting(SmsDeliveryReport::recipient)
+                .containsExactlyInAnyOrder("+249912345678", "+249912345679");
+        assertThat(reports.getAllValues()).allSatisfy(report -> {
+            assertThat(report.providerMessageId()).isEqualTo(requestId);
+            assertThat(report.delivered()).isFalse();
+        });
+    }
+
+    @Test
+    @DisplayName("Should report a failover that no device can take as undelivered under the original id")
+    void testFailoverNotPlacedReportsUndelivered() throws Exception {
+        WebSocketSession session = connect("A");
+        String requestId = handler.sendSms("+249912345678", "alert");
+
+        handler.afterConnectionClosed(session, CloseStatus.GOING_AWAY);
+
+        ArgumentCaptor<SmsDeliveryReport> report = ArgumentCaptor.forClass(SmsDeliveryReport.class);
+        verify(eventPublisher).publishEvent(report.capture());
+        assertThat(report.getValue().providerMessageId()).isEqualTo(requestId);
+        assertThat(report.getValue().delivered()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should return null when no device is connected")
+    void testNoDevice() {
+        assertThat(handler.sendSms("+249912345678", "hello")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should answer the first locally acknowledged emergency and process repeats without a reply")
+    void testAutoAckedEmergencyRepeatsNotAnswered() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(inboundSmsMailbox).execute(anyString(), any(Runnable.class));
+        when(smsParser.parse(anyString(), anyString())).thenAnswer(invocation -> new SmsCommand(CommandType.EMERGENCY,
+                invocation.getArgument(0), Language.ENGLISH, invocation.getArgument(1), Map.of()));
+        when(smsCommandHandler.handle(any())).thenReturn("EMERGENCY received! Case: HR-1");
+        WebSocketSession session = connect("A");
+        String frame = "{\"type\":\"incoming_sms\",\"sender\":\"+249912345678\",\"message\":\"SOS\","
+                + "\"autoAcked\":true,\"messageId\":\"";
+
+        handler.handleTextMessage(session, new TextMessage(frame + "m1\"}"));
+        handler.handleTextMessage(session, new TextMessage(frame + "m2\"}"));
+
+        verify(smsCommandHandler, timeout(2000).times(2)).handle(any());
+        assertThat(handler.getDeliveryStats().inFlight()).isEqualTo(1);
+    }
+
+    @Nested
+    @DisplayName("Protocol v2")
+    class ResumeTests {
+
+        private final ObjectMapper mapper = new ObjectMapper();
+
+        @BeforeEach
+        void roomyQueues() {
+            handler.shutdown();
+            config.setOutboundQueuePerDevice(100);
+            handler = newHandler();
+        }
+
+        private List<JsonNode> capture(WebSocketSession session) throws IOException {
+            List<JsonNode> frames = new CopyOnWriteArrayList<>();
+            doAnswer(invocation -> {
+                TextMessage message = invocation.getArgument(0);
+                frames.add(mapper.readTree(message.getPayload()));
+                return null;
+            }).when(session).sendMessage(any(TextMessage.class));
+            return frames;
+        }
+
+        private List<JsonNode> unbatched(List<JsonNode> frames) {
+            List<JsonNode> result = new ArrayList<>();
+            for (JsonNode frame : frames) {
+                if ("batch".equals(frame.get("type").asText())) {
+                    frame.get("frames").forEach(result::add);
+                } else {
+                    result.add(frame);
+                }
+            }
+            return result;
+        }
+
+        private void receive(WebSocketSession session, String json) throws Exception {
+            handler.handleTextMessage(session, new TextMessage(json));
+        }
+
+        private JsonNode await(List<JsonNode> frames, String type) throws InterruptedException {
+            for (int i = 0; i < 200; i++) {
+                for (JsonNode frame : frames) {
+                    if (type.equals(frame.get("type").asText())) {
+                        return frame;
+                    }
+                }
+                Thread.sleep(10);
+            }
+            throw new AssertionError("No " + type + " frame in " + frames);
+        }
+
+        @Test
+        @DisplayName("Should keep a command across a reconnect and replay it on resume")
+        void testReplayAfterReconnect() throws Exception {
+            WebSocketSession first = connect("A");
+            List<JsonNode> firstFrames = capture(first);
+            receive(first, "{\"type\":\"hello\",\"version\":2,\"ack\":0}");
+            String streamId = await(firstFrames, "hello").get("stream").asText();
+            String requestId = handler.sendSms("+249912345678", "help is coming");
+            assertThat(await(firstFrames, "send_sms").get("seq").asLong()).isEqualTo(1);
+
+            handler.afterConnectionClosed(first, CloseStatus.GOING_AWAY);
+            assertThat(handler.getDeliveryStats().inFlight()).isEqualTo(1);
+
+            WebSocketSession second = connect("A");
+            List<JsonNode> secondFrames = capture(second);
+            receive(second, "{\"type\":\"hello\",\"version\":2,\"stream\":\"" + streamId + "\",\"ack\":0}");
+
+            assertThat(await(secondFrames, "hello").get("resumed").asBoolean()).isTrue();
+            JsonNode replayed = await(secondFrames, "send_sms");
+            assertThat(replayed.get("request_id").asText()).isEqualTo(requestId);
+            assertThat(replayed.get("seq").asLong()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should process a replayed confirmation once and acknowledge it")
+        void testDuplicateFrameDropped() throws Exception {
+            WebSocketSession session = connect("A");
+            List<JsonNode> frames = capture(session);
+            receive(session, "{\"type\":\"hello\",\"version\":2,\"ack\":0}");
+            String requestId = handler.sendSms("+249912345678", "hello");
+            String confirmation = "{\"type\":\"sms_sent\",\"request_id\":\"" + requestId
+                    + "\",\"status\":\"success\",\"failure_count\":0,\"seq\":1}";
+
+            receive(session, confirmation);
+            receive(session, confirmation);
+
+            assertThat(handler.getDeliveryStats().confirmed()).isEqualTo(1);
+            assertThat(handler.getDeliveryStats().lateConfirmations()).isZero();
+            assertThat(await(frames, "ack").get("ack").asLong()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should publish a delivery report and acknowledge it")
+        void testDeliveryReportPublished() throws Exception {
+            WebSocketSession session = connect("A");
+            List<JsonNode> frames = capture(session);
+            receive(session, "{\"type\":\"hello\",\"version\":2,\"ack\":0}");
+
+            receive(session, "{\"type\":\"sms_delivered\",\"request_id\":\"WS-1\","
+                    + "\"recipient\":\"+249912345678\",\"status\":\"failed\",\"seq\":1}");
+
+            ArgumentCaptor<SmsDeliveryReport> report = ArgumentCaptor.forClass(SmsDeliveryReport.class);
+            verify(eventPublisher).publishEvent(report.capture());
+            assertThat(report.getValue().providerMessageId()).isEqualTo("WS-1");
+            assertThat(report.getValue().recipient()).isEqualTo("+249912345678");
+            assertThat(report.getValue().delivered()).isFalse();
+            assertThat(await(frames, "ack").get("ack").asLong()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should store and acknowledge an incoming SMS the mailbox refuses")
+        void testIncomingSmsStoredWhenQueueFull() throws Exception {
+            doThrow(new RejectedExecutionException("full")).when(inboundSmsMailbox).execute(anyString(), any(Runnable.class));
+            WebSocketSession session = connect("A");
+            List<JsonNode> frames = capture(session);
+            receive(session, "{\"type\":\"hello\",\"version\":2,\"ack\":0}");
+
+            receive(session, "{\"type\":\"incoming_sms\",\"sender\":\"+249912345678\",\"message\":\"SOS\","
+                    + "\"messageId\":\"m1\",\"seq\":1}");
+
+            verify(inboundSmsService).receive(eq("+249912345678"), isNull(), eq("SOS"), eq("m1"));
+            assertThat(await(frames, "ack").get("ack").asLong()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should not acknowledge an incoming SMS that could not be handed off and ask for a replay")
+        void testIncomingSmsReplayedWhenNotHandedOff() throws Exception {
+            doThrow(new RejectedExecutionException("full")).when(inboundSmsMailbox).execute(anyString(), any(Runnable.class));
+            when(inboundSmsService.receive(anyString(), any(), anyString(), any()))
+                    .thenThrow(new IllegalStateException("database down"));
+            WebSocketSession session = connect("A");
+            List<JsonNode> frames = capture(session);
+            receive(session, "{\"type\":\"hello\",\"version\":2,\"ack\":0}");
+            String first = "{\"type\":\"incoming_sms\",\"sender\":\"+249912345678\",\"message\":\"SOS\","
+                    + "\"messageId\":\"m1\",\"seq\":1}";
+            String second = "{\"type\":\"incoming_sms\",\"sender\":\"+249987654321\",\"message\":\"HELP\","
+                    + "\"messageId\":\"m2\",\"seq\":2}";
+
+            receive(session, first);
+            receive(session, second);
+
+            assertThat(await(frames, "ack").get("ack").asLong()).isZero();
+            verify(inboundSmsMailbox, never()).execute(eq("+249987654321"), any(Runnable.class));
+
+            frames.clear();
+            handler.requestReplays();
+            JsonNode request = await(frames, "hello");
+            assertThat(request.get("resumed").asBoolean()).isTrue();
+            assertThat(request.get("ack").asLong()).isZero();
+
+            doAnswer(invocation -> null).when(inboundSmsMailbox).execute(anyString(), any(Runnable.class));
+            frames.clear();
+            receive(session, "{\"type\":\"batch\",\"frames\":[" + first + "," + second + "]}");
+
+            assertThat(await(frames, "ack").get("ack").asLong()).isEqualTo(2);
+            verify(inboundSmsMailbox).execute(eq("+249987654321"), any(Runnable.class));
+        }
+
+        @Test
+        @DisplayName("Should negotiate the smaller batch size and answer a batch with one ack")
+        void testBatchNegotiatedAndAcknowledged() throws Exception {
+            config.setBatchMaxFrames(20);
+            WebSocketSession session = connect("A");
+            List<JsonNode> frames = capture(session);
+            receive(session, "{\"type\":\"hello\",\"version\":2,\"ack\":0,\"batch\":50}");
+            assertThat(await(frames, "hello").get("batch").asInt()).isEqualTo(20);
+            String first = handler.sendSms("+249912345678", "one");
+            String second = handler.sendSms("+249912345679", "two");
+
+            receive(session, "{\"type\":\"batch\",\"frames\":["
+                    + "{\"type\":\"sms_sent\",\"request_id\":\"" + first + "\",\"status\":\"success\",\"seq\":1},"
+                    + "{\"type\":\"sms_sent\",\"request_id\":\"" + second + "\",\"status\":\"success\",\"seq\":2}]}");
+
+            assertThat(handler.getDeliveryStats().confirmed()).isEqualTo(2);
+            Thread.sleep(100);
+            assertThat(unbatched(frames).stream()
+                    .filter(frame -> "ack".equals(frame.get("type").asText()))
+                    .map(frame -> frame.get("ack").asLong()))
+                    .containsExactly(2L);
+        }
+
+        @Test
+        @DisplayName("Should leave batching off for a device that does not ask for it")
+        void testBatchOff() throws Exception {
+            WebSocketSession session = connect("A");
+            List<JsonNode> frames = capture(session);
+            receive(session, "{\"type\":\"hello\",\"version\":2,\"ack\":0}");
+
+            assertThat(await(frames, "hello").has("batch")).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("Should disconnect a device whose write fails")
+    void testFailedWriteClosesSession() throws Exception {
+        WebSocketSession session = connect("A");
+        doThrow(new IOException("broken pipe")).when(session).sendMessage(any(TextMessage.class));
+
+        handler.sendSms("+249912345678", "hello");
+
+        verify(session, timeout(2000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+}
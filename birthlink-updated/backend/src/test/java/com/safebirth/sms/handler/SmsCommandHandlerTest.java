@@ -194,6 +194,75 @@ class SmsCommandHandlerTest {
         }
     }
 
+    @Nested
+    @DisplayName("Emergency Coalescing Tests")
+    class EmergencyCoalescingTests {
+
+        private static final String HOUSEHOLD_PHONE = "+1234567899";
+
+        @Test
+        @DisplayName("Should attach a repeat emergency to the open case without alerting again")
+        void testRepeatEmergency_AttachesToOpenCase() {
+            Mother mother = createMother(MOTHER_PHONE, "A", "3");
+            createVolunteer(VOLUNTEER_PHONE, "Fatima", SkillType.MIDWIFE, "3");
+            SmsCommand command = createCommand(CommandType.EMERGENCY, MOTHER_PHONE, Language.ENGLISH, Map.of());
+
+            commandHandler.handle(command);
+            int alerts = mockSmsGateway.getMessagesSentTo(VOLUNTEER_PHONE).size();
+            String response = commandHandler.handle(command);
+
+            HelpRequest open = helpRequestRepository.findByMotherId(mother.getId()).get(0);
+            assertThat(response).contains("We already have your case " + open.getCaseId());
+            assertThat(helpRequestRepository.findByMotherId(mother.getId())).hasSize(1);
+            assertThat(open.getRepeatCount()).isEqualTo(1);
+            assertThat(mockSmsGateway.getMessagesSentTo(VOLUNTEER_PHONE)).hasSize(alerts);
+        }
+
+        @Test
+        @DisplayName("Should open a new case once the previous one is closed")
+        void testEmergency_AfterCaseClosed() {
+            Mother mother = createMother(MOTHER_PHONE, "A", "3");
+            HelpRequest closed = createHelpRequest(mother, "HR-0001");
+            closed.complete();
+            helpRequestRepository.save(closed);
+
+            String response = commandHandler.handle(
+                    createCommand(CommandType.EMERGENCY, MOTHER_PHONE, Language.ENGLISH, Map.of()));
+
+            assertThat(response).contains("EMERGENCY received");
+            assertThat(helpRequestRepository.findByMotherId(mother.getId())).hasSize(2);
+        }
+
+        @Test
+        @DisplayName("Should link a household phone to the sender's registration")
+        void testLinkHousehold() {
+            createMother(MOTHER_PHONE, "A", "3");
+
+            String response = commandHandler.handle(createCommand(CommandType.LINK_HOUSEHOLD, MOTHER_PHONE,
+                    Language.ENGLISH, Map.of("householdPhone", HOUSEHOLD_PHONE)));
+
+            assertThat(response).contains("linked");
+            assertThat(motherRepository.findByPhoneNumber(MOTHER_PHONE).orElseThrow().getHouseholdPhone())
+                    .isEqualTo(HOUSEHOLD_PHONE);
+        }
+
+        @Test
+        @DisplayName("Should attach an emergency from a linked household phone to the mother's case")
+        void testHouseholdEmergency_AttachesToOpenCase() {
+            Mother mother = createMother(MOTHER_PHONE, "A", "3");
+            mother.setHouseholdPhone(HOUSEHOLD_PHONE);
+            motherRepository.save(mother);
+            HelpRequest open = createHelpRequest(mother, "HR-0001");
+
+            String response = commandHandler.handle(
+                    createCommand(CommandType.EMERGENCY, HOUSEHOLD_PHONE, Language.ENGLISH, Map.of()));
+
+            assertThat(response).contains("We already have your case HR-0001");
+            assertThat(helpRequestRepository.findByMotherId(mother.getId())).hasSize(1);
+            assertThat(open.getRepeatCount()).isEqualTo(1);
+        }
+    }
+
     @Nested
     @DisplayName("Accept Case Tests")
     class AcceptCaseTests {
@@ -420,13 +489,7 @@ class SmsCommandHandlerTest {
     // Helper methods
 
     private SmsCommand createCommand(CommandType type, String phone, Language lang, Map<String, String> params) {
-        return SmsCommand.builder()
-                .type(type)
-                .senderPhone(phone)
-                .detectedLanguage(lang)
-                .rawMessage("test")
-                .parameters(new HashMap<>(params))
-                .build();
+        return new SmsCommand(type, phone, lang, "test", new HashMap<>(params));
     }
 
     private Mother createMother(String phone, String camp, String zone) {
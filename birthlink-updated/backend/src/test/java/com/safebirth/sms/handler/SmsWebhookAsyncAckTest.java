@@ -0,0 +1,284 @@
+package com.safebirth.sms.handler;
+
+import com.safebirth.config.InboundSmsConfig;
+import com.safebirth.sms.gateway.MockSmsGateway;
+import com.safebirth.sms.inbound.InboundDeduplicator;
+import com.safebirth.sms.inbound.InboundSms;
+import com.safebirth.sms.inbound.InboundSmsService;
+import com.safebirth.sms.inbound.InboundSmsRepository;
+import com.safebirth.sms.inbound.InboundSmsStatus;
+import com.safebirth.sms.parser.SmsCommand;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests for the async-acknowledge mode of the Twilio webhook, including a
+ * latency benchmark of webhook response time under concurrent load.
+ *
+ * The command handler is stubbed with a fixed delay standing in for matching and alert fan-out.
+ * The benchmark is tagged "benchmark" and only runs with mvn test -Pbenchmark.
+ */
+@SpringBootTest(properties = {"sms.inbound.async-ack=true", "sms.inbound.worker-threads=8"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SmsWebhookAsyncAckTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SmsWebhookAsyncAckTest.class);
+
+    private static final long HANDLER_DELAY_MS = 300;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MockSmsGateway mockSmsGateway;
+
+    @Autowired
+    private InboundSmsRepository inboundSmsRepository;
+
+    @Autowired
+    private InboundSmsConfig inboundSmsConfig;
+
+    @Autowired
+    private InboundDeduplicator inboundDeduplicator;
+
+    @Autowired
+    private InboundSmsService inboundSmsService;
+
+    @MockBean
+    private SmsCommandHandler commandHandler;
+
+    private boolean asyncAck;
+
+    @BeforeEach
+    void setUp() {
+        mockSmsGateway.clearOutbox();
+        inboundSmsRepository.deleteAll();
+        asyncAck = inboundSmsConfig.isAsyncAck();
+        inboundSmsConfig.setAsyncAck(true);
+        when(commandHandler.handle(any(SmsCommand.class))).thenAnswer(invocation -> {
+            Thread.sleep(HANDLER_DELAY_MS);
+            return "Handled";
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        inboundSmsConfig.setAsyncAck(asyncAck);
+    }
+
+    private long postWebhook(String from) throws Exception {
+        long start = System.nanoTime();
+        mockMvc.perform(post("/api/sms/incoming")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                        .param("From", from)
+                        .param("To", "+1555000000")
+                        .param("Body", "HELP")
+                        .param("MessageSid", "SM" + UUID.randomUUID()))
+                .andExpect(status().isOk());
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private void awaitProcessed(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (inboundSmsRepository.countByStatus(InboundSmsStatus.PROCESSED) < expected
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    private List<Long> runLoad(int requests, int concurrency) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                String from = String.format("+96279%07d", i);
+                futures.add(clients.submit(() -> postWebhook(from)));
+            }
+            List<Long> latencies = new ArrayList<>();
+            for (Future<Long> future : futures) {
+                latencies.add(future.get(60, TimeUnit.SECONDS));
+            }
+            Collections.sort(latencies);
+            return latencies;
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private long percentile(List<Long> sorted, double p) {
+        int index = (int) Math.ceil(p / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+
+    @Nested
+    @DisplayName("Async acknowledge")
+    class AsyncAckTests {
+
+        @Test
+        @DisplayName("Should return empty TwiML and reply via the gateway")
+        void testAsyncAck_RepliesViaGateway() throws Exception {
+            mockMvc.perform(post("/api/sms/incoming")
+                            .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                            .param("From", "+962790000001")
+                            .param("To", "+1555000000")
+                            .param("Body", "HELP")
+                            .param("MessageSid", "SM123"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_XML))
+                    .andExpect(content().string(containsString("<Response>")))
+                    .andExpect(content().string(not(containsString("<Message>"))));
+
+            awaitProcessed(1);
+
+            assertThat(mockSmsGateway.getMessagesSentTo("+962790000001"))
+                    .extracting(MockSmsGateway.OutboxMessage::message)
+                    .containsExactly("Handled");
+            assertThat(inboundSmsRepository.findAll())
+                    .singleElement()
+                    .satisfies(m -> assertThat(m.getMessageSid()).isEqualTo("SM123"));
+        }
+
+        @Test
+        @DisplayName("Should not store a redelivered message again once the deduplicator has forgotten it")
+        void testAsyncAck_StoredDuplicate() throws Exception {
+            for (int i = 0; i < 2; i++) {
+                inboundDeduplicator.forget("SM456", "+962790000003", "HELP");
+                mockMvc.perform(post("/api/sms/incoming")
+                                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                                .param("From", "+962790000003")
+                                .param("To", "+1555000000")
+                                .param("Body", "HELP")
+                                .param("MessageSid", "SM456"))
+                        .andExpect(status().isOk())
+                        .andExpect(content().string(not(containsString("<Message>"))));
+            }
+
+            awaitProcessed(1);
+
+            assertThat(inboundSmsRepository.findAll()).hasSize(1);
+            assertThat(mockSmsGateway.getMessagesSentTo("+962790000003")).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("Should mark the message failed and send the error reply when handling throws")
+        void testAsyncAck_Failure() throws Exception {
+            when(commandHandler.handle(any(SmsCommand.class))).thenThrow(new IllegalStateException("boom"));
+
+            postWebhook("+962790000002");
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (inboundSmsRepository.countByStatus(InboundSmsStatus.FAILED) < 1
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+
+            assertThat(inboundSmsRepository.countByStatus(InboundSmsStatus.FAILED)).isEqualTo(1);
+            assertThat(mockSmsGateway.hasMessageTo("+962790000002")).isTrue();
+        }
+    }
+
+    @Nested
+    @DisplayName("Retry sweep")
+    class RetrySweepTests {
+
+        @Test
+        @DisplayName("Should process again a message left in PROCESSING by a worker that died")
+        void testStaleProcessingReleased() throws Exception {
+            InboundSms stuck = new InboundSms("SM789", "+962790000004", "+1555000000", "HELP");
+            ReflectionTestUtils.setField(stuck, "status", InboundSmsStatus.PROCESSING);
+            ReflectionTestUtils.setField(stuck, "claimedAt",
+                    LocalDateTime.now().minusSeconds(inboundSmsConfig.getProcessingTimeoutSeconds() + 60));
+            ReflectionTestUtils.setField(stuck, "receivedAt", LocalDateTime.now().minusHours(1));
+            inboundSmsRepository.save(stuck);
+
+            inboundSmsService.resubmitWaiting();
+            awaitProcessed(1);
+
+            assertThat(inboundSmsRepository.countByStatus(InboundSmsStatus.PROCESSED)).isEqualTo(1);
+            assertThat(mockSmsGateway.getMessagesSentTo("+962790000004")).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("Should leave a message with a live claim alone")
+        void testLiveProcessingKept() {
+            InboundSms claimed = new InboundSms("SM790", "+962790000005", "+1555000000", "HELP");
+            ReflectionTestUtils.setField(claimed, "status", InboundSmsStatus.PROCESSING);
+            ReflectionTestUtils.setField(claimed, "claimedAt", LocalDateTime.now());
+            ReflectionTestUtils.setField(claimed, "receivedAt", LocalDateTime.now().minusHours(1));
+            inboundSmsRepository.save(claimed);
+
+            inboundSmsService.resubmitWaiting();
+
+            assertThat(inboundSmsRepository.countByStatus(InboundSmsStatus.PROCESSING)).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @Tag("benchmark")
+    @DisplayName("Webhook latency benchmark")
+    class LatencyBenchmarkTests {
+
+        @Test
+        @DisplayName("Async-ack webhook latency is independent of handler time under load")
+        void benchmarkWebhookLatency() throws Exception {
+            int requests = 200;
+            int concurrency = 16;
+
+            // Warm up the MVC and JPA paths
+            runLoad(20, 4);
+            awaitProcessed(20);
+            inboundSmsRepository.deleteAll();
+
+            List<Long> async = runLoad(requests, concurrency);
+
+            inboundSmsConfig.setAsyncAck(false);
+            List<Long> sync = runLoad(concurrency * 2, concurrency);
+
+            log.info("Webhook latency (ms) with {}ms handler, {} concurrent clients", HANDLER_DELAY_MS, concurrency);
+            log.info("async-ack n={} p50={} p90={} p99={} max={}", async.size(),
+                    percentile(async, 50), percentile(async, 90), percentile(async, 99), async.get(async.size() - 1));
+            log.info("sync n={} p50={} p90={} p99={} max={}", sync.size(),
+                    percentile(sync, 50), percentile(sync, 90), percentile(sync, 99), sync.get(sync.size() - 1));
+
+            // Loose bound so the check is stable on slow machines; the logged figures are the benchmark
+            assertThat(percentile(async, 50)).isLessThan(HANDLER_DELAY_MS / 2);
+            assertThat(percentile(sync, 50)).isGreaterThanOrEqualTo(HANDLER_DELAY_MS);
+
+            awaitProcessed(requests);
+            assertThat(inboundSmsRepository.countByStatus(InboundSmsStatus.PROCESSED)).isEqualTo(requests);
+        }
+    }
+}
@@ -123,6 +123,25 @@ class SmsWebhookControllerTest {
             assertThat(mockSmsGateway.hasMessageContaining("EMERGENCY")).isTrue();
         }
 
+        @Test
+        @DisplayName("Should not alert volunteers twice when Twilio retries the webhook")
+        void testIncomingSms_DuplicateMessageSid() throws Exception {
+            createMother(MOTHER_PHONE, "A", "3");
+            createVolunteer(VOLUNTEER_PHONE, "Fatima", "A", SkillType.MIDWIFE, Set.of("3"));
+
+            for (int attempt = 0; attempt < 2; attempt++) {
+                mockMvc.perform(post("/api/sms/incoming")
+                                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                                .param("From", MOTHER_PHONE)
+                                .param("To", "+1555000000")
+                                .param("Body", "EMERGENCY")
+                                .param("MessageSid", "SM-DUPLICATE-TEST"))
+                        .andExpect(status().isOk());
+            }
+
+            assertThat(mockSmsGateway.getMessagesSentTo(VOLUNTEER_PHONE)).hasSize(1);
+        }
+
         @Test
         @DisplayName("Should return error TwiML on processing error")
         void testIncomingSms_Error_ReturnsErrorTwiml() throws Exception {
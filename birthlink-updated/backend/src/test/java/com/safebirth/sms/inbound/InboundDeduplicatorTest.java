@@ -0,0 +1,140 @@
+package com.safebirth.sms.inbound;
+
+import com.safebirth.config.InboundSmsConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for InboundDeduplicator.
+ * Tests provider id keys, the content-hash fallback window, expiry, the size bound and forgetting.
+ */
+class InboundDeduplicatorTest {
+
+    private InboundSmsConfig config;
+    private final AtomicLong clock = new AtomicLong();
+    private InboundDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        config = new InboundSmsConfig();
+        config.setDedupIdTtlSeconds(3600);
+        config.setDedupWindowSeconds(60);
+        config.setDedupMaxEntries(100);
+        deduplicator = new InboundDeduplicator(config, clock::get);
+    }
+
+    private void advanceSeconds(long seconds) {
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    @Nested
+    @DisplayName("Provider message id")
+    class ProviderIdTests {
+
+        @Test
+        @DisplayName("Should suppress a redelivered message with the same id")
+        void testSameId() {
+            assertThat(deduplicator.isDuplicate("SM1", "+249911111", "EMERGENCY")).isFalse();
+            assertThat(deduplicator.isDuplicate("SM1", "+249911111", "EMERGENCY")).isTrue();
+            assertThat(deduplicator.getSuppressedCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should let through a repeated body with a new id")
+        void testNewId() {
+            assertThat(deduplicator.isDuplicate("SM1", "+249911111", "HELP")).isFalse();
+            assertThat(deduplicator.isDuplicate("SM2", "+249911111", "HELP")).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should let a forgotten id through again")
+        void testForgetId() {
+            deduplicator.isDuplicate("SM1", "+249911111", "EMERGENCY");
+            deduplicator.forget("SM1", "+249911111", "EMERGENCY");
+
+            assertThat(deduplicator.isDuplicate("SM1", "+249911111", "EMERGENCY")).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should forget ids after their TTL")
+        void testIdExpiry() {
+            deduplicator.isDuplicate("SM1", "+249911111", "HELP");
+            advanceSeconds(3601);
+
+            assertThat(deduplicator.isDuplicate("SM1", "+249911111", "HELP")).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should evict the oldest ids beyond the size bound")
+        void testBounded() {
+            config.setDedupMaxEntries(2);
+            deduplicator.isDuplicate("SM1", "+249911111", "A");
+            deduplicator.isDuplicate("SM2", "+249911111", "B");
+            deduplicator.isDuplicate("SM3", "+249911111", "C");
+
+            assertThat(deduplicator.isDuplicate("SM3", "+249911111", "C")).isTrue();
+            assertThat(deduplicator.isDuplicate("SM1", "+249911111", "A")).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Content hash fallback")
+    class ContentHashTests {
+
+        @Test
+        @DisplayName("Should suppress the same sender and body without an id inside the window")
+        void testWithinWindow() {
+            assertThat(deduplicator.isDuplicate(null, "+249911111", "EMERGENCY")).isFalse();
+            advanceSeconds(5);
+
+            assertThat(deduplicator.isDuplicate(null, "+249911111", "EMERGENCY ")).isTrue();
+            assertThat(deduplicator.isDuplicate(null, "+249922222", "EMERGENCY")).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should let a forgotten message without an id through again")
+        void testForgetHash() {
+            deduplicator.isDuplicate(null, "+249911111", "EMERGENCY");
+            deduplicator.forget(null, "+249911111", "EMERGENCY");
+
+            assertThat(deduplicator.isDuplicate(null, "+249911111", "EMERGENCY")).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should accept the same message again after the window")
+        void testAfterWindow() {
+            deduplicator.isDuplicate(null, "+249911111", "EMERGENCY");
+            advanceSeconds(61);
+
+            assertThat(deduplicator.isDuplicate(null, "+249911111", "EMERGENCY")).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should process a repeated short reply without an id by default")
+        void testDefaultProcessesRepeatedReply() {
+            InboundDeduplicator defaults = new InboundDeduplicator(new InboundSmsConfig(), clock::get);
+
+            assertThat(defaults.isDuplicate(null, "+249911111", "1")).isFalse();
+            assertThat(defaults.isDuplicate(null, "+249911111", "1")).isFalse();
+            assertThat(defaults.isDuplicate("", "+249911111", "YES")).isFalse();
+            assertThat(defaults.isDuplicate("", "+249911111", "YES")).isFalse();
+            assertThat(defaults.getSuppressedCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should not use the fallback when the window is 0")
+        void testDisabled() {
+            config.setDedupWindowSeconds(0);
+
+            assertThat(deduplicator.isDuplicate(null, "+249911111", "HELP")).isFalse();
+            assertThat(deduplicator.isDuplicate(null, "+249911111", "HELP")).isFalse();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.safebirth.sms.inbound;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for KeyedMailboxExecutor.
+ * Tests per-sender ordering, cross-sender parallelism and queue bounds.
+ */
+class KeyedMailboxExecutorTest {
+
+    private KeyedMailboxExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Nested
+    @DisplayName("Ordering and parallelism")
+    class OrderingTests {
+
+        @Test
+        @DisplayName("Should run tasks for the same sender one at a time in submission order")
+        void testSameKey_RunsInOrder() throws Exception {
+            executor = new KeyedMailboxExecutor("test-", 4, 100, 100);
+            List<Integer> seen = new CopyOnWriteArrayList<>();
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+
+            CountDownLatch done = new CountDownLatch(50);
+            for (int i = 0; i < 50; i++) {
+                int n = i;
+                executor.execute("+249912345678", () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    seen.add(n);
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(seen).hasSize(50).isSorted();
+            assertThat(maxRunning.get()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should run tasks for different senders in parallel")
+        void testDifferentKeys_RunInParallel() throws Exception {
+            executor = new KeyedMailboxExecutor("test-", 2, 10, 10);
+            CountDownLatch bothStarted = new CountDownLatch(2);
+            CountDownLatch bothSawOther = new CountDownLatch(2);
+            Runnable task = () -> {
+                bothStarted.countDown();
+                awaitQuietly(bothStarted);
+                if (bothStarted.getCount() == 0) {
+                    bothSawOther.countDown();
+                }
+            };
+
+            executor.execute("+249911111111", task);
+            executor.execute("+249922222222", task);
+
+            assertThat(bothSawOther.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should keep draining a sender's mailbox after a task fails")
+        void testFailedTask_DoesNotBlockMailbox() throws Exception {
+            executor = new KeyedMailboxExecutor("test-", 1, 10, 10);
+
+            CountDownLatch nextRan = new CountDownLatch(1);
+
+            executor.execute("+249912345678", () -> {
+                throw new IllegalStateException("boom");
+            });
+            executor.execute("+249912345678", nextRan::countDown);
+
+            assertThat(nextRan.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(executor.getStats().failed()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Bounded queues")
+    class BoundTests {
+
+        @Test
+        @DisplayName("Should reject when a single sender's mailbox is full")
+        void testPerKeyBound() throws Exception {
+            executor = new KeyedMailboxExecutor("test-", 2, 2, 100);
+            CountDownLatch release = new CountDownLatch(1);
+
+            executor.execute("+249912345678", () -> awaitQuietly(release));
+            executor.execute("+249912345678", () -> { });
+
+            assertThatThrownBy(() -> executor.execute("+249912345678", () -> { }))
+                    .isInstanceOf(RejectedExecutionException.class);
+            // Other senders are unaffected
+            CountDownLatch otherRan = new CountDownLatch(1);
+            executor.execute("+249922222222", otherRan::countDown);
+            assertThat(otherRan.await(5, TimeUnit.SECONDS)).isTrue();
+
+            release.countDown();
+            assertThat(executor.getStats().rejected()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should reject when the total number of pending tasks is reached")
+        void testGlobalBound() {
+            executor = new KeyedMailboxExecutor("test-", 1, 10, 3);
+            CountDownLatch release = new CountDownLatch(1);
+
+            executor.execute("+249911111111", () -> awaitQuietly(release));
+            executor.execute("+249922222222", () -> { });
+            executor.execute("+249933333333", () -> { });
+
+            assertThatThrownBy(() -> executor.execute("+249944444444", () -> { }))
+                    .isInstanceOf(RejectedExecutionException.class);
+
+            release.countDown();
+        }
+    }
+
+    @Nested
+    @DisplayName("Metrics")
+    class StatsTests {
+
+        @Test
+        @DisplayName("Should report counts and release mailboxes once drained")
+        void testStats() throws Exception {
+            executor = new KeyedMailboxExecutor("test-", 2, 10, 10);
+
+            CountDownLatch done = new CountDownLatch(2);
+            executor.execute("+249911111111", done::countDown);
+            executor.execute("+249922222222", done::countDown);
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // The mailbox is released just after the task itself returns
+            long deadline = System.currentTimeMillis() + 5000;
+            while (executor.getStats().pending() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            KeyedMailboxExecutor.Stats stats = executor.getStats();
+            assertThat(stats.submitted()).isEqualTo(2);
+            assertThat(stats.completed()).isEqualTo(2);
+            assertThat(stats.pending()).isZero();
+            assertThat(stats.activeKeys()).isZero();
+            assertThat(stats.rejected()).isZero();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.safebirth.sms.outbox;
+
+import com.safebirth.config.SmsOutboxConfig;
+import com.safebirth.sms.gateway.SmsDeliveryReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for SmsDeliveryTracker.
+ * Tests applying delivery reports, time-to-deliver metrics and re-sending undelivered emergency alerts.
+ */
+@ExtendWith(MockitoExtension.class)
+class SmsDeliveryTrackerTest {
+
+    private static final String PHONE = "+249912345678";
+
+    @Mock
+    private OutboundSmsRepository repository;
+
+    @Mock
+    private SmsOutboxDispatcher dispatcher;
+
+    private SmsOutboxConfig config;
+    private SmsDeliveryTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        config = new SmsOutboxConfig();
+        config.setMaxDeliveryResends(1);
+        config.setEmergencyDeliveryDeadlineSeconds(300);
+        tracker = new SmsDeliveryTracker(repository, dispatcher, config);
+    }
+
+    private OutboundSms sent(long id, SmsPriority priority, LocalDateTime sentAt) {
+        OutboundSms row = new OutboundSms(PHONE, "Alert " + id, priority);
+        ReflectionTestUtils.setField(row, "id", id);
+        row.markSent("SM" + id);
+        ReflectionTestUtils.setField(row, "sentAt", sentAt);
+        return row;
+    }
+
+    @Nested
+    @DisplayName("Delivery reports")
+    class ReportTests {
+
+        @Test
+        @DisplayName("Should mark a sent message delivered and record its time to deliver")
+        void testDelivered() {
+            LocalDateTime sentAt = LocalDateTime.now().minusSeconds(5);
+            OutboundSms row = sent(1, SmsPriority.EMERGENCY_ALERT, sentAt);
+            when(repository.findByProviderMessageIdAndToPhone("SM1", PHONE)).thenReturn(List.of(row));
+
+            tracker.onDeliveryReport(new SmsDeliveryReport("SM1", PHONE, true, null, sentAt.plusSeconds(4)));
+
+            assertThat(row.getStatus()).isEqualTo(OutboundSmsStatus.DELIVERED);
+            assertThat(row.getDeliveredAt()).isEqualTo(sentAt.plusSeconds(4));
+            SmsDeliveryTracker.Latency latency = tracker.getStats().timeToDeliver().get(SmsPriority.EMERGENCY_ALERT);
+            assertThat(latency.count()).isEqualTo(1);
+            assertThat(latency.maxMillis()).isBetween(3900L, 4100L);
+            assertThat(tracker.getStats().delivered()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should mark a message undelivered but never undo a delivery")
+        void testUndelivered() {
+            OutboundSms row = sent(1, SmsPriority.EMERGENCY_ALERT, LocalDateTime.now());
+            when(repository.findByProviderMessageIdAndToPhone("SM1", PHONE)).thenReturn(List.of(row));
+
+            tracker.onDeliveryReport(new SmsDeliveryReport("SM1", PHONE, false, "Twilio undelivered", LocalDateTime.now()));
+            assertThat(row.getStatus()).isEqualTo(OutboundSmsStatus.UNDELIVERED);
+            assertThat(row.getLastError()).isEqualTo("Twilio undelivered");
+
+            tracker.onDeliveryReport(new SmsDeliveryReport("SM1", PHONE, true, null, LocalDateTime.now()));
+            tracker.onDeliveryReport(new SmsDeliveryReport("SM1", PHONE, false, "late failure", LocalDateTime.now()));
+            assertThat(row.getStatus()).isEqualTo(OutboundSmsStatus.DELIVERED);
+        }
+
+        @Test
+        @DisplayName("Should count reports for messages sent outside the outbox")
+        void testUnmatched() {
+            when(repository.findByProviderMessageIdAndToPhone("WS-1", PHONE)).thenReturn(List.of());
+
+            tracker.onDeliveryReport(new SmsDeliveryReport("WS-1", PHONE, true, null, LocalDateTime.now()));
+
+            assertThat(tracker.getStats().unmatched()).isEqualTo(1);
+            verify(repository, never()).saveAll(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Re-sending")
+    class ResendTests {
+
+        @Test
+        @DisplayName("Should queue undelivered emergency alerts again and wake the dispatcher")
+        void testResend() {
+            OutboundSms row = sent(1, SmsPriority.EMERGENCY_ALERT, LocalDateTime.now().minusMinutes(10));
+            when(repository.findUndelivered(eq(SmsPriority.EMERGENCY_ALERT), any(), eq(true), eq(1), any()))
+                    .thenReturn(List.of(row));
+
+            assertThat(tracker.resendUndelivered()).isEqualTo(1);
+
+            assertThat(row.getStatus()).isEqualTo(OutboundSmsStatus.PENDING);
+            assertThat(row.getAttempts()).isZero();
+            assertThat(row.getDeliveryResends()).isEqualTo(1);
+            assertThat(tracker.getStats().resent()).isEqualTo(1);
+            verify(dispatcher).wakeUp();
+        }
+
+        @Test
+        @DisplayName("Should only re-send reported failures when there is no delivery deadline")
+        void testNoReportsNoDeadline() {
+            config.setEmergencyDeliveryDeadlineSeconds(0);
+            when(repository.findUndelivered(any(), any(), eq(false), anyInt(), any())).thenReturn(List.of());
+
+            assertThat(tracker.resendUndelivered()).isZero();
+            verify(dispatcher, never()).wakeUp();
+        }
+
+        @Test
+        @DisplayName("Should not re-send when re-sends are disabled")
+        void testDisabled() {
+            config.setMaxDeliveryResends(0);
+
+            assertThat(tracker.resendUndelivered()).isZero();
+            verify(repository, never()).findUndelivered(any(), any(), anyBoolean(), anyInt(), any());
+        }
+    }
+}
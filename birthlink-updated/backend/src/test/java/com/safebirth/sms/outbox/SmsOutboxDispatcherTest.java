@@ -0,0 +1,423 @@
+package com.safebirth.sms.outbox;
+
+import com.safebirth.config.SmsOutboxConfig;
+import com.safebirth.exception.SmsDeliveryException;
+import com.safebirth.sms.gateway.BulkSendResult;
+import com.safebirth.sms.gateway.SmsGateway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for SmsOutboxDispatcher.
+ * Tests delivery, priority scheduling, retry with backoff, dead-lettering, rate limiting and
+ * that the sweep sends off the scheduler thread.
+ */
+@ExtendWith(MockitoExtension.class)
+class SmsOutboxDispatcherTest {
+
+    @Mock
+    private OutboundSmsRepository repository;
+
+    @Mock
+    private SmsGateway smsGateway;
+
+    private SmsOutboxConfig config;
+    private SmsOutboxDispatcher dispatcher;
+    private final Map<Long, OutboundSms> rows = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        config = new SmsOutboxConfig();
+        config.setMaxAttempts(3);
+        config.setInitialBackoffSeconds(5);
+        config.setMaxBackoffSeconds(60);
+        config.setRatePerSecond(100);
+        dispatcher = new SmsOutboxDispatcher(repository, smsGateway, config);
+
+        lenient().when(smsGateway.getProviderName()).thenReturn("mock");
+        lenient().when(repository.claim(anyLong(), any())).thenAnswer(inv -> {
+            OutboundSms row = rows.get(inv.<Long>getArgument(0));
+            if (row == null || row.getStatus() != OutboundSmsStatus.PENDING) {
+                return 0;
+            }
+            ReflectionTestUtils.setField(row, "status", OutboundSmsStatus.SENDING);
+            return 1;
+        });
+        lenient().when(repository.findById(anyLong())).thenAnswer(inv -> Optional.ofNullable(rows.get(inv.<Long>getArgument(0))));
+
+        // Serve the scheduling queries from the in-memory rows
+        lenient().when(repository.findDueIds(any(SmsPriority.class), any(), any())).thenAnswer(inv -> due(
+                row -> row.getPriority() == inv.getArgument(0)));
+        lenient().when(repository.findStarvedIds(any(), any(), any())).thenAnswer(inv -> due(
+                row -> row.getCreatedAt().isBefore(inv.getArgument(1))));
+        lenient().when(repository.findByToPhoneAndPriorityAndStatusOrderByIdAsc(anyString(), any(), any()))
+                .thenAnswer(inv -> rows.values().stream()
+                        .filter(row -> row.getToPhone().equals(inv.getArgument(0))
+                                && row.getPriority() == inv.getArgument(1)
+                                && row.getStatus() == inv.getArgument(2))
+                        .toList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    private void queue(long... ids) {
+        for (long id : ids) {
+            queue(id, SmsPriority.CONVERSATION);
+        }
+    }
+
+    private void queue(long id, SmsPriority priority) {
+        queue(id, "+24991234" + id, "Message " + id, priority);
+    }
+
+    private OutboundSms queue(long id, String to, String body, SmsPriority priority) {
+        OutboundSms row = new OutboundSms(to, body, priority);
+        ReflectionTestUtils.setField(row, "id", id);
+        rows.put(id, row);
+        return row;
+    }
+
+    private List<Long> due(Predicate<OutboundSms> filter) {
+        List<Long> ids = new ArrayList<>();
+        rows.forEach((id, row) -> {
+            if (row.getStatus() == OutboundSmsStatus.PENDING
+                    && !row.getNextAttemptAt().isAfter(LocalDateTime.now()) && filter.test(row)) {
+                ids.add(id);
+            }
+        });
+        return ids;
+    }
+
+    @Nested
+    @DisplayName("Delivery")
+    class DeliveryTests {
+
+        @Test
+        @DisplayName("Should send due messages and mark them sent")
+        void testDispatch_Sends() {
+            queue(1L, 2L);
+            when(smsGateway.sendSms(anyString(), anyString())).thenReturn("SID-1", "SID-2");
+
+            int sent = dispatcher.dispatch();
+
+            assertThat(sent).isEqualTo(2);
+            assertThat(rows.get(1L).getStatus()).isEqualTo(OutboundSmsStatus.SENT);
+            assertThat(rows.get(1L).getProviderMessageId()).isEqualTo("SID-1");
+            assertThat(rows.get(2L).getAttempts()).isEqualTo(1);
+            verify(repository, times(2)).saveAll(any());
+        }
+
+        @Test
+        @DisplayName("Should skip messages claimed by another drain")
+        void testDispatch_AlreadyClaimed() {
+            queue(1L);
+            when(repository.claim(eq(1L), any())).thenReturn(0);
+
+            assertThat(dispatcher.dispatch()).isZero();
+            verify(smsGateway, never()).sendSms(anyString(), anyString());
+        }
+
+        @Test
+        @DisplayName("Should send identical messages as one bulk send with per-recipient outcomes")
+        void testDispatch_BulkSend() {
+            queue(1L, "+249911111", "Alert", SmsPriority.EMERGENCY_ALERT);
+            queue(2L, "+249922222", "Alert", SmsPriority.EMERGENCY_ALERT);
+            BulkSendResult result = BulkSendResult.empty();
+            result.sent().put("+249911111", "SID-1");
+            result.failed().put("+249922222", "unreachable");
+            when(smsGateway.sendBulk(anyList(), anyString())).thenReturn(result);
+
+            int sent = dispatcher.dispatch();
+
+            assertThat(sent).isEqualTo(1);
+            verify(smsGateway).sendBulk(List.of("+249911111", "+249922222"), "Alert");
+            verify(smsGateway, never()).sendSms(anyString(), anyString());
+            assertThat(rows.get(1L).getStatus()).isEqualTo(OutboundSmsStatus.SENT);
+            assertThat(rows.get(2L).getStatus()).isEqualTo(OutboundSmsStatus.PENDING);
+            assertThat(rows.get(2L).getLastError()).isEqualTo("unreachable");
+        }
+
+        @Test
+        @DisplayName("Should send from the sweep on the outbox thread, not the scheduler's")
+        void testSweep_SendsOnOutboxThread() {
+            queue(1L);
+            AtomicReference<String> sendThread = new AtomicReference<>();
+            when(smsGateway.sendSms(anyString(), anyString())).thenAnswer(inv -> {
+                sendThread.set(Thread.currentThread().getName());
+                return "SID-1";
+            });
+
+            dispatcher.sweep();
+
+            verify(smsGateway, timeout(2000)).sendSms(anyString(), anyString());
+            assertThat(sendThread.get()).isEqualTo("sms-outbox");
+        }
+    }
+
+    @Nested
+    @DisplayName("Priority scheduling")
+    class PriorityTests {
+
+        @Test
+        @DisplayName("Should send emergency alerts before queued routine traffic")
+        void testHigherClassesFirst() {
+            queue(1L, SmsPriority.BROADCAST);
+            queue(2L, SmsPriority.CONVERSATION);
+            queue(3L, SmsPriority.CASE_UPDATE);
+            queue(4L, SmsPriority.EMERGENCY_ALERT);
+            when(smsGateway.sendSms(anyString(), anyString())).thenReturn("SID");
+
+            dispatcher.dispatch();
+
+            InOrder order = inOrder(smsGateway);
+            order.verify(smsGateway).sendSms("+249912344", "Message 4");
+            order.verify(smsGateway).sendSms("+249912343", "Message 3");
+            order.verify(smsGateway).sendSms("+249912342", "Message 2");
+            order.verify(smsGateway).sendSms("+249912341", "Message 1");
+        }
+
+        @Test
+        @DisplayName("Should send messages past the starvation threshold first, oldest first")
+        void testStarvationProtection() throws Exception {
+            config.setStarvationThresholdSeconds(0);
+            queue(1L, SmsPriority.BROADCAST);
+            queue(2L, SmsPriority.EMERGENCY_ALERT);
+            Thread.sleep(5);
+            when(smsGateway.sendSms(anyString(), anyString())).thenReturn("SID");
+
+            dispatcher.dispatch();
+
+            InOrder order = inOrder(smsGateway);
+            order.verify(smsGateway).sendSms("+249912341", "Message 1");
+            order.verify(smsGateway).sendSms("+249912342", "Message 2");
+        }
+
+        @Test
+        @DisplayName("Should record queue wait per class")
+        void testWaitHistogram() {
+            queue(1L, SmsPriority.EMERGENCY_ALERT);
+            when(smsGateway.sendSms(anyString(), anyString())).thenReturn("SID");
+
+            dispatcher.dispatch();
+
+            assertThat(dispatcher.getWaitHistogram(SmsPriority.EMERGENCY_ALERT).getTotalCount()).isEqualTo(1);
+            assertThat(dispatcher.getWaitHistogram(SmsPriority.BROADCAST).getTotalCount()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Retries and dead letters")
+    class RetryTests {
+
+        @Test
+        @DisplayName("Should schedule a retry when the provider fails")
+        void testFailure_SchedulesRetry() {
+            queue(1L);
+            when(smsGateway.sendSms(anyString(), anyString())).thenThrow(new SmsDeliveryException("timeout"));
+
+            dispatcher.dispatch();
+
+            OutboundSms row = rows.get(1L);
+            assertThat(row.getStatus()).isEqualTo(OutboundSmsStatus.PENDING);
+            assertThat(row.getAttempts()).isEqualTo(1);
+            assertThat(row.getLastError()).isEqualTo("timeout");
+            assertThat(row.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(4));
+        }
+
+        @Test
+        @DisplayName("Should treat a gateway that returns no id as a failure")
+        void testNullId_SchedulesRetry() {
+            queue(1L);
+            when(smsGateway.sendSms(anyString(), anyString())).thenReturn(null);
+
+            dispatcher.dispatch();
+
+            assertThat(rows.get(1L).getStatus()).isEqualTo(OutboundSmsStatus.PENDING);
+            assertThat(rows.get(1L).getAttempts()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should dead-letter after the maximum number of attempts")
+        void testFinalFailure_DeadLetters() {
+            queue(1L);
+            OutboundSms row = rows.get(1L);
+            row.markRetry("first", LocalDateTime.now());
+            row.markRetry("second", LocalDateTime.now());
+            when(smsGateway.sendSms(anyString(), anyString())).thenThrow(new SmsDeliveryException("rejected"));
+
+            dispatcher.dispatch();
+
+            assertThat(row.getStatus()).isEqualTo(OutboundSmsStatus.DEAD);
+            assertThat(row.getAttempts()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Should stop the drain after consecutive failures")
+        void testProviderOutage_StopsEarly() {
+            queue(1L, 2L, 3L, 4L, 5L);
+            when(smsGateway.sendSms(anyString(), anyString())).thenThrow(new SmsDeliveryException("503"));
+
+            dispatcher.dispatch();
+
+            verify(smsGateway, times(SmsOutboxDispatcher.MAX_CONSECUTIVE_FAILURES)).sendSms(anyString(), anyString());
+            assertThat(rows.get(5L).getAttempts()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should double the backoff per failure up to the cap")
+        void testBackoff() {
+            assertThat(dispatcher.backoff(1)).isBetween(Duration.ofSeconds(5), Duration.ofSeconds(6));
+            assertThat(dispatcher.backoff(3)).isBetween(Duration.ofSeconds(20), Duration.ofSeconds(24));
+            assertThat(dispatcher.backoff(10)).isBetween(Duration.ofSeconds(60), Duration.ofSeconds(72));
+        }
+    }
+
+    @Nested
+    @DisplayName("Coalescing")
+    class CoalescingTests {
+
+        @Test
+        @DisplayName("Should merge pending messages to the same recipient into one SMS")
+        void testCoalesce_SameRecipient() {
+            OutboundSms first = queue(1L, "+249911111", "Case accepted", SmsPriority.CASE_UPDATE);
+            OutboundSms second = queue(2L, "+249911111", "Volunteer on the way", SmsPriority.CASE_UPDATE);
+            second.holdUntil(LocalDateTime.now().plusSeconds(3));
+            when(smsGateway.sendSms(anyString(), anyString())).thenReturn("SID-1");
+
+            int sent = dispatcher.dispatch();
+
+            assertThat(sent).isEqualTo(2);
+            verify(smsGateway).sendSms("+249911111", "Case accepted\nVolunteer on the way");
+            assertThat(first.getProviderMessageId()).isEqualTo("SID-1");
+            assertThat(second.getStatus()).isEqualTo(OutboundSmsStatus.SENT);
+            assertThat(second.getProviderMessageId()).isEqualTo("SID-1");
+        }
+
+        @Test
+        @DisplayName("Should not merge messages of different priority classes")
+        void testCoalesce_DifferentClass() {
+            queue(1L, "+249911111", "Alert", SmsPriority.EMERGENCY_ALERT);
+            queue(2L, "+249911111", "Reply", SmsPriority.CONVERSATION);
+            when(smsGateway.sendSms(anyString(), anyString())).thenReturn("SID");
+
+            dispatcher.dispatch();
+
+            verify(smsGateway).sendSms("+249911111", "Alert");
+            verify(smsGateway).sendSms("+249911111", "Reply");
+        }
+
+        @Test
+        @DisplayName("Should not merge beyond the segment budget")
+        void testCoalesce_SegmentBudget() {
+            config.setCoalesceMaxSegments(1);
+            queue(1L, "+249911111", "A".repeat(100), SmsPriority.CASE_UPDATE);
+            queue(2L, "+249911111", "B".repeat(100), SmsPriority.CASE_UPDATE);
+            when(smsGateway.sendSms(anyString(), anyString())).thenReturn("SID");
+
+            dispatcher.dispatch();
+
+            verify(smsGateway, times(2)).sendSms(eq("+249911111"), anyString());
+        }
+
+        @Test
+        @DisplayName("Should cap the coalescing hold for emergency alerts")
+        void testEmergencyHoldCap() {
+            config.setCoalesceWindowMillis(5000);
+            config.setEmergencyMaxDelayMillis(200);
+
+            assertThat(config.coalesceDelayFor(SmsPriority.EMERGENCY_ALERT)).isEqualTo(Duration.ofMillis(200));
+            assertThat(config.coalesceDelayFor(SmsPriority.CASE_UPDATE)).isEqualTo(Duration.ofMillis(5000));
+        }
+    }
+
+    @Nested
+    @DisplayName("Rate limiting")
+    class RateLimitTests {
+
+        @Test
+        @DisplayName("Should defer messages beyond the provider's rate")
+        void testRateLimit() {
+            config.getRateLimits().put("mock", 2);
+            queue(1L, 2L, 3L, 4L);
+            when(smsGateway.sendSms(anyString(), anyString())).thenReturn("SID");
+
+            int sent = dispatcher.dispatch();
+
+            assertThat(sent).isEqualTo(2);
+            assertThat(rows.get(3L).getStatus()).isEqualTo(OutboundSmsStatus.PENDING);
+            assertThat(rows.get(3L).getAttempts()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should not spend a permit on a message another drain claimed")
+        void testRateLimit_ClaimLost() {
+            config.getRateLimits().put("mock", 2);
+            queue(1L, 2L, 3L, 4L);
+            when(repository.claim(eq(1L), any())).thenReturn(0);
+            when(smsGateway.sendSms(anyString(), anyString())).thenReturn("SID");
+
+            int sent = dispatcher.dispatch();
+
+            assertThat(sent).isEqualTo(2);
+            assertThat(rows.get(2L).getStatus()).isEqualTo(OutboundSmsStatus.SENT);
+            assertThat(rows.get(3L).getStatus()).isEqualTo(OutboundSmsStatus.SENT);
+            assertThat(rows.get(4L).getStatus()).isEqualTo(OutboundSmsStatus.PENDING);
+        }
+
+        @Test
+        @DisplayName("Should charge a failed-over send to the route that sent it")
+        void testRateLimit_ChargesActualRoute() {
+            config.getRateLimits().put("android", 1);
+            config.getRateLimits().put("mock", 1);
+            queue(1L, 2L);
+            when(smsGateway.getProviderName()).thenReturn("android");
+            when(smsGateway.getProviderName("SID")).thenReturn("mock");
+            when(smsGateway.sendSms(anyString(), anyString())).thenReturn("SID");
+
+            assertThat(dispatcher.dispatch()).isEqualTo(1);
+            // The phones' permit was given back when the provider took the send
+            assertThat(dispatcher.dispatch()).isEqualTo(1);
+
+            // ...and the provider, now preferred, has used up its own
+            when(smsGateway.getProviderName()).thenReturn("mock");
+            queue(3L);
+            assertThat(dispatcher.dispatch()).isZero();
+            assertThat(rows.get(3L).getStatus()).isEqualTo(OutboundSmsStatus.PENDING);
+        }
+    }
+}
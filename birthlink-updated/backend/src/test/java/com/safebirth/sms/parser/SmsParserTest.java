@@ -166,6 +166,37 @@ class SmsParserTest {
         }
     }
 
+    @Nested
+    @DisplayName("Link Household Tests")
+    class LinkHouseholdTests {
+
+        @Test
+        @DisplayName("Parse English LINK command")
+        void testParseLink_English() {
+            SmsCommand command = parser.parse(TEST_PHONE, "LINK +249 912-345-678");
+
+            assertEquals(CommandType.LINK_HOUSEHOLD, command.type());
+            assertEquals("+249912345678", command.getHouseholdPhone());
+        }
+
+        @Test
+        @DisplayName("Parse Arabic LINK command (ربط)")
+        void testParseLink_Arabic() {
+            SmsCommand command = parser.parse(TEST_PHONE, "ربط 0912345678");
+
+            assertEquals(CommandType.LINK_HOUSEHOLD, command.type());
+            assertEquals("0912345678", command.getHouseholdPhone());
+        }
+
+        @Test
+        @DisplayName("LINK without a phone number is unknown")
+        void testParseLink_MissingPhone() {
+            SmsCommand command = parser.parse(TEST_PHONE, "LINK");
+
+            assertEquals(CommandType.UNKNOWN, command.type());
+        }
+    }
+
     @Nested
     @DisplayName("Emergency Command Tests")
     class EmergencyTests {
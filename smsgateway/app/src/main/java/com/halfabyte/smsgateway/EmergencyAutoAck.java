@@ -0,0 +1,87 @@
+package com.halfabyte.smsgateway;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Local acknowledgement of emergency SMS while the backend is unreachable.
+ * Plain Java with no Android dependencies; times are passed in by the caller.
+ *
+ * The keywords mirror the backend's DirectCommandHandler.EMERGENCY_PATTERN. A sender gets
+ * one acknowledgement per cooldown however often they repeat the keyword, and every emergency
+ * received from them in that time is marked as acknowledged when forwarded, so the backend
+ * does not answer the repeats again once the connection is back.
+ */
+public class EmergencyAutoAck {
+    private static final Pattern EMERGENCY_PATTERN = Pattern.compile("^(emergency|sos|urgent|طوارئ|طوارء)$",
+            Pattern.CASE_INSENSITIVE);
+    private static final int MAX_SENDERS = 500;
+
+    public static final String ACK_MESSAGE =
+            "🚨 Emergency received. We are reaching volunteers, stay calm. "
+                    + "/ 🚨 تم استلام الطوارئ. نحن نتواصل مع المتطوعين، ابق هادئاً.";
+
+    private final long cooldownMs;
+
+    // Time of the last local acknowledgement by sender, oldest first
+    private final Map<String, Long> ackedAt = new LinkedHashMap<>();
+
+    /**
+     * @param cooldownMs how long one acknowledgement covers a sender's repeats
+     */
+    public EmergencyAutoAck(long cooldownMs) {
+        this.cooldownMs = cooldownMs;
+    }
+
+    /**
+     * Check whether an SMS is an emergency keyword.
+     */
+    public static boolean isEmergency(String message) {
+        return message != null && EMERGENCY_PATTERN.matcher(message.trim()).matches();
+    }
+
+    /**
+     * Decide whether to acknowledge an SMS locally, and record it if so.
+     *
+     * @param now current time in milliseconds
+     * @return true if the sender should get {@link #ACK_MESSAGE} now
+     */
+    public boolean shouldAck(String sender, String message, long now) {
+        if (sender == null || !isEmergency(message)) {
+            return false;
+        }
+        evict(now);
+        if (ackedAt.containsKey(sender)) {
+            return false;
+        }
+        ackedAt.put(sender, now);
+        if (ackedAt.size() > MAX_SENDERS) {
+            Iterator<Long> eldest = ackedAt.values().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+        return true;
+    }
+
+    /**
+     * Check whether an emergency SMS received at some time is covered by a local acknowledgement.
+     *
+     * @param receivedAt when the SMS was received, in milliseconds
+     */
+    public boolean isAcked(String sender, String message, long receivedAt) {
+        if (sender == null || !isEmergency(message)) {
+            return false;
+        }
+        Long at = ackedAt.get(sender);
+        return at != null && at <= receivedAt && receivedAt < at + cooldownMs;
+    }
+
+    private void evict(long now) {
+        Iterator<Long> it = ackedAt.values().iterator();
+        while (it.hasNext() && it.next() <= now - cooldownMs) {
+            it.remove();
+        }
+    }
+}
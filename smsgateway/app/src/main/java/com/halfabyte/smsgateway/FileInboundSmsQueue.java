@@ -0,0 +1,174 @@
+package com.halfabyte.smsgateway;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@link InboundSmsQueue} kept in an append-only journal file.
+ *
+ * Each enqueue appends an "add" line and each ack an "ack" line; both are synced to disk
+ * before returning, so a message is not lost if the phone dies right after. On open the
+ * journal is replayed, skipping a last line left half-written by a power cut, and rewritten
+ * with only the pending entries. The journal is also rewritten after enough acks so it does
+ * not grow without limit. A rewritten journal starts with the next id, so ids keep increasing
+ * across restarts even when every entry was acknowledged.
+ *
+ * Not thread-safe on its own; the service only uses it from the main thread.
+ */
+public class FileInboundSmsQueue implements InboundSmsQueue {
+    private static final int COMPACT_AFTER_ACKS = 200;
+
+    private final File file;
+    private final Gson gson = new Gson();
+    private final TreeMap<Long, Entry> entries = new TreeMap<>();
+    private long nextId = 1;
+    private int acksSinceCompaction;
+
+    private FileOutputStream out;
+    private Writer writer;
+
+    public FileInboundSmsQueue(File file) throws IOException {
+        this.file = file;
+        load();
+        compact();
+    }
+
+    @Override
+    public long enqueue(String sender, String message, String messageId) throws IOException {
+        Entry entry = new Entry(nextId++, sender, message, messageId, System.currentTimeMillis());
+        JsonObject line = gson.toJsonTree(entry).getAsJsonObject();
+        line.addProperty("op", "add");
+        append(line);
+        entries.put(entry.getId(), entry);
+        return entry.getId();
+    }
+
+    @Override
+    public List<Entry> peek(long afterId, int max) {
+        List<Entry> result = new ArrayList<>();
+        for (Entry entry : entries.tailMap(afterId, false).values()) {
+            if (result.size() >= max) {
+                break;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    @Override
+    public void ack(long upToId) throws IOException {
+        Map<Long, Entry> acked = entries.headMap(upToId, true);
+        if (acked.isEmpty()) {
+            return;
+        }
+        JsonObject line = new JsonObject();
+        line.addProperty("op", "ack");
+        line.addProperty("id", upToId);
+        append(line);
+        acked.clear();
+
+        if (++acksSinceCompaction >= COMPACT_AFTER_ACKS) {
+            compact();
+        }
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (writer != null) {
+                writer.close();
+            }
+        } catch (IOException ignored) {
+            // Everything written was already synced
+        }
+        writer = null;
+        out = null;
+    }
+
+    private void load() throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                JsonObject line;
+                try {
+                    line = JsonParser.parseString(text).getAsJsonObject();
+                } catch (JsonParseException | IllegalStateException e) {
+                    continue; // torn write
+                }
+                String op = line.has("op") ? line.get("op").getAsString() : "";
+                if ("add".equals(op)) {
+                    Entry entry = gson.fromJson(line, Entry.class);
+                    entries.put(entry.getId(), entry);
+                    nextId = Math.max(nextId, entry.getId() + 1);
+                } else if ("ack".equals(op)) {
+                    long id = line.get("id").getAsLong();
+                    entries.headMap(id, true).clear();
+                    nextId = Math.max(nextId, id + 1);
+                } else if ("next".equals(op)) {
+                    nextId = Math.max(nextId, line.get("id").getAsLong());
+                }
+            }
+        }
+    }
+
+    /**
+     * Rewrite the journal with only pending entries, via a temp file so a crash leaves either
+     * the old or the new journal.
+     */
+    private void compact() throws IOException {
+        close();
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream tmpOut = new FileOutputStream(tmp)) {
+            Writer tmpWriter = new OutputStreamWriter(tmpOut, StandardCharsets.UTF_8);
+            JsonObject next = new JsonObject();
+            next.addProperty("op", "next");
+            next.addProperty("id", nextId);
+            tmpWriter.write(next + "\n");
+            for (Entry entry : entries.values()) {
+                JsonObject line = gson.toJsonTree(entry).getAsJsonObject();
+                line.addProperty("op", "add");
+                tmpWriter.write(line + "\n");
+            }
+            tmpWriter.flush();
+            tmpOut.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Could not replace " + file);
+        }
+        acksSinceCompaction = 0;
+
+        out = new FileOutputStream(file, true);
+        writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    }
+
+    private void append(JsonObject line) throws IOException {
+        writer.write(line + "\n");
+        writer.flush();
+        out.getFD().sync();
+    }
+}
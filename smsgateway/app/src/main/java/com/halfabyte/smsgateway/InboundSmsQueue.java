@@ -0,0 +1,84 @@
+package com.halfabyte.smsgateway;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Persistent FIFO of received SMS waiting to reach the backend.
+ * Plain Java with no Android dependencies, so implementations can be tested on the JVM.
+ *
+ * Every received SMS is enqueued before it is forwarded, and only removed once the backend
+ * has acknowledged it, so messages received during a power or network outage are sent when
+ * the connection comes back.
+ */
+public interface InboundSmsQueue {
+
+    /**
+     * Store a received SMS.
+     *
+     * @return the entry's id; ids increase in enqueue order
+     */
+    long enqueue(String sender, String message, String messageId) throws IOException;
+
+    /**
+     * Get the oldest entries after an id, without removing them.
+     *
+     * @param afterId only entries with a larger id; 0 for the head of the queue
+     * @param max     maximum number of entries
+     */
+    List<Entry> peek(long afterId, int max);
+
+    /**
+     * Remove every entry up to and including an id, once the backend has it.
+     */
+    void ack(long upToId) throws IOException;
+
+    /**
+     * Get the number of entries not yet acknowledged.
+     */
+    int size();
+
+    /**
+     * Release the underlying storage.
+     */
+    void close();
+
+    /**
+     * A queued SMS.
+     */
+    final class Entry {
+        private final long id;
+        private final String sender;
+        private final String message;
+        private final String messageId;
+        private final long receivedAt;
+
+        public Entry(long id, String sender, String message, String messageId, long receivedAt) {
+            this.id = id;
+            this.sender = sender;
+            this.message = message;
+            this.messageId = messageId;
+            this.receivedAt = receivedAt;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getSender() {
+            return sender;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public String getMessageId() {
+            return messageId;
+        }
+
+        public long getReceivedAt() {
+            return receivedAt;
+        }
+    }
+}
@@ -77,6 +77,10 @@ public class MockWebSocketServer extends NanoWSD {
      */
     private class MockWebSocket extends NanoWSD.WebSocket {
 
+        // The mock keeps no state across connections, so every hello starts a new stream
+        private final String streamId = UUID.randomUUID().toString();
+        private long lastReceived;
+
         public MockWebSocket(IHTTPSession handshakeRequest) {
             super(handshakeRequest);
         }
@@ -111,6 +115,32 @@ public class MockWebSocketServer extends NanoWSD {
 
                 String type = (String) msgMap.get("type");
 
+                if ("hello".equals(type)) {
+                    Map<String, Object> reply = new HashMap<>();
+                    reply.put("type", "hello");
+                    reply.put("version", 2);
+                    reply.put("stream", streamId);
+                    reply.put("ack", lastReceived);
+                    reply.put("resumed", false);
+                    send(gson.toJson(reply));
+                    return;
+                }
+
+                // Acknowledge sequenced frames so the app can drop them from its replay buffer
+                Object seq = msgMap.get("seq");
+                if (seq instanceof Number) {
+                    long frameSeq = ((Number) seq).longValue();
+                    if (frameSeq <= lastReceived) {
+                        Log.d(TAG, "Mock server ignoring replayed frame " + frameSeq);
+                        return;
+                    }
+                    lastReceived = frameSeq;
+                    Map<String, Object> ack = new HashMap<>();
+                    ack.put("type", "ack");
+                    ack.put("ack", lastReceived);
+                    send(gson.toJson(ack));
+                }
+
                 if ("incoming_sms".equals(type)) {
                     // Echo back as a send_sms command (for testing)
                     String sender = (String) msgMap.get("sender");
@@ -0,0 +1,63 @@
+package com.halfabyte.smsgateway;
+
+import java.util.ArrayDeque;
+
+/**
+ * Sliding one-minute limit on outgoing SMS parts, so a large fan-out stays under the
+ * carrier's rate and the SIM is not throttled or blocked.
+ * Plain Java with no Android dependencies; times are passed in by the caller.
+ */
+public class SendRateLimiter {
+    private static final long WINDOW_MS = 60_000;
+
+    private final int perMinute;
+    private final ArrayDeque<Long> sentAt = new ArrayDeque<>();
+
+    /**
+     * @param perMinute SMS parts allowed in any one-minute window
+     */
+    public SendRateLimiter(int perMinute) {
+        this.perMinute = Math.max(1, perMinute);
+    }
+
+    /**
+     * Get how long to wait before some parts may be sent.
+     * A message with more parts than the whole limit may go once nothing else was sent in the window.
+     *
+     * @param parts number of SMS parts
+     * @param now   current time in milliseconds
+     * @return 0 if they may be sent now, otherwise the delay in milliseconds
+     */
+    public long delayFor(int parts, long now) {
+        evict(now);
+        if (sentAt.isEmpty() || sentAt.size() + parts <= perMinute) {
+            return 0;
+        }
+        // Wait until enough earlier parts leave the window
+        int mustExpire = Math.min(sentAt.size(), sentAt.size() + parts - perMinute);
+        long until = 0;
+        int i = 0;
+        for (long time : sentAt) {
+            if (++i == mustExpire) {
+                until = time + WINDOW_MS;
+                break;
+            }
+        }
+        return Math.max(1, until - now);
+    }
+
+    /**
+     * Record parts handed to the radio.
+     */
+    public void record(int parts, long now) {
+        for (int i = 0; i < parts; i++) {
+            sentAt.addLast(now);
+        }
+    }
+
+    private void evict(long now) {
+        while (!sentAt.isEmpty() && sentAt.peekFirst() <= now - WINDOW_MS) {
+            sentAt.pollFirst();
+        }
+    }
+}
@@ -9,31 +9,45 @@ import android.content.Intent;
 import android.os.Binder;
 import android.os.Build;
 import android.os.IBinder;
+import android.provider.Settings;
 import android.util.Log;
 
 import androidx.core.app.NotificationCompat;
 
 import com.halfabyte.smsgateway.models.LogEntry;
 import com.halfabyte.smsgateway.models.SendSmsCommand;
+import com.halfabyte.smsgateway.models.SmsDeliveryReport;
 import com.halfabyte.smsgateway.models.SmsSentConfirmation;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Foreground service that keeps the SMS gateway running in the background.
  * Coordinates between SMS receiver, sender, and WebSocket manager.
+ *
+ * Received SMS are written to a durable {@link InboundSmsQueue} first and forwarded from
+ * there, a batch at a time while connected. An entry is deleted only after the backend
+ * acknowledges it, so SMS received while offline, or before the app was killed, are sent
+ * in order once the connection is back.
  */
 public class SmsGatewayService extends Service implements WebSocketManager.WebSocketCallback {
     private static final String TAG = "SmsGatewayService";
     private static final String CHANNEL_ID = "sms_gateway_channel";
     private static final int NOTIFICATION_ID = 1;
+    private static final String INBOUND_QUEUE_FILE = "inbound-sms.journal";
+    private static final int DRAIN_BATCH_SIZE = 20;
+    private static final long EMERGENCY_ACK_COOLDOWN_MS = 10 * 60 * 1000; // one local ack per sender per 10 min
 
     public static final String ACTION_SMS_RECEIVED = "com.halfabyte.smsgateway.SMS_RECEIVED";
     public static final String ACTION_CONNECT = "com.halfabyte.smsgateway.CONNECT";
     public static final String ACTION_DISCONNECT = "com.halfabyte.smsgateway.DISCONNECT";
     public static final String EXTRA_SENDER = "sender";
     public static final String EXTRA_MESSAGE = "message";
+    public static final String EXTRA_MESSAGE_ID = "message_id";
     public static final String EXTRA_URL = "url";
     public static final String EXTRA_MOCK_MODE = "mock_mode";
 
@@ -43,6 +57,14 @@ public class SmsGatewayService extends Service implements WebSocketManager.WebSo
     private MockWebSocketServer mockServer;
     private boolean isMockMode = false;
     private ServiceCallback callback;
+
+    // Received SMS not yet acknowledged by the backend; null if the journal could not be opened
+    private InboundSmsQueue inboundQueue;
+    // Highest queue id handed to the WebSocket manager, and how many of those are unacknowledged
+    private long lastHandedOff;
+    private int handedOffUnacked;
+    // Acknowledges emergencies locally while the backend is unreachable
+    private final EmergencyAutoAck emergencyAutoAck = new EmergencyAutoAck(EMERGENCY_ACK_COOLDOWN_MS);
     
     // Buffer for log entries when Activity isn't connected
     private final List<LogEntry> logBuffer = new ArrayList<>();
@@ -66,8 +88,26 @@ public class SmsGatewayService extends Service implements WebSocketManager.WebSo
         Log.d(TAG, "Service created");
 
         createNotificationChannel();
-        smsSender = new SmsSender(this);
-        webSocketManager = new WebSocketManager(this);
+        smsSender = new SmsSender(this,
+                getResources().getInteger(R.integer.sms_sends_per_minute),
+                getResources().getInteger(R.integer.sms_send_window));
+        String deviceId = Settings.Secure.getString(getContentResolver(), Settings.Secure.ANDROID_ID);
+        webSocketManager = new WebSocketManager(this, deviceId);
+        smsSender.setDeliveryListener((requestId, recipient, delivered) -> {
+            if (!delivered) {
+                addLog(LogEntry.Type.SYSTEM, "SMS to " + recipient + " was not delivered");
+            }
+            webSocketManager.sendDeliveryReport(new SmsDeliveryReport(requestId, recipient, delivered));
+        });
+
+        try {
+            inboundQueue = new FileInboundSmsQueue(new File(getFilesDir(), INBOUND_QUEUE_FILE));
+            if (inboundQueue.size() > 0) {
+                addLog(LogEntry.Type.SYSTEM, inboundQueue.size() + " received SMS waiting to be forwarded");
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to open inbound SMS queue, forwarding directly", e);
+        }
     }
 
     @Override
@@ -83,7 +123,8 @@ public class SmsGatewayService extends Service implements WebSocketManager.WebSo
             if (ACTION_SMS_RECEIVED.equals(action)) {
                 String sender = intent.getStringExtra(EXTRA_SENDER);
                 String message = intent.getStringExtra(EXTRA_MESSAGE);
-                handleIncomingSms(sender, message);
+                String messageId = intent.getStringExtra(EXTRA_MESSAGE_ID);
+                handleIncomingSms(sender, message, messageId);
             } else if (ACTION_CONNECT.equals(action)) {
                 String url = intent.getStringExtra(EXTRA_URL);
                 boolean mockMode = intent.getBooleanExtra(EXTRA_MOCK_MODE, false);
@@ -106,6 +147,10 @@ public class SmsGatewayService extends Service implements WebSocketManager.WebSo
         super.onDestroy();
         Log.d(TAG, "Service destroyed");
         disconnect();
+        smsSender.shutdown();
+        if (inboundQueue != null) {
+            inboundQueue.close();
+        }
     }
 
     public void setCallback(ServiceCallback callback) {
@@ -157,12 +202,66 @@ public class SmsGatewayService extends Service implements WebSocketManager.WebSo
         return isMockMode;
     }
 
-    private void handleIncomingSms(String sender, String message) {
+    private void handleIncomingSms(String sender, String message, String messageId) {
         Log.d(TAG, "Handling incoming SMS from " + sender);
         addLog(LogEntry.Type.INCOMING, "From " + sender + ": " + message);
+        acknowledgeEmergencyLocally(sender, message);
 
-        // Forward to backend via WebSocket
-        webSocketManager.sendIncomingSms(sender, message);
+        if (inboundQueue == null) {
+            forwardDirectly(sender, message, messageId);
+            return;
+        }
+        try {
+            inboundQueue.enqueue(sender, message, messageId);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to store incoming SMS, forwarding directly", e);
+            forwardDirectly(sender, message, messageId);
+            return;
+        }
+        drainInboundQueue();
+    }
+
+    private void forwardDirectly(String sender, String message, String messageId) {
+        webSocketManager.sendIncomingSms(sender, message, messageId,
+                emergencyAutoAck.isAcked(sender, message, System.currentTimeMillis()), WebSocketManager.NO_QUEUE_ID);
+    }
+
+    /**
+     * Answer an emergency from this phone when the backend cannot, so the mother hears back in
+     * seconds instead of when the connection returns. The backend still gets the message and
+     * opens the case; it learns from the forwarded message that the sender was acknowledged.
+     */
+    private void acknowledgeEmergencyLocally(String sender, String message) {
+        if (webSocketManager.getState() == WebSocketManager.ConnectionState.CONNECTED
+                || !emergencyAutoAck.shouldAck(sender, message, System.currentTimeMillis())) {
+            return;
+        }
+        addLog(LogEntry.Type.SYSTEM, "Backend unreachable, acknowledging emergency from " + sender + " locally");
+        smsSender.sendSms(Collections.singletonList(sender), EmergencyAutoAck.ACK_MESSAGE,
+                (recipients, successCount, failureCount) -> addLog(LogEntry.Type.OUTGOING,
+                        "Local acknowledgement to " + sender + (successCount > 0 ? " sent" : " failed")));
+    }
+
+    /**
+     * Hand queued SMS to the WebSocket manager in order, keeping at most one batch
+     * unacknowledged. Entries already handed over stay in the manager's replay buffer
+     * across reconnects, so they are not handed over again.
+     */
+    private void drainInboundQueue() {
+        if (inboundQueue == null || webSocketManager.getState() != WebSocketManager.ConnectionState.CONNECTED) {
+            return;
+        }
+
+        int room = DRAIN_BATCH_SIZE - handedOffUnacked;
+        if (room <= 0) {
+            return;
+        }
+        for (InboundSmsQueue.Entry entry : inboundQueue.peek(lastHandedOff, room)) {
+            webSocketManager.sendIncomingSms(entry.getSender(), entry.getMessage(), entry.getMessageId(),
+                    emergencyAutoAck.isAcked(entry.getSender(), entry.getMessage(), entry.getReceivedAt()), entry.getId());
+            lastHandedOff = entry.getId();
+            handedOffUnacked++;
+        }
     }
 
     private void handleSendSmsCommand(SendSmsCommand command) {
@@ -175,9 +274,10 @@ public class SmsGatewayService extends Service implements WebSocketManager.WebSo
         String message = command.getMessage();
         String requestId = command.getRequestId();
 
-        addLog(LogEntry.Type.SYSTEM, "Sending SMS to " + recipients.size() + " recipient(s)");
+        addLog(LogEntry.Type.SYSTEM, "Sending SMS to " + recipients.size() + " recipient(s)"
+                + (smsSender.getQueuedCount() > 0 ? ", " + smsSender.getQueuedCount() + " queued ahead" : ""));
 
-        smsSender.sendSms(recipients, message, (recipientList, successCount, failureCount) -> {
+        smsSender.sendSms(recipients, message, requestId, (recipientList, successCount, failureCount) -> {
             addLog(LogEntry.Type.OUTGOING,
                     "Sent to " + successCount + "/" + recipientList.size() + " recipients");
 
@@ -213,6 +313,7 @@ public class SmsGatewayService extends Service implements WebSocketManager.WebSo
         switch (state) {
             case CONNECTED:
                 addLog(LogEntry.Type.SYSTEM, "Connected to server");
+                drainInboundQueue();
                 break;
             case CONNECTING:
                 addLog(LogEntry.Type.SYSTEM, "Connecting...");
@@ -239,6 +340,18 @@ public class SmsGatewayService extends Service implements WebSocketManager.WebSo
         handleSendSmsCommand(command);
     }
 
+    @Override
+    public void onIncomingSmsAcked(List<Long> queueIds) {
+        handedOffUnacked = Math.max(0, handedOffUnacked - queueIds.size());
+        try {
+            inboundQueue.ack(Collections.max(queueIds));
+        } catch (IOException e) {
+            // The entries stay queued and are forwarded again after a restart; the backend drops duplicates
+            Log.e(TAG, "Failed to remove acknowledged SMS from queue", e);
+        }
+        drainInboundQueue();
+    }
+
     @Override
     public void onError(String error) {
         Log.e(TAG, "WebSocket error: " + error);
@@ -8,6 +8,9 @@ import android.os.Bundle;
 import android.telephony.SmsMessage;
 import android.util.Log;
 
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
 /**
  * BroadcastReceiver that listens for incoming SMS messages.
  * Forwards received messages to SmsGatewayService for processing.
@@ -39,6 +42,7 @@ public class SmsReceiver extends BroadcastReceiver {
         // Process each PDU (Protocol Data Unit)
         StringBuilder fullMessage = new StringBuilder();
         String senderNumber = null;
+        long timestampMillis = 0;
 
         for (Object pdu : pdus) {
             SmsMessage smsMessage;
@@ -51,6 +55,7 @@ public class SmsReceiver extends BroadcastReceiver {
             if (smsMessage != null) {
                 if (senderNumber == null) {
                     senderNumber = smsMessage.getDisplayOriginatingAddress();
+                    timestampMillis = smsMessage.getTimestampMillis();
                 }
                 fullMessage.append(smsMessage.getMessageBody());
             }
@@ -64,6 +69,8 @@ public class SmsReceiver extends BroadcastReceiver {
             serviceIntent.setAction(SmsGatewayService.ACTION_SMS_RECEIVED);
             serviceIntent.putExtra(SmsGatewayService.EXTRA_SENDER, senderNumber);
             serviceIntent.putExtra(SmsGatewayService.EXTRA_MESSAGE, fullMessage.toString());
+            serviceIntent.putExtra(SmsGatewayService.EXTRA_MESSAGE_ID,
+                    messageId(senderNumber, timestampMillis, fullMessage.toString()));
 
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
                 context.startForegroundService(serviceIntent);
@@ -72,4 +79,13 @@ public class SmsReceiver extends BroadcastReceiver {
             }
         }
     }
+
+    /**
+     * Derive a stable id from the SMS itself (sender, service centre timestamp, body), so the
+     * backend can recognise the same message if the broadcast is delivered twice.
+     */
+    static String messageId(String sender, long timestampMillis, String body) {
+        String key = sender + "|" + timestampMillis + "|" + body;
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+    }
 }
@@ -9,42 +9,146 @@ import android.content.IntentFilter;
 import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.telephony.SmsManager;
+import android.telephony.SmsMessage;
 import android.util.Log;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
+import java.util.Random;
 
 /**
  * Utility class for sending SMS messages.
  * Handles long messages by splitting them into parts.
+ *
+ * Sends are not fired all at once: every recipient is queued and a scheduler on the main
+ * thread hands them to the radio within a per-minute limit on SMS parts and a window of
+ * recipients waiting for their sent status, so a large alert fan-out does not get the SIM
+ * throttled or blocked by the operator. Commands are served in arrival order.
+ *
+ * One receiver, registered for the sender's lifetime, collects sent status for every part.
+ * Each part's PendingIntent carries a unique token, used both as the intent's request code
+ * and to find the recipient the result belongs to, so concurrent commands never mix up results.
+ * Tokens start from the clock rather than 1, so a restarted app does not reuse the request code
+ * of a PendingIntent the radio still holds; each intent also carries a per-sender nonce, and
+ * results from an earlier sender are ignored.
+ *
+ * Commands sent with a tag also ask the network for delivery reports. Once every part of a
+ * recipient's SMS is reported delivered, or one part has failed, the {@link DeliveryListener}
+ * hears about it. Operators that do not return reports simply never call it, so recipients
+ * waiting for a report are held in a bounded map and the oldest are forgotten.
+ *
+ * All methods must be called on the main thread; callbacks are delivered there too.
  */
 public class SmsSender {
     private static final String TAG = "SmsSender";
     private static final String ACTION_SMS_SENT = "com.halfabyte.smsgateway.SMS_SENT";
-    private static final long SEND_TIMEOUT_MS = 30000; // 30 second timeout
+    private static final String ACTION_SMS_DELIVERED = "com.halfabyte.smsgateway.SMS_DELIVERED";
+    private static final String EXTRA_TOKEN = "token";
+    private static final String EXTRA_NONCE = "nonce";
+    private static final long SEND_TIMEOUT_MS = 30000; // 30 second timeout per recipient
+    private static final int MAX_WATCHED_PARTS = 1000; // parts waiting for a delivery report
+
+    // Outcome of a delivery report
+    private static final int STATUS_DELIVERED = 0;
+    private static final int STATUS_PENDING = 1;
+    private static final int STATUS_FAILED = 2;
 
     public interface SendCallback {
         void onResult(List<String> recipients, int successCount, int failureCount);
     }
 
+    public interface DeliveryListener {
+        /**
+         * The network reported whether a tagged SMS reached one recipient.
+         *
+         * @param tag       the tag the SMS was sent with
+         * @param delivered true if every part was delivered
+         */
+        void onDelivery(String tag, String recipient, boolean delivered);
+    }
+
     private final Context context;
     private final Handler mainHandler;
+    private final SendRateLimiter rateLimiter;
+    private final int window;
 
-    public SmsSender(Context context) {
+    private final ArrayDeque<Send> queue = new ArrayDeque<>();
+    private final Map<Integer, Send> partsByToken = new HashMap<>();
+    private final Map<Integer, Delivery> deliveriesByToken = new LinkedHashMap<Integer, Delivery>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Delivery> eldest) {
+            return size() > MAX_WATCHED_PARTS;
+        }
+    };
+    private DeliveryListener deliveryListener;
+    private final BroadcastReceiver sentReceiver;
+    private final Runnable pumpRunnable = this::pump;
+    private final long nonce = new Random().nextLong();
+    private int nextToken = seedToken(System.currentTimeMillis());
+    private int inFlight;
+    private boolean registered;
+    private boolean stopped;
+
+    /**
+     * @param sendsPerMinute SMS parts handed to the radio per minute at most
+     * @param window         recipients waiting for their sent status at most
+     */
+    public SmsSender(Context context, int sendsPerMinute, int window) {
         this.context = context;
         this.mainHandler = new Handler(Looper.getMainLooper());
+        this.rateLimiter = new SendRateLimiter(sendsPerMinute);
+        this.window = Math.max(1, window);
+        this.sentReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context ctx, Intent intent) {
+                int token = intent.getIntExtra(EXTRA_TOKEN, 0);
+                if (intent.getLongExtra(EXTRA_NONCE, 0) != nonce) {
+                    Log.d(TAG, "Ignoring result for part " + token + " from an earlier sender");
+                    return;
+                }
+                if (ACTION_SMS_DELIVERED.equals(intent.getAction())) {
+                    onPartDelivered(token, intent);
+                } else {
+                    onPartSent(token, getResultCode());
+                }
+            }
+        };
+        register();
+    }
+
+    /**
+     * Set the listener for delivery reports of tagged sends.
+     */
+    public void setDeliveryListener(DeliveryListener deliveryListener) {
+        this.deliveryListener = deliveryListener;
     }
 
     /**
      * Send an SMS message to multiple recipients.
-     * 
+     *
      * @param recipients List of phone numbers to send to
      * @param message    The message content
-     * @param callback   Callback for result
+     * @param callback   Callback for result, once every recipient has succeeded, failed or timed out
      */
     public void sendSms(List<String> recipients, String message, SendCallback callback) {
+        sendSms(recipients, message, null, callback);
+    }
+
+    /**
+     * Send an SMS message to multiple recipients and ask for delivery reports.
+     *
+     * @param tag      Passed to the {@link DeliveryListener} with each recipient's delivery report;
+     *                 null sends without asking for reports
+     * @param callback Callback for result, once every recipient has succeeded, failed or timed out
+     */
+    public void sendSms(List<String> recipients, String message, String tag, SendCallback callback) {
         if (recipients == null || recipients.isEmpty()) {
             Log.w(TAG, "No recipients provided");
             if (callback != null) {
@@ -61,182 +165,372 @@ public class SmsSender {
             return;
         }
 
-        Log.d(TAG, "Preparing to send SMS to " + recipients.size() + " recipients");
+        Log.d(TAG, "Queueing SMS to " + recipients.size() + " recipients behind " + queue.size());
         Log.d(TAG, "Message: " + message.substring(0, Math.min(50, message.length())) + "...");
 
-        SmsManager smsManager;
-        try {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                smsManager = context.getSystemService(SmsManager.class);
-            } else {
-                smsManager = SmsManager.getDefault();
-            }
-
-            if (smsManager == null) {
-                Log.e(TAG, "SmsManager is null - SMS not available on this device");
-                if (callback != null) {
-                    callback.onResult(recipients, 0, recipients.size());
-                }
-                return;
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to get SmsManager", e);
+        SmsManager smsManager = smsManager();
+        if (smsManager == null || !registered || stopped) {
             if (callback != null) {
                 callback.onResult(recipients, 0, recipients.size());
             }
             return;
         }
 
-        AtomicInteger successCount = new AtomicInteger(0);
-        AtomicInteger failureCount = new AtomicInteger(0);
-        AtomicInteger pendingCount = new AtomicInteger(recipients.size());
-        final boolean[] callbackCalled = { false };
+        ArrayList<String> parts = smsManager.divideMessage(message);
+        Log.d(TAG, "Message divided into " + parts.size() + " part(s)");
 
-        // Create receiver for sent status
-        BroadcastReceiver sentReceiver = new BroadcastReceiver() {
-            @Override
-            public void onReceive(Context ctx, Intent intent) {
-                int resultCode = getResultCode();
-
-                switch (resultCode) {
-                    case Activity.RESULT_OK:
-                        successCount.incrementAndGet();
-                        Log.d(TAG, "SMS sent successfully");
-                        break;
-                    case SmsManager.RESULT_ERROR_GENERIC_FAILURE:
-                        failureCount.incrementAndGet();
-                        Log.e(TAG, "SMS failed: Generic failure");
-                        break;
-                    case SmsManager.RESULT_ERROR_NO_SERVICE:
-                        failureCount.incrementAndGet();
-                        Log.e(TAG, "SMS failed: No service");
-                        break;
-                    case SmsManager.RESULT_ERROR_NULL_PDU:
-                        failureCount.incrementAndGet();
-                        Log.e(TAG, "SMS failed: Null PDU");
-                        break;
-                    case SmsManager.RESULT_ERROR_RADIO_OFF:
-                        failureCount.incrementAndGet();
-                        Log.e(TAG, "SMS failed: Radio off");
-                        break;
-                    default:
-                        failureCount.incrementAndGet();
-                        Log.e(TAG, "SMS failed with code: " + resultCode);
-                        break;
-                }
+        Command command = new Command(recipients, tag, callback);
+        for (String recipient : recipients) {
+            if (recipient == null || recipient.trim().isEmpty()) {
+                Log.w(TAG, "Skipping empty recipient");
+                command.finish(false);
+                continue;
+            }
+            queue.addLast(new Send(command, smsManager, recipient, parts));
+        }
+        pump();
+    }
 
-                if (pendingCount.decrementAndGet() == 0) {
-                    finishSending(ctx, this, callback, recipients, successCount.get(), failureCount.get(),
-                            callbackCalled);
-                }
+    /**
+     * Get the number of recipients waiting for their turn.
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Stop sending: fail everything queued or in flight and unregister the receiver.
+     */
+    public void shutdown() {
+        stopped = true;
+        mainHandler.removeCallbacks(pumpRunnable);
+        while (!queue.isEmpty()) {
+            queue.pollFirst().command.finish(false);
+        }
+        for (Send send : new LinkedHashSet<>(partsByToken.values())) {
+            complete(send, false);
+        }
+        deliveriesByToken.clear();
+        if (registered) {
+            try {
+                context.unregisterReceiver(sentReceiver);
+            } catch (Exception e) {
+                // Ignore - receiver may already be unregistered
             }
-        };
+            registered = false;
+        }
+    }
 
-        // Register receiver
+    private void register() {
         try {
             IntentFilter filter = new IntentFilter(ACTION_SMS_SENT);
+            filter.addAction(ACTION_SMS_DELIVERED);
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
                 context.registerReceiver(sentReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
             } else {
                 context.registerReceiver(sentReceiver, filter);
             }
+            registered = true;
         } catch (Exception e) {
             Log.e(TAG, "Failed to register receiver", e);
-            if (callback != null) {
-                callback.onResult(recipients, 0, recipients.size());
+        }
+    }
+
+    private SmsManager smsManager() {
+        try {
+            SmsManager smsManager;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+                smsManager = context.getSystemService(SmsManager.class);
+            } else {
+                smsManager = SmsManager.getDefault();
             }
-            return;
+            if (smsManager == null) {
+                Log.e(TAG, "SmsManager is null - SMS not available on this device");
+            }
+            return smsManager;
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to get SmsManager", e);
+            return null;
         }
+    }
 
-        // Set timeout to ensure callback is always called
-        mainHandler.postDelayed(() -> {
-            if (!callbackCalled[0]) {
-                Log.w(TAG, "SMS send timeout - forcing callback");
-                finishSending(context, sentReceiver, callback, recipients, successCount.get(),
-                        recipients.size() - successCount.get(), callbackCalled);
+    /**
+     * Hand queued recipients to the radio while the window and the rate limit allow,
+     * and come back when the rate limit frees up.
+     */
+    private void pump() {
+        mainHandler.removeCallbacks(pumpRunnable);
+        while (!stopped && !queue.isEmpty() && inFlight < window) {
+            Send next = queue.peekFirst();
+            long delay = rateLimiter.delayFor(next.parts.size(), SystemClock.elapsedRealtime());
+            if (delay > 0) {
+                Log.d(TAG, "Rate limit reached, " + queue.size() + " recipient(s) wait " + delay + "ms");
+                mainHandler.postDelayed(pumpRunnable, delay);
+                return;
             }
-        }, SEND_TIMEOUT_MS);
+            queue.pollFirst();
+            start(next);
+        }
+    }
 
-        // Send to each recipient
+    private void start(Send send) {
         int flags = Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
                 ? PendingIntent.FLAG_MUTABLE | PendingIntent.FLAG_UPDATE_CURRENT
                 : PendingIntent.FLAG_UPDATE_CURRENT;
 
-        for (int i = 0; i < recipients.size(); i++) {
-            String recipient = recipients.get(i);
+        ArrayList<PendingIntent> sentIntents = new ArrayList<>();
+        for (int i = 0; i < send.parts.size(); i++) {
+            int token = nextToken();
+            sentIntents.add(broadcast(ACTION_SMS_SENT, token, flags));
+            send.tokens.add(token);
+            partsByToken.put(token, send);
+        }
 
-            if (recipient == null || recipient.trim().isEmpty()) {
-                Log.w(TAG, "Skipping empty recipient");
-                failureCount.incrementAndGet();
-                if (pendingCount.decrementAndGet() == 0) {
-                    finishSending(context, sentReceiver, callback, recipients, successCount.get(), failureCount.get(),
-                            callbackCalled);
-                }
-                continue;
+        ArrayList<PendingIntent> deliveryIntents = null;
+        if (send.command.tag != null && deliveryListener != null) {
+            deliveryIntents = new ArrayList<>();
+            send.delivery = new Delivery(send.command.tag, send.recipient, send.parts.size());
+            for (int i = 0; i < send.parts.size(); i++) {
+                int token = nextToken();
+                deliveryIntents.add(broadcast(ACTION_SMS_DELIVERED, token, flags));
+                send.delivery.tokens.add(token);
+                deliveriesByToken.put(token, send.delivery);
             }
+        }
 
-            try {
-                Log.d(TAG, "Sending SMS to: " + recipient);
+        inFlight++;
+        rateLimiter.record(send.parts.size(), SystemClock.elapsedRealtime());
+        mainHandler.postDelayed(send.timeout, SEND_TIMEOUT_MS);
 
-                ArrayList<String> parts = smsManager.divideMessage(message);
-                Log.d(TAG, "Message divided into " + parts.size() + " part(s)");
+        try {
+            Log.d(TAG, "Sending SMS to: " + send.recipient);
+            if (send.parts.size() == 1) {
+                send.smsManager.sendTextMessage(send.recipient, null, send.parts.get(0), sentIntents.get(0),
+                        deliveryIntents != null ? deliveryIntents.get(0) : null);
+            } else {
+                send.smsManager.sendMultipartTextMessage(send.recipient, null, send.parts, sentIntents, deliveryIntents);
+            }
+        } catch (SecurityException e) {
+            Log.e(TAG, "Permission denied for sending SMS to " + send.recipient, e);
+            complete(send, false);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to send SMS to " + send.recipient, e);
+            complete(send, false);
+        }
+    }
 
-                if (parts.size() == 1) {
-                    // Single part message
-                    Intent sentIntent = new Intent(ACTION_SMS_SENT);
-                    sentIntent.setPackage(context.getPackageName());
-                    PendingIntent sentPI = PendingIntent.getBroadcast(context, i, sentIntent, flags);
+    private PendingIntent broadcast(String action, int token, int flags) {
+        Intent intent = new Intent(action);
+        intent.setPackage(context.getPackageName());
+        intent.putExtra(EXTRA_TOKEN, token);
+        intent.putExtra(EXTRA_NONCE, nonce);
+        return PendingIntent.getBroadcast(context, token, intent, flags);
+    }
 
-                    smsManager.sendTextMessage(recipient, null, message, sentPI, null);
-                } else {
-                    // Multi-part message
-                    ArrayList<PendingIntent> sentIntents = new ArrayList<>();
-                    for (int j = 0; j < parts.size(); j++) {
-                        Intent sentIntent = new Intent(ACTION_SMS_SENT);
-                        sentIntent.setPackage(context.getPackageName());
-                        sentIntents.add(PendingIntent.getBroadcast(context, i * 100 + j, sentIntent, flags));
-                    }
-                    // Adjust pending count for multi-part (each part triggers a callback)
-                    pendingCount.addAndGet(parts.size() - 1);
-                    smsManager.sendMultipartTextMessage(recipient, null, parts, sentIntents, null);
-                }
-            } catch (SecurityException e) {
-                Log.e(TAG, "Permission denied for sending SMS to " + recipient, e);
-                failureCount.incrementAndGet();
-                if (pendingCount.decrementAndGet() == 0) {
-                    finishSending(context, sentReceiver, callback, recipients, successCount.get(), failureCount.get(),
-                            callbackCalled);
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to send SMS to " + recipient, e);
-                failureCount.incrementAndGet();
-                if (pendingCount.decrementAndGet() == 0) {
-                    finishSending(context, sentReceiver, callback, recipients, successCount.get(), failureCount.get(),
-                            callbackCalled);
-                }
-            }
+    private int nextToken() {
+        int token = nextToken;
+        nextToken = nextToken == Integer.MAX_VALUE ? 1 : nextToken + 1;
+        return token;
+    }
+
+    /**
+     * First token for a new sender: the clock in milliseconds. Since the previous sender started,
+     * the clock has moved on further than the number of parts it could have sent, so the ranges
+     * do not overlap. Never 0, the value of a missing token extra.
+     */
+    static int seedToken(long nowMillis) {
+        int seed = (int) (nowMillis & Integer.MAX_VALUE);
+        return seed == 0 ? 1 : seed;
+    }
+
+    private void onPartSent(int token, int resultCode) {
+        Send send = partsByToken.remove(token);
+        if (send == null) {
+            Log.d(TAG, "Sent status for unknown or timed out part " + token);
+            return;
+        }
+
+        if (resultCode == Activity.RESULT_OK) {
+            Log.d(TAG, "SMS part sent successfully to " + send.recipient);
+        } else {
+            send.failed = true;
+            Log.e(TAG, "SMS to " + send.recipient + " failed: " + describe(resultCode));
+        }
+
+        send.tokens.remove(Integer.valueOf(token));
+        if (send.tokens.isEmpty()) {
+            complete(send, !send.failed);
         }
     }
 
-    private void finishSending(Context ctx, BroadcastReceiver receiver, SendCallback callback,
-            List<String> recipients, int success, int failure, boolean[] callbackCalled) {
-        synchronized (callbackCalled) {
-            if (callbackCalled[0]) {
-                return;
+    private void onPartDelivered(int token, Intent intent) {
+        Delivery delivery = deliveriesByToken.get(token);
+        if (delivery == null) {
+            Log.d(TAG, "Delivery report for unknown or forgotten part " + token);
+            return;
+        }
+
+        int status = deliveryStatus(intent);
+        if (status == STATUS_PENDING) {
+            Log.d(TAG, "SMS part to " + delivery.recipient + " not delivered yet");
+            return;
+        }
+        deliveriesByToken.remove(token);
+        delivery.tokens.remove(Integer.valueOf(token));
+
+        if (status == STATUS_FAILED) {
+            Log.w(TAG, "SMS to " + delivery.recipient + " was not delivered");
+            forget(delivery);
+            deliveryListener.onDelivery(delivery.tag, delivery.recipient, false);
+        } else if (delivery.tokens.isEmpty()) {
+            Log.d(TAG, "SMS delivered to " + delivery.recipient);
+            deliveryListener.onDelivery(delivery.tag, delivery.recipient, true);
+        }
+    }
+
+    /**
+     * Read the status report PDU of a delivery broadcast.
+     * GSM TP-Status 0x00-0x1F means delivered and 0x20-0x3F that the SMSC is still trying;
+     * CDMA reports 0 for delivered.
+     */
+    private static int deliveryStatus(Intent intent) {
+        byte[] pdu = intent.getByteArrayExtra("pdu");
+        if (pdu == null) {
+            return STATUS_FAILED;
+        }
+        String format = intent.getStringExtra("format");
+        SmsMessage report = SmsMessage.createFromPdu(pdu, format);
+        if (report == null) {
+            return STATUS_FAILED;
+        }
+        int status = report.getStatus();
+        if ("3gpp2".equals(format)) {
+            return status == 0 ? STATUS_DELIVERED : STATUS_FAILED;
+        }
+        if (status < 0x20) {
+            return STATUS_DELIVERED;
+        }
+        return status < 0x40 ? STATUS_PENDING : STATUS_FAILED;
+    }
+
+    /**
+     * Stop waiting for the remaining delivery reports of a recipient.
+     */
+    private void forget(Delivery delivery) {
+        for (Integer token : delivery.tokens) {
+            deliveriesByToken.remove(token);
+        }
+        delivery.tokens.clear();
+    }
+
+    /**
+     * Finish a recipient: free its window slot, drop its outstanding parts and let the next one go.
+     */
+    private void complete(Send send, boolean success) {
+        if (send.done) {
+            return;
+        }
+        send.done = true;
+        mainHandler.removeCallbacks(send.timeout);
+        for (Integer token : send.tokens) {
+            partsByToken.remove(token);
+        }
+        send.tokens.clear();
+        if (!success && send.delivery != null) {
+            // Never sent, so no delivery report will come; the sent status already says it failed
+            forget(send.delivery);
+        }
+        inFlight--;
+        send.command.finish(success);
+        pump();
+    }
+
+    private static String describe(int resultCode) {
+        switch (resultCode) {
+            case SmsManager.RESULT_ERROR_GENERIC_FAILURE:
+                return "Generic failure";
+            case SmsManager.RESULT_ERROR_NO_SERVICE:
+                return "No service";
+            case SmsManager.RESULT_ERROR_NULL_PDU:
+                return "Null PDU";
+            case SmsManager.RESULT_ERROR_RADIO_OFF:
+                return "Radio off";
+            default:
+                return "code " + resultCode;
+        }
+    }
+
+    /**
+     * One sendSms call, reported once all its recipients are done.
+     */
+    private final class Command {
+        final List<String> recipients;
+        final String tag;
+        final SendCallback callback;
+        int remaining;
+        int successCount;
+        int failureCount;
+
+        Command(List<String> recipients, String tag, SendCallback callback) {
+            this.recipients = recipients;
+            this.tag = tag;
+            this.callback = callback;
+            this.remaining = recipients.size();
+        }
+
+        void finish(boolean success) {
+            if (success) {
+                successCount++;
+            } else {
+                failureCount++;
+            }
+            if (--remaining == 0) {
+                Log.d(TAG, "SMS sending complete: " + successCount + " succeeded, " + failureCount + " failed");
+                if (callback != null) {
+                    callback.onResult(recipients, successCount, failureCount);
+                }
             }
-            callbackCalled[0] = true;
         }
+    }
 
-        try {
-            ctx.unregisterReceiver(receiver);
-        } catch (Exception e) {
-            // Ignore - receiver may already be unregistered
+    /**
+     * One recipient of a command; done when every part has a sent status or the timeout passes.
+     */
+    private final class Send {
+        final Command command;
+        final SmsManager smsManager;
+        final String recipient;
+        final ArrayList<String> parts;
+        final List<Integer> tokens = new ArrayList<>();
+        final Runnable timeout;
+        Delivery delivery;
+        boolean failed;
+        boolean done;
+
+        Send(Command command, SmsManager smsManager, String recipient, ArrayList<String> parts) {
+            this.command = command;
+            this.smsManager = smsManager;
+            this.recipient = recipient;
+            this.parts = parts;
+            this.timeout = () -> {
+                Log.w(TAG, "SMS send timeout for " + recipient + " - counting it as failed");
+                complete(this, false);
+            };
         }
+    }
 
-        Log.d(TAG, "SMS sending complete: " + success + " succeeded, " + failure + " failed");
+    /**
+     * One recipient of a tagged command waiting for the delivery reports of its parts.
+     */
+    private static final class Delivery {
+        final String tag;
+        final String recipient;
+        final List<Integer> tokens;
 
-        if (callback != null) {
-            mainHandler.post(() -> callback.onResult(recipients, success, failure));
+        Delivery(String tag, String recipient, int parts) {
+            this.tag = tag;
+            this.recipient = recipient;
+            this.tokens = new ArrayList<>(parts);
         }
     }
 }
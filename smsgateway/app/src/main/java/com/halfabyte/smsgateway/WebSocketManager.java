@@ -5,12 +5,19 @@ import android.os.Looper;
 import android.util.Log;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.halfabyte.smsgateway.models.IncomingSmsMessage;
 import com.halfabyte.smsgateway.models.SendSmsCommand;
+import com.halfabyte.smsgateway.models.SmsDeliveryReport;
 import com.halfabyte.smsgateway.models.SmsSentConfirmation;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.OkHttpClient;
@@ -22,12 +29,29 @@ import okhttp3.WebSocketListener;
 /**
  * Manages WebSocket connection to the backend server.
  * Handles connection, reconnection, and message parsing.
+ *
+ * Speaks gateway protocol v2: every incoming_sms and sms_sent frame gets a sequence number
+ * and is kept until the server acknowledges it, so an SMS received while the connection is
+ * down is sent once it is back instead of being dropped. On connect the app says hello with
+ * its stream id and the last server frame it saw; both sides then replay what the other
+ * missed. Server frames that arrive twice are acknowledged again but not handled twice.
+ *
+ * The hello also offers batching. If the server accepts, frames produced close together (a
+ * burst of received SMS, the confirmations of a broadcast) are held for a moment and sent as
+ * one batch message, and server batches are answered with a single ack. Fewer, larger messages
+ * compress better under permessage-deflate, which OkHttp negotiates on connect, and wake the
+ * radio less often.
  */
 public class WebSocketManager extends WebSocketListener {
     private static final String TAG = "WebSocketManager";
     private static final int NORMAL_CLOSURE_STATUS = 1000;
     private static final long INITIAL_RECONNECT_DELAY = 1000; // 1 second
     private static final long MAX_RECONNECT_DELAY = 30000; // 30 seconds
+    private static final int PROTOCOL_VERSION = 2;
+    private static final int MAX_UNACKED = 500;
+    private static final int MAX_BATCH = 50;
+    private static final long BATCH_LINGER_MS = 50;
+    public static final long NO_QUEUE_ID = 0;
 
     public enum ConnectionState {
         DISCONNECTED,
@@ -40,6 +64,11 @@ public class WebSocketManager extends WebSocketListener {
 
         void onSendSmsCommand(SendSmsCommand command);
 
+        /**
+         * The backend acknowledged incoming SMS sent with these queue ids.
+         */
+        void onIncomingSmsAcked(List<Long> queueIds);
+
         void onError(String error);
     }
 
@@ -47,6 +76,7 @@ public class WebSocketManager extends WebSocketListener {
     private final Gson gson;
     private final Handler mainHandler;
     private final WebSocketCallback callback;
+    private final String deviceId;
 
     private WebSocket webSocket;
     private String serverUrl;
@@ -55,8 +85,26 @@ public class WebSocketManager extends WebSocketListener {
     private long reconnectDelay = INITIAL_RECONNECT_DELAY;
     private Runnable reconnectRunnable;
 
-    public WebSocketManager(WebSocketCallback callback) {
+    // Protocol v2 stream state, guarded by streamLock; it survives reconnects
+    private final Object streamLock = new Object();
+    private final TreeMap<Long, Frame> unacked = new TreeMap<>();
+    private String streamId;
+    private long nextSeq = 1;
+    private long lastReceived;
+    private boolean handshakeComplete;
+    // Batch size agreed in the hello (0 = frames sent one by one) and frames waiting to be batched
+    private int batchLimit;
+    private final List<JsonObject> outgoing = new ArrayList<>();
+    private final Runnable flushRunnable = this::flushOutgoing;
+
+    /**
+     * @param callback Receives connection state changes and commands
+     * @param deviceId Stable id of this phone; the backend uses it to keep the same
+     *                 share of recipients when the phone reconnects
+     */
+    public WebSocketManager(WebSocketCallback callback, String deviceId) {
         this.callback = callback;
+        this.deviceId = deviceId;
         this.gson = new Gson();
         this.mainHandler = new Handler(Looper.getMainLooper());
         this.client = new OkHttpClient.Builder()
@@ -83,11 +131,15 @@ public class WebSocketManager extends WebSocketListener {
 
         setState(ConnectionState.CONNECTING);
 
-        Request request = new Request.Builder()
-                .url(url)
-                .build();
+        webSocket = client.newWebSocket(buildRequest(url), this);
+    }
 
-        webSocket = client.newWebSocket(request, this);
+    private Request buildRequest(String url) {
+        Request.Builder builder = new Request.Builder().url(url);
+        if (deviceId != null) {
+            builder.header("X-Device-Id", deviceId);
+        }
+        return builder.build();
     }
 
     /**
@@ -107,31 +159,42 @@ public class WebSocketManager extends WebSocketListener {
 
     /**
      * Send an incoming SMS message to the backend.
+     * The message id lets the backend drop the message if it arrives twice.
+     * If not connected, the message is sent after the next reconnect.
+     *
+     * @param autoAcked Whether the sender already got a local emergency acknowledgement from this phone
+     * @param queueId   Id in the durable inbound queue, reported back through
+     *                  {@link WebSocketCallback#onIncomingSmsAcked} once the backend has the message
      */
-    public void sendIncomingSms(String sender, String message) {
-        if (state != ConnectionState.CONNECTED || webSocket == null) {
-            Log.w(TAG, "Cannot send message - not connected");
-            return;
-        }
-
-        IncomingSmsMessage smsMessage = new IncomingSmsMessage(sender, message);
-        String json = gson.toJson(smsMessage);
-        webSocket.send(json);
-        Log.d(TAG, "Sent incoming SMS to backend: " + json);
+    public void sendIncomingSms(String sender, String message, String messageId, boolean autoAcked, long queueId) {
+        IncomingSmsMessage smsMessage = new IncomingSmsMessage(sender, message, messageId);
+        smsMessage.setAutoAcked(autoAcked);
+        sendReliable(gson.toJsonTree(smsMessage).getAsJsonObject(), queueId);
     }
 
     /**
      * Send SMS sent confirmation to the backend.
+     * If not connected, the confirmation is sent after the next reconnect.
      */
     public void sendSmsConfirmation(SmsSentConfirmation confirmation) {
-        if (state != ConnectionState.CONNECTED || webSocket == null) {
-            Log.w(TAG, "Cannot send confirmation - not connected");
-            return;
-        }
+        sendReliable(gson.toJsonTree(confirmation).getAsJsonObject(), NO_QUEUE_ID);
+    }
 
-        String json = gson.toJson(confirmation);
-        webSocket.send(json);
-        Log.d(TAG, "Sent SMS confirmation to backend: " + json);
+    /**
+     * Send an SMS delivery report to the backend.
+     * If not connected, the report is sent after the next reconnect.
+     */
+    public void sendDeliveryReport(SmsDeliveryReport report) {
+        sendReliable(gson.toJsonTree(report).getAsJsonObject(), NO_QUEUE_ID);
+    }
+
+    /**
+     * Get the number of frames the server has not acknowledged yet.
+     */
+    public int getUnackedCount() {
+        synchronized (streamLock) {
+            return unacked.size();
+        }
     }
 
     public ConnectionState getState() {
@@ -144,6 +207,21 @@ public class WebSocketManager extends WebSocketListener {
     public void onOpen(WebSocket webSocket, Response response) {
         Log.d(TAG, "WebSocket connected");
         reconnectDelay = INITIAL_RECONNECT_DELAY;
+
+        // Resume handshake: frames are held back until the server answers
+        JsonObject hello = new JsonObject();
+        hello.addProperty("type", "hello");
+        hello.addProperty("version", PROTOCOL_VERSION);
+        hello.addProperty("batch", MAX_BATCH);
+        synchronized (streamLock) {
+            handshakeComplete = false;
+            if (streamId != null) {
+                hello.addProperty("stream", streamId);
+            }
+            hello.addProperty("ack", lastReceived);
+        }
+        webSocket.send(hello.toString());
+
         mainHandler.post(() -> setState(ConnectionState.CONNECTED));
     }
 
@@ -155,15 +233,17 @@ public class WebSocketManager extends WebSocketListener {
             JsonObject json = JsonParser.parseString(text).getAsJsonObject();
             String type = json.has("type") ? json.get("type").getAsString() : "";
 
-            if ("send_sms".equals(type)) {
-                SendSmsCommand command = gson.fromJson(text, SendSmsCommand.class);
-                mainHandler.post(() -> {
-                    if (callback != null) {
-                        callback.onSendSmsCommand(command);
-                    }
-                });
+            boolean sequenced = false;
+            if ("batch".equals(type)) {
+                // Handle the frames in order and acknowledge them together
+                for (JsonElement frame : json.getAsJsonArray("frames")) {
+                    sequenced |= dispatch(webSocket, frame.getAsJsonObject());
+                }
             } else {
-                Log.w(TAG, "Unknown message type: " + type);
+                sequenced = dispatch(webSocket, json);
+            }
+            if (sequenced) {
+                sendAck(webSocket);
             }
         } catch (Exception e) {
             Log.e(TAG, "Failed to parse message", e);
@@ -183,6 +263,7 @@ public class WebSocketManager extends WebSocketListener {
     @Override
     public void onClosed(WebSocket webSocket, int code, String reason) {
         Log.d(TAG, "WebSocket closed: " + code + " - " + reason);
+        endHandshake();
         mainHandler.post(() -> {
             setState(ConnectionState.DISCONNECTED);
             if (shouldReconnect) {
@@ -194,6 +275,7 @@ public class WebSocketManager extends WebSocketListener {
     @Override
     public void onFailure(WebSocket webSocket, Throwable t, Response response) {
         Log.e(TAG, "WebSocket failure", t);
+        endHandshake();
         mainHandler.post(() -> {
             setState(ConnectionState.DISCONNECTED);
             if (callback != null) {
@@ -207,6 +289,201 @@ public class WebSocketManager extends WebSocketListener {
 
     // Private methods
 
+    /**
+     * Handle a single server frame.
+     *
+     * @return true if it was a sequenced frame, which must be acknowledged
+     */
+    private boolean dispatch(WebSocket socket, JsonObject json) {
+        String type = json.has("type") ? json.get("type").getAsString() : "";
+
+        if ("hello".equals(type)) {
+            handleHello(socket, json);
+        } else if ("ack".equals(type)) {
+            handleAck(json.get("ack").getAsLong());
+        } else if ("send_sms".equals(type)) {
+            boolean sequenced = json.has("seq");
+            if (sequenced && !receive(json.get("seq").getAsLong())) {
+                return true;
+            }
+            SendSmsCommand command = gson.fromJson(json, SendSmsCommand.class);
+            mainHandler.post(() -> {
+                if (callback != null) {
+                    callback.onSendSmsCommand(command);
+                }
+            });
+            return sequenced;
+        } else {
+            Log.w(TAG, "Unknown message type: " + type);
+        }
+        return false;
+    }
+
+    private void sendReliable(JsonObject frame, long queueId) {
+        synchronized (streamLock) {
+            long seq = nextSeq++;
+            frame.addProperty("seq", seq);
+            unacked.put(seq, new Frame(frame, queueId));
+            while (unacked.size() > MAX_UNACKED) {
+                Log.w(TAG, "Replay buffer full, dropping frame " + unacked.firstKey());
+                unacked.pollFirstEntry();
+            }
+
+            if (handshakeComplete && webSocket != null && batchLimit > 1) {
+                outgoing.add(frame);
+                if (outgoing.size() >= batchLimit) {
+                    mainHandler.removeCallbacks(flushRunnable);
+                    sendFrames(webSocket, outgoing);
+                    outgoing.clear();
+                } else if (outgoing.size() == 1) {
+                    mainHandler.postDelayed(flushRunnable, BATCH_LINGER_MS);
+                }
+            } else if (handshakeComplete && webSocket != null) {
+                webSocket.send(frame.toString());
+                Log.d(TAG, "Sent to backend: " + frame);
+            } else {
+                Log.w(TAG, "Not connected, frame " + seq + " queued until reconnect");
+            }
+        }
+    }
+
+    /**
+     * Server's answer to our hello: drop what it already has, or start numbering over if it
+     * did not know our stream, then replay everything it has not acknowledged.
+     */
+    private void handleHello(WebSocket socket, JsonObject json) {
+        boolean resumed = json.has("resumed") && json.get("resumed").getAsBoolean();
+        long ack = json.has("ack") ? json.get("ack").getAsLong() : 0;
+
+        synchronized (streamLock) {
+            if (resumed) {
+                acknowledge(ack);
+            } else {
+                List<Frame> pending = new ArrayList<>(unacked.values());
+                unacked.clear();
+                nextSeq = 1;
+                lastReceived = 0;
+                for (Frame frame : pending) {
+                    frame.json.addProperty("seq", nextSeq);
+                    unacked.put(nextSeq++, frame);
+                }
+            }
+            streamId = json.has("stream") ? json.get("stream").getAsString() : null;
+            batchLimit = json.has("batch") ? Math.min(json.get("batch").getAsInt(), MAX_BATCH) : 0;
+            handshakeComplete = true;
+
+            Log.d(TAG, "Stream " + (resumed ? "resumed" : "started") + ", batch " + batchLimit
+                    + ", replaying " + unacked.size() + " frame(s)");
+            List<JsonObject> replay = new ArrayList<>();
+            for (Frame frame : unacked.values()) {
+                replay.add(frame.json);
+            }
+            sendFrames(socket, replay);
+        }
+    }
+
+    /**
+     * Send frames in order, in batches if the server accepts them, otherwise one by one.
+     * Called with streamLock held.
+     */
+    private void sendFrames(WebSocket socket, List<JsonObject> frames) {
+        if (batchLimit <= 1) {
+            for (JsonObject frame : frames) {
+                socket.send(frame.toString());
+            }
+            return;
+        }
+        for (int from = 0; from < frames.size(); from += batchLimit) {
+            List<JsonObject> chunk = frames.subList(from, Math.min(from + batchLimit, frames.size()));
+            if (chunk.size() == 1) {
+                socket.send(chunk.get(0).toString());
+                continue;
+            }
+            JsonArray array = new JsonArray();
+            for (JsonObject frame : chunk) {
+                array.add(frame);
+            }
+            JsonObject batch = new JsonObject();
+            batch.addProperty("type", "batch");
+            batch.add("frames", array);
+            socket.send(batch.toString());
+            Log.d(TAG, "Sent batch of " + chunk.size() + " frame(s) to backend");
+        }
+    }
+
+    private void flushOutgoing() {
+        synchronized (streamLock) {
+            if (handshakeComplete && webSocket != null && !outgoing.isEmpty()) {
+                sendFrames(webSocket, outgoing);
+            }
+            outgoing.clear();
+        }
+    }
+
+    private void handleAck(long ack) {
+        synchronized (streamLock) {
+            acknowledge(ack);
+        }
+    }
+
+    /**
+     * Drop acknowledged frames and tell the service which queued SMS the backend now has.
+     * Called with streamLock held.
+     */
+    private void acknowledge(long ack) {
+        Map<Long, Frame> acked = unacked.headMap(ack, true);
+        List<Long> queueIds = new ArrayList<>();
+        for (Frame frame : acked.values()) {
+            if (frame.queueId != NO_QUEUE_ID) {
+                queueIds.add(frame.queueId);
+            }
+        }
+        acked.clear();
+
+        if (!queueIds.isEmpty()) {
+            mainHandler.post(() -> {
+                if (callback != null) {
+                    callback.onIncomingSmsAcked(queueIds);
+                }
+            });
+        }
+    }
+
+    /**
+     * Record a sequenced server frame and report whether it is new.
+     */
+    private boolean receive(long seq) {
+        boolean fresh;
+        synchronized (streamLock) {
+            fresh = seq > lastReceived;
+            if (fresh) {
+                lastReceived = seq;
+            }
+        }
+        if (!fresh) {
+            Log.d(TAG, "Ignoring replayed frame " + seq);
+        }
+        return fresh;
+    }
+
+    private void sendAck(WebSocket socket) {
+        JsonObject ackFrame = new JsonObject();
+        ackFrame.addProperty("type", "ack");
+        synchronized (streamLock) {
+            ackFrame.addProperty("ack", lastReceived);
+        }
+        socket.send(ackFrame.toString());
+    }
+
+    private void endHandshake() {
+        synchronized (streamLock) {
+            handshakeComplete = false;
+            // Frames waiting to be batched are still unacknowledged and go out in the replay
+            outgoing.clear();
+        }
+        mainHandler.removeCallbacks(flushRunnable);
+    }
+
     private void setState(ConnectionState newState) {
         if (state != newState) {
             state = newState;
@@ -226,11 +503,7 @@ public class WebSocketManager extends WebSocketListener {
                 Log.d(TAG, "Attempting to reconnect...");
                 setState(ConnectionState.CONNECTING);
 
-                Request request = new Request.Builder()
-                        .url(serverUrl)
-                        .build();
-
-                webSocket = client.newWebSocket(request, this);
+                webSocket = client.newWebSocket(buildRequest(serverUrl), this);
             }
         };
 
@@ -246,4 +519,17 @@ public class WebSocketManager extends WebSocketListener {
             reconnectRunnable = null;
         }
     }
+
+    /**
+     * A sent frame waiting for the server's ack, with the durable queue id of the SMS it carries.
+     */
+    private static final class Frame {
+        final JsonObject json;
+        final long queueId;
+
+        Frame(JsonObject json, long queueId) {
+            this.json = json;
+            this.queueId = queueId;
+        }
+    }
 }
@@ -8,10 +8,13 @@ public class IncomingSmsMessage {
     private String sender;
     private String message;
     private long timestamp;
+    private String messageId;
+    private Boolean autoAcked; // only sent when true
 
-    public IncomingSmsMessage(String sender, String message) {
+    public IncomingSmsMessage(String sender, String message, String messageId) {
         this.sender = sender;
         this.message = message;
+        this.messageId = messageId;
         this.timestamp = System.currentTimeMillis();
     }
 
@@ -42,4 +45,20 @@ public class IncomingSmsMessage {
     public void setTimestamp(long timestamp) {
         this.timestamp = timestamp;
     }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(String messageId) {
+        this.messageId = messageId;
+    }
+
+    public boolean isAutoAcked() {
+        return autoAcked != null && autoAcked;
+    }
+
+    public void setAutoAcked(boolean autoAcked) {
+        this.autoAcked = autoAcked ? Boolean.TRUE : null;
+    }
 }
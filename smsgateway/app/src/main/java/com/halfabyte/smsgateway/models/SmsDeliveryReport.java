@@ -0,0 +1,34 @@
+package com.halfabyte.smsgateway.models;
+
+/**
+ * Represents a delivery report sent to the backend when the network reports
+ * whether an SMS reached one recipient.
+ */
+public class SmsDeliveryReport {
+    private final String type = "sms_delivered";
+    private String request_id;
+    private String recipient;
+    private String status;
+
+    public SmsDeliveryReport(String requestId, String recipient, boolean delivered) {
+        this.request_id = requestId;
+        this.recipient = recipient;
+        this.status = delivered ? "delivered" : "failed";
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getRequestId() {
+        return request_id;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,131 @@
+package com.halfabyte.smsgateway;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for FileInboundSmsQueue: journal replay, torn writes, compaction and ids across restarts.
+ */
+public class FileInboundSmsQueueTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private FileInboundSmsQueue queue;
+
+    @Before
+    public void setUp() throws IOException {
+        file = new File(folder.getRoot(), "inbound.journal");
+        queue = new FileInboundSmsQueue(file);
+    }
+
+    @After
+    public void tearDown() {
+        queue.close();
+    }
+
+    private void reopen() throws IOException {
+        queue.close();
+        queue = new FileInboundSmsQueue(file);
+    }
+
+    private List<Long> pendingIds() {
+        List<Long> ids = new ArrayList<>();
+        for (InboundSmsQueue.Entry entry : queue.peek(0, Integer.MAX_VALUE)) {
+            ids.add(entry.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void keepsEntriesAcrossRestart() throws IOException {
+        queue.enqueue("+249912345678", "SOS", "m1");
+        queue.enqueue("+249912345679", "HELP", null);
+
+        reopen();
+
+        List<InboundSmsQueue.Entry> entries = queue.peek(0, 10);
+        assertEquals(2, entries.size());
+        assertEquals("+249912345678", entries.get(0).getSender());
+        assertEquals("SOS", entries.get(0).getMessage());
+        assertEquals("m1", entries.get(0).getMessageId());
+        assertNull(entries.get(1).getMessageId());
+    }
+
+    @Test
+    public void skipsTornLastLine() throws IOException {
+        queue.enqueue("+249912345678", "one", "m1");
+        queue.enqueue("+249912345678", "two", "m2");
+        queue.close();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)) {
+            writer.write("{\"op\":\"add\",\"id\":3,\"sender\":\"+2499");
+        }
+
+        queue = new FileInboundSmsQueue(file);
+
+        assertEquals(List.of(1L, 2L), pendingIds());
+        assertEquals(3L, queue.enqueue("+249912345678", "three", "m3"));
+    }
+
+    @Test
+    public void replaysAcksOnLoad() throws IOException {
+        queue.enqueue("+249912345678", "one", "m1");
+        queue.enqueue("+249912345678", "two", "m2");
+        queue.enqueue("+249912345678", "three", "m3");
+        queue.ack(2);
+
+        reopen();
+
+        assertEquals(List.of(3L), pendingIds());
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void compactsAfterManyAcks() throws IOException {
+        for (int i = 0; i < 200; i++) {
+            long id = queue.enqueue("+249912345678", "message " + i, "m" + i);
+            queue.ack(id);
+        }
+        long pending = queue.enqueue("+249912345678", "pending", "p1");
+
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"op\":\"next\""));
+
+        reopen();
+
+        assertEquals(List.of(pending), pendingIds());
+    }
+
+    @Test
+    public void keepsIdsIncreasingAfterCompactingToEmpty() throws IOException {
+        queue.enqueue("+249912345678", "one", "m1");
+        long last = queue.enqueue("+249912345678", "two", "m2");
+        queue.ack(last);
+
+        // The first reopen compacts to an empty journal, the second reads only that
+        reopen();
+        reopen();
+
+        assertEquals(0, queue.size());
+        assertEquals(last + 1, queue.enqueue("+249912345678", "three", "m3"));
+    }
+}